@@ -0,0 +1,403 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.benchmarks;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Scores of a benchmark run, read from the JSON file JMH writes when run
+ * with {@code -rf json -rff <file>}. Each score is keyed by the benchmark
+ * name followed by its parameters, and the normalized allocation rate
+ * reported by the {@code gc} profiler, when present, is kept as a score of
+ * its own so allocation regressions are caught as well.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class BenchmarkResults {
+    /**
+     * the secondary metric holding the bytes allocated per operation
+     */
+    static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    /**
+     * the scores, keyed by benchmark name and parameters
+     */
+    private final Map<String, Score> scores;
+
+    /**
+     * Creates a new {@linkplain BenchmarkResults}.
+     *
+     * @param scores the scores, keyed by benchmark name and parameters.
+     */
+    private BenchmarkResults(Map<String, Score> scores) {
+        this.scores = Collections.unmodifiableMap(scores);
+    }
+
+    /**
+     * Reads the results of a JMH run from its JSON result file.
+     *
+     * @param file the JSON result file.
+     * @return the {@linkplain BenchmarkResults} held by the file.
+     * @throws IOException if the file cannot be read or is not a JMH result
+     * file.
+     */
+    public static BenchmarkResults read(File file) throws IOException {
+        Reader reader = new InputStreamReader(new FileInputStream(file),
+                "UTF-8");
+        try {
+            StringBuilder json = new StringBuilder();
+            char[] buffer = new char[8192];
+            for (int n; (n = reader.read(buffer)) != -1; ) {
+                json.append(buffer, 0, n);
+            }
+            return parse(json);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Parses the results of a JMH run from its JSON representation.
+     *
+     * @param json the content of a JMH JSON result file.
+     * @return the {@linkplain BenchmarkResults} held by the document.
+     * @throws IOException if the document is not a JMH result document.
+     */
+    public static BenchmarkResults parse(CharSequence json) throws IOException {
+        Object document = new Parser(json).parse();
+        if (!(document instanceof List)) {
+            throw new IOException("not a JMH result document");
+        }
+        Map<String, Score> scores = new TreeMap<String, Score>();
+        for (Object element : (List<?>) document) {
+            Map<?, ?> result = (Map<?, ?>) element;
+            String mode = (String) result.get("mode");
+            String key = key((String) result.get("benchmark"),
+                    (Map<?, ?>) result.get("params"));
+            scores.put(key, score(mode, (Map<?, ?>) result.get(
+                    "primaryMetric")));
+            Map<?, ?> secondary = (Map<?, ?>) result.get("secondaryMetrics");
+            if (secondary != null &&
+                    secondary.get(ALLOCATION_METRIC) != null) {
+                // fewer bytes are always better, whatever the mode
+                scores.put(key + ":" + ALLOCATION_METRIC, score("avgt",
+                        (Map<?, ?>) secondary.get(ALLOCATION_METRIC)));
+            }
+        }
+        return new BenchmarkResults(scores);
+    }
+
+    /**
+     * Returns the scores of this run, keyed by benchmark name and
+     * parameters, sorted by key.
+     *
+     * @return an unmodifiable {@linkplain Map} of the scores.
+     */
+    public Map<String, Score> getScores() {
+        return this.scores;
+    }
+
+    /**
+     * Private helper method that builds the key of a result.
+     *
+     * @param benchmark the fully qualified benchmark method name.
+     * @param params the parameters of the result, may be {@code null}.
+     * @return the key of the result.
+     */
+    private static String key(String benchmark, Map<?, ?> params) {
+        if (params == null || params.isEmpty()) {
+            return benchmark;
+        }
+        return benchmark + new TreeMap<Object, Object>(params);
+    }
+
+    /**
+     * Private helper method that reads a metric.
+     *
+     * @param mode the benchmark mode of the metric.
+     * @param metric the JSON object of the metric.
+     * @return the {@linkplain Score} of the metric.
+     */
+    private static Score score(String mode, Map<?, ?> metric) {
+        return new Score(!"thrpt".equals(mode), number(metric.get("score")),
+                number(metric.get("scoreError")),
+                (String) metric.get("scoreUnit"));
+    }
+
+    /**
+     * Private helper method that reads a JSON number, which JMH writes as
+     * the string {@code "NaN"} when it is not defined.
+     *
+     * @param value the JSON value.
+     * @return the number, or {@linkplain Double#NaN}.
+     */
+    private static double number(Object value) {
+        return (value instanceof Number) ? ((Number) value).doubleValue() :
+                Double.NaN;
+    }
+
+    /**
+     * Score of a benchmark metric with its error margin.
+     *
+     * @author Angel L. Villalain Garcia
+     * @version 1.0.0
+     * @since 1.0.0
+     */
+    public static final class Score {
+        private final boolean lowerIsBetter;
+        private final double value;
+        private final double error;
+        private final String unit;
+
+        Score(boolean lowerIsBetter, double value, double error,
+              String unit) {
+            this.lowerIsBetter = lowerIsBetter;
+            this.value = value;
+            this.error = error;
+            this.unit = unit;
+        }
+
+        /**
+         * Returns whether a lower score is a better one, as for the average
+         * time, and unlike the throughput.
+         *
+         * @return {@code true} if lower scores are better.
+         */
+        public boolean isLowerBetter() {
+            return this.lowerIsBetter;
+        }
+
+        public double getValue() {
+            return this.value;
+        }
+
+        /**
+         * Returns the error margin of the score, at the confidence level
+         * JMH reports, {@code 99.9%} by default.
+         *
+         * @return the error margin, or {@linkplain Double#NaN} if it is not
+         * known.
+         */
+        public double getError() {
+            return this.error;
+        }
+
+        public String getUnit() {
+            return this.unit;
+        }
+    }
+
+    /**
+     * Minimal JSON parser, enough for the JMH result files: objects become
+     * {@linkplain LinkedHashMap} instances, arrays {@linkplain ArrayList}
+     * instances and numbers {@linkplain Double} instances.
+     */
+    private static final class Parser {
+        private final CharSequence json;
+        private int position;
+
+        private Parser(CharSequence json) {
+            this.json = json;
+        }
+
+        private Object parse() throws IOException {
+            Object value = this.value();
+            this.skipWhitespace();
+            if (this.position != this.json.length()) {
+                throw this.error("trailing content");
+            }
+            return value;
+        }
+
+        private Object value() throws IOException {
+            this.skipWhitespace();
+            if (this.position == this.json.length()) {
+                throw this.error("unexpected end");
+            }
+            char c = this.json.charAt(this.position);
+            switch (c) {
+                case '{':
+                    return this.object();
+                case '[':
+                    return this.array();
+                case '"':
+                    return this.string();
+                case 't':
+                    return this.literal("true", Boolean.TRUE);
+                case 'f':
+                    return this.literal("false", Boolean.FALSE);
+                case 'n':
+                    return this.literal("null", null);
+                default:
+                    return this.number();
+            }
+        }
+
+        private Map<String, Object> object() throws IOException {
+            Map<String, Object> object = new LinkedHashMap<String, Object>();
+            this.position++;
+            this.skipWhitespace();
+            if (this.peek() == '}') {
+                this.position++;
+                return object;
+            }
+            do {
+                this.skipWhitespace();
+                String key = this.string();
+                this.skipWhitespace();
+                this.expect(':');
+                object.put(key, this.value());
+                this.skipWhitespace();
+            } while (this.accept(','));
+            this.expect('}');
+            return object;
+        }
+
+        private List<Object> array() throws IOException {
+            List<Object> array = new ArrayList<Object>();
+            this.position++;
+            this.skipWhitespace();
+            if (this.peek() == ']') {
+                this.position++;
+                return array;
+            }
+            do {
+                array.add(this.value());
+                this.skipWhitespace();
+            } while (this.accept(','));
+            this.expect(']');
+            return array;
+        }
+
+        private String string() throws IOException {
+            this.expect('"');
+            StringBuilder string = new StringBuilder();
+            while (true) {
+                if (this.position == this.json.length()) {
+                    throw this.error("unterminated string");
+                }
+                char c = this.json.charAt(this.position++);
+                if (c == '"') {
+                    return string.toString();
+                } else if (c != '\\') {
+                    string.append(c);
+                    continue;
+                }
+                char escaped = this.json.charAt(this.position++);
+                switch (escaped) {
+                    case 'b':
+                        string.append('\b');
+                        break;
+                    case 'f':
+                        string.append('\f');
+                        break;
+                    case 'n':
+                        string.append('\n');
+                        break;
+                    case 'r':
+                        string.append('\r');
+                        break;
+                    case 't':
+                        string.append('\t');
+                        break;
+                    case 'u':
+                        string.append((char) Integer.parseInt(
+                                this.json.subSequence(this.position,
+                                        this.position + 4).toString(), 16));
+                        this.position += 4;
+                        break;
+                    default:
+                        string.append(escaped);
+                }
+            }
+        }
+
+        private Double number() throws IOException {
+            int start = this.position;
+            while (this.position < this.json.length() &&
+                    "+-0123456789.eE".indexOf(
+                            this.json.charAt(this.position)) >= 0) {
+                this.position++;
+            }
+            try {
+                return Double.valueOf(this.json.subSequence(start,
+                        this.position).toString());
+            } catch (NumberFormatException e) {
+                throw this.error("invalid number");
+            }
+        }
+
+        private Object literal(String literal, Object value)
+                throws IOException {
+            int end = this.position + literal.length();
+            if (end > this.json.length() || !literal.equals(
+                    this.json.subSequence(this.position, end).toString())) {
+                throw this.error("invalid literal");
+            }
+            this.position = end;
+            return value;
+        }
+
+        private void skipWhitespace() {
+            while (this.position < this.json.length() &&
+                    Character.isWhitespace(this.json.charAt(this.position))) {
+                this.position++;
+            }
+        }
+
+        private char peek() {
+            return (this.position < this.json.length()) ?
+                    this.json.charAt(this.position) : 0;
+        }
+
+        private boolean accept(char c) {
+            if (this.peek() == c) {
+                this.position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) throws IOException {
+            if (!this.accept(c)) {
+                throw this.error("expected '" + c + "'");
+            }
+        }
+
+        private IOException error(String message) {
+            return new IOException(message + " at offset " + this.position);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares the results of a benchmark run with a stored baseline and flags
+ * the regressions, so every performance change can be measured against the
+ * previous state of the tree. A score regresses when it got worse by more
+ * than the threshold and by more than the sum of the error margins of both
+ * runs, so the noise of a single run is not reported. The usual workflow:
+ * <pre>
+ * # store a baseline
+ * java -jar kusaidia-benchmarks/target/benchmarks.jar -prof gc \
+ *     -rf json -rff baseline.json
+ * # measure a change and compare it with the baseline
+ * java -jar kusaidia-benchmarks/target/benchmarks.jar -prof gc \
+ *     -rf json -rff current.json
+ * java -cp kusaidia-benchmarks/target/benchmarks.jar \
+ *     org.kusaidia.benchmarks.RegressionCheck baseline.json current.json 10
+ * </pre>
+ * The process exits with status {@code 1} when a regression is found, so it
+ * can gate a build.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class RegressionCheck {
+    /**
+     * the default threshold, in percent of the baseline score
+     */
+    public static final double DEFAULT_THRESHOLD = 10.0;
+
+    private final double threshold;
+
+    /**
+     * Creates a new {@linkplain RegressionCheck}.
+     *
+     * @param threshold the threshold, in percent of the baseline score.
+     */
+    public RegressionCheck(double threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("threshold must not be " +
+                    "negative");
+        }
+        this.threshold = threshold;
+    }
+
+    /**
+     * Compares the results of two runs given as JMH JSON result files.
+     *
+     * @param args the baseline file, the current file and an optional
+     * threshold in percent.
+     */
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("usage: RegressionCheck <baseline.json> " +
+                    "<current.json> [threshold percent]");
+            System.exit(2);
+        }
+        try {
+            RegressionCheck check = new RegressionCheck((args.length == 3) ?
+                    Double.parseDouble(args[2]) : DEFAULT_THRESHOLD);
+            List<String> regressions = check.compare(
+                    BenchmarkResults.read(new File(args[0])),
+                    BenchmarkResults.read(new File(args[1])), System.out);
+            System.out.println(regressions.isEmpty() ? "no regressions" :
+                    regressions.size() + " regression(s): " + regressions);
+            System.exit(regressions.isEmpty() ? 0 : 1);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Compares the scores present in both runs, writing one line per score.
+     *
+     * @param baseline the {@linkplain BenchmarkResults} of the baseline.
+     * @param current the {@linkplain BenchmarkResults} of the run to check.
+     * @param out the {@linkplain PrintStream} receiving the report.
+     * @return the keys of the regressed scores.
+     */
+    public List<String> compare(BenchmarkResults baseline,
+                                BenchmarkResults current, PrintStream out) {
+        List<String> regressions = new ArrayList<String>();
+        for (Map.Entry<String, BenchmarkResults.Score> entry :
+                current.getScores().entrySet()) {
+            BenchmarkResults.Score before = baseline.getScores().get(
+                    entry.getKey());
+            BenchmarkResults.Score after = entry.getValue();
+            if (before == null) {
+                out.println(String.format(Locale.ROOT, "%-10s %s %.3f %s",
+                        "NEW", entry.getKey(), after.getValue(),
+                        after.getUnit()));
+                continue;
+            }
+            boolean regressed = this.isRegression(before, after);
+            if (regressed) {
+                regressions.add(entry.getKey());
+            }
+            out.println(String.format(Locale.ROOT,
+                    "%-10s %s %.3f -> %.3f %s (%+.1f%%)",
+                    regressed ? "REGRESSION" : "OK", entry.getKey(),
+                    before.getValue(), after.getValue(), after.getUnit(),
+                    change(before, after)));
+        }
+        return regressions;
+    }
+
+    /**
+     * Checks whether the specified score regressed from the baseline.
+     *
+     * @param before the baseline {@linkplain BenchmarkResults.Score}.
+     * @param after the current {@linkplain BenchmarkResults.Score}.
+     * @return {@code true} if the score got worse by more than the
+     * threshold and the error margins.
+     */
+    public boolean isRegression(BenchmarkResults.Score before,
+                                BenchmarkResults.Score after) {
+        double worse = before.isLowerBetter() ?
+                after.getValue() - before.getValue() :
+                before.getValue() - after.getValue();
+        if (worse <= 0) {
+            return false;
+        }
+        double margin = errorOf(before) + errorOf(after);
+        return worse > margin && (before.getValue() == 0 ||
+                worse * 100.0 / Math.abs(before.getValue()) > this.threshold);
+    }
+
+    /**
+     * Private helper method that returns the relative change of a score.
+     *
+     * @param before the baseline {@linkplain BenchmarkResults.Score}.
+     * @param after the current {@linkplain BenchmarkResults.Score}.
+     * @return the change, in percent of the baseline score.
+     */
+    private static double change(BenchmarkResults.Score before,
+                                 BenchmarkResults.Score after) {
+        return (before.getValue() == 0) ? 0.0 :
+                (after.getValue() - before.getValue()) * 100.0 /
+                        Math.abs(before.getValue());
+    }
+
+    /**
+     * Private helper method that returns the error margin of a score,
+     * zero when it is not known.
+     *
+     * @param score the {@linkplain BenchmarkResults.Score}.
+     * @return the error margin.
+     */
+    private static double errorOf(BenchmarkResults.Score score) {
+        return Double.isNaN(score.getError()) ? 0.0 : score.getError();
+    }
+}
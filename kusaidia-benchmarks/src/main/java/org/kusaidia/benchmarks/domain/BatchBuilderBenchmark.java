@@ -0,0 +1,115 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.benchmarks.domain;
+
+import org.kusaidia.domain.entities.Role;
+import org.kusaidia.domain.entities.User;
+import org.kusaidia.util.builder.BatchBuilder;
+import org.kusaidia.util.builder.BatchResult;
+import org.kusaidia.util.builder.ValidationAwareBuilder;
+import org.kusaidia.util.builder.ValidationMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.validation.ConstraintViolationException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures an import of {@link #BATCH_SIZE} users, one in a hundred of them
+ * with an invalid email, built one by one with {@linkplain
+ * User.Builder#build()} catching the {@linkplain
+ * ConstraintViolationException} of each invalid record, and built at once by
+ * a {@linkplain BatchBuilder} on all the available processors. Both run
+ * with each {@linkplain ValidationMode}; the score is per user.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchBuilderBenchmark {
+    private static final int BATCH_SIZE = 10000;
+
+    @Param({"FULL", "COMPILED"})
+    private ValidationMode mode;
+
+    private List<User.Builder> builders;
+
+    private BatchBuilder batchBuilder;
+
+    @Setup
+    public void setUp() {
+        Role role = Roles.create(Role.Type.ROLE_USER);
+        this.builders = new ArrayList<User.Builder>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            this.builders.add(new User.Builder().userName("user" + i)
+                    .email(i % 100 == 0 ? "user" + i : "user" + i + "@email.com")
+                    .password("password").role(role));
+        }
+        this.batchBuilder = new BatchBuilder();
+        ValidationAwareBuilder.setDefaultValidationMode(this.mode);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ValidationAwareBuilder.setDefaultValidationMode(ValidationMode.FULL);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<Object> buildEach() {
+        List<Object> outcomes = new ArrayList<Object>(BATCH_SIZE);
+        for (User.Builder builder : this.builders) {
+            try {
+                outcomes.add(builder.build());
+            } catch (ConstraintViolationException e) {
+                outcomes.add(e.getConstraintViolations());
+            }
+        }
+        return outcomes;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public BatchResult<User> buildAll() {
+        return this.batchBuilder.buildAll(this.builders);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.benchmarks.domain;
+
+import org.kusaidia.domain.entities.EnumEntity;
+import org.kusaidia.domain.entities.Role;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@linkplain EnumEntity#hashCode()}, {@linkplain
+ * EnumEntity#equals(Object)} and {@linkplain EnumEntity#toString()} hot
+ * paths of a {@linkplain Role}, which run whenever roles are put into the
+ * sets of a user or logged.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnumEntityBenchmark {
+    private Role role;
+
+    private Role sameType;
+
+    private Role otherType;
+
+    @Setup
+    public void setUp() {
+        this.role = Roles.create(Role.Type.ROLE_USER);
+        this.sameType = Roles.create(Role.Type.ROLE_USER);
+        this.otherType = Roles.create(Role.Type.ROLE_ADMINISTRATOR);
+    }
+
+    @Benchmark
+    public int hashCodeOf() {
+        return this.role.hashCode();
+    }
+
+    @Benchmark
+    public boolean equalsSameType() {
+        return this.role.equals(this.sameType);
+    }
+
+    @Benchmark
+    public boolean equalsOtherType() {
+        return this.role.equals(this.otherType);
+    }
+
+    @Benchmark
+    public String toStringOf() {
+        return this.role.toString();
+    }
+}
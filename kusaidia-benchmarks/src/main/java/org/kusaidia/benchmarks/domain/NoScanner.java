@@ -0,0 +1,88 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+
+package org.kusaidia.benchmarks.domain;
+
+import org.hibernate.ejb.packaging.NamedInputStream;
+import org.hibernate.ejb.packaging.Scanner;
+
+import java.lang.annotation.Annotation;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * A Hibernate {@linkplain Scanner} that finds nothing. The entities are
+ * listed by Spring, and the scanner of Hibernate cannot read the classes of
+ * the JMH runtime in the benchmarks jar.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class NoScanner implements Scanner {
+
+    /**
+     * @see Scanner#getPackagesInJar(URL, Set)
+     */
+    @Override
+    public Set<Package> getPackagesInJar(URL jar,
+            Set<Class<? extends Annotation>> annotationsToLookFor) {
+        return Collections.emptySet();
+    }
+
+    /**
+     * @see Scanner#getClassesInJar(URL, Set)
+     */
+    @Override
+    public Set<Class<?>> getClassesInJar(URL jar,
+            Set<Class<? extends Annotation>> annotationsToLookFor) {
+        return Collections.emptySet();
+    }
+
+    /**
+     * @see Scanner#getFilesInJar(URL, Set)
+     */
+    @Override
+    public Set<NamedInputStream> getFilesInJar(URL jar,
+            Set<String> filePatterns) {
+        return Collections.emptySet();
+    }
+
+    /**
+     * @see Scanner#getFilesInClasspath(Set)
+     */
+    @Override
+    public Set<NamedInputStream> getFilesInClasspath(Set<String> filePatterns) {
+        return Collections.emptySet();
+    }
+
+    /**
+     * @see Scanner#getUnqualifiedJarName(URL)
+     */
+    @Override
+    public String getUnqualifiedJarName(URL jar) {
+        String path = jar.getPath();
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+}
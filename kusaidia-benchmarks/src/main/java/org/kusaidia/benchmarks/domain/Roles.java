@@ -0,0 +1,68 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.benchmarks.domain;
+
+import org.kusaidia.domain.entities.EnumEntity;
+import org.kusaidia.domain.entities.Role;
+
+import java.lang.reflect.Field;
+
+/**
+ * Creates detached {@linkplain Role} instances for the benchmarks, setting
+ * the fields Hibernate would otherwise load from the database.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class Roles {
+
+    /**
+     * Prevents the instantiation of this class.
+     */
+    private Roles() {
+    }
+
+    /**
+     * Creates a {@linkplain Role} of the specified type.
+     *
+     * @param type the {@linkplain Role.Type} of the role.
+     * @return the new {@linkplain Role}.
+     */
+    static Role create(Role.Type type) {
+        try {
+            Role role = new Role();
+            Field field = EnumEntity.class.getDeclaredField("type");
+            field.setAccessible(true);
+            field.set(role, type);
+            field = EnumEntity.class.getDeclaredField("description");
+            field.setAccessible(true);
+            field.set(role, type.name().toLowerCase());
+            return role;
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException(e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.benchmarks.domain;
+
+import org.kusaidia.domain.entities.Role;
+import org.kusaidia.domain.entities.User;
+import org.kusaidia.util.builder.ValidationAwareBuilder;
+import org.kusaidia.util.builder.ValidationMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.validation.ConstraintViolationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of {@linkplain ValidationAwareBuilder#build()} for the
+ * {@linkplain User.Builder}, that is building the entity and validating its
+ * constraints, for a valid user and for a user failing the email
+ * constraint, which also pays for the {@linkplain
+ * ConstraintViolationException}. Each case runs with every validating
+ * {@linkplain ValidationMode}, {@linkplain ValidationMode#SAMPLED} at its
+ * default rate, and with {@linkplain ValidationMode#TRUSTED} as the cost of
+ * building alone; {@code buildBulk} creates a batch of distinct valid users
+ * as an import would.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserBuilderBenchmark {
+    private static final int BULK_SIZE = 1000;
+
+    @Param({"FULL", "COMPILED", "FAIL_FAST", "SAMPLED", "TRUSTED"})
+    private ValidationMode mode;
+
+    private Role role;
+
+    private String[] userNames;
+
+    private String[] emails;
+
+    @Setup
+    public void setUp() {
+        this.role = Roles.create(Role.Type.ROLE_USER);
+        this.userNames = new String[BULK_SIZE];
+        this.emails = new String[BULK_SIZE];
+        for (int i = 0; i < BULK_SIZE; i++) {
+            this.userNames[i] = "user" + i;
+            this.emails[i] = "user" + i + "@email.com";
+        }
+        ValidationAwareBuilder.setDefaultValidationMode(this.mode);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ValidationAwareBuilder.setDefaultValidationMode(ValidationMode.FULL);
+    }
+
+    @Benchmark
+    public User buildValid() {
+        return new User.Builder().userName("username")
+                .email("email@email.com").password("password")
+                .role(this.role).build();
+    }
+
+    @Benchmark
+    public Object buildInvalid() {
+        try {
+            return new User.Builder().userName("username")
+                    .email("emailemail.com").password("password")
+                    .role(this.role).build();
+        } catch (ConstraintViolationException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK_SIZE)
+    public void buildBulk(Blackhole blackhole) {
+        for (int i = 0; i < BULK_SIZE; i++) {
+            blackhole.consume(new User.Builder().userName(this.userNames[i])
+                    .email(this.emails[i]).password("password")
+                    .role(this.role).build());
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+
+package org.kusaidia.benchmarks.domain;
+
+import org.kusaidia.domain.entities.Role;
+import org.kusaidia.domain.entities.User;
+import org.kusaidia.domain.repositories.UserBulkWriter;
+import org.kusaidia.util.builder.ValidationAwareBuilder;
+import org.kusaidia.util.builder.ValidationMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures an import of {@link #rows} users into an in-memory H2 database,
+ * the way the import jobs used to write them, persisting and flushing every
+ * user in a transaction of its own, and streamed by the {@linkplain
+ * UserBulkWriter} in transactions of 10000 users flushed in JDBC batches
+ * of 50, the defaults of the domain configuration. Every
+ * iteration starts from an empty schema; the score is the time of the
+ * whole import.
+ * <p/>
+ * The users are built without validation, Bean Validation and Envers run
+ * as configured by the domain, and the email encryption uses a single key
+ * obtention iteration.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class UserBulkWriterBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    @Param({"SINGLE", "BULK"})
+    private String writer;
+
+    private ClassPathXmlApplicationContext context;
+
+    private EntityManager entityManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private UserBulkWriter userBulkWriter;
+
+    private Role role;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        ValidationAwareBuilder.setDefaultValidationMode(ValidationMode.TRUSTED);
+        this.context = new ClassPathXmlApplicationContext(
+                "benchmark-persistence-context.xml");
+        this.entityManager = SharedEntityManagerCreator
+                .createSharedEntityManager(
+                        this.context.getBean(EntityManagerFactory.class));
+        this.transactionTemplate = new TransactionTemplate(
+                this.context.getBean(PlatformTransactionManager.class));
+        this.userBulkWriter = this.context.getBean(UserBulkWriter.class);
+        this.role = Roles.create(Role.Type.ROLE_USER);
+        this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                UserBulkWriterBenchmark.this.entityManager
+                        .persist(UserBulkWriterBenchmark.this.role);
+            }
+        });
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        this.context.close();
+        ValidationAwareBuilder.setDefaultValidationMode(ValidationMode.FULL);
+    }
+
+    @Benchmark
+    public int insert() {
+        Iterable<User.Builder> builders = new Builders(this.rows, this.role);
+        if ("BULK".equals(this.writer)) {
+            return this.userBulkWriter.insert(builders);
+        }
+        int count = 0;
+        for (final User.Builder builder : builders) {
+            this.transactionTemplate.execute(
+                    new TransactionCallbackWithoutResult() {
+                        @Override
+                        protected void doInTransactionWithoutResult(
+                                TransactionStatus status) {
+                            EntityManager entityManager =
+                                    UserBulkWriterBenchmark.this.entityManager;
+                            entityManager.persist(builder.build());
+                            entityManager.flush();
+                        }
+                    });
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Creates the builders of the users on demand, so that none of them is
+     * retained by the benchmark.
+     */
+    private static final class Builders implements Iterable<User.Builder> {
+        private final int rows;
+
+        private final Role role;
+
+        Builders(int rows, Role role) {
+            this.rows = rows;
+            this.role = role;
+        }
+
+        @Override
+        public Iterator<User.Builder> iterator() {
+            return new Iterator<User.Builder>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return this.next < Builders.this.rows;
+                }
+
+                @Override
+                public User.Builder next() {
+                    if (!this.hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    int n = this.next++;
+                    return new User.Builder().userName("u" + n)
+                            .email("u" + n + "@email.com")
+                            .password("password").role(Builders.this.role);
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+    }
+}
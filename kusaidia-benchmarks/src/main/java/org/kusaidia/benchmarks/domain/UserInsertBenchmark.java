@@ -0,0 +1,159 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.benchmarks.domain;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.mapping.RootClass;
+import org.hibernate.mapping.SimpleValue;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.service.ServiceRegistryBuilder;
+import org.kusaidia.domain.entities.Revision;
+import org.kusaidia.domain.entities.Role;
+import org.kusaidia.domain.entities.User;
+import org.kusaidia.domain.id.PooledSequenceGenerator;
+import org.kusaidia.util.builder.ValidationMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures bulk {@linkplain User} inserts into an in-memory H2 database, in
+ * transactions of {@link #TRANSACTION_SIZE} users flushed every {@link
+ * #BATCH_SIZE}, with JDBC batching enabled. The {@code POOLED} strategy is
+ * the mapping of the entities, the {@linkplain PooledSequenceGenerator};
+ * {@code AUTO} replaces it with the {@code native} generator that {@code
+ * GenerationType.AUTO} used to select, reading the sequence for every
+ * insert.
+ * <p/>
+ * Only the inserts are measured: the users are built without validation,
+ * Bean Validation, Envers and the second-level cache are disabled in the
+ * session factory and the encrypted email is mapped as a plain string.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserInsertBenchmark {
+    private static final int TRANSACTION_SIZE = 1000;
+
+    private static final int BATCH_SIZE = 50;
+
+    @Param({"AUTO", "POOLED"})
+    private String strategy;
+
+    private SessionFactory sessionFactory;
+
+    private Role role;
+
+    private long users;
+
+    @Setup
+    public void setUp() {
+        Configuration configuration = new Configuration()
+                .addAnnotatedClass(User.class)
+                .addAnnotatedClass(Role.class)
+                .addAnnotatedClass(Revision.class)
+                .setProperty(Environment.DIALECT,
+                        "org.hibernate.dialect.H2Dialect")
+                .setProperty(Environment.DRIVER, "org.h2.Driver")
+                .setProperty(Environment.URL, "jdbc:h2:mem:" + this.strategy
+                        + ";DB_CLOSE_DELAY=-1")
+                .setProperty(Environment.USER, "sa")
+                .setProperty(Environment.HBM2DDL_AUTO, "create-drop")
+                .setProperty(Environment.STATEMENT_BATCH_SIZE,
+                        String.valueOf(BATCH_SIZE))
+                .setProperty(Environment.ORDER_INSERTS, "true")
+                .setProperty(Environment.USE_SECOND_LEVEL_CACHE, "false")
+                .setProperty("javax.persistence.validation.mode", "none")
+                .setProperty("hibernate.listeners.envers.autoRegister",
+                        "false");
+        configuration.buildMappings();
+        RootClass user = (RootClass) configuration
+                .getClassMapping(User.class.getName());
+        SimpleValue email = (SimpleValue) user.getProperty("email").getValue();
+        email.setTypeName("string");
+        email.setTypeParameters(null);
+        if ("AUTO".equals(this.strategy)) {
+            SimpleValue id = (SimpleValue) user.getIdentifier();
+            id.setIdentifierGeneratorStrategy("native");
+            id.setIdentifierGeneratorProperties(new Properties());
+        }
+        ServiceRegistry registry = new ServiceRegistryBuilder()
+                .applySettings(configuration.getProperties())
+                .buildServiceRegistry();
+        this.sessionFactory = configuration.buildSessionFactory(registry);
+
+        this.role = Roles.create(Role.Type.ROLE_USER);
+        Session session = this.sessionFactory.openSession();
+        session.beginTransaction();
+        session.save(this.role);
+        session.getTransaction().commit();
+        session.close();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.sessionFactory.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TRANSACTION_SIZE)
+    public void insert() {
+        Session session = this.sessionFactory.openSession();
+        session.beginTransaction();
+        for (int i = 0; i < TRANSACTION_SIZE; i++) {
+            long n = this.users++;
+            session.save(new User.Builder().userName("u" + n)
+                    .email("u" + n + "@email.com").password("password")
+                    .role(this.role).build(ValidationMode.TRUSTED));
+            if ((i + 1) % BATCH_SIZE == 0) {
+                session.flush();
+                session.clear();
+            }
+        }
+        session.getTransaction().commit();
+        session.close();
+    }
+}
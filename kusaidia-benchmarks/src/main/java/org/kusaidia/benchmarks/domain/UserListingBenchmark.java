@@ -0,0 +1,111 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+
+package org.kusaidia.benchmarks.domain;
+
+import org.kusaidia.domain.entities.Role;
+import org.kusaidia.domain.entities.User;
+import org.kusaidia.domain.repositories.RoleRegistry;
+import org.kusaidia.domain.repositories.UserBulkWriter;
+import org.kusaidia.domain.repositories.UserRepository;
+import org.kusaidia.domain.repositories.UserSummary;
+import org.kusaidia.util.builder.ValidationAwareBuilder;
+import org.kusaidia.util.builder.ValidationMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a listing of {@link #USERS} users from an in-memory H2 database,
+ * as {@linkplain User} entities and as {@linkplain UserSummary} projections.
+ * The entities are hydrated, managed and have their email decrypted, with a
+ * single key obtention iteration; the projections read two columns.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserListingBenchmark {
+    private static final int USERS = 10000;
+
+    private ClassPathXmlApplicationContext context;
+
+    private UserRepository repository;
+
+    @Setup
+    public void setUp() {
+        this.context = new ClassPathXmlApplicationContext(
+                "benchmark-persistence-context.xml");
+        new JdbcTemplate(this.context.getBean(DataSource.class)).update(
+                "insert into role (type, description) values ('ROLE_USER', 'user')");
+        RoleRegistry registry = this.context.getBean(RoleRegistry.class);
+        registry.reload();
+        Role role = registry.get(Role.Type.ROLE_USER);
+        List<User.Builder> builders = new ArrayList<User.Builder>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            builders.add(new User.Builder().userName("u" + i)
+                    .email("u" + i + "@email.com").password("password")
+                    .role(role));
+        }
+        ValidationAwareBuilder.setDefaultValidationMode(ValidationMode.TRUSTED);
+        this.context.getBean(UserBulkWriter.class).insert(builders);
+        ValidationAwareBuilder.setDefaultValidationMode(ValidationMode.FULL);
+        this.repository = this.context.getBean(UserRepository.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public List<User> entities() {
+        return this.repository.findAll();
+    }
+
+    @Benchmark
+    public List<UserSummary> summaries() {
+        return this.repository.findAllSummaries();
+    }
+}
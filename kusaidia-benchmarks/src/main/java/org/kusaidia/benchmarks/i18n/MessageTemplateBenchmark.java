@@ -0,0 +1,102 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.benchmarks.i18n;
+
+import org.kusaidia.util.i18n.CachingMessageSource;
+import org.kusaidia.util.i18n.MessageTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.StaticMessageSource;
+
+import java.text.MessageFormat;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of rendering an i18n log template through a plain
+ * {@linkplain StaticMessageSource}, through a new {@linkplain MessageFormat}
+ * per message, as the logger did before, and through the precompiled
+ * {@linkplain MessageTemplate} of a {@linkplain CachingMessageSource}.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageTemplateBenchmark {
+    private static final String CODE = "log.return.message";
+
+    private static final String PATTERN = "[ leaving < {0} > returning {1} ]";
+
+    private final Object[] arguments = {"add", 42L};
+
+    private StaticMessageSource messageSource;
+
+    private CachingMessageSource cachingMessageSource;
+
+    private MessageTemplate template;
+
+    @Setup
+    public void setUp() {
+        this.messageSource = new StaticMessageSource();
+        this.messageSource.addMessage(CODE, Locale.US, PATTERN);
+        this.cachingMessageSource = new CachingMessageSource(
+                this.messageSource);
+        this.template = this.cachingMessageSource.getTemplate(CODE, null,
+                Locale.US);
+    }
+
+    @Benchmark
+    public String messageSource() {
+        return this.messageSource.getMessage(CODE, this.arguments, Locale.US);
+    }
+
+    @Benchmark
+    public String messageFormat() {
+        return new MessageFormat(PATTERN, Locale.US).format(this.arguments);
+    }
+
+    @Benchmark
+    public String cachingMessageSource() {
+        return this.cachingMessageSource.getMessage(CODE, this.arguments,
+                Locale.US);
+    }
+
+    @Benchmark
+    public String messageTemplate() {
+        return this.template.format(this.arguments);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.benchmarks.logging;
+
+import org.kusaidia.util.logging.LogLevel;
+import org.kusaidia.util.logging.Loggable;
+
+/**
+ * Simple bean whose methods are advised by the logging aspect. Used as the
+ * target of the logging benchmarks.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class AdvisedBean {
+    /**
+     * the value returned by the advised getter
+     */
+    private String value = "value";
+
+    /**
+     * Advised getter without arguments.
+     *
+     * @return the current value.
+     */
+    @Loggable(LogLevel.DEBUG)
+    public String getValue() {
+        return this.value;
+    }
+
+    /**
+     * Advised setter with a single argument.
+     *
+     * @param value the new value.
+     */
+    @Loggable(LogLevel.DEBUG)
+    public void setValue(String value) {
+        this.value = value;
+    }
+
+    /**
+     * Advised method with several arguments and a return value.
+     *
+     * @param left the left operand.
+     * @param right the right operand.
+     * @return the sum of both operands.
+     */
+    @Loggable(LogLevel.DEBUG)
+    public long add(long left, long right) {
+        return left + right;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.benchmarks.logging;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time needed to start and close the benchmark application
+ * context when the logging aspect is applied through Spring AOP proxies and
+ * when it is woven at compile time. Every measurement is a single shot in a
+ * fresh fork, so the proxy class generation is included in the proxy
+ * figures.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class ContextStartupBenchmark {
+
+    @Benchmark
+    public int proxyStartup() {
+        return this.startup("/benchmark-logging-context.xml", "advisedBean");
+    }
+
+    @Benchmark
+    public int wovenStartup() {
+        return this.startup("/benchmark-woven-context.xml", "wovenBean");
+    }
+
+    /**
+     * Private helper method that starts the specified context, looks up the
+     * advised bean and closes the context.
+     *
+     * @param location the location of the context configuration.
+     * @param bean the name of the advised bean.
+     * @return the number of beans of the context.
+     */
+    private int startup(String location, String bean) {
+        ClassPathXmlApplicationContext context =
+                new ClassPathXmlApplicationContext(location);
+        try {
+            context.getBean(bean);
+            return context.getBeanDefinitionCount();
+        } finally {
+            context.close();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.benchmarks.logging;
+
+import org.kusaidia.util.logging.LogContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of handing the logging context of a task over to the
+ * thread running it, that is capturing it on submission and installing and
+ * restoring it around the task, between the {@linkplain LogContext}
+ * snapshots and the usual copy of the {@linkplain MDC} map. Both hold the
+ * same three entries.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogContextBenchmark {
+    private final Runnable task = new Runnable() {
+        public void run() {
+        }
+    };
+
+    @Setup
+    public void setUp() {
+        LogContext.put("request", "42af");
+        LogContext.put("user", "jdoe");
+        LogContext.put("session", "7c1e");
+        MDC.put("request", "42af");
+        MDC.put("user", "jdoe");
+        MDC.put("session", "7c1e");
+    }
+
+    @TearDown
+    public void tearDown() {
+        LogContext.clear();
+        MDC.clear();
+    }
+
+    @Benchmark
+    public LogContext.Snapshot snapshotCapture() {
+        return LogContext.capture();
+    }
+
+    @Benchmark
+    public void snapshotHandOver() {
+        LogContext.wrap(this.task).run();
+    }
+
+    @Benchmark
+    public Map<?, ?> mdcCapture() {
+        return MDC.getCopyOfContextMap();
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public void mdcHandOver() {
+        Map<?, ?> captured = MDC.getCopyOfContextMap();
+        Map<?, ?> previous = MDC.getCopyOfContextMap();
+        MDC.setContextMap(captured);
+        try {
+            this.task.run();
+        } finally {
+            MDC.setContextMap(previous);
+        }
+    }
+
+    @Benchmark
+    public void snapshotPut() {
+        LogContext.put("request", "42af");
+        LogContext.put("request", "42b0");
+    }
+}
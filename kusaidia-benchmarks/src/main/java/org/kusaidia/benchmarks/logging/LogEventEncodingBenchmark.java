@@ -0,0 +1,114 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.benchmarks.logging;
+
+import org.kusaidia.util.i18n.MessageTemplate;
+import org.kusaidia.util.logging.ArgumentRenderer;
+import org.kusaidia.util.logging.DefaultArgumentRenderer;
+import org.kusaidia.util.logging.JsonLogEventEncoder;
+import org.kusaidia.util.logging.LogEvent;
+import org.kusaidia.util.logging.LogLevel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of writing the leaving event of an advised method as a
+ * formatted message encoded to UTF-8, rendering the arguments as the logging
+ * aspect does by default, with the cost of encoding the structured {@linkplain LogEvent} with the
+ * {@linkplain JsonLogEventEncoder} into a reused heap or direct buffer.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogEventEncodingBenchmark {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ArgumentRenderer renderer = new DefaultArgumentRenderer();
+
+    private final JsonLogEventEncoder encoder = new JsonLogEventEncoder();
+
+    private final Object[] arguments = {17L, "some text argument"};
+
+    private MessageTemplate template;
+
+    private ByteBuffer heapBuffer;
+
+    private ByteBuffer directBuffer;
+
+    @Setup
+    public void setUp() {
+        this.template = MessageTemplate.compile(
+                "[ leaving < {0} > with params {1} returning {2} ]",
+                Locale.US);
+        this.heapBuffer = ByteBuffer.allocate(4096);
+        this.directBuffer = ByteBuffer.allocateDirect(4096);
+    }
+
+    @Benchmark
+    public byte[] formattedMessage() {
+        StringBuilder rendered = new StringBuilder();
+        this.renderer.render(this.arguments[0], 256, 10, rendered);
+        rendered.append(", ");
+        this.renderer.render(this.arguments[1], 256, 10, rendered);
+        return this.template.format("add", rendered, 42L).getBytes(UTF_8);
+    }
+
+    @Benchmark
+    public int jsonHeapBuffer() {
+        this.heapBuffer.clear();
+        return this.encoder.encode(this.event(), this.heapBuffer);
+    }
+
+    @Benchmark
+    public int jsonDirectBuffer() {
+        this.directBuffer.clear();
+        return this.encoder.encode(this.event(), this.directBuffer);
+    }
+
+    private LogEvent event() {
+        return new LogEvent.Builder(LogEvent.Type.LEAVING, LogLevel.DEBUG,
+                LogEventEncodingBenchmark.class, "add")
+                .arguments(this.arguments).returnValue(42L).duration(1520L)
+                .build();
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.benchmarks.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.kusaidia.util.aspect.LoggingAspect;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead the {@linkplain LoggingAspect} adds to an advised
+ * method call, with the log level of the advised class enabled and disabled,
+ * and with the level guard of the aspect switched on and off. The
+ * {@code direct} benchmarks call the same bean without any advice and
+ * represent the baseline.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingAspectBenchmark {
+    /**
+     * whether the DEBUG level is enabled for the advised bean
+     */
+    @Param({"true", "false"})
+    private boolean levelEnabled;
+    /**
+     * whether the level guard of the aspect is enabled
+     */
+    @Param({"true", "false"})
+    private boolean levelGuard;
+
+    private ClassPathXmlApplicationContext context;
+
+    private AdvisedBean advised;
+
+    private AdvisedBean direct;
+
+    @Setup
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger(AdvisedBean.class)).setLevel(
+                this.levelEnabled ? Level.DEBUG : Level.INFO);
+        this.context = new ClassPathXmlApplicationContext(
+                "/benchmark-logging-context.xml");
+        this.context.getBean(LoggingAspect.class)
+                .setLevelGuardEnabled(this.levelGuard);
+        this.advised = this.context.getBean("advisedBean", AdvisedBean.class);
+        this.direct = new AdvisedBean();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public String advisedNoArguments() {
+        return this.advised.getValue();
+    }
+
+    @Benchmark
+    public long advisedArguments() {
+        return this.advised.add(17L, 25L);
+    }
+
+    @Benchmark
+    public String directNoArguments() {
+        return this.direct.getValue();
+    }
+
+    @Benchmark
+    public long directArguments() {
+        return this.direct.add(17L, 25L);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.benchmarks.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost per invocation of the single around advice of the
+ * logging aspect when it is applied through a Spring AOP proxy and when it
+ * is woven at compile time by the AspectJ compiler, with the log level of
+ * the advised class enabled and disabled.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingWeavingBenchmark {
+    /**
+     * whether the DEBUG level is enabled for the advised beans
+     */
+    @Param({"true", "false"})
+    private boolean levelEnabled;
+
+    private ClassPathXmlApplicationContext proxyContext;
+
+    private ClassPathXmlApplicationContext wovenContext;
+
+    private AdvisedBean proxied;
+
+    private WovenBean woven;
+
+    @Setup
+    public void setUp() {
+        Level level = this.levelEnabled ? Level.DEBUG : Level.INFO;
+        ((Logger) LoggerFactory.getLogger(AdvisedBean.class)).setLevel(level);
+        ((Logger) LoggerFactory.getLogger(WovenBean.class)).setLevel(level);
+        this.proxyContext = new ClassPathXmlApplicationContext(
+                "/benchmark-logging-context.xml");
+        this.wovenContext = new ClassPathXmlApplicationContext(
+                "/benchmark-woven-context.xml");
+        this.proxied = this.proxyContext.getBean("advisedBean",
+                AdvisedBean.class);
+        this.woven = this.wovenContext.getBean("wovenBean", WovenBean.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.proxyContext.close();
+        this.wovenContext.close();
+    }
+
+    @Benchmark
+    public String proxyNoArguments() {
+        return this.proxied.getValue();
+    }
+
+    @Benchmark
+    public long proxyArguments() {
+        return this.proxied.add(17L, 25L);
+    }
+
+    @Benchmark
+    public String wovenNoArguments() {
+        return this.woven.getValue();
+    }
+
+    @Benchmark
+    public long wovenArguments() {
+        return this.woven.add(17L, 25L);
+    }
+}
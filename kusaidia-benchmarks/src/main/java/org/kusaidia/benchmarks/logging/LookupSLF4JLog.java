@@ -0,0 +1,119 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.benchmarks.logging;
+
+import org.kusaidia.util.logging.Log;
+import org.kusaidia.util.logging.LogEvent;
+import org.kusaidia.util.logging.LogLevel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.text.MessageFormat;
+
+/**
+ * Copy of the original {@linkplain org.kusaidia.util.logging.SLF4JLog}
+ * implementation, resolving the {@linkplain Logger} through the {@linkplain
+ * LoggerFactory} and switching on the {@linkplain LogLevel} on every call.
+ * Kept as the baseline of {@linkplain SLF4JLogBenchmark}.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class LookupSLF4JLog implements Log {
+
+    /**
+     * @see Log#isLogLevelEnabled(LogLevel, Class)
+     */
+    public boolean isLogLevelEnabled(LogLevel level, Class<?> clazz) {
+        boolean result = false;
+        switch (level) {
+            case DEBUG:
+                result = this.getLogger(clazz).isDebugEnabled();
+                break;
+            case ERROR:
+                result = this.getLogger(clazz).isErrorEnabled();
+                break;
+            case INFO:
+                result = this.getLogger(clazz).isInfoEnabled();
+                break;
+            case TRACE:
+                result = this.getLogger(clazz).isTraceEnabled();
+                break;
+            case WARN:
+                result = this.getLogger(clazz).isWarnEnabled();
+                break;
+        }
+        return result;
+    }
+
+    /**
+     * @see Log#log(LogLevel, Class, Throwable, String)
+     */
+    public void log(LogLevel level, Class<?> clazz, Throwable throwable,
+                    String message) {
+        Logger logger = this.getLogger(clazz);
+        switch (level) {
+            case DEBUG:
+                logger.debug(message, throwable);
+                break;
+            case ERROR:
+                logger.error(message, throwable);
+                break;
+            case INFO:
+                logger.info(message, throwable);
+                break;
+            case TRACE:
+                logger.trace(message, throwable);
+                break;
+            case WARN:
+                logger.warn(message, throwable);
+                break;
+        }
+    }
+
+    /**
+     * @see Log#log(LogLevel, Class, Throwable, String, Object...)
+     */
+    public void log(LogLevel level, Class<?> clazz, Throwable throwable,
+                    String pattern, Object... arguments) {
+        this.log(level, clazz, throwable, MessageFormat.format(pattern,
+                arguments));
+    }
+
+    /**
+     * Structured events did not exist in the original implementation; they
+     * are logged as their type and method name.
+     *
+     * @see Log#logEvent(LogEvent)
+     */
+    public void logEvent(LogEvent event) {
+        this.log(event.getLevel(), event.getSourceClass(),
+                event.getThrowable(), event.getType().getLabel() + " " +
+                event.getMethodName());
+    }
+
+    private Logger getLogger(Class<?> clazz) {
+        return LoggerFactory.getLogger(clazz);
+    }
+}
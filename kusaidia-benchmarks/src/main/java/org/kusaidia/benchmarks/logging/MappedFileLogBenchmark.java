@@ -0,0 +1,130 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.benchmarks.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.kusaidia.util.logging.Log;
+import org.kusaidia.util.logging.LogEvent;
+import org.kusaidia.util.logging.LogLevel;
+import org.kusaidia.util.logging.MappedFileLog;
+import org.kusaidia.util.logging.SLF4JLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of writing a pattern message and the leaving event of
+ * an advised method through the {@linkplain SLF4JLog} to a discarding
+ * appender, which formats them on the logging thread, with the cost of
+ * writing them in binary to the memory-mapped segments of a {@linkplain
+ * MappedFileLog}.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappedFileLogBenchmark {
+    private static final String PATTERN = "[ entering < {0} > with params {1} ]";
+
+    private final Object[] arguments = {17L, "some text argument"};
+
+    private final Log formatted = new SLF4JLog();
+
+    private File directory;
+
+    private MappedFileLog mapped;
+
+    @Setup
+    public void setUp() throws IOException {
+        ((Logger) LoggerFactory.getLogger(MappedFileLogBenchmark.class))
+                .setLevel(Level.DEBUG);
+        this.directory = File.createTempFile("kusaidia", "-log");
+        if (!this.directory.delete() || !this.directory.mkdir()) {
+            throw new IOException("Cannot create " + this.directory);
+        }
+        this.mapped = new MappedFileLog(this.directory, "benchmark");
+        this.mapped.setLevel(LogLevel.DEBUG);
+        this.mapped.setMaxSegments(2);
+        this.mapped.start();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.mapped.stop();
+        File[] segments = this.directory.listFiles();
+        if (segments != null) {
+            for (File segment : segments) {
+                segment.delete();
+            }
+        }
+        this.directory.delete();
+    }
+
+    @Benchmark
+    public void formattedPattern() {
+        this.formatted.log(LogLevel.DEBUG, MappedFileLogBenchmark.class, null,
+                PATTERN, "add", 17L);
+    }
+
+    @Benchmark
+    public void mappedPattern() {
+        this.mapped.log(LogLevel.DEBUG, MappedFileLogBenchmark.class, null,
+                PATTERN, "add", 17L);
+    }
+
+    @Benchmark
+    public void formattedEvent() {
+        this.formatted.logEvent(this.event());
+    }
+
+    @Benchmark
+    public void mappedEvent() {
+        this.mapped.logEvent(this.event());
+    }
+
+    private LogEvent event() {
+        return new LogEvent.Builder(LogEvent.Type.LEAVING, LogLevel.DEBUG,
+                MappedFileLogBenchmark.class, "add").arguments(this.arguments)
+                .returnValue(42L).duration(1520L).build();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.benchmarks.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.kusaidia.util.logging.Log;
+import org.kusaidia.util.logging.LogEvent;
+import org.kusaidia.util.logging.LogLevel;
+import org.kusaidia.util.logging.RecordingLog;
+import org.kusaidia.util.logging.SLF4JLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of keeping the {@code DEBUG} events of an advised method
+ * in the off-heap buffer of a {@linkplain RecordingLog}, while the delegate
+ * only writes {@code INFO} and above, with the cost of writing them through
+ * the {@linkplain SLF4JLog} to a discarding appender.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecordingLogBenchmark {
+    private final Object[] arguments = {17L, "some text argument"};
+
+    private final Log written = new SLF4JLog();
+
+    private Log recorded;
+
+    @Setup
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger(RecordingLogBenchmark.class))
+                .setLevel(Level.DEBUG);
+        ((Logger) LoggerFactory.getLogger(Recorded.class))
+                .setLevel(Level.INFO);
+        this.recorded = new RecordingLog(new SLF4JLog());
+    }
+
+    @Benchmark
+    public void writtenEvent() {
+        this.written.logEvent(this.event(RecordingLogBenchmark.class));
+    }
+
+    @Benchmark
+    public void recordedEvent() {
+        this.recorded.logEvent(this.event(Recorded.class));
+    }
+
+    @Benchmark
+    public void writtenPattern() {
+        this.written.log(LogLevel.DEBUG, RecordingLogBenchmark.class, null,
+                "[ entering < {0} > with params {1} ]", "add", 17L);
+    }
+
+    @Benchmark
+    public void recordedPattern() {
+        this.recorded.log(LogLevel.DEBUG, Recorded.class, null,
+                "[ entering < {0} > with params {1} ]", "add", 17L);
+    }
+
+    private LogEvent event(Class<?> sourceClass) {
+        return new LogEvent.Builder(LogEvent.Type.LEAVING, LogLevel.DEBUG,
+                sourceClass, "add").arguments(this.arguments)
+                .returnValue(42L).duration(1520L).build();
+    }
+
+    /**
+     * class firing the recorded events, logged at {@code INFO} and above
+     */
+    private static final class Recorded {
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.benchmarks.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.kusaidia.util.logging.Log;
+import org.kusaidia.util.logging.LogLevel;
+import org.kusaidia.util.logging.SLF4JLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of an advised-method worth of {@linkplain Log} calls
+ * (one level check followed by one log call) between the cached {@linkplain
+ * SLF4JLog} and the original per-call {@linkplain LoggerFactory} lookup, with
+ * several threads hitting the same loggers concurrently.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class SLF4JLogBenchmark {
+    /**
+     * whether the DEBUG level is enabled for the logging class
+     */
+    @Param({"true", "false"})
+    private boolean levelEnabled;
+
+    private final Log cached = new SLF4JLog();
+
+    private final Log lookup = new LookupSLF4JLog();
+
+    @Setup
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger(SLF4JLogBenchmark.class)).setLevel(
+                this.levelEnabled ? Level.DEBUG : Level.INFO);
+    }
+
+    @Benchmark
+    public boolean cached() {
+        return this.logEvent(this.cached);
+    }
+
+    @Benchmark
+    public boolean lookup() {
+        return this.logEvent(this.lookup);
+    }
+
+    private boolean logEvent(Log log) {
+        boolean enabled = log.isLogLevelEnabled(LogLevel.DEBUG,
+                SLF4JLogBenchmark.class);
+        log.log(LogLevel.DEBUG, SLF4JLogBenchmark.class, null, "message");
+        return enabled;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.benchmarks.metrics;
+
+import org.kusaidia.util.logging.Timed;
+
+/**
+ * Target of the timing benchmarks, woven at compile time by the AspectJ
+ * compiler. The same computation is exposed with and without the
+ * {@linkplain Timed} annotation.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class WovenTimedBean {
+
+    /**
+     * Timed method with several arguments and a return value.
+     *
+     * @param left the left operand.
+     * @param right the right operand.
+     * @return the sum of both operands.
+     */
+    @Timed
+    public long timedAdd(long left, long right) {
+        return left + right;
+    }
+
+    /**
+     * Counterpart of {@linkplain #timedAdd(long, long)} without advice.
+     *
+     * @param left the left operand.
+     * @param right the right operand.
+     * @return the sum of both operands.
+     */
+    public long add(long left, long right) {
+        return left + right;
+    }
+}
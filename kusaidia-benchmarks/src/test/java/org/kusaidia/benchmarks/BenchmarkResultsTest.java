@@ -0,0 +1,109 @@
+package org.kusaidia.benchmarks;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+public class BenchmarkResultsTest {
+
+    private static final String BENCHMARK =
+            "org.kusaidia.benchmarks.logging.SLF4JLogBenchmark.cached";
+
+    @Test
+    public void testReadAverageTimeResult() throws Exception {
+        Map<String, BenchmarkResults.Score> scores =
+                read("/jmh-avgt-result.json").getScores();
+
+        Assert.assertEquals(4, scores.size());
+        BenchmarkResults.Score score = scores.get(BENCHMARK +
+                "{levelEnabled=true}");
+        Assert.assertEquals(1272.9315620794148, score.getValue(), 0.0);
+        Assert.assertEquals("ns/op", score.getUnit());
+        Assert.assertTrue(score.isLowerBetter());
+        Assert.assertTrue(scores.containsKey(BENCHMARK +
+                "{levelEnabled=false}"));
+    }
+
+    @Test
+    public void testReadAllocationRate() throws Exception {
+        Map<String, BenchmarkResults.Score> scores =
+                read("/jmh-avgt-result.json").getScores();
+
+        BenchmarkResults.Score score = scores.get(BENCHMARK +
+                "{levelEnabled=true}:" + BenchmarkResults.ALLOCATION_METRIC);
+        Assert.assertEquals(118.81653076394194, score.getValue(), 0.0);
+        Assert.assertEquals("B/op", score.getUnit());
+        Assert.assertTrue(score.isLowerBetter());
+        Assert.assertFalse(scores.containsKey(BENCHMARK +
+                "{levelEnabled=true}:gc.alloc.rate"));
+    }
+
+    @Test
+    public void testNaNError() throws Exception {
+        BenchmarkResults.Score score = read("/jmh-avgt-result.json")
+                .getScores().get(BENCHMARK + "{levelEnabled=true}");
+
+        Assert.assertTrue(Double.isNaN(score.getError()));
+    }
+
+    @Test
+    public void testReadThroughputResult() throws Exception {
+        Map<String, BenchmarkResults.Score> scores =
+                read("/jmh-thrpt-result.json").getScores();
+
+        Assert.assertEquals(1, scores.size());
+        BenchmarkResults.Score score = scores.get(BENCHMARK +
+                "{levelEnabled=false}");
+        Assert.assertFalse(score.isLowerBetter());
+        Assert.assertEquals(51.202672991024485, score.getValue(), 0.0);
+        Assert.assertEquals(141.18092151105242, score.getError(), 0.0);
+        Assert.assertEquals("ops/us", score.getUnit());
+    }
+
+    @Test
+    public void testParseWithoutParams() throws Exception {
+        BenchmarkResults results = BenchmarkResults.parse("[{\"benchmark\" " +
+                ": \"a.B.c\", \"mode\" : \"ss\", \"primaryMetric\" : " +
+                "{\"score\" : 1.5e3, \"scoreError\" : 0, \"scoreUnit\" : " +
+                "\"s/op\", \"rawData\" : [[true, false, null]]}}]");
+
+        BenchmarkResults.Score score = results.getScores().get("a.B.c");
+        Assert.assertEquals(1500.0, score.getValue(), 0.0);
+        Assert.assertEquals(0.0, score.getError(), 0.0);
+        Assert.assertTrue(score.isLowerBetter());
+    }
+
+    @Test
+    public void testParseEscapes() throws Exception {
+        BenchmarkResults results = BenchmarkResults.parse("[{\"benchmark\" " +
+                ": \"a.B.c\", \"mode\" : \"avgt\", \"params\" : {\"name\" : " +
+                "\"\\u00e9\\t\\\"x\\\"\"}, \"primaryMetric\" : {\"score\" : " +
+                "1, \"scoreError\" : \"NaN\", \"scoreUnit\" : \"ns/op\"}}]");
+
+        Assert.assertTrue(results.getScores().containsKey(
+                "a.B.c{name=é\t\"x\"}"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotAResultDocument() throws Exception {
+        BenchmarkResults.parse("{\"benchmark\" : \"a.B.c\"}");
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedDocument() throws Exception {
+        BenchmarkResults.parse("[{\"benchmark\" : \"a.B.c\"");
+    }
+
+    @Test(expected = IOException.class)
+    public void testTrailingContent() throws Exception {
+        BenchmarkResults.parse("[] []");
+    }
+
+    private static BenchmarkResults read(String resource) throws Exception {
+        return BenchmarkResults.read(new File(
+                BenchmarkResultsTest.class.getResource(resource).toURI()));
+    }
+}
@@ -0,0 +1,115 @@
+package org.kusaidia.benchmarks;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.List;
+
+public class RegressionCheckTest {
+
+    private final RegressionCheck check = new RegressionCheck(10.0);
+
+    @Test
+    public void testAverageTimeDirection() {
+        Assert.assertTrue(check.isRegression(avgt(100.0, Double.NaN),
+                avgt(115.0, Double.NaN)));
+        Assert.assertFalse(check.isRegression(avgt(100.0, Double.NaN),
+                avgt(50.0, Double.NaN)));
+    }
+
+    @Test
+    public void testThroughputDirection() {
+        Assert.assertTrue(check.isRegression(thrpt(100.0, Double.NaN),
+                thrpt(85.0, Double.NaN)));
+        Assert.assertFalse(check.isRegression(thrpt(100.0, Double.NaN),
+                thrpt(200.0, Double.NaN)));
+    }
+
+    @Test
+    public void testThreshold() {
+        Assert.assertFalse(check.isRegression(avgt(100.0, Double.NaN),
+                avgt(110.0, Double.NaN)));
+        Assert.assertTrue(check.isRegression(avgt(100.0, Double.NaN),
+                avgt(110.5, Double.NaN)));
+        Assert.assertFalse(new RegressionCheck(20.0).isRegression(
+                avgt(100.0, Double.NaN), avgt(115.0, Double.NaN)));
+    }
+
+    @Test
+    public void testErrorMargin() {
+        // worse by 15, within the sum of the error margins
+        Assert.assertFalse(check.isRegression(avgt(100.0, 5.0),
+                avgt(115.0, 10.0)));
+        Assert.assertTrue(check.isRegression(avgt(100.0, 5.0),
+                avgt(115.0, 9.0)));
+        // an unknown margin counts as zero
+        Assert.assertTrue(check.isRegression(avgt(100.0, Double.NaN),
+                avgt(115.0, 9.0)));
+    }
+
+    @Test
+    public void testZeroBaseline() {
+        Assert.assertTrue(check.isRegression(avgt(0.0, Double.NaN),
+                avgt(0.5, Double.NaN)));
+        Assert.assertFalse(check.isRegression(avgt(0.0, 1.0),
+                avgt(0.5, Double.NaN)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeThreshold() {
+        new RegressionCheck(-1.0);
+    }
+
+    @Test
+    public void testCompare() throws Exception {
+        BenchmarkResults avgt = read("/jmh-avgt-result.json");
+        BenchmarkResults thrpt = read("/jmh-thrpt-result.json");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        List<String> regressions = check.compare(avgt, avgt,
+                new PrintStream(out, true, "UTF-8"));
+        Assert.assertTrue(regressions.isEmpty());
+        Assert.assertTrue(out.toString("UTF-8").startsWith("OK "));
+
+        out.reset();
+        regressions = check.compare(thrpt, avgt,
+                new PrintStream(out, true, "UTF-8"));
+        Assert.assertTrue(regressions.isEmpty());
+        Assert.assertTrue(out.toString("UTF-8").contains("NEW "));
+    }
+
+    @Test
+    public void testCompareFindsRegression() throws Exception {
+        BenchmarkResults baseline = BenchmarkResults.parse(result(100.0));
+        BenchmarkResults current = BenchmarkResults.parse(result(150.0));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        List<String> regressions = check.compare(baseline, current,
+                new PrintStream(out, true, "UTF-8"));
+        Assert.assertEquals(1, regressions.size());
+        Assert.assertEquals("a.B.c", regressions.get(0));
+        Assert.assertTrue(out.toString("UTF-8").startsWith("REGRESSION "));
+    }
+
+    private static BenchmarkResults.Score avgt(double value, double error) {
+        return new BenchmarkResults.Score(true, value, error, "ns/op");
+    }
+
+    private static BenchmarkResults.Score thrpt(double value, double error) {
+        return new BenchmarkResults.Score(false, value, error, "ops/us");
+    }
+
+    private static String result(double score) {
+        return "[{\"benchmark\" : \"a.B.c\", \"mode\" : \"avgt\", " +
+                "\"primaryMetric\" : {\"score\" : " + score + ", " +
+                "\"scoreError\" : \"NaN\", \"scoreUnit\" : \"ns/op\"}}]";
+    }
+
+    private static BenchmarkResults read(String resource) throws Exception {
+        return BenchmarkResults.read(new File(
+                RegressionCheckTest.class.getResource(resource).toURI()));
+    }
+}
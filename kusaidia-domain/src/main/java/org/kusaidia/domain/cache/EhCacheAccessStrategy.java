@@ -0,0 +1,185 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+
+package org.kusaidia.domain.cache;
+
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.access.RegionAccessStrategy;
+import org.hibernate.cache.spi.access.SoftLock;
+
+/**
+ * Base {@linkplain RegionAccessStrategy} of the entity and collection
+ * regions, for the {@code READ_ONLY} and {@code NONSTRICT_READ_WRITE}
+ * access types. Neither takes locks: read-only data is never modified, and
+ * non-strict data is simply evicted when it is, the next load caching it
+ * again.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+abstract class EhCacheAccessStrategy implements RegionAccessStrategy {
+    /**
+     * the region the cached data is stored in
+     */
+    private final EhCacheRegion region;
+    /**
+     * whether the cached data is read only
+     */
+    private final boolean readOnly;
+
+    /**
+     * Creates a new {@linkplain EhCacheAccessStrategy}.
+     *
+     * @param region the region the cached data is stored in.
+     * @param accessType the access type, {@code READ_ONLY} or {@code
+     * NONSTRICT_READ_WRITE}.
+     * @throws CacheException if the access type is not supported.
+     */
+    EhCacheAccessStrategy(EhCacheRegion region, AccessType accessType) {
+        if (accessType != AccessType.READ_ONLY
+                && accessType != AccessType.NONSTRICT_READ_WRITE) {
+            throw new CacheException("Unsupported access type ["
+                    + accessType.getExternalName() + "] for region ["
+                    + region.getName() + "]");
+        }
+        this.region = region;
+        this.readOnly = accessType == AccessType.READ_ONLY;
+    }
+
+    /**
+     * Returns whether the cached data is read only.
+     *
+     * @return {@code true} for the {@code READ_ONLY} access type.
+     */
+    boolean isReadOnly() {
+        return this.readOnly;
+    }
+
+    /**
+     * Returns the region the cached data is stored in.
+     *
+     * @return the region.
+     */
+    EhCacheRegion region() {
+        return this.region;
+    }
+
+    /**
+     * @see RegionAccessStrategy#get(Object, long)
+     */
+    @Override
+    public Object get(Object key, long txTimestamp) throws CacheException {
+        return this.region.get(key);
+    }
+
+    /**
+     * @see RegionAccessStrategy#putFromLoad(Object, Object, long, Object)
+     */
+    @Override
+    public boolean putFromLoad(Object key, Object value, long txTimestamp,
+            Object version) throws CacheException {
+        return this.putFromLoad(key, value, txTimestamp, version, false);
+    }
+
+    /**
+     * @see RegionAccessStrategy#putFromLoad(Object, Object, long, Object,
+     * boolean)
+     */
+    @Override
+    public boolean putFromLoad(Object key, Object value, long txTimestamp,
+            Object version, boolean minimalPutOverride)
+            throws CacheException {
+        if (minimalPutOverride && this.region.contains(key)) {
+            return false;
+        }
+        this.region.put(key, value);
+        return true;
+    }
+
+    /**
+     * @see RegionAccessStrategy#lockItem(Object, Object)
+     */
+    @Override
+    public SoftLock lockItem(Object key, Object version)
+            throws CacheException {
+        return null;
+    }
+
+    /**
+     * @see RegionAccessStrategy#lockRegion()
+     */
+    @Override
+    public SoftLock lockRegion() throws CacheException {
+        return null;
+    }
+
+    /**
+     * @see RegionAccessStrategy#unlockItem(Object, SoftLock)
+     */
+    @Override
+    public void unlockItem(Object key, SoftLock lock) throws CacheException {
+        this.region.evict(key);
+    }
+
+    /**
+     * @see RegionAccessStrategy#unlockRegion(SoftLock)
+     */
+    @Override
+    public void unlockRegion(SoftLock lock) throws CacheException {
+        this.region.evictAll();
+    }
+
+    /**
+     * @see RegionAccessStrategy#remove(Object)
+     */
+    @Override
+    public void remove(Object key) throws CacheException {
+        this.region.evict(key);
+    }
+
+    /**
+     * @see RegionAccessStrategy#removeAll()
+     */
+    @Override
+    public void removeAll() throws CacheException {
+        this.region.evictAll();
+    }
+
+    /**
+     * @see RegionAccessStrategy#evict(Object)
+     */
+    @Override
+    public void evict(Object key) throws CacheException {
+        this.region.evict(key);
+    }
+
+    /**
+     * @see RegionAccessStrategy#evictAll()
+     */
+    @Override
+    public void evictAll() throws CacheException {
+        this.region.evictAll();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+
+package org.kusaidia.domain.cache;
+
+import net.sf.ehcache.Ehcache;
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.spi.CacheDataDescription;
+import org.hibernate.cache.spi.CollectionRegion;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.access.CollectionRegionAccessStrategy;
+
+/**
+ * Hibernate cache region of the elements of a collection, stored in an
+ * {@linkplain Ehcache}. A cached collection holds the identifiers of its
+ * elements, which are read from their own entity region.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+class EhCacheCollectionRegion extends EhCacheRegion
+        implements CollectionRegion {
+    /**
+     * the description of the cached data
+     */
+    private final CacheDataDescription description;
+
+    /**
+     * Creates a new {@linkplain EhCacheCollectionRegion}.
+     *
+     * @param cache the cache holding the entries of the region.
+     * @param description the description of the cached data.
+     */
+    EhCacheCollectionRegion(Ehcache cache, CacheDataDescription description) {
+        super(cache);
+        this.description = description;
+    }
+
+    /**
+     * @see CollectionRegion#buildAccessStrategy(AccessType)
+     */
+    @Override
+    public CollectionRegionAccessStrategy buildAccessStrategy(
+            AccessType accessType) throws CacheException {
+        return new Access(this, accessType);
+    }
+
+    /**
+     * @see org.hibernate.cache.spi.TransactionalDataRegion#isTransactionAware()
+     */
+    @Override
+    public boolean isTransactionAware() {
+        return false;
+    }
+
+    /**
+     * @see org.hibernate.cache.spi.TransactionalDataRegion#getCacheDataDescription()
+     */
+    @Override
+    public CacheDataDescription getCacheDataDescription() {
+        return this.description;
+    }
+
+    /**
+     * {@linkplain CollectionRegionAccessStrategy} of the region, a modified
+     * collection being evicted.
+     */
+    private static final class Access extends EhCacheAccessStrategy
+            implements CollectionRegionAccessStrategy {
+
+        Access(EhCacheCollectionRegion region, AccessType accessType) {
+            super(region, accessType);
+        }
+
+        @Override
+        public CollectionRegion getRegion() {
+            return (CollectionRegion) this.region();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+
+package org.kusaidia.domain.cache;
+
+import net.sf.ehcache.Ehcache;
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.spi.CacheDataDescription;
+import org.hibernate.cache.spi.EntityRegion;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.access.EntityRegionAccessStrategy;
+import org.hibernate.cache.spi.access.SoftLock;
+
+/**
+ * Hibernate cache region of the instances of an entity, stored in an
+ * {@linkplain Ehcache}.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+class EhCacheEntityRegion extends EhCacheRegion implements EntityRegion {
+    /**
+     * the description of the cached data
+     */
+    private final CacheDataDescription description;
+
+    /**
+     * Creates a new {@linkplain EhCacheEntityRegion}.
+     *
+     * @param cache the cache holding the entries of the region.
+     * @param description the description of the cached data.
+     */
+    EhCacheEntityRegion(Ehcache cache, CacheDataDescription description) {
+        super(cache);
+        this.description = description;
+    }
+
+    /**
+     * @see EntityRegion#buildAccessStrategy(AccessType)
+     */
+    @Override
+    public EntityRegionAccessStrategy buildAccessStrategy(
+            AccessType accessType) throws CacheException {
+        return new Access(this, accessType);
+    }
+
+    /**
+     * @see org.hibernate.cache.spi.TransactionalDataRegion#isTransactionAware()
+     */
+    @Override
+    public boolean isTransactionAware() {
+        return false;
+    }
+
+    /**
+     * @see org.hibernate.cache.spi.TransactionalDataRegion#getCacheDataDescription()
+     */
+    @Override
+    public CacheDataDescription getCacheDataDescription() {
+        return this.description;
+    }
+
+    /**
+     * {@linkplain EntityRegionAccessStrategy} of the region. Read-only
+     * entities are cached once inserted and can never be updated; the
+     * others are evicted when updated.
+     */
+    private static final class Access extends EhCacheAccessStrategy
+            implements EntityRegionAccessStrategy {
+
+        Access(EhCacheEntityRegion region, AccessType accessType) {
+            super(region, accessType);
+        }
+
+        @Override
+        public EntityRegion getRegion() {
+            return (EntityRegion) this.region();
+        }
+
+        @Override
+        public boolean insert(Object key, Object value, Object version)
+                throws CacheException {
+            return false;
+        }
+
+        @Override
+        public boolean afterInsert(Object key, Object value, Object version)
+                throws CacheException {
+            if (this.isReadOnly()) {
+                this.region().put(key, value);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean update(Object key, Object value, Object currentVersion,
+                Object previousVersion) throws CacheException {
+            if (this.isReadOnly()) {
+                throw new UnsupportedOperationException(
+                        "Can't write to a readonly object");
+            }
+            this.evict(key);
+            return false;
+        }
+
+        @Override
+        public boolean afterUpdate(Object key, Object value,
+                Object currentVersion, Object previousVersion, SoftLock lock)
+                throws CacheException {
+            if (this.isReadOnly()) {
+                throw new UnsupportedOperationException(
+                        "Can't write to a readonly object");
+            }
+            this.unlockItem(key, lock);
+            return false;
+        }
+    }
+}
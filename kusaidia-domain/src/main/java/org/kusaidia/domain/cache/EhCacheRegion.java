@@ -0,0 +1,195 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+
+package org.kusaidia.domain.cache;
+
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
+import net.sf.ehcache.util.Timestamper;
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.spi.QueryResultsRegion;
+import org.hibernate.cache.spi.TimestampsRegion;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hibernate cache region stored in an {@linkplain Ehcache}. Used as is for
+ * the query results and the update timestamps, and extended by the entity
+ * and collection regions.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+class EhCacheRegion implements QueryResultsRegion, TimestampsRegion {
+    /**
+     * the lock timeout reported to Hibernate, 60 seconds in timestamp units
+     */
+    private static final int TIMEOUT = Timestamper.ONE_MS * 60000;
+    /**
+     * the cache holding the entries of this region
+     */
+    private final Ehcache cache;
+
+    /**
+     * Creates a new {@linkplain EhCacheRegion}.
+     *
+     * @param cache the cache holding the entries of the region.
+     */
+    EhCacheRegion(Ehcache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * @see org.hibernate.cache.spi.Region#getName()
+     */
+    @Override
+    public String getName() {
+        return this.cache.getName();
+    }
+
+    /**
+     * @see org.hibernate.cache.spi.Region#destroy()
+     */
+    @Override
+    public void destroy() throws CacheException {
+        try {
+            this.cache.getCacheManager().removeCache(this.cache.getName());
+        } catch (IllegalStateException e) {
+            // the cache manager has already been shut down
+        }
+    }
+
+    /**
+     * @see org.hibernate.cache.spi.Region#contains(Object)
+     */
+    @Override
+    public boolean contains(Object key) {
+        return this.cache.isKeyInCache(key);
+    }
+
+    /**
+     * @see org.hibernate.cache.spi.Region#getSizeInMemory()
+     */
+    @Override
+    public long getSizeInMemory() {
+        return this.cache.calculateInMemorySize();
+    }
+
+    /**
+     * @see org.hibernate.cache.spi.Region#getElementCountInMemory()
+     */
+    @Override
+    public long getElementCountInMemory() {
+        return this.cache.getMemoryStoreSize();
+    }
+
+    /**
+     * @see org.hibernate.cache.spi.Region#getElementCountOnDisk()
+     */
+    @Override
+    public long getElementCountOnDisk() {
+        return this.cache.getDiskStoreSize();
+    }
+
+    /**
+     * @see org.hibernate.cache.spi.Region#toMap()
+     */
+    @Override
+    public Map toMap() {
+        Map<Object, Object> map = new HashMap<Object, Object>();
+        for (Object key : this.cache.getKeys()) {
+            Element element = this.cache.get(key);
+            if (element != null) {
+                map.put(key, element.getObjectValue());
+            }
+        }
+        return map;
+    }
+
+    /**
+     * @see org.hibernate.cache.spi.Region#nextTimestamp()
+     */
+    @Override
+    public long nextTimestamp() {
+        return Timestamper.next();
+    }
+
+    /**
+     * @see org.hibernate.cache.spi.Region#getTimeout()
+     */
+    @Override
+    public int getTimeout() {
+        return TIMEOUT;
+    }
+
+    /**
+     * @see org.hibernate.cache.spi.GeneralDataRegion#get(Object)
+     */
+    @Override
+    public Object get(Object key) throws CacheException {
+        try {
+            Element element = this.cache.get(key);
+            return element == null ? null : element.getObjectValue();
+        } catch (net.sf.ehcache.CacheException | IllegalStateException e) {
+            throw new CacheException(e);
+        }
+    }
+
+    /**
+     * @see org.hibernate.cache.spi.GeneralDataRegion#put(Object, Object)
+     */
+    @Override
+    public void put(Object key, Object value) throws CacheException {
+        try {
+            this.cache.put(new Element(key, value));
+        } catch (net.sf.ehcache.CacheException | IllegalStateException e) {
+            throw new CacheException(e);
+        }
+    }
+
+    /**
+     * @see org.hibernate.cache.spi.GeneralDataRegion#evict(Object)
+     */
+    @Override
+    public void evict(Object key) throws CacheException {
+        try {
+            this.cache.remove(key);
+        } catch (IllegalStateException e) {
+            throw new CacheException(e);
+        }
+    }
+
+    /**
+     * @see org.hibernate.cache.spi.GeneralDataRegion#evictAll()
+     */
+    @Override
+    public void evictAll() throws CacheException {
+        try {
+            this.cache.removeAll();
+        } catch (net.sf.ehcache.CacheException | IllegalStateException e) {
+            throw new CacheException(e);
+        }
+    }
+}
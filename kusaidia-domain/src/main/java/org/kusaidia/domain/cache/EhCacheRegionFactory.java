@@ -0,0 +1,205 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+
+package org.kusaidia.domain.cache;
+
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.util.Timestamper;
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.spi.CacheDataDescription;
+import org.hibernate.cache.spi.CollectionRegion;
+import org.hibernate.cache.spi.EntityRegion;
+import org.hibernate.cache.spi.NaturalIdRegion;
+import org.hibernate.cache.spi.QueryResultsRegion;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cache.spi.TimestampsRegion;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cfg.Settings;
+
+import java.net.URL;
+import java.util.Properties;
+
+/**
+ * Hibernate second-level cache {@linkplain RegionFactory} backed by Ehcache.
+ * Each region is stored in the Ehcache cache of the same name, configured
+ * by the resource named by the {@value #CONFIGURATION_RESOURCE_NAME}
+ * property, {@value #DEFAULT_CONFIGURATION_RESOURCE} by default; regions
+ * missing from the configuration get the default cache settings.
+ * <p/>
+ * Only the {@code READ_ONLY} and {@code NONSTRICT_READ_WRITE} access types
+ * are supported, which is what the reference data of the domain and the
+ * collections pointing to it need, and natural identifiers are not cached.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class EhCacheRegionFactory implements RegionFactory {
+    /**
+     * the property naming the Ehcache configuration resource
+     */
+    public static final String CONFIGURATION_RESOURCE_NAME =
+            "net.sf.ehcache.configurationResourceName";
+    /**
+     * the Ehcache configuration resource used when none is configured
+     */
+    public static final String DEFAULT_CONFIGURATION_RESOURCE =
+            "kusaidia-ehcache.xml";
+    /**
+     * the cache manager of the session factory, {@code null} when stopped
+     */
+    private volatile CacheManager manager;
+
+    /**
+     * @see RegionFactory#start(Settings, Properties)
+     */
+    @Override
+    public void start(Settings settings, Properties properties)
+            throws CacheException {
+        String resource = properties.getProperty(CONFIGURATION_RESOURCE_NAME,
+                DEFAULT_CONFIGURATION_RESOURCE);
+        URL url = this.getClass().getClassLoader().getResource(
+                resource.startsWith("/") ? resource.substring(1) : resource);
+        if (url == null) {
+            throw new CacheException("Ehcache configuration [" + resource
+                    + "] not found");
+        }
+        try {
+            this.manager = new CacheManager(url);
+        } catch (net.sf.ehcache.CacheException e) {
+            throw new CacheException(e);
+        }
+    }
+
+    /**
+     * @see RegionFactory#stop()
+     */
+    @Override
+    public void stop() {
+        CacheManager current = this.manager;
+        if (current != null) {
+            this.manager = null;
+            current.shutdown();
+        }
+    }
+
+    /**
+     * @see RegionFactory#isMinimalPutsEnabledByDefault()
+     */
+    @Override
+    public boolean isMinimalPutsEnabledByDefault() {
+        return true;
+    }
+
+    /**
+     * @see RegionFactory#getDefaultAccessType()
+     */
+    @Override
+    public AccessType getDefaultAccessType() {
+        return AccessType.READ_ONLY;
+    }
+
+    /**
+     * @see RegionFactory#nextTimestamp()
+     */
+    @Override
+    public long nextTimestamp() {
+        return Timestamper.next();
+    }
+
+    /**
+     * @see RegionFactory#buildEntityRegion(String, Properties,
+     * CacheDataDescription)
+     */
+    @Override
+    public EntityRegion buildEntityRegion(String regionName,
+            Properties properties, CacheDataDescription metadata)
+            throws CacheException {
+        return new EhCacheEntityRegion(this.getCache(regionName), metadata);
+    }
+
+    /**
+     * @see RegionFactory#buildNaturalIdRegion(String, Properties,
+     * CacheDataDescription)
+     */
+    @Override
+    public NaturalIdRegion buildNaturalIdRegion(String regionName,
+            Properties properties, CacheDataDescription metadata)
+            throws CacheException {
+        throw new CacheException("Natural id caching is not supported, region ["
+                + regionName + "]");
+    }
+
+    /**
+     * @see RegionFactory#buildCollectionRegion(String, Properties,
+     * CacheDataDescription)
+     */
+    @Override
+    public CollectionRegion buildCollectionRegion(String regionName,
+            Properties properties, CacheDataDescription metadata)
+            throws CacheException {
+        return new EhCacheCollectionRegion(this.getCache(regionName),
+                metadata);
+    }
+
+    /**
+     * @see RegionFactory#buildQueryResultsRegion(String, Properties)
+     */
+    @Override
+    public QueryResultsRegion buildQueryResultsRegion(String regionName,
+            Properties properties) throws CacheException {
+        return new EhCacheRegion(this.getCache(regionName));
+    }
+
+    /**
+     * @see RegionFactory#buildTimestampsRegion(String, Properties)
+     */
+    @Override
+    public TimestampsRegion buildTimestampsRegion(String regionName,
+            Properties properties) throws CacheException {
+        return new EhCacheRegion(this.getCache(regionName));
+    }
+
+    /**
+     * Private helper method that returns the cache of a region, adding it
+     * with the default settings if the configuration does not declare it.
+     *
+     * @param regionName the name of the region.
+     * @return the {@linkplain Ehcache} of the region.
+     * @throws CacheException if the factory is not started.
+     */
+    private Ehcache getCache(String regionName) {
+        CacheManager current = this.manager;
+        if (current == null) {
+            throw new CacheException("The region factory is not started");
+        }
+        try {
+            Ehcache cache = current.getEhcache(regionName);
+            return cache != null ? cache
+                    : current.addCacheIfAbsent(regionName);
+        } catch (net.sf.ehcache.CacheException | IllegalStateException e) {
+            throw new CacheException(e);
+        }
+    }
+}
@@ -22,20 +22,28 @@
 
 package org.kusaidia.domain.entities;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.kusaidia.domain.id.PooledSequenceGenerator;
+
 import javax.persistence.Column;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.MappedSuperclass;
 
 /**
  * Base Class for all persistent entities. Any entity that extends this class
- * must be mapped to a table that defines an auto increment fields:
+ * must be mapped to a table that defines the following fields:
  * <ul>
  *     <li>
  *         <b>Id</b> the surrogate primary key for this entity
  *     </li>
  * </ul>
+ * The identifiers are allocated in blocks by the {@linkplain
+ * PooledSequenceGenerator} from a sequence per entity, named after the
+ * entity with a {@code _SEQ} suffix (e.g. {@code User_SEQ}) and incremented
+ * by the block size.
  *
  * @author Angel L. Villalain-Garcia
  * @since 1.0.0
@@ -43,12 +51,21 @@ import javax.persistence.MappedSuperclass;
  */
 @MappedSuperclass
 public abstract class AbstractEntity {
+    /**
+     * the name of the generator of the identifiers of every entity
+     */
+    public static final String ID_GENERATOR = "kusaidia-pooled";
     /**
      * The auto generated identity for this persistent object. This
      * represents the PK.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = AbstractEntity.ID_GENERATOR)
+    @GenericGenerator(name = AbstractEntity.ID_GENERATOR,
+            strategy = "org.kusaidia.domain.id.PooledSequenceGenerator",
+            parameters = @Parameter(
+                    name = SequenceStyleGenerator.CONFIG_PREFER_SEQUENCE_PER_ENTITY,
+                    value = "true"))
     @Column(name = "id")
     private Long id;
     /**
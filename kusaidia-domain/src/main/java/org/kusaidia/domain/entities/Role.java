@@ -22,22 +22,36 @@
 
 package org.kusaidia.domain.entities;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
+
 import javax.persistence.AttributeOverride;
 import javax.persistence.AttributeOverrides;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.NamedQuery;
+import javax.persistence.QueryHint;
 import javax.persistence.Table;
 import javax.persistence.UniqueConstraint;
 
 /**
  * Role Persistent entity. This object represents all the possible roles a
- * {@linkplain User} can have. This is a read only entity.
+ * {@linkplain User} can have. This is a read only entity, kept in the
+ * second-level cache once loaded.
  *
  * @author Angel L. Villalain
  * @version 1.0.0
  * @since 1.0.0
  */
 @Entity(name = "Role")
+@Immutable
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY,
+        region = "org.kusaidia.domain.entities.Role")
+@NamedQuery(name = Role.FIND_ALL, query = "select r from Role r",
+        hints = @QueryHint(name = "org.hibernate.cacheable", value = "true"))
 @Table(name = "role", uniqueConstraints =
 @UniqueConstraint(name = "UK_role_type", columnNames = "type"))
 @AttributeOverrides({
@@ -51,6 +65,10 @@ import javax.persistence.UniqueConstraint;
                         length = Role.DESCRIPTION_LENGTH))
 })
 public class Role extends EnumEntity<Role.Type> {
+    /**
+     * the name of the cached query returning every {@linkplain Role}
+     */
+    public static final String FIND_ALL = "Role.findAll";
     /**
      * the length of the {@code Type} database field
      */
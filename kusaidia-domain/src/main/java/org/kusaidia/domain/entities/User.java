@@ -24,6 +24,11 @@ package org.kusaidia.domain.entities;
 
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.apache.commons.lang.builder.ToStringStyle;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.FetchMode;
+import org.hibernate.annotations.FetchProfile;
 import org.hibernate.annotations.ForeignKey;
 import org.hibernate.annotations.Parameter;
 import org.hibernate.annotations.Type;
@@ -55,6 +60,9 @@ import java.util.Set;
 /**
  * Parent class representing a user in the system. Objects of this class are
  * persisted to the User table in the underlying persistent layer.
+ * <p/>
+ * The roles are loaded lazily, in batches of {@value #ROLES_BATCH_SIZE}
+ * users, or joined to the user by the {@value #WITH_ROLES} fetch profile.
  *
  * @author Angel L. Villalain
  * @version 1.0.0
@@ -68,7 +76,18 @@ import java.util.Set;
         typeClass = EncryptedStringType.class,
         parameters = {@Parameter(name = "encryptorRegisteredName",
                 value = "strongHibernateStringEncryptor")})
+@FetchProfile(name = User.WITH_ROLES, fetchOverrides =
+@FetchProfile.FetchOverride(entity = User.class, association = "roles",
+        mode = FetchMode.JOIN))
 public class User extends AbstractEntity {
+    /**
+     * the name of the fetch profile joining the roles to the user
+     */
+    public static final String WITH_ROLES = "user-with-roles";
+    /**
+     * the number of users whose roles are loaded by a single query
+     */
+    public static final int ROLES_BATCH_SIZE = 50;
     /**
      * the lenght of the {@code username} field in the database
      */
@@ -83,11 +102,15 @@ public class User extends AbstractEntity {
     public static final int PASSWORD_LENGTH = 100;
     /**
      * The {@linkplain Set} of {@linkplain Role} associated with this
-     * {@linkplain User}
+     * {@linkplain User}, cached with the {@linkplain Role} instances so that
+     * loading it costs no query once both are cached
      */
     @NotEmpty
     @Audited(targetAuditMode = RelationTargetAuditMode.NOT_AUDITED)
     @ManyToMany(fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE,
+            region = "org.kusaidia.domain.entities.User.roles")
+    @BatchSize(size = ROLES_BATCH_SIZE)
     @JoinTable(name = "user_roles",
             joinColumns = @JoinColumn(name = "user_id",
                                       referencedColumnName ="id"),
@@ -202,6 +225,15 @@ public class User extends AbstractEntity {
         return new Date(this.lastActivity.getTime());
     }
 
+    /**
+     * Sets the last activity timestamp for this {@linkplain User} to the
+     * current time. This must be called each time the {@linkplain User} logs
+     * in or the session times out.
+     */
+    public void updateLastActivity() {
+        this.lastActivity = new Date();
+    }
+
     /**
      * Returns the password for this {@linkplain User} persistent entity.
      *
@@ -0,0 +1,168 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.domain.id;
+
+import org.hibernate.HibernateException;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.Optimizer;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pooled-lo {@linkplain Optimizer} handing out identifiers without locking.
+ * Each value read from the database sequence is the low end of a block of
+ * {@linkplain #getIncrementSize()} identifiers reserved for this node, the
+ * sequence being incremented by the block size so that every node, and
+ * every session factory, gets ranges of its own.
+ * <p/>
+ * Within a block an identifier costs a single atomic increment. Only the
+ * thread exhausting a block takes a lock, to read the next value of the
+ * sequence; the threads racing with it retry on the new block once it is
+ * published. Unlike the Hibernate pooled optimizers, which synchronize every
+ * call, concurrent sessions inserting in bulk therefore do not serialize on
+ * the generator.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class PooledLoOptimizer implements Optimizer {
+    /**
+     * the type of the generated identifiers
+     */
+    private final Class returnClass;
+    /**
+     * the number of identifiers in each block
+     */
+    private final int incrementSize;
+    /**
+     * the block identifiers are currently taken from
+     */
+    private volatile Block block = new Block(0, 0);
+    /**
+     * the last value read from the database sequence
+     */
+    private volatile IntegralDataTypeHolder lastSourceValue;
+
+    /**
+     * Creates a new {@linkplain PooledLoOptimizer}. This is the constructor
+     * called by Hibernate for the optimizers named by class.
+     *
+     * @param returnClass the type of the generated identifiers, {@code
+     * Long}, {@code Integer} or {@code Short}.
+     * @param incrementSize the number of identifiers in each block.
+     */
+    public PooledLoOptimizer(Class returnClass, int incrementSize) {
+        if (returnClass != Long.class && returnClass != Integer.class
+                && returnClass != Short.class) {
+            throw new HibernateException("Unsupported identifier type "
+                    + returnClass);
+        }
+        if (incrementSize < 1) {
+            throw new HibernateException("increment size must be positive");
+        }
+        this.returnClass = returnClass;
+        this.incrementSize = incrementSize;
+    }
+
+    /**
+     * @see Optimizer#generate(AccessCallback)
+     */
+    @Override
+    public Serializable generate(AccessCallback callback) {
+        for (;;) {
+            Block current = this.block;
+            long value = current.next.getAndIncrement();
+            if (value < current.limit) {
+                return this.toIdentifier(value);
+            }
+            synchronized (this) {
+                if (this.block == current) {
+                    IntegralDataTypeHolder source = callback.getNextValue();
+                    long low = source.makeValue().longValue();
+                    this.lastSourceValue = source;
+                    this.block = new Block(low, low + this.incrementSize);
+                }
+            }
+        }
+    }
+
+    /**
+     * @see Optimizer#getLastSourceValue()
+     */
+    @Override
+    public IntegralDataTypeHolder getLastSourceValue() {
+        return this.lastSourceValue;
+    }
+
+    /**
+     * @see Optimizer#getIncrementSize()
+     */
+    @Override
+    public int getIncrementSize() {
+        return this.incrementSize;
+    }
+
+    /**
+     * The database sequence is incremented by the block size.
+     *
+     * @return {@code true}.
+     */
+    @Override
+    public boolean applyIncrementSizeToSourceValues() {
+        return true;
+    }
+
+    /**
+     * Private helper method that boxes an identifier to the type of the
+     * identifier property.
+     *
+     * @param value the identifier.
+     * @return the boxed identifier.
+     */
+    private Serializable toIdentifier(long value) {
+        if (this.returnClass == Long.class) {
+            return value;
+        } else if (this.returnClass == Integer.class) {
+            return (int) value;
+        }
+        return (short) value;
+    }
+
+    /**
+     * A reserved range of identifiers, from the value of {@code next} up to
+     * {@code limit} exclusive. The counter keeps growing past the limit once
+     * the block is exhausted, which is harmless as the block is discarded.
+     */
+    private static final class Block {
+        private final AtomicLong next;
+        private final long limit;
+
+        private Block(long low, long limit) {
+            this.next = new AtomicLong(low);
+            this.limit = limit;
+        }
+    }
+}
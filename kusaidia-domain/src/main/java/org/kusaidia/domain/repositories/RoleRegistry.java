@@ -0,0 +1,99 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+
+package org.kusaidia.domain.repositories;
+
+import org.hibernate.CacheMode;
+import org.kusaidia.domain.entities.Role;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * In-memory registry of the {@linkplain Role} reference data, indexed by
+ * {@linkplain Role.Type}. The roles are loaded once at startup, warming the
+ * second-level cache and the cached {@value Role#FIND_ALL} query, and
+ * resolving a role afterwards costs no query: during authentication, or when assigning roles to a new
+ * {@linkplain org.kusaidia.domain.entities.User}, whose insert finds the
+ * detached role in the second-level cache.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class RoleRegistry {
+    /**
+     * the factory of the {@linkplain EntityManager} loading the roles
+     */
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+    /**
+     * the roles by type, replaced as a whole when reloaded
+     */
+    private volatile Map<Role.Type, Role> roles = Collections.emptyMap();
+
+    /**
+     * Loads every {@linkplain Role} from the database, replacing the roles
+     * loaded before and refreshing the caches. Called at startup, and to be
+     * called again if roles are added to the database afterwards.
+     */
+    @PostConstruct
+    public void reload() {
+        EntityManager entityManager =
+                this.entityManagerFactory.createEntityManager();
+        try {
+            Map<Role.Type, Role> loaded =
+                    new EnumMap<Role.Type, Role>(Role.Type.class);
+            for (Role role : entityManager.createNamedQuery(Role.FIND_ALL,
+                    Role.class).setHint("org.hibernate.cacheMode",
+                    CacheMode.REFRESH).getResultList()) {
+                loaded.put(role.getType(), role);
+            }
+            this.roles = loaded;
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    /**
+     * Returns the {@linkplain Role} of the given type.
+     *
+     * @param type the {@linkplain Role.Type} of the role.
+     * @return the detached {@linkplain Role}.
+     * @throws IllegalStateException if the database has no role of the given
+     * type.
+     */
+    public Role get(Role.Type type) {
+        Role role = this.roles.get(type);
+        if (role == null) {
+            throw new IllegalStateException("No role " + type
+                    + " in the database");
+        }
+        return role;
+    }
+}
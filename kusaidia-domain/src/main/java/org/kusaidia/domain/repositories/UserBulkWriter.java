@@ -0,0 +1,236 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.domain.repositories;
+
+import org.hibernate.Session;
+import org.kusaidia.domain.entities.User;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Iterator;
+
+/**
+ * Writes {@linkplain User} persistent entities in bulk, e.g. for imports.
+ * The entities are streamed from the given {@linkplain Iterable} and written
+ * in transactions of {@linkplain #getCommitInterval()} entities, the
+ * persistence context being flushed and cleared every {@linkplain
+ * #getBatchSize()} entities. Memory thus stays bounded whatever the number
+ * of entities: the persistence context never holds more than a batch, and
+ * the audit records Envers queues until commit, as well as the undo log of
+ * the database, never more than a transaction. Each flush sends a single
+ * JDBC batch per statement.
+ * <p/>
+ * A failing entity rolls back its own transaction only, the entities of the
+ * previous transactions staying committed. When called within a
+ * transaction, the transactions of the writer join it instead, and the
+ * whole write commits or rolls back with it. The persistence context then
+ * belongs to the caller: it is flushed every batch but never cleared, so
+ * that the entities of the caller stay managed, and it holds every entity
+ * written until the caller's transaction ends.
+ * <p/>
+ * The batch size should match the {@code hibernate.jdbc.batch_size} of the
+ * entity manager factory, and {@code hibernate.order_inserts} and {@code
+ * hibernate.order_updates} should be enabled so that the statements of the
+ * users, their roles and their audit records are grouped into batches; the
+ * {@code domain-persistence-context.xml} configuration sets all of them from
+ * the {@code kusaidia.jdbc.batch_size} property.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class UserBulkWriter {
+    /**
+     * the batch size used when none is configured
+     */
+    public static final int DEFAULT_BATCH_SIZE = 50;
+    /**
+     * the commit interval used when none is configured
+     */
+    public static final int DEFAULT_COMMIT_INTERVAL = 10000;
+    /**
+     * the {@linkplain EntityManager} of the current transaction
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+    /**
+     * the template running each transaction of the writer
+     */
+    private TransactionTemplate transactionTemplate;
+    /**
+     * the number of entities written between two flushes
+     */
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    /**
+     * the number of entities written in each transaction
+     */
+    private int commitInterval = DEFAULT_COMMIT_INTERVAL;
+
+    /**
+     * Sets the {@linkplain PlatformTransactionManager} of the transactions
+     * of the writer.
+     *
+     * @param transactionManager the transaction manager.
+     */
+    public void setTransactionManager(
+            PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Returns the number of entities written between two flushes of the
+     * persistence context.
+     *
+     * @return the batch size.
+     */
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+    /**
+     * Sets the number of entities written between two flushes of the
+     * persistence context.
+     *
+     * @param batchSize the batch size.
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Returns the number of entities written in each transaction.
+     *
+     * @return the commit interval.
+     */
+    public int getCommitInterval() {
+        return this.commitInterval;
+    }
+
+    /**
+     * Sets the number of entities written in each transaction, preferably a
+     * multiple of the batch size.
+     *
+     * @param commitInterval the commit interval.
+     */
+    public void setCommitInterval(int commitInterval) {
+        if (commitInterval < 1) {
+            throw new IllegalArgumentException(
+                    "commitInterval must be positive");
+        }
+        this.commitInterval = commitInterval;
+    }
+
+    /**
+     * Builds and inserts the {@linkplain User} of every given builder. The
+     * builders are validated according to their {@linkplain
+     * org.kusaidia.util.builder.ValidationMode}, an invalid one rolling back
+     * the transaction it belongs to.
+     *
+     * @param builders the builders of the users to insert, read once.
+     * @return the number of users inserted.
+     * @throws javax.validation.ConstraintViolationException if a builder
+     * builds an invalid {@linkplain User}.
+     */
+    public int insert(Iterable<User.Builder> builders) {
+        final Iterator<User.Builder> iterator = builders.iterator();
+        int count = 0;
+        while (iterator.hasNext()) {
+            count += this.transactionTemplate.execute(
+                    new TransactionCallback<Integer>() {
+                        @Override
+                        public Integer doInTransaction(
+                                TransactionStatus status) {
+                            EntityManager entityManager =
+                                    UserBulkWriter.this.entityManager;
+                            int written = 0;
+                            while (written < UserBulkWriter.this.commitInterval
+                                    && iterator.hasNext()) {
+                                entityManager.persist(iterator.next().build());
+                                UserBulkWriter.this.flushAndClear(status,
+                                        ++written);
+                            }
+                            return written;
+                        }
+                    });
+        }
+        return count;
+    }
+
+    /**
+     * Updates every given {@linkplain User}. The users are usually detached,
+     * e.g. loaded by a previous transaction; they are reattached without
+     * being read again and all their updatable columns are written.
+     *
+     * @param users the users to update, read once.
+     * @return the number of users updated.
+     */
+    public int update(Iterable<User> users) {
+        final Iterator<User> iterator = users.iterator();
+        int count = 0;
+        while (iterator.hasNext()) {
+            count += this.transactionTemplate.execute(
+                    new TransactionCallback<Integer>() {
+                        @Override
+                        public Integer doInTransaction(
+                                TransactionStatus status) {
+                            Session session = UserBulkWriter.this.entityManager
+                                    .unwrap(Session.class);
+                            int written = 0;
+                            while (written < UserBulkWriter.this.commitInterval
+                                    && iterator.hasNext()) {
+                                session.update(iterator.next());
+                                UserBulkWriter.this.flushAndClear(status,
+                                        ++written);
+                            }
+                            return written;
+                        }
+                    });
+        }
+        return count;
+    }
+
+    /**
+     * Private helper method that sends the pending statements and detaches
+     * the entities written so far, once every batch. The persistence context
+     * of a transaction joined by the writer is not cleared, as it may hold
+     * entities of the caller.
+     *
+     * @param status the status of the transaction.
+     * @param written the number of entities written in the transaction.
+     */
+    private void flushAndClear(TransactionStatus status, int written) {
+        if (written % this.batchSize == 0) {
+            this.entityManager.flush();
+            if (status.isNewTransaction()) {
+                this.entityManager.clear();
+            }
+        }
+    }
+}
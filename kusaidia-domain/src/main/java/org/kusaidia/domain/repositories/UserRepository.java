@@ -0,0 +1,110 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.domain.repositories;
+
+import org.kusaidia.domain.entities.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Spring Data repository of the {@linkplain User} persistent entities. Bulk
+ * writes, such as imports, should go through the {@linkplain
+ * UserBulkWriter} instead, which keeps the persistence context bounded and
+ * lets Hibernate batch the statements, and listings needing no more than
+ * the user names and last activities should read {@linkplain UserSummary}
+ * projections.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public interface UserRepository extends JpaRepository<User, Long>,
+        UserRepositoryCustom {
+
+    /**
+     * Returns the {@linkplain User} with the given user name.
+     *
+     * @param userName the user name.
+     * @return the {@linkplain User}, {@code null} if there is none.
+     */
+    User findByUserName(String userName);
+
+    /**
+     * Returns the {@linkplain User} with the given user name together with
+     * its roles, in a single query, e.g. to authenticate it.
+     *
+     * @param userName the user name.
+     * @return the {@linkplain User}, {@code null} if there is none.
+     */
+    @Query("select distinct u from User u left join fetch u.roles"
+            + " where u.userName = ?1")
+    User findWithRolesByUserName(String userName);
+
+    /**
+     * Returns every {@linkplain User} together with its roles, in a single
+     * query. The join is not paged by the database, large listings should
+     * load the roles lazily instead, in batches.
+     *
+     * @return the users.
+     */
+    @Query("select distinct u from User u left join fetch u.roles")
+    List<User> findAllWithRoles();
+
+    /**
+     * Returns the {@linkplain UserSummary} of every user, ordered by user
+     * name.
+     *
+     * @return the summaries.
+     */
+    @Query("select new org.kusaidia.domain.repositories.UserSummary("
+            + "u.id, u.userName, u.lastActivity) from User u"
+            + " order by u.userName")
+    List<UserSummary> findAllSummaries();
+
+    /**
+     * Returns the {@linkplain UserSummary} of the user with the given user
+     * name.
+     *
+     * @param userName the user name.
+     * @return the summary, {@code null} if there is no such user.
+     */
+    @Query("select new org.kusaidia.domain.repositories.UserSummary("
+            + "u.id, u.userName, u.lastActivity) from User u"
+            + " where u.userName = ?1")
+    UserSummary findSummaryByUserName(String userName);
+
+    /**
+     * Returns the {@linkplain UserSummary} of the users inactive since the
+     * given date, the least recently active first.
+     *
+     * @param date the date.
+     * @return the summaries.
+     */
+    @Query("select new org.kusaidia.domain.repositories.UserSummary("
+            + "u.id, u.userName, u.lastActivity) from User u"
+            + " where u.lastActivity < ?1 order by u.lastActivity")
+    List<UserSummary> findSummariesByLastActivityBefore(Date date);
+}
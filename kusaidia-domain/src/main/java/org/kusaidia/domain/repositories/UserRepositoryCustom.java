@@ -0,0 +1,47 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+
+package org.kusaidia.domain.repositories;
+
+import org.kusaidia.domain.entities.User;
+
+/**
+ * Queries of the {@linkplain UserRepository} implemented with the Hibernate
+ * API, by {@linkplain UserRepositoryImpl}.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Returns the {@linkplain User} with the given identifier together with
+     * its roles, in a single query, through the {@value User#WITH_ROLES}
+     * fetch profile.
+     *
+     * @param id the identifier.
+     * @return the {@linkplain User}, {@code null} if there is none.
+     */
+    User findOneWithRoles(Long id);
+}
@@ -0,0 +1,62 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+
+package org.kusaidia.domain.repositories;
+
+import org.hibernate.Session;
+import org.kusaidia.domain.entities.User;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+/**
+ * Implementation of the {@linkplain UserRepositoryCustom} queries, picked up
+ * by Spring Data for the {@linkplain UserRepository}.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class UserRepositoryImpl implements UserRepositoryCustom {
+    /**
+     * the {@linkplain EntityManager} of the current transaction
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * @see UserRepositoryCustom#findOneWithRoles(Long)
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public User findOneWithRoles(Long id) {
+        Session session = this.entityManager.unwrap(Session.class);
+        session.enableFetchProfile(User.WITH_ROLES);
+        try {
+            return (User) session.get(User.class, id);
+        } finally {
+            session.disableFetchProfile(User.WITH_ROLES);
+        }
+    }
+}
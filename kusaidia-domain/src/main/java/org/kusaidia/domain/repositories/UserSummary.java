@@ -0,0 +1,134 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+
+package org.kusaidia.domain.repositories;
+
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.apache.commons.lang.builder.ToStringStyle;
+
+import java.util.Date;
+
+/**
+ * Read-only projection of a {@linkplain org.kusaidia.domain.entities.User},
+ * for the listings that only need its user name and last activity. The
+ * {@linkplain UserRepository} selects these columns only, in constructor
+ * expressions: no entity is hydrated or managed, the encrypted email is
+ * never read or decrypted and the roles are not touched.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class UserSummary {
+    /**
+     * the identifier of the user
+     */
+    private final Long id;
+    /**
+     * the user name of the user
+     */
+    private final String userName;
+    /**
+     * the last activity timestamp of the user
+     */
+    private final Date lastActivity;
+
+    /**
+     * Creates a new {@linkplain UserSummary}. Called by the constructor
+     * expressions of the {@linkplain UserRepository} queries.
+     *
+     * @param id the identifier of the user.
+     * @param userName the user name of the user.
+     * @param lastActivity the last activity timestamp of the user.
+     */
+    public UserSummary(Long id, String userName, Date lastActivity) {
+        this.id = id;
+        this.userName = userName;
+        this.lastActivity = new Date(lastActivity.getTime());
+    }
+
+    /**
+     * Returns the identifier of the user.
+     *
+     * @return the identifier.
+     */
+    public Long getId() {
+        return this.id;
+    }
+
+    /**
+     * Returns the user name of the user.
+     *
+     * @return the user name.
+     */
+    public String getUserName() {
+        return this.userName;
+    }
+
+    /**
+     * Returns the last activity timestamp of the user.
+     *
+     * @return the last activity timestamp.
+     */
+    public Date getLastActivity() {
+        return new Date(this.lastActivity.getTime());
+    }
+
+    /**
+     * @see Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(7, 11).append(this.id).toHashCode();
+    }
+
+    /**
+     * @see Object#equals(Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof UserSummary)) {
+            return false;
+        }
+        UserSummary other = (UserSummary) obj;
+        return new EqualsBuilder().append(this.id, other.id)
+                .append(this.userName, other.userName)
+                .append(this.lastActivity, other.lastActivity).isEquals();
+    }
+
+    /**
+     * @see Object#toString()
+     */
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.DEFAULT_STYLE)
+                .append("Id", this.id)
+                .append("Username", this.userName)
+                .append("LastActivity", this.lastActivity).toString();
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.domain.id;
+
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ *
+ * @author Angel L. Villalain Garcia
+ * @since 1.0.0
+ * @version 1.0.0
+ */
+public class PooledLoOptimizerTest {
+
+    @Test
+    public void testBlocks() {
+        Sequence sequence = new Sequence(50);
+        PooledLoOptimizer optimizer = new PooledLoOptimizer(Long.class, 50);
+
+        for (long id = 1; id <= 120; id++) {
+            Assert.assertEquals(id, optimizer.generate(sequence));
+        }
+        Assert.assertEquals(3, sequence.reads.get());
+        Assert.assertTrue(optimizer.getLastSourceValue().eq(101));
+        Assert.assertTrue(optimizer.applyIncrementSizeToSourceValues());
+    }
+
+    @Test
+    public void testNodesGetTheirOwnRanges() {
+        Sequence sequence = new Sequence(10);
+        PooledLoOptimizer first = new PooledLoOptimizer(Integer.class, 10);
+        PooledLoOptimizer second = new PooledLoOptimizer(Integer.class, 10);
+
+        Assert.assertEquals(1, first.generate(sequence));
+        Assert.assertEquals(11, second.generate(sequence));
+        Assert.assertEquals(2, first.generate(sequence));
+        Assert.assertEquals(12, second.generate(sequence));
+    }
+
+    @Test
+    public void testConcurrentGeneration() throws Exception {
+        final Sequence sequence = new Sequence(50);
+        final PooledLoOptimizer optimizer = new PooledLoOptimizer(Long.class, 50);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<long[]>> futures = new ArrayList<Future<long[]>>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(new Callable<long[]>() {
+                public long[] call() {
+                    long[] ids = new long[10000];
+                    for (int j = 0; j < ids.length; j++) {
+                        ids[j] = (Long) optimizer.generate(sequence);
+                    }
+                    return ids;
+                }
+            }));
+        }
+        BitSet seen = new BitSet();
+        for (Future<long[]> future : futures) {
+            for (long id : future.get()) {
+                Assert.assertFalse(seen.get((int) id));
+                seen.set((int) id);
+            }
+        }
+        executor.shutdown();
+
+        Assert.assertEquals(80000, seen.cardinality());
+        Assert.assertEquals(1, seen.nextSetBit(0));
+        Assert.assertEquals(80001, seen.nextClearBit(1));
+        Assert.assertEquals(1600, sequence.reads.get());
+    }
+
+    private static class Sequence implements AccessCallback {
+        private final AtomicLong next = new AtomicLong(1);
+        private final AtomicInteger reads = new AtomicInteger();
+        private final int increment;
+
+        private Sequence(int increment) {
+            this.increment = increment;
+        }
+
+        public IntegralDataTypeHolder getNextValue() {
+            this.reads.incrementAndGet();
+            return IdentifierGeneratorHelper.getIntegralDataTypeHolder(Long.class)
+                    .initialize(this.next.getAndAdd(this.increment));
+        }
+    }
+}
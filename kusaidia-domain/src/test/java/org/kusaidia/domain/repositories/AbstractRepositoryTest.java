@@ -0,0 +1,136 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+
+package org.kusaidia.domain.repositories;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.ejb.HibernateEntityManagerFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.runner.RunWith;
+import org.kusaidia.domain.entities.Role;
+import org.kusaidia.domain.entities.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base class of the repository tests, running against the domain persistence
+ * context with every {@linkplain Role} seeded and no {@linkplain User} left
+ * behind by a test.
+ *
+ * @author Angel L. Villalain Garcia
+ * @since 1.0.0
+ * @version 1.0.0
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {
+        "/domain-persistence-context.xml",
+        "/domain-test-context.xml"})
+@TestExecutionListeners(listeners = {
+        DependencyInjectionTestExecutionListener.class})
+public abstract class AbstractRepositoryTest {
+
+    @Autowired
+    protected UserRepository repository;
+
+    @Autowired
+    protected UserBulkWriter writer;
+
+    @Autowired
+    protected RoleRegistry registry;
+
+    @Autowired
+    protected EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DataSource dataSource;
+
+    protected JdbcTemplate jdbcTemplate;
+
+    protected SessionFactory sessionFactory;
+
+    protected Statistics statistics;
+
+    @Before
+    public void seedRoles() {
+        this.jdbcTemplate = new JdbcTemplate(this.dataSource);
+        for (Role.Type type : Role.Type.values()) {
+            if (this.jdbcTemplate.queryForInt(
+                    "select count(*) from role where type = ?",
+                    type.name()) == 0) {
+                this.jdbcTemplate.update(
+                        "insert into role (type, description) values (?, ?)",
+                        type.name(), type.name().toLowerCase());
+            }
+        }
+        this.registry.reload();
+        this.sessionFactory = ((HibernateEntityManagerFactory)
+                this.entityManagerFactory).getSessionFactory();
+        this.statistics = this.sessionFactory.getStatistics();
+        this.statistics.clear();
+    }
+
+    @After
+    public void deleteUsers() {
+        this.jdbcTemplate.update("delete from user_roles");
+        this.jdbcTemplate.update("delete from users");
+    }
+
+    /**
+     * Returns the builder of a valid user with the given name.
+     *
+     * @param userName the user name.
+     * @return the builder.
+     */
+    protected User.Builder builder(String userName) {
+        return new User.Builder().userName(userName)
+                .email(userName + "@email.com").password("password")
+                .role(this.registry.get(Role.Type.ROLE_USER));
+    }
+
+    /**
+     * Returns the builders of the users named {@code user<from>} to {@code
+     * user<to - 1>}.
+     *
+     * @param from the number of the first user.
+     * @param to the number after the last user.
+     * @return the builders.
+     */
+    protected List<User.Builder> builders(int from, int to) {
+        List<User.Builder> builders = new ArrayList<User.Builder>();
+        for (int i = from; i < to; i++) {
+            builders.add(builder("user" + i));
+        }
+        return builders;
+    }
+}
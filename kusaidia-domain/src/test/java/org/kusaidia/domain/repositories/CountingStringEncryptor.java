@@ -0,0 +1,66 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+
+package org.kusaidia.domain.repositories;
+
+import org.jasypt.encryption.pbe.PBEStringEncryptor;
+import org.jasypt.encryption.pbe.StandardPBEStringEncryptor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *
+ * @author Angel L. Villalain Garcia
+ * @since 1.0.0
+ * @version 1.0.0
+ */
+public class CountingStringEncryptor implements PBEStringEncryptor {
+
+    private final StandardPBEStringEncryptor encryptor = new StandardPBEStringEncryptor();
+
+    private final AtomicInteger decryptions = new AtomicInteger();
+
+    public void setAlgorithm(String algorithm) {
+        this.encryptor.setAlgorithm(algorithm);
+    }
+
+    @Override
+    public void setPassword(String password) {
+        this.encryptor.setPassword(password);
+    }
+
+    @Override
+    public String encrypt(String message) {
+        return this.encryptor.encrypt(message);
+    }
+
+    @Override
+    public String decrypt(String encryptedMessage) {
+        this.decryptions.incrementAndGet();
+        return this.encryptor.decrypt(encryptedMessage);
+    }
+
+    public int getDecryptions() {
+        return this.decryptions.get();
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+
+package org.kusaidia.domain.repositories;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+
+/**
+ * Checks that the placeholders of {@code domain-persistence-context.xml} and
+ * those of the application are resolved by their own configurers.
+ *
+ * @author Angel L. Villalain Garcia
+ * @since 1.0.0
+ * @version 1.0.0
+ */
+public class DomainPlaceholdersTest extends AbstractRepositoryTest {
+
+    @Autowired
+    @Qualifier("hostGreeting")
+    private String hostGreeting;
+
+    @Test
+    public void testHostPlaceholders() {
+        Assert.assertEquals("hello", this.hostGreeting);
+    }
+
+    @Test
+    public void testDomainPlaceholders() {
+        Assert.assertEquals(10, this.writer.getBatchSize());
+        Assert.assertEquals(UserBulkWriter.DEFAULT_COMMIT_INTERVAL,
+                this.writer.getCommitInterval());
+    }
+}
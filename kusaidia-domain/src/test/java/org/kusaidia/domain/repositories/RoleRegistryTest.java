@@ -0,0 +1,111 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+
+package org.kusaidia.domain.repositories;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kusaidia.domain.entities.Role;
+import org.kusaidia.domain.entities.User;
+
+import javax.persistence.EntityManager;
+import java.util.Collections;
+
+/**
+ *
+ * @author Angel L. Villalain Garcia
+ * @since 1.0.0
+ * @version 1.0.0
+ */
+public class RoleRegistryTest extends AbstractRepositoryTest {
+
+    @Test
+    public void testGet() {
+        for (Role.Type type : Role.Type.values()) {
+            Role role = this.registry.get(type);
+            Assert.assertEquals(type, role.getType());
+            Assert.assertSame(role, this.registry.get(type));
+        }
+        Assert.assertEquals(0, this.statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testFindAllFromQueryCache() {
+        EntityManager entityManager =
+                this.entityManagerFactory.createEntityManager();
+        try {
+            Assert.assertEquals(Role.Type.values().length, entityManager
+                    .createNamedQuery(Role.FIND_ALL, Role.class)
+                    .getResultList().size());
+        } finally {
+            entityManager.close();
+        }
+        Assert.assertEquals(1, this.statistics.getQueryCacheHitCount());
+        Assert.assertEquals(0, this.statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testFindFromCache() {
+        EntityManager entityManager =
+                this.entityManagerFactory.createEntityManager();
+        try {
+            Role role = entityManager.find(Role.class,
+                    Role.Type.ROLE_ADMINISTRATOR);
+            Assert.assertEquals("role_administrator", role.getDescription());
+        } finally {
+            entityManager.close();
+        }
+        Assert.assertEquals(0, this.statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testUserRolesFromCache() {
+        this.writer.insert(Collections.singleton(builder("cached")));
+        // the id, the user, its role and its audit records
+        long inserts = this.statistics.getPrepareStatementCount();
+        Assert.assertEquals(0, this.statistics.getEntityLoadCount());
+
+        loadRoles();
+        long firstLoad = this.statistics.getPrepareStatementCount() - inserts;
+        loadRoles();
+        long secondLoad = this.statistics.getPrepareStatementCount()
+                - inserts - firstLoad;
+
+        Assert.assertEquals(2, firstLoad);
+        Assert.assertEquals(1, secondLoad);
+    }
+
+    private void loadRoles() {
+        EntityManager entityManager =
+                this.entityManagerFactory.createEntityManager();
+        try {
+            User user = entityManager.createQuery(
+                    "select u from User u where u.userName = 'cached'",
+                    User.class).getSingleResult();
+            Assert.assertEquals(Collections.singleton(
+                    this.registry.get(Role.Type.ROLE_USER)), user.getRoles());
+        } finally {
+            entityManager.close();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.domain.repositories;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kusaidia.domain.entities.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.ConstraintViolationException;
+import java.util.Date;
+import java.util.List;
+
+/**
+ *
+ * @author Angel L. Villalain Garcia
+ * @since 1.0.0
+ * @version 1.0.0
+ */
+public class UserBulkWriterTest extends AbstractRepositoryTest {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    public void testInsert() {
+        Assert.assertEquals(10, this.writer.getBatchSize());
+        Assert.assertEquals(25, this.writer.insert(builders(0, 25)));
+
+        Assert.assertEquals(25, this.repository.count());
+        User user = this.repository.findByUserName("user7");
+        Assert.assertEquals("user7@email.com", user.getEmail());
+        Assert.assertEquals(25, this.jdbcTemplate.queryForInt("select count(*)"
+                + " from user_roles where role_type = 'ROLE_USER'"));
+    }
+
+    @Test
+    public void testInvalidUserRollsBack() {
+        List<User.Builder> builders = builders(0, 15);
+        builders.get(12).email("invalid");
+        try {
+            this.writer.insert(builders);
+            Assert.fail();
+        } catch (ConstraintViolationException e) {
+            Assert.assertEquals(0, this.repository.count());
+        }
+    }
+
+    @Test
+    public void testInvalidUserRollsBackItsTransactionOnly() {
+        this.writer.setCommitInterval(10);
+        try {
+            List<User.Builder> builders = builders(0, 25);
+            builders.get(22).email("invalid");
+            try {
+                this.writer.insert(builders);
+                Assert.fail();
+            } catch (ConstraintViolationException e) {
+                Assert.assertEquals(20, this.repository.count());
+            }
+        } finally {
+            this.writer.setCommitInterval(
+                    UserBulkWriter.DEFAULT_COMMIT_INTERVAL);
+        }
+    }
+
+    @Test
+    public void testUpdate() throws InterruptedException {
+        this.writer.insert(builders(0, 15));
+        List<User> users = this.repository.findAll();
+        Date before = users.get(0).getLastActivity();
+        Thread.sleep(5);
+        for (User user : users) {
+            user.updateLastActivity();
+        }
+
+        Assert.assertEquals(15, this.writer.update(users));
+        for (User user : this.repository.findAll()) {
+            Assert.assertTrue(user.getLastActivity().after(before));
+        }
+    }
+
+    @Test
+    public void testJoinedTransactionKeepsCallerEntities() {
+        this.writer.insert(builders(0, 1));
+
+        boolean managed = new TransactionTemplate(this.transactionManager)
+                .execute(new TransactionCallback<Boolean>() {
+                    @Override
+                    public Boolean doInTransaction(TransactionStatus status) {
+                        UserBulkWriterTest test = UserBulkWriterTest.this;
+                        User user = test.repository.findByUserName("user0");
+                        test.writer.insert(test.builders(1, 26));
+                        return test.entityManager.contains(user);
+                    }
+                });
+
+        Assert.assertTrue(managed);
+        Assert.assertEquals(26, this.repository.count());
+    }
+}
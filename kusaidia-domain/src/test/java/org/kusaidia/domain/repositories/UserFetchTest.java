@@ -0,0 +1,103 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+
+package org.kusaidia.domain.repositories;
+
+import org.hibernate.Hibernate;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kusaidia.domain.entities.User;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+/**
+ *
+ * @author Angel L. Villalain Garcia
+ * @since 1.0.0
+ * @version 1.0.0
+ */
+public class UserFetchTest extends AbstractRepositoryTest {
+
+    private static final int USERS = 60;
+
+    @Before
+    public void before() {
+        this.writer.insert(builders(0, USERS));
+        this.sessionFactory.getCache().evictCollectionRegions();
+        this.statistics.clear();
+    }
+
+    @Test
+    public void testLazyRolesAreBatchFetched() {
+        EntityManager entityManager =
+                this.entityManagerFactory.createEntityManager();
+        try {
+            List<User> users = entityManager.createQuery(
+                    "select u from User u", User.class).getResultList();
+            Assert.assertEquals(USERS, users.size());
+            for (User user : users) {
+                Assert.assertEquals(1, user.getRoles().size());
+            }
+        } finally {
+            entityManager.close();
+        }
+        // the users, then the roles of 50 users and of the last 10
+        Assert.assertEquals(3, this.statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testFindAllWithRoles() {
+        List<User> users = this.repository.findAllWithRoles();
+
+        Assert.assertEquals(USERS, users.size());
+        for (User user : users) {
+            Assert.assertTrue(Hibernate.isInitialized(user.getRoles()));
+            Assert.assertEquals(1, user.getRoles().size());
+        }
+        Assert.assertEquals(1, this.statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testFindWithRolesByUserName() {
+        User user = this.repository.findWithRolesByUserName("user7");
+
+        Assert.assertTrue(Hibernate.isInitialized(user.getRoles()));
+        Assert.assertEquals(1, user.getRoles().size());
+        Assert.assertEquals(1, this.statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testFindOneWithRoles() {
+        Long id = this.jdbcTemplate.queryForLong(
+                "select id from users where username = 'user7'");
+
+        User user = this.repository.findOneWithRoles(id);
+
+        Assert.assertEquals("user7", user.getUserName());
+        Assert.assertTrue(Hibernate.isInitialized(user.getRoles()));
+        Assert.assertEquals(1, user.getRoles().size());
+        Assert.assertEquals(1, this.statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+
+package org.kusaidia.domain.repositories;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kusaidia.domain.entities.User;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ *
+ * @author Angel L. Villalain Garcia
+ * @since 1.0.0
+ * @version 1.0.0
+ */
+public class UserSummaryTest extends AbstractRepositoryTest {
+
+    private static final int USERS = 12;
+
+    @Autowired
+    private CountingStringEncryptor encryptor;
+
+    private int decryptions;
+
+    @Before
+    public void before() {
+        List<User.Builder> builders = new ArrayList<User.Builder>();
+        for (int i = 0; i < USERS; i++) {
+            builders.add(builder("user" + (char) ('a' + i)));
+        }
+        this.writer.insert(builders);
+        this.statistics.clear();
+        this.decryptions = this.encryptor.getDecryptions();
+    }
+
+    @Test
+    public void testFindAllSummaries() {
+        List<UserSummary> summaries = this.repository.findAllSummaries();
+
+        Assert.assertEquals(USERS, summaries.size());
+        Assert.assertEquals("usera", summaries.get(0).getUserName());
+        Assert.assertEquals("userl", summaries.get(USERS - 1).getUserName());
+        assertNoEntityRead();
+    }
+
+    @Test
+    public void testFindSummaryByUserName() {
+        Long id = this.jdbcTemplate.queryForLong(
+                "select id from users where username = 'userc'");
+        Date lastActivity = (Date) this.jdbcTemplate.queryForObject(
+                "select last_activity from users where username = 'userc'",
+                Date.class);
+
+        UserSummary summary = this.repository.findSummaryByUserName("userc");
+
+        Assert.assertEquals(id, summary.getId());
+        Assert.assertEquals("userc", summary.getUserName());
+        Assert.assertEquals(lastActivity.getTime(),
+                summary.getLastActivity().getTime());
+        Assert.assertNull(this.repository.findSummaryByUserName("unknown"));
+        assertNoEntityRead();
+    }
+
+    @Test
+    public void testFindSummariesByLastActivityBefore() {
+        this.jdbcTemplate.update("update users set last_activity = ?"
+                + " where username in ('userb', 'userf')", new Date(0));
+
+        List<UserSummary> summaries = this.repository
+                .findSummariesByLastActivityBefore(new Date(1000));
+
+        Assert.assertEquals(2, summaries.size());
+        assertNoEntityRead();
+    }
+
+    @Test
+    public void testEntitiesDecryptEmail() {
+        Assert.assertEquals(USERS, this.repository.findAll().size());
+
+        Assert.assertEquals(USERS, this.statistics.getEntityLoadCount());
+        Assert.assertEquals(USERS,
+                this.encryptor.getDecryptions() - this.decryptions);
+    }
+
+    private void assertNoEntityRead() {
+        Assert.assertEquals(0, this.statistics.getEntityLoadCount());
+        Assert.assertEquals(0,
+                this.encryptor.getDecryptions() - this.decryptions);
+    }
+}
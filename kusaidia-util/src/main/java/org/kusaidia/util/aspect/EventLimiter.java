@@ -0,0 +1,202 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.util.aspect;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free limiter deciding whether an invocation of an advised method is
+ * logged, according to the {@linkplain
+ * org.kusaidia.util.logging.Loggable#sampleRate()} and {@linkplain
+ * org.kusaidia.util.logging.Loggable#maxPerSecond()} attributes. Sampling is
+ * deterministic: out of every {@code n} events, {@code n * sampleRate} pass.
+ * The rate limit is enforced on fixed one second windows, the window index
+ * and the number of events admitted in it being packed in a single atomic
+ * value. Rejected events are counted so that they can be reported once per
+ * reporting interval.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class EventLimiter {
+    /**
+     * the length of a rate limiting window
+     */
+    private static final long WINDOW = TimeUnit.SECONDS.toNanos(1);
+    /**
+     * the mask of the admitted events count in the packed window state
+     */
+    private static final long COUNT_MASK = 0xFFFFFFFFL;
+    /**
+     * the fraction of events that pass the sampling
+     */
+    private final double sampleRate;
+    /**
+     * the maximum number of events admitted per second, {@code 0} meaning
+     * unlimited
+     */
+    private final int maxPerSecond;
+    /**
+     * the interval, in nanoseconds, between two suppression reports
+     */
+    private final long reportInterval;
+    /**
+     * the number of events seen by the sampler
+     */
+    private final AtomicLong sampled = new AtomicLong();
+    /**
+     * the index of the current window in the high 32 bits and the number of
+     * events admitted in it in the low 32 bits
+     */
+    private final AtomicLong window = new AtomicLong();
+    /**
+     * the number of events suppressed since the last report
+     */
+    private final AtomicLong suppressed = new AtomicLong();
+    /**
+     * the time, in nanoseconds, of the next suppression report
+     */
+    private final AtomicLong nextReport;
+
+    /**
+     * Creates a new {@linkplain EventLimiter}.
+     *
+     * @param sampleRate the fraction of events that pass the sampling,
+     * between {@code 0} and {@code 1}.
+     * @param maxPerSecond the maximum number of events admitted per second,
+     * {@code 0} meaning unlimited.
+     * @param reportInterval the interval between two suppression reports.
+     * @param unit the {@linkplain TimeUnit} of the reporting interval.
+     * @param now the current time, in nanoseconds, the first reporting
+     * interval starts at.
+     */
+    EventLimiter(double sampleRate, int maxPerSecond, long reportInterval,
+                 TimeUnit unit, long now) {
+        this.sampleRate = Math.max(0.0, Math.min(1.0, sampleRate));
+        this.maxPerSecond = Math.max(0, maxPerSecond);
+        this.reportInterval = unit.toNanos(reportInterval);
+        this.nextReport = new AtomicLong(now + this.reportInterval);
+    }
+
+    /**
+     * Checks whether the specified attributes require a limiter.
+     *
+     * @param sampleRate the configured sample rate.
+     * @param maxPerSecond the configured maximum number of events per
+     * second.
+     * @return {@code true} if events may be suppressed with the specified
+     *         attributes, {@code false} otherwise.
+     */
+    static boolean isLimiting(double sampleRate, int maxPerSecond) {
+        return sampleRate < 1.0 || maxPerSecond > 0;
+    }
+
+    /**
+     * Decides whether an event occurring at the specified time is emitted,
+     * counting it as suppressed otherwise.
+     *
+     * @param now the current time, in nanoseconds.
+     * @return {@code true} if the event must be emitted, {@code false} if it
+     *         is suppressed.
+     */
+    boolean tryAcquire(long now) {
+        if (this.sample() && this.admit(now)) {
+            return true;
+        }
+        this.suppressed.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Returns and resets the number of suppressed events if the reporting
+     * interval elapsed at the specified time. Only one of the concurrent
+     * callers gets the count.
+     *
+     * @param now the current time, in nanoseconds.
+     * @return the number of events suppressed since the last report, or
+     *         {@code 0} if there is nothing to report yet.
+     */
+    long drainSuppressed(long now) {
+        long next = this.nextReport.get();
+        if (now - next < 0 || !this.nextReport.compareAndSet(next,
+                now + this.reportInterval)) {
+            return 0;
+        }
+        return this.suppressed.getAndSet(0);
+    }
+
+    /**
+     * Returns the interval between two suppression reports.
+     *
+     * @param unit the {@linkplain TimeUnit} of the returned value.
+     * @return the interval between two suppression reports.
+     */
+    long getReportInterval(TimeUnit unit) {
+        return unit.convert(this.reportInterval, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Private helper method implementing the deterministic sampling.
+     *
+     * @return {@code true} if the event passes the sampling, {@code false}
+     *         otherwise.
+     */
+    private boolean sample() {
+        if (this.sampleRate >= 1.0) {
+            return true;
+        }
+        long count = this.sampled.getAndIncrement();
+        return (long) ((count + 1) * this.sampleRate) !=
+                (long) (count * this.sampleRate);
+    }
+
+    /**
+     * Private helper method implementing the fixed window rate limit.
+     *
+     * @param now the current time, in nanoseconds.
+     * @return {@code true} if the event is admitted in the current window,
+     *         {@code false} otherwise.
+     */
+    private boolean admit(long now) {
+        if (this.maxPerSecond == 0) {
+            return true;
+        }
+        long index = (now / EventLimiter.WINDOW) << 32;
+        while (true) {
+            long state = this.window.get();
+            long update;
+            if ((state & ~EventLimiter.COUNT_MASK) != index) {
+                update = index | 1;
+            } else if ((state & EventLimiter.COUNT_MASK) < this.maxPerSecond) {
+                update = state + 1;
+            } else {
+                return false;
+            }
+            if (this.window.compareAndSet(state, update)) {
+                return true;
+            }
+        }
+    }
+}
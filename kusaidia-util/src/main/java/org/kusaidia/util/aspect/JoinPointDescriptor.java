@@ -0,0 +1,273 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.util.aspect;
+
+import org.kusaidia.util.logging.LogLevel;
+import org.kusaidia.util.logging.Loggable;
+
+import java.lang.reflect.Method;
+
+/**
+ * Immutable descriptor holding all the information the {@linkplain
+ * LoggingAspect} needs about an advised method that does not change between
+ * invocations: the target class, the method name, the return kind, the
+ * {@linkplain Loggable} attributes, the rendering limits, the resolved
+ * message templates and the {@linkplain EventLimiter}, if any.
+ * Instances of this class are computed once per advised method and target
+ * class and cached by the aspect.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class JoinPointDescriptor {
+    /**
+     * the {@linkplain Class} of the advised object
+     */
+    private final Class<?> targetClass;
+    /**
+     * the name of the advised method
+     */
+    private final String methodName;
+    /**
+     * whether the advised method returns {@code void}
+     */
+    private final boolean voidReturn;
+    /**
+     * whether the advised method declares parameters
+     */
+    private final boolean withParameters;
+    /**
+     * the {@linkplain LogLevel} the messages are logged at, either
+     * configured on the {@linkplain Loggable} annotation or overridden at
+     * runtime
+     */
+    private final LogLevel level;
+    /**
+     * the template used when entering the advised method
+     */
+    private final String entering;
+    /**
+     * the template used when leaving the advised method
+     */
+    private final String leaving;
+    /**
+     * the template used when the advised method throws an error
+     */
+    private final String throwing;
+    /**
+     * the maximum number of characters used to render a single argument
+     */
+    private final int maxArgumentLength;
+    /**
+     * the maximum number of characters used to render all the arguments
+     */
+    private final int maxArgumentsLength;
+    /**
+     * the maximum number of elements rendered for a container
+     */
+    private final int maxElements;
+    /**
+     * the template used to report the suppressed events
+     */
+    private final String suppressed;
+    /**
+     * the {@linkplain EventLimiter} of the advised method, {@code null} if
+     * no event is ever suppressed
+     */
+    private final EventLimiter limiter;
+
+    /**
+     * Creates a new {@linkplain JoinPointDescriptor}.
+     *
+     * @param targetClass the {@linkplain Class} of the advised object.
+     * @param method the advised {@linkplain Method}.
+     * @param level the {@linkplain LogLevel} the messages of the advised
+     * method are logged at.
+     * @param entering the template used when entering the advised method.
+     * @param leaving the template used when leaving the advised method.
+     * @param throwing the template used when the advised method throws an
+     * error.
+     * @param maxArgumentLength the maximum number of characters used to
+     * render a single argument.
+     * @param maxArgumentsLength the maximum number of characters used to
+     * render all the arguments.
+     * @param maxElements the maximum number of elements rendered for a
+     * container.
+     * @param suppressed the template used to report the suppressed events.
+     * @param limiter the {@linkplain EventLimiter} of the advised method,
+     * {@code null} if no event is ever suppressed.
+     */
+    JoinPointDescriptor(Class<?> targetClass, Method method, LogLevel level,
+                        String entering, String leaving, String throwing,
+                        int maxArgumentLength, int maxArgumentsLength,
+                        int maxElements, String suppressed,
+                        EventLimiter limiter) {
+        this.targetClass = targetClass;
+        this.methodName = method.getName();
+        this.voidReturn = Void.TYPE.equals(method.getReturnType());
+        this.withParameters = method.getParameterTypes().length != 0;
+        this.level = level;
+        this.entering = entering;
+        this.leaving = leaving;
+        this.throwing = throwing;
+        this.maxArgumentLength = maxArgumentLength;
+        this.maxArgumentsLength = maxArgumentsLength;
+        this.maxElements = maxElements;
+        this.suppressed = suppressed;
+        this.limiter = limiter;
+    }
+
+    /**
+     * Returns the {@linkplain Class} of the advised object.
+     *
+     * @return the {@linkplain Class} of the advised object.
+     */
+    Class<?> getTargetClass() {
+        return this.targetClass;
+    }
+
+    /**
+     * Returns the name of the advised method.
+     *
+     * @return the name of the advised method.
+     */
+    String getMethodName() {
+        return this.methodName;
+    }
+
+    /**
+     * Returns whether the advised method returns {@code void}.
+     *
+     * @return {@code true} if the advised method returns {@code void},
+     *         {@code false} otherwise.
+     */
+    boolean isVoidReturn() {
+        return this.voidReturn;
+    }
+
+    /**
+     * Returns whether the advised method declares parameters.
+     *
+     * @return {@code true} if the advised method declares parameters,
+     *         {@code false} otherwise.
+     */
+    boolean isWithParameters() {
+        return this.withParameters;
+    }
+
+    /**
+     * Returns the {@linkplain LogLevel} the messages of the advised method
+     * are logged at.
+     *
+     * @return the {@linkplain LogLevel} the messages are logged at.
+     */
+    LogLevel getLevel() {
+        return this.level;
+    }
+
+    /**
+     * Returns the template of the message logged when entering the advised
+     * method.
+     *
+     * @return the template of the message logged when entering the advised
+     *         method.
+     */
+    String getEntering() {
+        return this.entering;
+    }
+
+    /**
+     * Returns the template of the message logged when leaving the advised
+     * method.
+     *
+     * @return the template of the message logged when leaving the advised
+     *         method.
+     */
+    String getLeaving() {
+        return this.leaving;
+    }
+
+    /**
+     * Returns the template of the message logged when the advised method
+     * throws an error.
+     *
+     * @return the template of the message logged when the advised method
+     *         throws an error.
+     */
+    String getThrowing() {
+        return this.throwing;
+    }
+
+    /**
+     * Returns the maximum number of characters used to render a single
+     * argument or the return value.
+     *
+     * @return the maximum number of characters used to render a single
+     *         argument or the return value.
+     */
+    int getMaxArgumentLength() {
+        return this.maxArgumentLength;
+    }
+
+    /**
+     * Returns the maximum number of characters used to render all the
+     * arguments.
+     *
+     * @return the maximum number of characters used to render all the
+     *         arguments.
+     */
+    int getMaxArgumentsLength() {
+        return this.maxArgumentsLength;
+    }
+
+    /**
+     * Returns the maximum number of elements rendered for an array, a
+     * collection or a map.
+     *
+     * @return the maximum number of elements rendered for an array, a
+     *         collection or a map.
+     */
+    int getMaxElements() {
+        return this.maxElements;
+    }
+
+    /**
+     * Returns the template of the message reporting the suppressed events.
+     *
+     * @return the template of the message reporting the suppressed events.
+     */
+    String getSuppressed() {
+        return this.suppressed;
+    }
+
+    /**
+     * Returns the {@linkplain EventLimiter} of the advised method.
+     *
+     * @return the {@linkplain EventLimiter} of the advised method, or
+     *         {@code null} if no event is ever suppressed.
+     */
+    EventLimiter getLimiter() {
+        return this.limiter;
+    }
+}
@@ -23,22 +23,55 @@
 package org.kusaidia.util.aspect;
 
 import org.aspectj.lang.JoinPoint;
-import org.aspectj.lang.annotation.AfterReturning;
-import org.aspectj.lang.annotation.AfterThrowing;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.aspectj.lang.annotation.Before;
 import org.aspectj.lang.reflect.MethodSignature;
+import org.kusaidia.util.i18n.CachingMessageSource;
+import org.kusaidia.util.logging.ArgumentRenderer;
+import org.kusaidia.util.logging.DefaultArgumentRenderer;
 import org.kusaidia.util.logging.Log;
+import org.kusaidia.util.logging.LogEvent;
+import org.kusaidia.util.logging.LogLevelOverrides;
 import org.kusaidia.util.logging.LogLevel;
 import org.kusaidia.util.logging.Loggable;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.Resource;
+import java.lang.reflect.Method;
+import java.util.Collection;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Logging cross-cutting concern aspect implementation
+ * Logging cross-cutting concern aspect implementation. A single around
+ * advice logs the entering, leaving and error messages of an advised
+ * method, so the per-call work is done once per invocation. All the
+ * information about an advised method that does not change between
+ * invocations (target class, method name, return kind and message
+ * templates) is resolved once and cached in a {@linkplain
+ * JoinPointDescriptor}, so the steady-state advice path does no reflection
+ * and no template lookup. Messages are handed
+ * to the {@linkplain Log} as a template and arguments, so the formatting and
+ * the rendering of the method arguments only happen when the event is
+ * actually written. Arguments and container or text return values are
+ * rendered through a pluggable {@linkplain ArgumentRenderer} into a
+ * reusable per-thread buffer, bounded by the limits configured on the
+ * aspect or overridden per method on the {@linkplain Loggable} annotation.
+ * Methods declaring a sample rate or a maximum rate get an {@linkplain
+ * EventLimiter}; the invocations it rejects are counted and reported once
+ * per interval, while errors are always logged. When structured events are
+ * enabled, the messages are handed to the {@linkplain Log} as {@linkplain
+ * LogEvent} objects carrying the raw values and the duration of the call
+ * instead of a template and arguments. When a {@linkplain LogLevelOverrides}
+ * bean is in place, the level of a method is looked up there first, and
+ * the descriptors are resolved again every time the overrides change; the
+ * limiters are kept, with their pending suppressed counts.
  *
  * @author Angel L. Villalain Garcia
  * @version 1.0.0
@@ -68,6 +101,29 @@ public final class LoggingAspect {
     private static final String DEFAULT_RETURN_VOID_MESSAGE = "log.void" +
             ".return" +
             ".message";
+    private static final String SUPPRESSED_STRING = "[ suppressed < {0} > " +
+            "{1} events in the last {2} seconds ]";
+    private static final String DEFAULT_SUPPRESSED_MESSAGE = "log.suppressed" +
+            ".message";
+    private static final long DEFAULT_SUPPRESSION_REPORT_INTERVAL = 10000;
+    private static final String ARGUMENT_SEPARATOR = ", ";
+    private static final int DEFAULT_MAX_ARGUMENT_LENGTH = 256;
+    private static final int DEFAULT_MAX_ARGUMENTS_LENGTH = 1024;
+    private static final int DEFAULT_MAX_ELEMENTS = 10;
+    /**
+     * the largest buffer capacity kept by a thread between two renderings
+     */
+    private static final int MAX_RETAINED_BUFFER_CAPACITY = 8192;
+    /**
+     * the reusable per-thread buffer used to render the arguments
+     */
+    private static final ThreadLocal<StringBuilder> BUFFERS =
+            new ThreadLocal<StringBuilder>() {
+                @Override
+                protected StringBuilder initialValue() {
+                    return new StringBuilder(256);
+                }
+            };
     /**
      * the {@linkplain Log} implementation used by this aspect
      */
@@ -75,125 +131,681 @@ public final class LoggingAspect {
     private Log logger;
     /**
      * the {@linkplain MessageSource} for i18n support containing log messages
-     * being used
+     * being used. When it is a {@linkplain CachingMessageSource}, the cached
+     * descriptors are resolved again every time its cache is dropped.
      */
     @Resource
     private MessageSource messageSource;
+    /**
+     * whether the advices consult {@linkplain Log#isLogLevelEnabled(LogLevel,
+     * Class)} before doing any argument rendering or message formatting.
+     * Enabled by default.
+     */
+    private boolean levelGuardEnabled = true;
+    /**
+     * whether the messages are logged as structured {@linkplain LogEvent}
+     * objects. Disabled by default.
+     */
+    private boolean structuredEvents;
+    /**
+     * the generation of the {@linkplain CachingMessageSource} the cached
+     * descriptors were resolved with
+     */
+    private volatile long templatesGeneration;
+    /**
+     * the runtime overrides of the {@linkplain Loggable} levels, if any
+     */
+    private LogLevelOverrides levelOverrides;
+    /**
+     * the generation of the {@linkplain LogLevelOverrides} the cached
+     * descriptors were resolved with
+     */
+    private volatile long overridesGeneration;
+    /**
+     * the cache of {@linkplain JoinPointDescriptor} indexed by target class
+     * and advised method. Spring AOP creates a new {@code JoinPoint.StaticPart}
+     * for every invocation, so the advised {@linkplain Method} is used as key
+     * instead.
+     */
+    private final ConcurrentMap<Class<?>, ConcurrentMap<Method,
+            JoinPointDescriptor>> descriptors = new ConcurrentHashMap<Class<?>,
+            ConcurrentMap<Method, JoinPointDescriptor>>();
+    /**
+     * the {@linkplain EventLimiter} of the rate limited or sampled methods,
+     * indexed by target class and advised method. Kept apart from the
+     * descriptors so that the limits and the suppressed counts survive the
+     * descriptors being resolved again.
+     */
+    private final ConcurrentMap<Class<?>, ConcurrentMap<Method,
+            EventLimiter>> limiters = new ConcurrentHashMap<Class<?>,
+            ConcurrentMap<Method, EventLimiter>>();
+    /**
+     * the {@linkplain ArgumentRenderer} used to render the arguments and the
+     * return values
+     */
+    private ArgumentRenderer argumentRenderer = new DefaultArgumentRenderer();
+    /**
+     * the default maximum number of characters used to render a single
+     * argument or return value
+     */
+    private int maxArgumentLength = LoggingAspect.DEFAULT_MAX_ARGUMENT_LENGTH;
+    /**
+     * the default maximum number of characters used to render all the
+     * arguments of a method
+     */
+    private int maxArgumentsLength = LoggingAspect.DEFAULT_MAX_ARGUMENTS_LENGTH;
+    /**
+     * the default maximum number of elements rendered for a container
+     */
+    private int maxElements = LoggingAspect.DEFAULT_MAX_ELEMENTS;
+    /**
+     * the interval, in milliseconds, between two reports of the events
+     * suppressed by sampling or rate limiting
+     */
+    private long suppressionReportInterval =
+            LoggingAspect.DEFAULT_SUPPRESSION_REPORT_INTERVAL;
+    /**
+     * the source of the time used to rate limit and to report the
+     * suppressed events
+     */
+    private volatile Ticker ticker = Ticker.SYSTEM;
+
+    /**
+     * Sets whether the advices consult {@linkplain Log#isLogLevelEnabled(
+     * LogLevel, Class)} once per join point and skip all argument rendering,
+     * message lookup and formatting when the level is disabled.
+     *
+     * @param levelGuardEnabled {@code true} to enable the level guard,
+     * {@code false} to always build the message and let the {@linkplain Log}
+     * implementation decide.
+     */
+    public void setLevelGuardEnabled(boolean levelGuardEnabled) {
+        this.levelGuardEnabled = levelGuardEnabled;
+    }
 
     /**
-     * Before join point for this aspect to execute before a method annotated
-     * with the {@linkplain Loggable} annotation.
+     * Sets whether the entering, leaving and error messages are logged as
+     * structured {@linkplain LogEvent} objects through {@linkplain
+     * Log#logEvent(LogEvent)} rather than as formatted templates. The
+     * message templates and the rendering limits of the aspect do not apply
+     * to structured events, which are rendered by the {@linkplain Log}.
+     *
+     * @param structuredEvents {@code true} to log structured events, {@code
+     * false} to log formatted messages.
+     */
+    public void setStructuredEvents(boolean structuredEvents) {
+        this.structuredEvents = structuredEvents;
+    }
+
+    /**
+     * Sets the runtime overrides of the levels configured on the
+     * {@linkplain Loggable} annotations. The levels of the errors are not
+     * affected.
+     *
+     * @param levelOverrides the {@linkplain LogLevelOverrides} to consult,
+     * {@code null} to only use the annotations.
+     */
+    @Autowired(required = false)
+    public void setLevelOverrides(LogLevelOverrides levelOverrides) {
+        this.levelOverrides = levelOverrides;
+        this.descriptors.clear();
+    }
+
+    /**
+     * Sets the {@linkplain ArgumentRenderer} used to render the arguments
+     * and the return values of the advised methods.
+     *
+     * @param argumentRenderer the {@linkplain ArgumentRenderer} to use.
+     */
+    public void setArgumentRenderer(ArgumentRenderer argumentRenderer) {
+        this.argumentRenderer = argumentRenderer;
+    }
+
+    /**
+     * Sets the default maximum number of characters used to render a single
+     * argument or return value. Only applies to the methods advised after
+     * this call that do not override it on the {@linkplain Loggable}
+     * annotation.
+     *
+     * @param maxArgumentLength the maximum number of characters, must be
+     * positive.
+     */
+    public void setMaxArgumentLength(int maxArgumentLength) {
+        this.maxArgumentLength = maxArgumentLength;
+    }
+
+    /**
+     * Sets the default maximum number of characters used to render all the
+     * arguments of a method. Only applies to the methods advised after this
+     * call that do not override it on the {@linkplain Loggable} annotation.
+     *
+     * @param maxArgumentsLength the maximum number of characters, must be
+     * positive.
+     */
+    public void setMaxArgumentsLength(int maxArgumentsLength) {
+        this.maxArgumentsLength = maxArgumentsLength;
+    }
+
+    /**
+     * Sets the default maximum number of elements rendered for an array, a
+     * collection or a map. Only applies to the methods advised after this
+     * call that do not override it on the {@linkplain Loggable} annotation.
+     *
+     * @param maxElements the maximum number of elements, must not be
+     * negative.
+     */
+    public void setMaxElements(int maxElements) {
+        this.maxElements = maxElements;
+    }
+
+    /**
+     * Sets the interval between two reports of the events of a method
+     * suppressed by sampling or rate limiting. Only applies to the methods
+     * advised after this call.
+     *
+     * @param suppressionReportInterval the interval in milliseconds, must be
+     * positive.
+     */
+    public void setSuppressionReportInterval(long suppressionReportInterval) {
+        this.suppressionReportInterval = suppressionReportInterval;
+    }
+
+    /**
+     * Sets the source of the time used to rate limit the advised methods
+     * and to report the events suppressed by sampling or rate limiting. It
+     * defaults to {@linkplain Ticker#SYSTEM}. The limiters of the methods
+     * already advised are discarded.
+     *
+     * @param ticker the {@linkplain Ticker} to read the time from.
+     */
+    public void setTicker(Ticker ticker) {
+        if (ticker == null) {
+            throw new IllegalArgumentException("ticker must not be null");
+        }
+        this.ticker = ticker;
+        this.limiters.clear();
+        this.descriptors.clear();
+    }
+
+    /**
+     * Around join point for this aspect to execute around a method annotated
+     * with the {@linkplain Loggable} annotation. The descriptor, the level
+     * check, the limiter decision and the arguments of the join point are
+     * resolved once per call and shared by the entering, leaving and error
+     * messages.
      *
      * @param joinPoint the join point this aspect is weaved on.
      * @param loggable the {@linkplain Loggable} annotation.
+     * @return the value returned by the advised method.
+     * @throws Throwable the error thrown by the advised method.
      */
-    @Before(value = "execution(public * * (..)) && @annotation(loggable)",
+    @Around(value = "execution(public * * (..)) && @annotation(loggable)",
             argNames = "joinPoint, loggable")
-    public void before(JoinPoint joinPoint, Loggable loggable) {
-        Class<?> clazz = joinPoint.getTarget().getClass();
-        String message = loggable.message();
-        Object[] args = new Object[2];
-        args[0] = joinPoint.getSignature().getName();
+    public Object log(ProceedingJoinPoint joinPoint, Loggable loggable)
+            throws Throwable {
+        JoinPointDescriptor descriptor = this.getDescriptor(joinPoint, loggable);
+        Class<?> clazz = descriptor.getTargetClass();
+        boolean logged = this.isEnabled(descriptor.getLevel(), clazz) &&
+                this.isAdmitted(descriptor);
+        Object[] arguments = (logged && descriptor.isWithParameters()) ?
+                joinPoint.getArgs() : null;
+        boolean structured = this.structuredEvents;
+        if (logged) {
+            this.logEntering(descriptor, arguments, structured);
+        }
+        long start = structured ? System.nanoTime() : 0L;
+        Object returnValue;
+        try {
+            returnValue = joinPoint.proceed();
+        } catch (Throwable throwable) {
+            this.logThrowing(descriptor, joinPoint, arguments, throwable,
+                    structured ? System.nanoTime() - start :
+                            LogEvent.NO_DURATION);
+            throw throwable;
+        }
+        if (logged) {
+            this.logLeaving(descriptor, returnValue, structured ?
+                    System.nanoTime() - start : LogEvent.NO_DURATION);
+        }
+        return returnValue;
+    }
 
-        if (joinPoint.getArgs().length != 0) {
-            args[1] = this.constructArgumentsString(joinPoint.getArgs());
-            message = (message.isEmpty()) ? LoggingAspect.BEFORE_PARAM_STRING : message;
-            this.logger.log(loggable.value(), clazz, null,
-                    this.messageSource.getMessage(
-                            LoggingAspect.DEFAULT_BEFORE_PARAM_MESSAGE, args,
-                            message, Locale.getDefault()));
-        } else {
-            message = (message.isEmpty()) ? LoggingAspect.BEFORE_STRING : message;
-            this.logger.log(loggable.value(), clazz, null,
-                    this.messageSource.getMessage(
-                            LoggingAspect.DEFAULT_BEFORE_MESSAGE, args,
-                            message, Locale.getDefault()));
+    /**
+     * Private helper method that logs the entering message of an advised
+     * method.
+     *
+     * @param descriptor the {@linkplain JoinPointDescriptor} of the advised
+     * method.
+     * @param arguments the arguments passed to the advised method, {@code
+     * null} if it declares no parameters.
+     * @param structured whether to log a structured {@linkplain LogEvent}.
+     */
+    private void logEntering(JoinPointDescriptor descriptor,
+                             Object[] arguments, boolean structured) {
+        if (structured) {
+            this.logger.logEvent(new LogEvent.Builder(LogEvent.Type.ENTERING,
+                    descriptor.getLevel(), descriptor.getTargetClass(),
+                    descriptor.getMethodName()).arguments(arguments).build());
+            return;
         }
+        Object[] args = new Object[2];
+        args[0] = descriptor.getMethodName();
+        if (arguments != null) {
+            args[1] = new Arguments(arguments, descriptor,
+                    this.argumentRenderer);
+        }
+        this.logger.log(descriptor.getLevel(), descriptor.getTargetClass(),
+                null, descriptor.getEntering(), args);
     }
 
     /**
-     * After throwing join point for this aspect to execute if a method
-     * annotatated with the {@linkplain Loggable} annotation throws a
-     * {@linkplain Throwable} error.
+     * Private helper method that logs the error message of an advised method
+     * that threw a {@linkplain Throwable} error. Errors are logged whenever
+     * the {@linkplain LogLevel#ERROR} level is enabled, regardless of the
+     * level of the {@linkplain Loggable} annotation and of the limiter.
      *
+     * @param descriptor the {@linkplain JoinPointDescriptor} of the advised
+     * method.
      * @param joinPoint the join point this aspect is weaved on.
+     * @param arguments the arguments passed to the advised method, if they
+     * were already fetched.
      * @param throwable the {@linkplain Throwable} error.
+     * @param duration the time the advised method took to fail, in
+     * nanoseconds, when a structured {@linkplain LogEvent} is logged, or
+     * {@linkplain LogEvent#NO_DURATION} otherwise.
      */
-    @AfterThrowing(value = "execution(public * * (..)) && " +
-            "@annotation(org.kusaidia.util.logging.Loggable)",
-            throwing = "throwable", argNames = "joinPoint, throwable")
-    public void afterThrowing(JoinPoint joinPoint, Throwable throwable) {
-        Class<?> clazz = joinPoint.getTarget().getClass();
+    private void logThrowing(JoinPointDescriptor descriptor,
+                             ProceedingJoinPoint joinPoint, Object[] arguments,
+                             Throwable throwable, long duration) {
+        Class<?> clazz = descriptor.getTargetClass();
+        if (!this.isEnabled(LogLevel.ERROR, clazz)) {
+            return;
+        }
+        if (duration != LogEvent.NO_DURATION) {
+            this.logger.logEvent(new LogEvent.Builder(LogEvent.Type.THROWING,
+                    LogLevel.ERROR, clazz, descriptor.getMethodName())
+                    .arguments((arguments != null || !descriptor
+                            .isWithParameters()) ? arguments :
+                            joinPoint.getArgs())
+                    .throwable(throwable).duration(duration).build());
+            return;
+        }
         Object[] args = new Object[3];
-        args[0] = joinPoint.getSignature().getName();
+        args[0] = descriptor.getMethodName();
         args[1] = throwable.getMessage();
-        if (joinPoint.getArgs().length != 0) {
-            args[2] = this.constructArgumentsString(joinPoint.getArgs());
-            this.logger.log(LogLevel.ERROR, clazz, throwable,
-                    this.messageSource.getMessage(
-                            LoggingAspect.DEFAULT_THROW_PARAM_MESSAGE, args,
-                            LoggingAspect.AFTER_THROW_PARAM_STRING,
-                            Locale.getDefault()));
-        } else {
-            this.logger.log(LogLevel.ERROR, clazz, throwable,
-                    this.messageSource.getMessage(
-                            LoggingAspect.DEFAULT_THROW_MESSAGE, args,
-                            LoggingAspect.AFTER_THROW_STRING,
-                            Locale.getDefault()));
+        if (descriptor.isWithParameters()) {
+            args[2] = new Arguments((arguments != null) ? arguments :
+                    joinPoint.getArgs(), descriptor, this.argumentRenderer);
+        }
+        this.logger.log(LogLevel.ERROR, clazz, throwable,
+                descriptor.getThrowing(), args);
+    }
+
+    /**
+     * Private helper method that logs the leaving message of an advised
+     * method.
+     *
+     * @param descriptor the {@linkplain JoinPointDescriptor} of the advised
+     * method.
+     * @param returnValue the value returned by the advised method.
+     * @param duration the time the advised method took to execute, in
+     * nanoseconds, when a structured {@linkplain LogEvent} is logged, or
+     * {@linkplain LogEvent#NO_DURATION} otherwise.
+     */
+    private void logLeaving(JoinPointDescriptor descriptor,
+                            Object returnValue, long duration) {
+        if (duration != LogEvent.NO_DURATION) {
+            LogEvent.Builder builder = new LogEvent.Builder(
+                    LogEvent.Type.LEAVING, descriptor.getLevel(),
+                    descriptor.getTargetClass(), descriptor.getMethodName())
+                    .duration(duration);
+            if (!descriptor.isVoidReturn()) {
+                builder.returnValue(returnValue);
+            }
+            this.logger.logEvent(builder.build());
+            return;
         }
+        Object[] args = new Object[2];
+        args[0] = descriptor.getMethodName();
+        if (!descriptor.isVoidReturn()) {
+            args[1] = this.isRendered(returnValue) ? new Arguments(
+                    new Object[]{returnValue}, descriptor,
+                    this.argumentRenderer) : returnValue;
+        }
+        this.logger.log(descriptor.getLevel(), descriptor.getTargetClass(),
+                null, descriptor.getLeaving(), args);
     }
 
     /**
-     * After returning join point for this aspect to execute after a method
-     * annotated with the {@linkplain Loggable} annotation is executed.
+     * Private helper method that returns the cached {@linkplain
+     * JoinPointDescriptor} for the specified join point, creating it on the
+     * first invocation of the advised method on a given target class.
      *
      * @param joinPoint the join point this aspect is weaved on.
      * @param loggable the {@linkplain Loggable} annotation.
-     * @param returnValue the value being return by the annotated method.
-     */
-    @AfterReturning(value = "execution(public * * (..)) && @annotation(loggable)",
-            returning = "returnValue", argNames = "joinPoint, " +
-            "loggable,returnValue")
-    public void afterReturning(JoinPoint joinPoint, Loggable loggable,
-                               Object returnValue) {
-        Class<? extends Object> clazz = joinPoint.getTarget().getClass();
-        String message = loggable.message();
-        Object[] args = new Object[2];
-        args[0] = joinPoint.getSignature().getName();
+     * @return the {@linkplain JoinPointDescriptor} for the specified join
+     *         point.
+     */
+    private JoinPointDescriptor getDescriptor(JoinPoint joinPoint,
+                                              Loggable loggable) {
+        Class<?> clazz = joinPoint.getTarget().getClass();
         //It will always be method signature since Loggable will always be
         // method based
-        Class<?> returnType = ((MethodSignature) joinPoint.getSignature()).
-                getReturnType();
-        if ("void".compareTo(returnType.getName()) == 0) {
-            message = (message.isEmpty()) ?
-                    LoggingAspect.RETURN_VOID_STRING : message;
-            this.logger.log(loggable.value(), clazz, null,
-                    this.messageSource.getMessage(
-                            LoggingAspect.DEFAULT_RETURN_VOID_MESSAGE, args,
-                            message, Locale.getDefault()));
-        } else {
-            args[1] = returnValue;
-            message = (message.isEmpty()) ? LoggingAspect.RETURN_STRING : message;
-            this.logger.log(loggable.value(), clazz, null,
-                    this.messageSource.getMessage(
-                            LoggingAspect.DEFAULT_RETURNING_MESSAGE, args,
-                            message, Locale.getDefault()));
-        }
-    }
-
-    /**
-     * Private helper method to build a {@linkplain String} representation of
-     * the array of arguments passed to a given method.
-     *
-     * @param arguments the array of arguments passed to a given method.
-     * @return a {@linkplain String} representation of the array of arguments
-     *         passed to a given method.
-     */
-    private String constructArgumentsString(Object... arguments) {
-        StringBuilder buffer = new StringBuilder().append("");
-        for (Object object : arguments) {
-            buffer.append(object);
-        }
-        return buffer.toString();
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        if (this.messageSource instanceof CachingMessageSource) {
+            this.checkTemplatesGeneration(
+                    (CachingMessageSource) this.messageSource);
+        }
+        LogLevelOverrides overrides = this.levelOverrides;
+        if (overrides != null) {
+            this.checkOverridesGeneration(overrides);
+        }
+        ConcurrentMap<Method, JoinPointDescriptor> methods =
+                this.descriptors.get(clazz);
+        if (methods == null) {
+            methods = new ConcurrentHashMap<Method, JoinPointDescriptor>();
+            ConcurrentMap<Method, JoinPointDescriptor> existing =
+                    this.descriptors.putIfAbsent(clazz, methods);
+            methods = (existing != null) ? existing : methods;
+        }
+        JoinPointDescriptor descriptor = methods.get(method);
+        if (descriptor == null) {
+            descriptor = this.createDescriptor(clazz, method, loggable);
+            JoinPointDescriptor existing = methods.putIfAbsent(method,
+                    descriptor);
+            descriptor = (existing != null) ? existing : descriptor;
+        }
+        return descriptor;
+    }
+
+    /**
+     * Private helper method that drops the cached descriptors when the
+     * templates of the specified {@linkplain CachingMessageSource} were
+     * reloaded, so that they are resolved again.
+     *
+     * @param source the {@linkplain CachingMessageSource} of this aspect.
+     */
+    private void checkTemplatesGeneration(CachingMessageSource source) {
+        long generation = source.getGeneration();
+        if (generation != this.templatesGeneration) {
+            this.descriptors.clear();
+            this.templatesGeneration = generation;
+        }
+    }
+
+    /**
+     * Private helper method that drops the cached descriptors when the
+     * specified {@linkplain LogLevelOverrides} changed, so that their
+     * levels are resolved again.
+     *
+     * @param overrides the {@linkplain LogLevelOverrides} of this aspect.
+     */
+    private void checkOverridesGeneration(LogLevelOverrides overrides) {
+        long generation = overrides.getGeneration();
+        if (generation != this.overridesGeneration) {
+            this.descriptors.clear();
+            this.overridesGeneration = generation;
+        }
+    }
+
+    /**
+     * Private helper method that creates the {@linkplain JoinPointDescriptor}
+     * for the specified advised method, resolving its message templates for
+     * the default {@linkplain Locale}.
+     *
+     * @param clazz the {@linkplain Class} of the advised object.
+     * @param method the advised {@linkplain Method}.
+     * @param loggable the {@linkplain Loggable} annotation.
+     * @return a new {@linkplain JoinPointDescriptor}.
+     */
+    private JoinPointDescriptor createDescriptor(Class<?> clazz, Method method,
+                                                 Loggable loggable) {
+        Locale locale = Locale.getDefault();
+        String message = loggable.message();
+        boolean withParameters = method.getParameterTypes().length != 0;
+        boolean voidReturn = Void.TYPE.equals(method.getReturnType());
+        String entering = withParameters ?
+                this.resolveTemplate(LoggingAspect.DEFAULT_BEFORE_PARAM_MESSAGE,
+                        message, LoggingAspect.BEFORE_PARAM_STRING, locale) :
+                this.resolveTemplate(LoggingAspect.DEFAULT_BEFORE_MESSAGE,
+                        message, LoggingAspect.BEFORE_STRING, locale);
+        String leaving = voidReturn ?
+                this.resolveTemplate(LoggingAspect.DEFAULT_RETURN_VOID_MESSAGE,
+                        message, LoggingAspect.RETURN_VOID_STRING, locale) :
+                this.resolveTemplate(LoggingAspect.DEFAULT_RETURNING_MESSAGE,
+                        message, LoggingAspect.RETURN_STRING, locale);
+        String throwing = withParameters ?
+                this.resolveTemplate(LoggingAspect.DEFAULT_THROW_PARAM_MESSAGE,
+                        "", LoggingAspect.AFTER_THROW_PARAM_STRING, locale) :
+                this.resolveTemplate(LoggingAspect.DEFAULT_THROW_MESSAGE,
+                        "", LoggingAspect.AFTER_THROW_STRING, locale);
+        String suppressed = this.resolveTemplate(
+                LoggingAspect.DEFAULT_SUPPRESSED_MESSAGE, "",
+                LoggingAspect.SUPPRESSED_STRING, locale);
+        EventLimiter limiter = this.getLimiter(clazz, method, loggable);
+        LogLevel override = (this.levelOverrides != null) ?
+                this.levelOverrides.getLevel(clazz, method.getName()) : null;
+        return new JoinPointDescriptor(clazz, method,
+                (override != null) ? override : loggable.value(), entering,
+                leaving, throwing,
+                LoggingAspect.limit(loggable.maxArgumentLength(),
+                        this.maxArgumentLength),
+                LoggingAspect.limit(loggable.maxArgumentsLength(),
+                        this.maxArgumentsLength),
+                LoggingAspect.limit(loggable.maxElements(), this.maxElements),
+                suppressed, limiter);
+    }
+
+    /**
+     * Private helper method that returns the {@linkplain EventLimiter} of
+     * the specified advised method, creating it on the first invocation of
+     * the method on a given target class.
+     *
+     * @param clazz the {@linkplain Class} of the advised object.
+     * @param method the advised {@linkplain Method}.
+     * @param loggable the {@linkplain Loggable} annotation.
+     * @return the {@linkplain EventLimiter} of the method, or {@code null}
+     *         if it is neither sampled nor rate limited.
+     */
+    private EventLimiter getLimiter(Class<?> clazz, Method method,
+                                    Loggable loggable) {
+        if (!EventLimiter.isLimiting(loggable.sampleRate(),
+                loggable.maxPerSecond())) {
+            return null;
+        }
+        ConcurrentMap<Method, EventLimiter> methods = this.limiters.get(clazz);
+        if (methods == null) {
+            methods = new ConcurrentHashMap<Method, EventLimiter>();
+            ConcurrentMap<Method, EventLimiter> existing =
+                    this.limiters.putIfAbsent(clazz, methods);
+            methods = (existing != null) ? existing : methods;
+        }
+        EventLimiter limiter = methods.get(method);
+        if (limiter == null) {
+            limiter = new EventLimiter(loggable.sampleRate(),
+                    loggable.maxPerSecond(), this.suppressionReportInterval,
+                    TimeUnit.MILLISECONDS, this.ticker.read());
+            EventLimiter existing = methods.putIfAbsent(method, limiter);
+            limiter = (existing != null) ? existing : limiter;
+        }
+        return limiter;
+    }
+
+    /**
+     * Private helper method that returns the limit configured on the
+     * {@linkplain Loggable} annotation, or the aspect default when it is
+     * negative.
+     *
+     * @param configured the limit configured on the annotation.
+     * @param defaultLimit the limit configured on the aspect.
+     * @return the effective limit.
+     */
+    private static int limit(int configured, int defaultLimit) {
+        return (configured < 0) ? defaultLimit : configured;
+    }
+
+    /**
+     * Private helper method that checks whether the specified return value
+     * is rendered through the {@linkplain ArgumentRenderer}. Other values are
+     * handed as they are to the {@linkplain Log} so they keep the {@linkplain
+     * java.text.MessageFormat} formatting of numbers and dates.
+     *
+     * @param value the return value of the advised method.
+     * @return {@code true} if the value is an array, a {@linkplain
+     *         Collection}, a {@linkplain Map} or a {@linkplain CharSequence},
+     *         {@code false} otherwise.
+     */
+    private boolean isRendered(Object value) {
+        return value != null && (value instanceof CharSequence ||
+                value instanceof Collection || value instanceof Map ||
+                value.getClass().isArray());
+    }
+
+    /**
+     * Private helper method that resolves the template for the specified
+     * message key.
+     *
+     * @param code the i18n key of the template.
+     * @param message the message configured on the {@linkplain Loggable}
+     * annotation, used as default template when not empty.
+     * @param defaultMessage the built-in template used when neither the key
+     * nor the configured message are available.
+     * @param locale the {@linkplain Locale} of the template.
+     * @return the {@linkplain java.text.MessageFormat} pattern of the
+     *         template.
+     */
+    private String resolveTemplate(String code, String message,
+                                   String defaultMessage, Locale locale) {
+        return this.messageSource.getMessage(code, null,
+                (message.isEmpty()) ? defaultMessage : message, locale);
+    }
+
+    /**
+     * Private helper method that checks whether the {@linkplain
+     * EventLimiter} of the advised method, if any, admits the entering and
+     * leaving messages of a new invocation. When the reporting interval
+     * elapsed, the number of events suppressed during it is logged first.
+     *
+     * @param descriptor the {@linkplain JoinPointDescriptor} of the advised
+     * method.
+     * @return {@code true} if the invocation must be logged, {@code false}
+     *         if it is suppressed.
+     */
+    private boolean isAdmitted(JoinPointDescriptor descriptor) {
+        EventLimiter limiter = descriptor.getLimiter();
+        if (limiter == null) {
+            return true;
+        }
+        long now = this.ticker.read();
+        long suppressed = limiter.drainSuppressed(now);
+        if (suppressed != 0) {
+            this.logger.log(descriptor.getLevel(), descriptor.getTargetClass(),
+                    null, descriptor.getSuppressed(),
+                    descriptor.getMethodName(), suppressed,
+                    limiter.getReportInterval(TimeUnit.SECONDS));
+        }
+        return limiter.tryAcquire(now);
+    }
+
+    /**
+     * Private helper method that checks whether the specified {@linkplain
+     * LogLevel} is enabled for the specified {@linkplain Class}. When the
+     * level guard is disabled this method always returns {@code true}.
+     *
+     * @param level the {@linkplain LogLevel} of the log event about to be
+     * fired.
+     * @param clazz the {@linkplain Class} firing the log event.
+     * @return {@code true} if the log event must be built and fired,
+     *         {@code false} otherwise.
+     */
+    private boolean isEnabled(LogLevel level, Class<?> clazz) {
+        return !this.levelGuardEnabled ||
+                this.logger.isLogLevelEnabled(level, clazz);
+    }
+
+    /**
+     * Lazy {@linkplain String} representation of the array of arguments
+     * passed to a given method. The arguments are only rendered when the log
+     * event is actually written, separated by commas and bounded by the
+     * limits of the advised method.
+     */
+    private static final class Arguments {
+        /**
+         * the array of arguments passed to a given method
+         */
+        private final Object[] arguments;
+        /**
+         * the {@linkplain JoinPointDescriptor} holding the rendering limits
+         */
+        private final JoinPointDescriptor descriptor;
+        /**
+         * the {@linkplain ArgumentRenderer} rendering each argument
+         */
+        private final ArgumentRenderer renderer;
+
+        private Arguments(Object[] arguments, JoinPointDescriptor descriptor,
+                          ArgumentRenderer renderer) {
+            this.arguments = arguments;
+            this.descriptor = descriptor;
+            this.renderer = renderer;
+        }
+
+        /**
+         * Builds a {@linkplain String} representation of the array of
+         * arguments passed to a given method, reusing the buffer of the
+         * current thread. The buffer is taken from the thread while in use,
+         * so that an argument whose {@code toString()} logs through an
+         * advised method renders into a fresh buffer instead of the one
+         * being filled.
+         *
+         * @return a {@linkplain String} representation of the array of
+         *         arguments passed to a given method.
+         */
+        @Override
+        public String toString() {
+            StringBuilder buffer = LoggingAspect.BUFFERS.get();
+            boolean nested = buffer == null;
+            if (nested) {
+                buffer = new StringBuilder(256);
+            } else {
+                LoggingAspect.BUFFERS.set(null);
+                buffer.setLength(0);
+            }
+            try {
+                this.render(buffer);
+                return buffer.toString();
+            } finally {
+                if (!nested && buffer.capacity() >
+                        LoggingAspect.MAX_RETAINED_BUFFER_CAPACITY) {
+                    LoggingAspect.BUFFERS.remove();
+                } else if (!nested) {
+                    LoggingAspect.BUFFERS.set(buffer);
+                }
+            }
+        }
+
+        /**
+         * Private helper method that renders the arguments into the
+         * specified buffer, separated by commas and bounded by the limits of
+         * the advised method.
+         *
+         * @param buffer the {@linkplain StringBuilder} to render into.
+         */
+        private void render(StringBuilder buffer) {
+            int maxLength = this.descriptor.getMaxArgumentsLength();
+            for (int i = 0; i < this.arguments.length; i++) {
+                if (i != 0) {
+                    buffer.append(LoggingAspect.ARGUMENT_SEPARATOR);
+                }
+                if (buffer.length() >= maxLength) {
+                    buffer.append(DefaultArgumentRenderer.ELLIPSIS);
+                    break;
+                }
+                this.renderer.render(this.arguments[i], Math.min(
+                        this.descriptor.getMaxArgumentLength(),
+                        maxLength - buffer.length()),
+                        this.descriptor.getMaxElements(), buffer);
+            }
+        }
     }
 }
@@ -0,0 +1,53 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+
+package org.kusaidia.util.aspect;
+
+/**
+ * Source of the monotonic time read by the {@linkplain LoggingAspect} to
+ * rate limit the advised methods and to report the events it suppressed.
+ * It only exists so that the time can be controlled when testing; the
+ * aspect defaults to {@linkplain #SYSTEM}.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public interface Ticker {
+    /**
+     * the {@linkplain Ticker} reading {@linkplain System#nanoTime()}
+     */
+    Ticker SYSTEM = new Ticker() {
+        public long read() {
+            return System.nanoTime();
+        }
+    };
+
+    /**
+     * Returns the current time, in nanoseconds, relative to an arbitrary
+     * origin. Only the difference between two values is meaningful.
+     *
+     * @return the current time, in nanoseconds.
+     */
+    long read();
+}
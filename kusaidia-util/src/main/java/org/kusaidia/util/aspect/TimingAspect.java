@@ -0,0 +1,135 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.util.aspect;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.kusaidia.util.logging.Timed;
+import org.kusaidia.util.metrics.TimerRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Timing cross-cutting concern aspect implementation. Every invocation of a
+ * method annotated with the {@linkplain Timed} annotation is measured around
+ * the call and recorded, together with its outcome, in the {@linkplain
+ * TimerRegistry} in place. When no {@linkplain TimerRegistry} bean is
+ * declared the aspect uses a private one, available through {@linkplain
+ * #getTimerRegistry()}.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Aspect
+@Component
+public final class TimingAspect {
+    /**
+     * the {@linkplain TimerRegistry} receiving the timings
+     */
+    private TimerRegistry timerRegistry = new TimerRegistry();
+    /**
+     * the cache of timer names indexed by target class and advised method
+     */
+    private final ConcurrentMap<Class<?>, ConcurrentMap<Method, String>> names =
+            new ConcurrentHashMap<Class<?>, ConcurrentMap<Method, String>>();
+
+    /**
+     * Sets the {@linkplain TimerRegistry} receiving the timings.
+     *
+     * @param timerRegistry the {@linkplain TimerRegistry} to use.
+     */
+    @Autowired(required = false)
+    public void setTimerRegistry(TimerRegistry timerRegistry) {
+        this.timerRegistry = timerRegistry;
+    }
+
+    /**
+     * Returns the {@linkplain TimerRegistry} receiving the timings.
+     *
+     * @return the {@linkplain TimerRegistry} receiving the timings.
+     */
+    public TimerRegistry getTimerRegistry() {
+        return this.timerRegistry;
+    }
+
+    /**
+     * Around join point for this aspect to measure a method annotated with
+     * the {@linkplain Timed} annotation.
+     *
+     * @param joinPoint the join point this aspect is weaved on.
+     * @param timed the {@linkplain Timed} annotation.
+     * @return the value returned by the advised method.
+     * @throws Throwable the error thrown by the advised method.
+     */
+    @Around(value = "execution(public * * (..)) && @annotation(timed)",
+            argNames = "joinPoint, timed")
+    public Object time(ProceedingJoinPoint joinPoint, Timed timed)
+            throws Throwable {
+        String name = this.getName(joinPoint, timed);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Object result = joinPoint.proceed();
+            failed = false;
+            return result;
+        } finally {
+            this.timerRegistry.getTimer(name).record(System.nanoTime() - start,
+                    failed);
+        }
+    }
+
+    /**
+     * Private helper method that returns the cached timer name of the
+     * specified join point, computing it on the first invocation of the
+     * advised method on a given target class.
+     *
+     * @param joinPoint the join point this aspect is weaved on.
+     * @param timed the {@linkplain Timed} annotation.
+     * @return the name of the timer of the advised method.
+     */
+    private String getName(ProceedingJoinPoint joinPoint, Timed timed) {
+        Class<?> clazz = joinPoint.getTarget().getClass();
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        ConcurrentMap<Method, String> methods = this.names.get(clazz);
+        if (methods == null) {
+            methods = new ConcurrentHashMap<Method, String>();
+            ConcurrentMap<Method, String> existing =
+                    this.names.putIfAbsent(clazz, methods);
+            methods = (existing != null) ? existing : methods;
+        }
+        String name = methods.get(method);
+        if (name == null) {
+            name = timed.value().isEmpty() ? clazz.getName() + "#" +
+                    method.getName() : timed.value();
+            methods.putIfAbsent(method, name);
+        }
+        return name;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.util.builder;
+
+import javax.validation.ConstraintViolation;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Builds many {@linkplain ValidationAwareBuilder} at once, such as the
+ * records of an import. The builders are built and validated in parallel on
+ * a {@linkplain ForkJoinPool} and, instead of throwing on the first invalid
+ * record, every outcome is collected in a {@linkplain BatchResult}: the
+ * valid objects in the order of their builders and the violations of the
+ * invalid ones by index.
+ * <p/>
+ * Each builder is validated according to its own {@linkplain
+ * ValidationMode}. Exceptions other than constraint violations thrown while
+ * building an object are not collected, they abort the batch and are
+ * rethrown to the caller.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class BatchBuilder {
+    /**
+     * the number of builders below which a task builds its range itself
+     * instead of splitting it further
+     */
+    private static final int THRESHOLD = 64;
+    /**
+     * the pool shared by the instances created without one, its daemon
+     * workers are as many as the available processors
+     */
+    private static final ForkJoinPool SHARED_POOL = new ForkJoinPool();
+    /**
+     * the pool building the batches of this {@linkplain BatchBuilder}
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a new {@linkplain BatchBuilder} building on a pool with a
+     * worker per available processor, shared by all such instances.
+     */
+    public BatchBuilder() {
+        this(SHARED_POOL);
+    }
+
+    /**
+     * Creates a new {@linkplain BatchBuilder} building on the given pool.
+     *
+     * @param pool the {@linkplain ForkJoinPool} building the batches.
+     */
+    public BatchBuilder(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("pool must not be null");
+        }
+        this.pool = pool;
+    }
+
+    /**
+     * Builds and validates every given builder.
+     *
+     * @param builders the builders of the batch.
+     * @param <T> the type of the objects built.
+     * @return the outcome of every builder, by its position in the
+     * {@linkplain Iterable}.
+     */
+    public <T> BatchResult<T> buildAll(
+            Iterable<? extends ValidationAwareBuilder<? extends T, ?>> builders) {
+        List<ValidationAwareBuilder<? extends T, ?>> list =
+                new ArrayList<ValidationAwareBuilder<? extends T, ?>>();
+        for (ValidationAwareBuilder<? extends T, ?> builder : builders) {
+            list.add(builder);
+        }
+        Object[] objects = new Object[list.size()];
+        Set<?>[] violations = new Set<?>[list.size()];
+        this.pool.invoke(new BuildTask(list, objects, violations, 0,
+                list.size()));
+        return new BatchResult<T>(objects, violations);
+    }
+
+    /**
+     * Builds a range of the batch, splitting it in halves while it is above
+     * the {@link #THRESHOLD}. Each task writes to its own slots of the
+     * shared arrays only.
+     */
+    private static final class BuildTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final List<? extends ValidationAwareBuilder<?, ?>> builders;
+        private final Object[] objects;
+        private final Set<?>[] violations;
+        private final int from;
+        private final int to;
+
+        private BuildTask(List<? extends ValidationAwareBuilder<?, ?>> builders,
+                          Object[] objects, Set<?>[] violations,
+                          int from, int to) {
+            this.builders = builders;
+            this.objects = objects;
+            this.violations = violations;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= THRESHOLD) {
+                for (int i = this.from; i < this.to; i++) {
+                    this.build(i, this.builders.get(i));
+                }
+            } else {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new BuildTask(this.builders, this.objects,
+                                this.violations, this.from, middle),
+                        new BuildTask(this.builders, this.objects,
+                                this.violations, middle, this.to));
+            }
+        }
+
+        /**
+         * Private helper method that builds and validates the builder at the
+         * given index, storing either the object or its violations.
+         *
+         * @param index the index of the builder in the batch.
+         * @param builder the builder.
+         * @param <T> the type of the object built.
+         */
+        private <T> void build(int index, ValidationAwareBuilder<T, ?> builder) {
+            T object = builder.buildInternal();
+            Set<ConstraintViolation<T>> failed =
+                    builder.validate(object, builder.getValidationMode());
+            if (failed.isEmpty()) {
+                this.objects[index] = object;
+            } else {
+                this.violations[index] = failed;
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.util.builder;
+
+import javax.validation.ConstraintViolation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The outcome of a batch built by a {@linkplain BatchBuilder}: the objects
+ * that passed validation, in the order of their builders, and the
+ * violations of the others by the index of their builder. Only the failed
+ * indexes are recorded, the index of a built object is derived from them.
+ *
+ * @param <T> The type of the objects built.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class BatchResult<T> {
+    /**
+     * the number of builders in the batch
+     */
+    private final int size;
+    /**
+     * the valid objects, in the order of their builders
+     */
+    private final List<T> built;
+    /**
+     * the indexes of the invalid builders, in ascending order
+     */
+    private final int[] failedIndexes;
+    /**
+     * the violations of each failed index
+     */
+    private final Set<ConstraintViolation<?>>[] violations;
+
+    /**
+     * Creates a new {@linkplain BatchResult} from the outcome of every
+     * builder of a batch.
+     *
+     * @param objects the built object of each index, {@code null} for the
+     * invalid ones.
+     * @param violations the violations of each index, {@code null} for the
+     * valid ones.
+     */
+    @SuppressWarnings("unchecked")
+    BatchResult(Object[] objects, Set<?>[] violations) {
+        int failed = 0;
+        for (Set<?> set : violations) {
+            if (set != null) {
+                failed++;
+            }
+        }
+        List<T> list = new ArrayList<T>(objects.length - failed);
+        this.failedIndexes = new int[failed];
+        this.violations = new Set[failed];
+        failed = 0;
+        for (int i = 0; i < objects.length; i++) {
+            if (violations[i] == null) {
+                list.add((T) objects[i]);
+            } else {
+                this.failedIndexes[failed] = i;
+                this.violations[failed++] = Collections.unmodifiableSet(
+                        (Set<ConstraintViolation<?>>) violations[i]);
+            }
+        }
+        this.size = objects.length;
+        this.built = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Returns the number of builders in the batch.
+     *
+     * @return the number of builders in the batch.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the objects that passed validation.
+     *
+     * @return an unmodifiable {@linkplain List} of the valid objects, in the
+     * order of their builders.
+     */
+    public List<T> getBuilt() {
+        return this.built;
+    }
+
+    /**
+     * Returns whether any builder of the batch failed validation.
+     *
+     * @return {@code true} if at least one object is invalid.
+     */
+    public boolean hasViolations() {
+        return this.failedIndexes.length > 0;
+    }
+
+    /**
+     * Returns the indexes of the builders that failed validation.
+     *
+     * @return the failed indexes, in ascending order.
+     */
+    public int[] getFailedIndexes() {
+        return this.failedIndexes.clone();
+    }
+
+    /**
+     * Returns the object built by the builder at the given index.
+     *
+     * @param index the index of the builder in the batch.
+     * @return the built object, {@code null} if it failed validation.
+     */
+    public T get(int index) {
+        this.checkIndex(index);
+        int position = Arrays.binarySearch(this.failedIndexes, index);
+        // a missing index is preceded by -(position + 1) failed ones
+        return position >= 0 ? null : this.built.get(index + position + 1);
+    }
+
+    /**
+     * Returns the violations of the object built by the builder at the given
+     * index.
+     *
+     * @param index the index of the builder in the batch.
+     * @return an unmodifiable {@linkplain Set} of violations, empty if the
+     * object is valid.
+     */
+    public Set<ConstraintViolation<?>> getViolations(int index) {
+        this.checkIndex(index);
+        int position = Arrays.binarySearch(this.failedIndexes, index);
+        return position >= 0 ? this.violations[position]
+                : Collections.<ConstraintViolation<?>>emptySet();
+    }
+
+    /**
+     * Returns a report of the batch, one line per violation preceded by the
+     * index of its builder, such as {@code [12] email: not a well-formed
+     * email address}.
+     *
+     * @return the report of the batch.
+     */
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        report.append(this.built.size()).append(" built, ")
+                .append(this.failedIndexes.length).append(" failed");
+        for (int i = 0; i < this.failedIndexes.length; i++) {
+            Set<String> lines = new TreeSet<String>();
+            for (ConstraintViolation<?> violation : this.violations[i]) {
+                lines.add(violation.getPropertyPath() + ": "
+                        + violation.getMessage());
+            }
+            for (String line : lines) {
+                report.append('\n').append('[')
+                        .append(this.failedIndexes[i]).append("] ")
+                        .append(line);
+            }
+        }
+        return report.toString();
+    }
+
+    /**
+     * Private helper method that checks the given index is within the
+     * batch.
+     *
+     * @param index the index to check.
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("index " + index
+                    + " out of a batch of " + this.size);
+        }
+    }
+}
@@ -22,18 +22,28 @@
 
 package org.kusaidia.util.builder;
 
+import org.hibernate.validator.HibernateValidator;
+
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 import javax.validation.Validation;
 import javax.validation.Validator;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Implementation of the {@linkplain Builder} pattern to support Bean
  * Validation as part of the construction of an Object during its building
  * process. In order for this to work all invariants must be defined in the
  * Object {@code T} being built by this interface.
+ * <p/>
+ * How the invariants are checked is chosen by the {@linkplain
+ * ValidationMode} of the builder: the default mode is set for every builder
+ * with {@link #setDefaultValidationMode(ValidationMode)}, usually through a
+ * {@linkplain ValidationSettings} bean, subclasses may override {@link
+ * #getValidationMode()} to choose their own and call sites may pass one to
+ * {@link #build(ValidationMode)}.
  *
  * @param <T> The type of object being built by this {@linkplain Builder}
  * @param <K> The type of this {@linkplain Builder} used by subclasses
@@ -49,6 +59,82 @@ public abstract class ValidationAwareBuilder<T,K extends Builder>
     private static Validator validator = Validation
             .buildDefaultValidatorFactory().getValidator();
 
+    private static final ValidationStatistics statistics =
+            new ValidationStatistics();
+
+    private static volatile ValidationMode defaultValidationMode =
+            ValidationMode.FULL;
+
+    private static volatile int sampleRate = 100;
+
+    /**
+     * Returns the {@linkplain ValidationMode} used by the builders that do
+     * not choose their own.
+     *
+     * @return the default {@linkplain ValidationMode}, {@linkplain
+     * ValidationMode#FULL} unless changed.
+     */
+    public static ValidationMode getDefaultValidationMode() {
+        return defaultValidationMode;
+    }
+
+    /**
+     * Sets the {@linkplain ValidationMode} used by the builders that do not
+     * choose their own.
+     *
+     * @param mode the new default {@linkplain ValidationMode}.
+     */
+    public static void setDefaultValidationMode(ValidationMode mode) {
+        if (mode == null) {
+            throw new IllegalArgumentException("mode must not be null");
+        }
+        defaultValidationMode = mode;
+    }
+
+    /**
+     * Returns the number of builds out of which one is validated with the
+     * {@linkplain ValidationMode#SAMPLED} mode.
+     *
+     * @return the sample rate, 100 unless changed.
+     */
+    public static int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Sets the number of builds out of which one is validated with the
+     * {@linkplain ValidationMode#SAMPLED} mode.
+     *
+     * @param rate the new sample rate, 1 to validate every build.
+     */
+    public static void setSampleRate(int rate) {
+        if (rate < 1) {
+            throw new IllegalArgumentException("rate must be positive");
+        }
+        sampleRate = rate;
+    }
+
+    /**
+     * Returns the counters of the builds validated and skipped by every
+     * {@linkplain ValidationAwareBuilder}.
+     *
+     * @return the shared {@linkplain ValidationStatistics}.
+     */
+    public static ValidationStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Returns the {@linkplain ValidationMode} used to check the objects built
+     * by this builder. Subclasses may override it to use a specific mode
+     * regardless of the default one.
+     *
+     * @return the {@linkplain ValidationMode} of this builder.
+     */
+    protected ValidationMode getValidationMode() {
+        return defaultValidationMode;
+    }
+
     /**
      * Method to be implemented by underlying subclasses to build its
      * respective specific object being built.
@@ -64,12 +150,89 @@ public abstract class ValidationAwareBuilder<T,K extends Builder>
      */
     @Override
     public final T build() throws ConstraintViolationException{
+        return this.build(this.getValidationMode());
+    }
+
+    /**
+     * Builds the object checking its invariants with the given {@linkplain
+     * ValidationMode} instead of the one of this builder, e.g. to skip
+     * validation at a call site rebuilding trusted objects.
+     *
+     * @param mode the {@linkplain ValidationMode} of this build.
+     * @return the object built.
+     * @throws ConstraintViolationException if the object
+     * built invariants does not pass the required checks.
+     */
+    @SuppressWarnings("unchecked")
+    public final T build(ValidationMode mode)
+            throws ConstraintViolationException {
         T object = this.buildInternal();
-        Set<ConstraintViolation<T>> violations =  validator.validate(object);
+        Set<ConstraintViolation<T>> violations = this.validate(object, mode);
         if(!violations.isEmpty()) {
-            throw new ConstraintViolationException(new
-                    HashSet<ConstraintViolation<?>>(violations));
+            // the set is created for this call only, no need to copy it
+            throw new ConstraintViolationException(
+                    (Set<ConstraintViolation<?>>) (Set<?>) violations);
         }
         return object;
     }
+
+    /**
+     * Checks the invariants of an object built by this builder according to
+     * the given {@linkplain ValidationMode}, without throwing when they are
+     * not met, and counts the build in the {@linkplain
+     * ValidationStatistics}. Used by {@link #build(ValidationMode)} and by
+     * the {@linkplain BatchBuilder}.
+     *
+     * @param object the object built by {@link #buildInternal()}.
+     * @param mode the {@linkplain ValidationMode} of the build.
+     * @return the violated constraints, an empty {@linkplain Set} if the
+     * object is valid or was not validated.
+     */
+    final Set<ConstraintViolation<T>> validate(T object, ValidationMode mode) {
+        if (mode == null) {
+            throw new IllegalArgumentException("mode must not be null");
+        }
+        Set<ConstraintViolation<T>> violations;
+        switch (mode) {
+            case TRUSTED:
+            case DEFERRED:
+                violations = null;
+                break;
+            case SAMPLED:
+                violations = ThreadLocalRandom.current().nextInt(sampleRate)
+                        == 0 ? validator.validate(object) : null;
+                break;
+            case FAIL_FAST:
+                violations = FailFast.validator.validate(object);
+                break;
+            case COMPILED:
+                ValidationPlan plan =
+                        ValidationPlan.forClass(object.getClass(), validator);
+                violations = plan.isCompiled() && plan.isValid(object)
+                        ? Collections.<ConstraintViolation<T>>emptySet()
+                        : validator.validate(object);
+                break;
+            default:
+                violations = validator.validate(object);
+        }
+        if (violations == null) {
+            statistics.count(mode, ValidationStatistics.Outcome.SKIPPED);
+            return Collections.emptySet();
+        }
+        statistics.count(mode, ValidationStatistics.Outcome.VALIDATED);
+        if (!violations.isEmpty()) {
+            statistics.count(mode, ValidationStatistics.Outcome.FAILED);
+        }
+        return violations;
+    }
+
+    /**
+     * Holder of the fail fast {@linkplain Validator}, created the first time
+     * the {@linkplain ValidationMode#FAIL_FAST} mode is used.
+     */
+    private static final class FailFast {
+        private static final Validator validator = Validation
+                .byProvider(HibernateValidator.class).configure()
+                .failFast(true).buildValidatorFactory().getValidator();
+    }
 }
@@ -0,0 +1,73 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.util.builder;
+
+/**
+ * The ways a {@linkplain ValidationAwareBuilder} can check the invariants of
+ * the object it builds. The modes skipping validation are meant for objects
+ * rebuilt from trusted sources, such as the database, a cache or a copy of
+ * an already validated object; objects crossing a trust boundary should use
+ * one of the validating modes.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public enum ValidationMode {
+    /**
+     * Every build is validated by the Bean Validation {@linkplain
+     * javax.validation.Validator}, walking the constraint metadata of the
+     * built type each time.
+     */
+    FULL,
+    /**
+     * Every build is first checked against a {@linkplain ValidationPlan}
+     * compiled once per built type. Objects passing the plan are returned
+     * without further work, objects failing it (or types the plan cannot
+     * compile) are handed to the {@linkplain javax.validation.Validator} so
+     * that the reported violations are exactly the ones of {@link #FULL}.
+     */
+    COMPILED,
+    /**
+     * Every build is validated by a Hibernate Validator configured to stop
+     * at the first violation, which is then the only one reported.
+     */
+    FAIL_FAST,
+    /**
+     * One build in {@linkplain ValidationAwareBuilder#getSampleRate()}, at
+     * random, is validated as with {@link #FULL}; the others are not
+     * validated. Meant to watch a trusted source for drift.
+     */
+    SAMPLED,
+    /**
+     * Builds are not validated, the check is left to the persistence layer,
+     * e.g. the Bean Validation integration of Hibernate validating entities
+     * before they are inserted or updated.
+     */
+    DEFERRED,
+    /**
+     * Builds are not validated at all, the source of the built objects is
+     * trusted.
+     */
+    TRUSTED
+}
@@ -0,0 +1,538 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.util.builder;
+
+import org.hibernate.validator.constraints.Email;
+import org.hibernate.validator.constraints.Length;
+import org.hibernate.validator.constraints.NotBlank;
+import org.hibernate.validator.constraints.NotEmpty;
+import org.hibernate.validator.group.GroupSequenceProvider;
+
+import javax.validation.GroupSequence;
+import javax.validation.Validator;
+import javax.validation.constraints.AssertFalse;
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Null;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Size;
+import javax.validation.groups.Default;
+import javax.validation.metadata.BeanDescriptor;
+import javax.validation.metadata.ConstraintDescriptor;
+import javax.validation.metadata.PropertyDescriptor;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.net.IDN;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+
+/**
+ * A check of the {@linkplain Default} group constraints of a type, compiled
+ * once from the metadata of the Bean Validation {@linkplain Validator} and
+ * cached per class. Composed constraints such as {@linkplain NotEmpty} are
+ * flattened into the checks they are made of, every regular expression is
+ * compiled up front and the matchers are reused per thread, so checking an
+ * object that satisfies its constraints allocates nothing.
+ * <p/>
+ * The plan only answers whether an object is valid; it never builds
+ * violations. Types using anything the plan does not know how to check
+ * exactly as Hibernate Validator does (class level or custom constraints,
+ * cascaded properties, redefined default group sequences, constraints
+ * declared in XML) are left uncompiled, see {@link #isCompiled()}.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class ValidationPlan {
+    /**
+     * the shared plan for the types that cannot be compiled
+     */
+    private static final ValidationPlan NOT_COMPILED = new ValidationPlan(null);
+    /**
+     * the arguments used to invoke the constrained getters
+     */
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+    /**
+     * the compiled plans, by validated type
+     */
+    private static final ConcurrentMap<Class<?>, ValidationPlan> PLANS =
+            new ConcurrentHashMap<Class<?>, ValidationPlan>();
+    /**
+     * the constrained properties of the type, {@code null} if the type
+     * could not be compiled
+     */
+    private final Property[] properties;
+
+    /**
+     * Creates a new {@linkplain ValidationPlan} checking the given
+     * properties.
+     *
+     * @param properties the constrained properties, {@code null} for the
+     * uncompiled plan.
+     */
+    private ValidationPlan(Property[] properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Returns the {@linkplain ValidationPlan} of the given type, compiling it
+     * from the metadata of the given {@linkplain Validator} the first time
+     * the type is seen.
+     *
+     * @param type the validated type.
+     * @param validator the {@linkplain Validator} whose metadata is compiled.
+     * @return the {@linkplain ValidationPlan} of the given type.
+     */
+    static ValidationPlan forClass(Class<?> type, Validator validator) {
+        ValidationPlan plan = PLANS.get(type);
+        if (plan == null) {
+            plan = compile(type, validator);
+            ValidationPlan existing = PLANS.putIfAbsent(type, plan);
+            if (existing != null) {
+                plan = existing;
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Returns whether the type of this plan could be compiled. An
+     * uncompiled plan cannot check objects and they must be validated by
+     * the {@linkplain Validator} instead.
+     *
+     * @return {@code true} if {@link #isValid(Object)} can be used.
+     */
+    boolean isCompiled() {
+        return this.properties != null;
+    }
+
+    /**
+     * Checks the given object against every compiled constraint.
+     *
+     * @param object the object to check, of the type of this plan.
+     * @return {@code true} if the object satisfies all of its constraints.
+     */
+    boolean isValid(Object object) {
+        for (Property property : this.properties) {
+            if (!property.isValid(object)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Private helper method that compiles the plan of the given type, or
+     * returns {@link #NOT_COMPILED} as soon as something the plan cannot
+     * check is found.
+     *
+     * @param type the type to compile.
+     * @param validator the {@linkplain Validator} providing the metadata.
+     * @return the compiled plan.
+     */
+    private static ValidationPlan compile(Class<?> type, Validator validator) {
+        if (type.isAnnotationPresent(GroupSequence.class)
+                || type.isAnnotationPresent(GroupSequenceProvider.class)) {
+            return NOT_COMPILED;
+        }
+        BeanDescriptor bean = validator.getConstraintsForClass(type);
+        if (!bean.getConstraintDescriptors().isEmpty()) {
+            return NOT_COMPILED;
+        }
+        Map<Member, List<Check>> checks =
+                new LinkedHashMap<Member, List<Check>>();
+        for (PropertyDescriptor property : bean.getConstrainedProperties()) {
+            if (property.isCascaded()) {
+                return NOT_COMPILED;
+            }
+            for (ConstraintDescriptor<?> constraint : property
+                    .findConstraints()
+                    .unorderedAndMatchingGroups(Default.class)
+                    .getConstraintDescriptors()) {
+                Member member = findDeclaration(type,
+                        property.getPropertyName(), constraint.getAnnotation());
+                if (member == null || !flatten(constraint,
+                        typeOf(member), checksOf(checks, member))) {
+                    return NOT_COMPILED;
+                }
+            }
+        }
+        List<Property> properties = new ArrayList<Property>();
+        for (Map.Entry<Member, List<Check>> entry : checks.entrySet()) {
+            try {
+                ((AccessibleObject) entry.getKey()).setAccessible(true);
+            } catch (SecurityException e) {
+                return NOT_COMPILED;
+            }
+            List<Check> memberChecks = entry.getValue();
+            properties.add(new Property(entry.getKey(),
+                    memberChecks.toArray(new Check[memberChecks.size()])));
+        }
+        return new ValidationPlan(
+                properties.toArray(new Property[properties.size()]));
+    }
+
+    /**
+     * Private helper method that adds the checks of the given constraint,
+     * and of the constraints composing it, to the given list.
+     *
+     * @param constraint the constraint to flatten.
+     * @param type the declared type of the constrained property.
+     * @param checks the checks of the constrained property.
+     * @return {@code false} if the constraint, or one of its composing
+     * constraints, cannot be compiled.
+     */
+    private static boolean flatten(ConstraintDescriptor<?> constraint,
+                                   Class<?> type, List<Check> checks) {
+        Class<? extends Annotation> kind =
+                constraint.getAnnotation().annotationType();
+        Map<String, Object> attributes = constraint.getAttributes();
+        boolean text = CharSequence.class.isAssignableFrom(type);
+        boolean bool = type == Boolean.class || type == boolean.class;
+        if (kind == NotNull.class) {
+            checks.add(Check.NOT_NULL);
+        } else if (kind == Null.class) {
+            checks.add(Check.NULL);
+        } else if (kind == AssertTrue.class && bool) {
+            checks.add(Check.TRUE);
+        } else if (kind == AssertFalse.class && bool) {
+            checks.add(Check.FALSE);
+        } else if (kind == NotBlank.class && text) {
+            checks.add(Check.NOT_BLANK);
+        } else if (kind == Email.class && text) {
+            checks.add(Check.EMAIL);
+        } else if (kind == Pattern.class && text) {
+            int flags = 0;
+            for (Pattern.Flag flag
+                    : (Pattern.Flag[]) attributes.get("flags")) {
+                flags |= flag.getValue();
+            }
+            checks.add(new PatternCheck(java.util.regex.Pattern.compile(
+                    (String) attributes.get("regexp"), flags)));
+        } else if ((kind == Size.class || kind == Length.class)
+                && (text || kind == Size.class && (type.isArray()
+                || Collection.class.isAssignableFrom(type)
+                || Map.class.isAssignableFrom(type)))) {
+            int min = (Integer) attributes.get("min");
+            int max = (Integer) attributes.get("max");
+            if (min < 0 || max < min) {
+                return false;
+            }
+            checks.add(new SizeCheck(min, max));
+        } else if (kind != NotEmpty.class) {
+            return false;
+        }
+        for (ConstraintDescriptor<?> composing
+                : constraint.getComposingConstraints()) {
+            if (!flatten(composing, type, checks)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Private helper method that finds the field or getter of the given
+     * type, or of its superclasses, on which the given constraint annotation
+     * of a property is declared.
+     *
+     * @param type the validated type.
+     * @param name the name of the constrained property.
+     * @param annotation the constraint annotation.
+     * @return the declaring field or getter, {@code null} if it could not be
+     * found or is ambiguous.
+     */
+    private static Member findDeclaration(Class<?> type, String name,
+                                          Annotation annotation) {
+        String suffix = Character.toUpperCase(name.charAt(0))
+                + name.substring(1);
+        Member found = null;
+        for (Class<?> c = type; c != null && c != Object.class;
+             c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (field.getName().equals(name) && annotation.equals(
+                        field.getAnnotation(annotation.annotationType()))) {
+                    if (found != null) {
+                        return null;
+                    }
+                    found = field;
+                }
+            }
+            for (Method method : c.getDeclaredMethods()) {
+                if (method.getParameterTypes().length == 0
+                        && (method.getName().equals("get" + suffix)
+                        || method.getName().equals("is" + suffix))
+                        && annotation.equals(method.getAnnotation(
+                        annotation.annotationType()))) {
+                    if (found != null) {
+                        return null;
+                    }
+                    found = method;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Private helper method that returns the declared type of the given
+     * field or getter.
+     *
+     * @param member the field or getter.
+     * @return the type of its value.
+     */
+    private static Class<?> typeOf(Member member) {
+        return member instanceof Field ? ((Field) member).getType()
+                : ((Method) member).getReturnType();
+    }
+
+    /**
+     * Private helper method that returns the list of checks of the given
+     * field or getter, creating it if needed.
+     *
+     * @param checks the checks by field or getter.
+     * @param member the field or getter.
+     * @return its list of checks.
+     */
+    private static List<Check> checksOf(Map<Member, List<Check>> checks,
+                                        Member member) {
+        List<Check> list = checks.get(member);
+        if (list == null) {
+            list = new ArrayList<Check>();
+            checks.put(member, list);
+        }
+        return list;
+    }
+
+    /**
+     * A constrained field or getter and the flattened checks of its value.
+     */
+    private static final class Property {
+        private final Field field;
+        private final Method getter;
+        private final Check[] checks;
+
+        private Property(Member member, Check[] checks) {
+            this.field = member instanceof Field ? (Field) member : null;
+            this.getter = member instanceof Method ? (Method) member : null;
+            this.checks = checks;
+        }
+
+        private boolean isValid(Object object) {
+            Object value;
+            try {
+                value = this.field != null ? this.field.get(object)
+                        : this.getter.invoke(object, NO_ARGUMENTS);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                // let the validator report the failure its own way
+                return false;
+            }
+            for (Check check : this.checks) {
+                if (!check.isValid(value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A single compiled constraint. As with the Hibernate Validator
+     * implementations every check but {@link #NOT_NULL} accepts
+     * {@code null}.
+     */
+    private abstract static class Check {
+        private static final Check NOT_NULL = new Check() {
+            @Override
+            boolean isValid(Object value) {
+                return value != null;
+            }
+        };
+        private static final Check NULL = new Check() {
+            @Override
+            boolean isValid(Object value) {
+                return value == null;
+            }
+        };
+        private static final Check TRUE = new Check() {
+            @Override
+            boolean isValid(Object value) {
+                return value == null || (Boolean) value;
+            }
+        };
+        private static final Check FALSE = new Check() {
+            @Override
+            boolean isValid(Object value) {
+                return value == null || !(Boolean) value;
+            }
+        };
+        private static final Check NOT_BLANK = new Check() {
+            @Override
+            boolean isValid(Object value) {
+                if (value == null) {
+                    return true;
+                }
+                // String.trim() strips every character up to the space
+                CharSequence text = (CharSequence) value;
+                for (int i = 0; i < text.length(); i++) {
+                    if (text.charAt(i) > ' ') {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+        private static final Check EMAIL = new EmailCheck();
+
+        abstract boolean isValid(Object value);
+    }
+
+    /**
+     * {@linkplain Size} and {@linkplain Length} bounds.
+     */
+    private static final class SizeCheck extends Check {
+        private final int min;
+        private final int max;
+
+        private SizeCheck(int min, int max) {
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        boolean isValid(Object value) {
+            if (value == null) {
+                return true;
+            }
+            int size;
+            if (value instanceof CharSequence) {
+                size = ((CharSequence) value).length();
+            } else if (value instanceof Collection) {
+                size = ((Collection<?>) value).size();
+            } else if (value instanceof Map) {
+                size = ((Map<?, ?>) value).size();
+            } else {
+                size = Array.getLength(value);
+            }
+            return size >= this.min && size <= this.max;
+        }
+    }
+
+    /**
+     * A {@linkplain Pattern} matched with a {@linkplain Matcher} kept per
+     * thread.
+     */
+    private static class PatternCheck extends Check {
+        private final ThreadLocal<Matcher> matcher;
+
+        private PatternCheck(final java.util.regex.Pattern pattern) {
+            this.matcher = new ThreadLocal<Matcher>() {
+                @Override
+                protected Matcher initialValue() {
+                    return pattern.matcher("");
+                }
+            };
+        }
+
+        @Override
+        boolean isValid(Object value) {
+            return value == null || this.matcher.get()
+                    .reset((CharSequence) value).matches();
+        }
+    }
+
+    /**
+     * The own check of {@linkplain Email}, the expression of the Hibernate
+     * Validator {@code EmailValidator}. The address is converted with
+     * {@linkplain IDN#toASCII(String)} as that validator does, except for
+     * plain ASCII addresses which that conversion leaves untouched.
+     */
+    private static final class EmailCheck extends PatternCheck {
+        private static final String ATOM = "[a-z0-9!#$%&'*+/=?^_`{|}~-]";
+        private static final String DOMAIN = "(" + ATOM + "+(\\." + ATOM
+                + "+)*";
+        private static final String IP_DOMAIN =
+                "\\[[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}\\]";
+        private static final int MAX_LABEL_LENGTH = 63;
+
+        private EmailCheck() {
+            super(java.util.regex.Pattern.compile("^" + ATOM + "+(\\." + ATOM
+                    + "+)*@" + DOMAIN + "|" + IP_DOMAIN + ")$",
+                    java.util.regex.Pattern.CASE_INSENSITIVE));
+        }
+
+        @Override
+        boolean isValid(Object value) {
+            if (value == null || ((CharSequence) value).length() == 0) {
+                return true;
+            }
+            String address = value.toString();
+            if (!isPlainAscii(address)) {
+                try {
+                    address = IDN.toASCII(address);
+                } catch (IllegalArgumentException e) {
+                    // let the validator report the failure its own way
+                    return false;
+                }
+            }
+            return super.isValid(address);
+        }
+
+        /**
+         * Private helper method that returns whether the given address is
+         * made of ASCII labels of a valid length only.
+         *
+         * @param address the address.
+         * @return {@code true} if the address needs no conversion.
+         */
+        private static boolean isPlainAscii(String address) {
+            int label = 0;
+            for (int i = 0; i < address.length(); i++) {
+                char c = address.charAt(i);
+                if (c >= 0x80) {
+                    return false;
+                } else if (c == '.') {
+                    if (label == 0) {
+                        return false;
+                    }
+                    label = 0;
+                } else if (++label > MAX_LABEL_LENGTH) {
+                    return false;
+                }
+            }
+            return label > 0;
+        }
+    }
+}
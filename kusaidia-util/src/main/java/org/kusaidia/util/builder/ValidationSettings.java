@@ -0,0 +1,147 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.util.builder;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * Bean configuring the validation of every {@linkplain
+ * ValidationAwareBuilder}, e.g.
+ * <pre>
+ * &lt;bean class="org.kusaidia.util.builder.ValidationSettings"&gt;
+ *     &lt;property name="defaultMode" value="COMPILED"/&gt;
+ *     &lt;property name="sampleRate" value="1000"/&gt;
+ * &lt;/bean&gt;
+ * </pre>
+ * The settings are global to the class loader of the builders, the bean
+ * only gives Spring a place to set them. Exported through a Spring {@code
+ * MBeanExporter} with annotation based assembly it also reports the
+ * {@linkplain ValidationStatistics} and lets the default mode be changed at
+ * runtime.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@ManagedResource(objectName = "org.kusaidia:type=ValidationSettings",
+        description = "Validation of the objects built by the builders")
+public class ValidationSettings {
+
+    /**
+     * Returns the {@linkplain ValidationMode} of the builders that do not
+     * choose their own.
+     *
+     * @return the name of the default {@linkplain ValidationMode}.
+     */
+    @ManagedAttribute(description = "Validation mode of the builders that " +
+            "do not choose their own")
+    public String getDefaultMode() {
+        return ValidationAwareBuilder.getDefaultValidationMode().name();
+    }
+
+    /**
+     * Sets the {@linkplain ValidationMode} of the builders that do not
+     * choose their own.
+     *
+     * @param mode the name of the new default {@linkplain ValidationMode}.
+     */
+    @ManagedAttribute
+    public void setDefaultMode(String mode) {
+        ValidationAwareBuilder.setDefaultValidationMode(
+                ValidationMode.valueOf(mode.trim()));
+    }
+
+    /**
+     * Returns the number of builds out of which one is validated with the
+     * {@linkplain ValidationMode#SAMPLED} mode.
+     *
+     * @return the sample rate.
+     */
+    @ManagedAttribute(description = "One in how many sampled builds is " +
+            "validated")
+    public int getSampleRate() {
+        return ValidationAwareBuilder.getSampleRate();
+    }
+
+    /**
+     * Sets the number of builds out of which one is validated with the
+     * {@linkplain ValidationMode#SAMPLED} mode.
+     *
+     * @param rate the new sample rate.
+     */
+    @ManagedAttribute
+    public void setSampleRate(int rate) {
+        ValidationAwareBuilder.setSampleRate(rate);
+    }
+
+    /**
+     * Returns the number of builds that were validated.
+     *
+     * @return the number of validated builds.
+     */
+    @ManagedAttribute(description = "Builds validated")
+    public long getValidated() {
+        return ValidationAwareBuilder.getStatistics().getValidated();
+    }
+
+    /**
+     * Returns the number of builds that failed validation.
+     *
+     * @return the number of invalid builds.
+     */
+    @ManagedAttribute(description = "Builds failing validation")
+    public long getFailed() {
+        return ValidationAwareBuilder.getStatistics().getFailed();
+    }
+
+    /**
+     * Returns the number of builds that were not validated.
+     *
+     * @return the number of builds skipping validation.
+     */
+    @ManagedAttribute(description = "Builds not validated")
+    public long getSkipped() {
+        return ValidationAwareBuilder.getStatistics().getSkipped();
+    }
+
+    /**
+     * Returns a summary of the validation counters of every mode used.
+     *
+     * @return the summary of the {@linkplain ValidationStatistics}.
+     */
+    @ManagedOperation(description = "Validated, failed and skipped builds " +
+            "per validation mode")
+    public String describe() {
+        return ValidationAwareBuilder.getStatistics().toString();
+    }
+
+    /**
+     * Resets the validation counters.
+     */
+    @ManagedOperation(description = "Resets the validation counters")
+    public void resetStatistics() {
+        ValidationAwareBuilder.getStatistics().reset();
+    }
+}
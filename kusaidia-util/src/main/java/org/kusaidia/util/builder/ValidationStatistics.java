@@ -0,0 +1,223 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.util.builder;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts, per {@linkplain ValidationMode}, the builds of the {@linkplain
+ * ValidationAwareBuilder} instances that were validated, that failed
+ * validation and that skipped it. The counters are striped by thread, each
+ * stripe on its own cache lines, so that builders on many cores do not
+ * contend on a single counter; reads sum the stripes.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class ValidationStatistics {
+    /**
+     * the counted outcome of a build
+     */
+    enum Outcome {
+        VALIDATED, FAILED, SKIPPED
+    }
+
+    /**
+     * the number of outcomes counted per mode
+     */
+    private static final int OUTCOMES = Outcome.values().length;
+    /**
+     * the counters of a stripe, rounded up to whole cache lines and followed
+     * by a line of padding
+     */
+    private static final int STRIPE_LENGTH = roundUp(
+            ValidationMode.values().length * OUTCOMES, 8) + 8;
+    /**
+     * the mask selecting the stripe of a thread
+     */
+    private final int mask;
+    /**
+     * the striped counters
+     */
+    private final AtomicLongArray counters;
+
+    /**
+     * Creates new {@linkplain ValidationStatistics} with a stripe per
+     * available processor, rounded up to a power of two.
+     */
+    ValidationStatistics() {
+        int stripes = Integer.highestOneBit(
+                Runtime.getRuntime().availableProcessors() * 2 - 1);
+        this.mask = stripes - 1;
+        this.counters = new AtomicLongArray(stripes * STRIPE_LENGTH);
+    }
+
+    /**
+     * Counts a build of the given mode.
+     *
+     * @param mode the {@linkplain ValidationMode} of the build.
+     * @param outcome its outcome.
+     */
+    void count(ValidationMode mode, Outcome outcome) {
+        int stripe = (int) Thread.currentThread().getId() & this.mask;
+        this.counters.incrementAndGet(stripe * STRIPE_LENGTH
+                + indexOf(mode, outcome));
+    }
+
+    /**
+     * Returns the number of builds that were validated, whether they passed
+     * or not.
+     *
+     * @return the number of validated builds.
+     */
+    public long getValidated() {
+        return this.sum(null, Outcome.VALIDATED);
+    }
+
+    /**
+     * Returns the number of builds that failed validation.
+     *
+     * @return the number of invalid builds.
+     */
+    public long getFailed() {
+        return this.sum(null, Outcome.FAILED);
+    }
+
+    /**
+     * Returns the number of builds that were not validated.
+     *
+     * @return the number of builds skipping validation.
+     */
+    public long getSkipped() {
+        return this.sum(null, Outcome.SKIPPED);
+    }
+
+    /**
+     * Returns the number of builds of the given mode that were validated.
+     *
+     * @param mode the {@linkplain ValidationMode}.
+     * @return the number of validated builds of that mode.
+     */
+    public long getValidated(ValidationMode mode) {
+        return this.sum(mode, Outcome.VALIDATED);
+    }
+
+    /**
+     * Returns the number of builds of the given mode that failed validation.
+     *
+     * @param mode the {@linkplain ValidationMode}.
+     * @return the number of invalid builds of that mode.
+     */
+    public long getFailed(ValidationMode mode) {
+        return this.sum(mode, Outcome.FAILED);
+    }
+
+    /**
+     * Returns the number of builds of the given mode that were not
+     * validated.
+     *
+     * @param mode the {@linkplain ValidationMode}.
+     * @return the number of builds of that mode skipping validation.
+     */
+    public long getSkipped(ValidationMode mode) {
+        return this.sum(mode, Outcome.SKIPPED);
+    }
+
+    /**
+     * Resets every counter. Builds counted concurrently may be lost.
+     */
+    public void reset() {
+        for (int i = 0; i < this.counters.length(); i++) {
+            this.counters.set(i, 0);
+        }
+    }
+
+    /**
+     * Returns a one line summary of the counters of every mode used, such
+     * as {@code FULL validated=10 failed=1 skipped=0, TRUSTED validated=0
+     * failed=0 skipped=200}.
+     *
+     * @return the summary of the counters.
+     */
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder();
+        for (ValidationMode mode : ValidationMode.values()) {
+            long validated = this.getValidated(mode);
+            long skipped = this.getSkipped(mode);
+            if (validated + skipped > 0) {
+                if (summary.length() > 0) {
+                    summary.append(", ");
+                }
+                summary.append(mode).append(" validated=").append(validated)
+                        .append(" failed=").append(this.getFailed(mode))
+                        .append(" skipped=").append(skipped);
+            }
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Private helper method that sums the stripes of a counter.
+     *
+     * @param mode the {@linkplain ValidationMode}, {@code null} for all.
+     * @param outcome the outcome counted.
+     * @return the sum of the counter.
+     */
+    private long sum(ValidationMode mode, Outcome outcome) {
+        long sum = 0;
+        for (int stripe = 0; stripe <= this.mask; stripe++) {
+            for (ValidationMode m : ValidationMode.values()) {
+                if (mode == null || mode == m) {
+                    sum += this.counters.get(stripe * STRIPE_LENGTH
+                            + indexOf(m, outcome));
+                }
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Private helper method that returns the index of a counter within a
+     * stripe.
+     *
+     * @param mode the {@linkplain ValidationMode}.
+     * @param outcome the outcome counted.
+     * @return the index of the counter.
+     */
+    private static int indexOf(ValidationMode mode, Outcome outcome) {
+        return mode.ordinal() * OUTCOMES + outcome.ordinal();
+    }
+
+    /**
+     * Private helper method that rounds up to a multiple.
+     *
+     * @param value the value to round.
+     * @param multiple the multiple.
+     * @return the smallest multiple not below the value.
+     */
+    private static int roundUp(int value, int multiple) {
+        return (value + multiple - 1) / multiple * multiple;
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.util.i18n;
+
+import org.springframework.context.MessageSource;
+import org.springframework.context.MessageSourceResolvable;
+import org.springframework.context.NoSuchMessageException;
+import org.springframework.context.support.ReloadableResourceBundleMessageSource;
+import org.springframework.util.ObjectUtils;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@linkplain MessageSource} adapter caching a {@linkplain MessageTemplate}
+ * per code, default message and {@linkplain Locale}. The raw patterns are
+ * resolved once through the underlying {@linkplain MessageSource}, which
+ * must not be configured to always use {@linkplain java.text.MessageFormat},
+ * and rendered afterwards without allocating a {@linkplain
+ * java.text.MessageFormat} nor taking a lock.
+ * <p/>
+ * The cache is dropped by {@linkplain #clearCache()}, which also clears a
+ * {@linkplain ReloadableResourceBundleMessageSource} delegate, and every
+ * {@linkplain #setCacheSeconds(int) cacheSeconds} when that value is
+ * positive, which should then match the refresh interval of a reloadable
+ * delegate. Each drop increments a generation counter, so the components
+ * keeping resolved patterns can notice it through {@linkplain
+ * #getGeneration()}.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class CachingMessageSource implements MessageSource {
+    /**
+     * the underlying {@linkplain MessageSource}
+     */
+    private final MessageSource delegate;
+    /**
+     * the cached templates
+     */
+    private final ConcurrentMap<Key, MessageTemplate> templates =
+            new ConcurrentHashMap<Key, MessageTemplate>();
+    /**
+     * the number of times the cache was dropped
+     */
+    private final AtomicLong generation = new AtomicLong();
+    /**
+     * the time, in milliseconds, at which the cache expires
+     */
+    private final AtomicLong expiresAt = new AtomicLong(Long.MAX_VALUE);
+    /**
+     * the time, in milliseconds, the templates are kept, {@code -1} meaning
+     * forever
+     */
+    private volatile long cacheMillis = -1;
+
+    /**
+     * Creates a new {@linkplain CachingMessageSource}.
+     *
+     * @param delegate the underlying {@linkplain MessageSource}.
+     */
+    public CachingMessageSource(MessageSource delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Sets the number of seconds the templates are kept. A negative value,
+     * the default, keeps them until {@linkplain #clearCache()} is called.
+     *
+     * @param cacheSeconds the number of seconds the templates are kept.
+     */
+    public void setCacheSeconds(int cacheSeconds) {
+        this.cacheMillis = (cacheSeconds < 0) ? -1 : cacheSeconds * 1000L;
+        this.expiresAt.set((cacheSeconds < 0) ? Long.MAX_VALUE :
+                System.currentTimeMillis() + this.cacheMillis);
+    }
+
+    /**
+     * Drops every cached template, clearing as well the cache of a
+     * {@linkplain ReloadableResourceBundleMessageSource} delegate.
+     */
+    public void clearCache() {
+        if (this.delegate instanceof ReloadableResourceBundleMessageSource) {
+            ((ReloadableResourceBundleMessageSource) this.delegate).clearCache();
+        }
+        this.templates.clear();
+        this.generation.incrementAndGet();
+    }
+
+    /**
+     * Returns the number of times the cache was dropped, dropping it first
+     * if it expired.
+     *
+     * @return the current generation of the cache.
+     */
+    public long getGeneration() {
+        this.expire();
+        return this.generation.get();
+    }
+
+    /**
+     * Returns the template of the specified message.
+     *
+     * @param code the code of the message.
+     * @param defaultMessage the pattern used when the code cannot be
+     * resolved, may be {@code null}.
+     * @param locale the {@linkplain Locale} of the message.
+     * @return the cached {@linkplain MessageTemplate}, or {@code null} if
+     *         the code cannot be resolved and there is no default message.
+     */
+    public MessageTemplate getTemplate(String code, String defaultMessage,
+                                       Locale locale) {
+        this.expire();
+        Key key = new Key(code, defaultMessage, locale);
+        MessageTemplate template = this.templates.get(key);
+        if (template == null) {
+            String pattern = this.delegate.getMessage(code, null,
+                    defaultMessage, locale);
+            if (pattern == null) {
+                return null;
+            }
+            template = MessageTemplate.compile(pattern, locale);
+            MessageTemplate existing = this.templates.putIfAbsent(key,
+                    template);
+            template = (existing != null) ? existing : template;
+        }
+        return template;
+    }
+
+    /**
+     * @see MessageSource#getMessage(String, Object[], String, Locale)
+     */
+    @Override
+    public String getMessage(String code, Object[] args, String defaultMessage,
+                             Locale locale) {
+        MessageTemplate template = this.getTemplate(code, defaultMessage,
+                locale);
+        return (template != null) ? this.render(template, args) : null;
+    }
+
+    /**
+     * @see MessageSource#getMessage(String, Object[], Locale)
+     */
+    @Override
+    public String getMessage(String code, Object[] args, Locale locale)
+            throws NoSuchMessageException {
+        MessageTemplate template = this.getTemplate(code, null, locale);
+        if (template == null) {
+            throw new NoSuchMessageException(code, locale);
+        }
+        return this.render(template, args);
+    }
+
+    /**
+     * @see MessageSource#getMessage(MessageSourceResolvable, Locale)
+     */
+    @Override
+    public String getMessage(MessageSourceResolvable resolvable, Locale locale)
+            throws NoSuchMessageException {
+        return this.delegate.getMessage(resolvable, locale);
+    }
+
+    /**
+     * Private helper method that renders the specified template. Like
+     * {@linkplain org.springframework.context.support.AbstractMessageSource},
+     * a message without arguments is returned as it is.
+     *
+     * @param template the {@linkplain MessageTemplate} to render.
+     * @param args the arguments of the message, may be {@code null}.
+     * @return the rendered message.
+     */
+    private String render(MessageTemplate template, Object[] args) {
+        return ObjectUtils.isEmpty(args) ? template.getPattern() :
+                template.format(args);
+    }
+
+    /**
+     * Private helper method that drops the cache when it expired. Only one
+     * of the concurrent callers drops it.
+     */
+    private void expire() {
+        long expiration = this.expiresAt.get();
+        if (expiration != Long.MAX_VALUE &&
+                System.currentTimeMillis() >= expiration &&
+                this.expiresAt.compareAndSet(expiration,
+                        System.currentTimeMillis() + this.cacheMillis)) {
+            this.clearCache();
+        }
+    }
+
+    /**
+     * Key of the template cache.
+     */
+    private static final class Key {
+        private final String code;
+
+        private final String defaultMessage;
+
+        private final Locale locale;
+
+        private Key(String code, String defaultMessage, Locale locale) {
+            this.code = code;
+            this.defaultMessage = defaultMessage;
+            this.locale = locale;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) {
+                return true;
+            }
+            if (!(object instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) object;
+            return ObjectUtils.nullSafeEquals(this.code, key.code) &&
+                    ObjectUtils.nullSafeEquals(this.defaultMessage,
+                            key.defaultMessage) &&
+                    ObjectUtils.nullSafeEquals(this.locale, key.locale);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = ObjectUtils.nullSafeHashCode(this.code);
+            result = 31 * result + ObjectUtils.nullSafeHashCode(
+                    this.defaultMessage);
+            return 31 * result + ObjectUtils.nullSafeHashCode(this.locale);
+        }
+    }
+}
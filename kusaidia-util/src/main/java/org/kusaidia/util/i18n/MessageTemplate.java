@@ -0,0 +1,312 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.util.i18n;
+
+import java.text.DateFormat;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Immutable, thread-safe, pre-tokenized {@linkplain MessageFormat} pattern.
+ * Patterns made only of literal text and simple {@code {n}} placeholders,
+ * which covers the log templates, are split once into literal and argument
+ * segments and rendered by appending the segments to a buffer: no
+ * {@linkplain MessageFormat} is allocated and no lock is taken. Numbers are
+ * rendered with {@linkplain Object#toString()} instead of a locale
+ * sensitive {@linkplain java.text.NumberFormat}; dates keep the short date
+ * and time style {@linkplain MessageFormat} uses. Patterns using typed
+ * placeholders such as {@code {0,number,#}} fall back to a shared
+ * {@linkplain MessageFormat}. Invalid patterns are rendered as they are when
+ * no argument is given, as Spring's message sources do, and only fail when
+ * formatted with arguments.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class MessageTemplate {
+    /**
+     * the per thread date format, recreated when the locale or the default
+     * time zone changes
+     */
+    private static final ThreadLocal<LocalizedDateFormat> DATE_FORMATS =
+            new ThreadLocal<LocalizedDateFormat>();
+    /**
+     * the pattern of this template
+     */
+    private final String pattern;
+    /**
+     * the {@linkplain Locale} used to render dates
+     */
+    private final Locale locale;
+    /**
+     * the literal segments, {@code literals[i]} preceding {@code
+     * arguments[i]}; the last one follows the last argument
+     */
+    private final String[] literals;
+    /**
+     * the argument index of each placeholder
+     */
+    private final int[] arguments;
+    /**
+     * the {@linkplain MessageFormat} used for the patterns with typed
+     * placeholders, {@code null} otherwise
+     */
+    private final MessageFormat fallback;
+    /**
+     * the reason why the pattern is invalid, {@code null} if it is valid
+     */
+    private final String error;
+
+    /**
+     * Creates a new {@linkplain MessageTemplate}.
+     *
+     * @param pattern the pattern of this template.
+     * @param locale the {@linkplain Locale} used to render dates.
+     * @param literals the literal segments.
+     * @param arguments the argument index of each placeholder.
+     * @param fallback the {@linkplain MessageFormat} used for the patterns
+     * with typed placeholders.
+     * @param error the reason why the pattern is invalid, {@code null} if it
+     * is valid.
+     */
+    private MessageTemplate(String pattern, Locale locale, String[] literals,
+                            int[] arguments, MessageFormat fallback,
+                            String error) {
+        this.pattern = pattern;
+        this.locale = locale;
+        this.literals = literals;
+        this.arguments = arguments;
+        this.fallback = fallback;
+        this.error = error;
+    }
+
+    /**
+     * Compiles the specified {@linkplain MessageFormat} pattern. An invalid
+     * pattern still compiles: it is rendered as it is when formatted without
+     * arguments and fails when formatted with arguments.
+     *
+     * @param pattern the pattern to compile.
+     * @param locale the {@linkplain Locale} used to render dates.
+     * @return a new {@linkplain MessageTemplate}.
+     */
+    public static MessageTemplate compile(String pattern, Locale locale) {
+        try {
+            return MessageTemplate.parse(pattern, locale);
+        } catch (IllegalArgumentException e) {
+            return new MessageTemplate(pattern, locale, null, null, null,
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Private helper method that tokenizes the specified pattern.
+     *
+     * @param pattern the pattern to tokenize.
+     * @param locale the {@linkplain Locale} used to render dates.
+     * @return a new {@linkplain MessageTemplate}.
+     * @throws IllegalArgumentException if the pattern is invalid.
+     */
+    private static MessageTemplate parse(String pattern, Locale locale) {
+        List<String> literals = new ArrayList<String>();
+        List<Integer> arguments = new ArrayList<Integer>();
+        StringBuilder literal = new StringBuilder();
+        boolean quoted = false;
+        int length = pattern.length();
+        for (int i = 0; i < length; i++) {
+            char ch = pattern.charAt(i);
+            if (ch == '\'') {
+                if (i + 1 < length && pattern.charAt(i + 1) == '\'') {
+                    literal.append(ch);
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (ch == '{' && !quoted) {
+                int end = pattern.indexOf('}', i);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unmatched braces in " +
+                            "the pattern.");
+                }
+                String placeholder = pattern.substring(i + 1, end).trim();
+                if (placeholder.indexOf(',') >= 0) {
+                    return new MessageTemplate(pattern, locale, null, null,
+                            new MessageFormat(pattern, locale), null);
+                }
+                arguments.add(MessageTemplate.parseIndex(placeholder));
+                literals.add(literal.toString());
+                literal.setLength(0);
+                i = end;
+            } else {
+                literal.append(ch);
+            }
+        }
+        literals.add(literal.toString());
+        int[] indexes = new int[arguments.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = arguments.get(i);
+        }
+        return new MessageTemplate(pattern, locale,
+                literals.toArray(new String[literals.size()]), indexes, null,
+                null);
+    }
+
+    /**
+     * Returns the pattern of this template.
+     *
+     * @return the pattern of this template.
+     */
+    public String getPattern() {
+        return this.pattern;
+    }
+
+    /**
+     * Renders this template with the specified arguments. Placeholders
+     * without a matching argument are rendered as they appear in the
+     * pattern, as {@linkplain MessageFormat} does.
+     *
+     * @param arguments the arguments of the message, may be {@code null}.
+     * @return the rendered message.
+     * @throws IllegalArgumentException if the pattern is invalid and
+     * arguments are given.
+     */
+    public String format(Object... arguments) {
+        if (this.error != null) {
+            if (arguments == null || arguments.length == 0) {
+                return this.pattern;
+            }
+            throw new IllegalArgumentException(this.error);
+        }
+        if (this.fallback != null) {
+            synchronized (this.fallback) {
+                return this.fallback.format(arguments);
+            }
+        }
+        if (this.arguments.length == 0) {
+            return this.literals[0];
+        }
+        StringBuilder buffer = new StringBuilder(this.pattern.length() + 32);
+        this.formatTo(buffer, arguments);
+        return buffer.toString();
+    }
+
+    /**
+     * Renders this template with the specified arguments into the specified
+     * buffer.
+     *
+     * @param buffer the {@linkplain StringBuilder} receiving the message.
+     * @param arguments the arguments of the message, may be {@code null}.
+     * @throws IllegalArgumentException if the pattern is invalid and
+     * arguments are given.
+     */
+    public void formatTo(StringBuilder buffer, Object... arguments) {
+        if (this.fallback != null || this.error != null) {
+            buffer.append(this.format(arguments));
+            return;
+        }
+        for (int i = 0; i < this.arguments.length; i++) {
+            buffer.append(this.literals[i]);
+            int index = this.arguments[i];
+            if (arguments == null || index >= arguments.length) {
+                buffer.append('{').append(index).append('}');
+            } else {
+                this.append(buffer, arguments[index]);
+            }
+        }
+        buffer.append(this.literals[this.arguments.length]);
+    }
+
+    /**
+     * @see Object#toString()
+     */
+    @Override
+    public String toString() {
+        return this.pattern;
+    }
+
+    /**
+     * Private helper method that appends a single argument.
+     *
+     * @param buffer the {@linkplain StringBuilder} receiving the argument.
+     * @param argument the argument to append.
+     */
+    private void append(StringBuilder buffer, Object argument) {
+        if (argument instanceof Date) {
+            LocalizedDateFormat format = MessageTemplate.DATE_FORMATS.get();
+            TimeZone timeZone = TimeZone.getDefault();
+            if (format == null || !format.locale.equals(this.locale) ||
+                    !format.timeZone.equals(timeZone)) {
+                format = new LocalizedDateFormat(this.locale, timeZone);
+                MessageTemplate.DATE_FORMATS.set(format);
+            }
+            buffer.append(format.format.format((Date) argument));
+        } else {
+            buffer.append(argument);
+        }
+    }
+
+    /**
+     * Private helper method that parses the index of a placeholder.
+     *
+     * @param placeholder the content of the placeholder.
+     * @return the index of the argument.
+     * @throws IllegalArgumentException if the index is not a non negative
+     * number.
+     */
+    private static int parseIndex(String placeholder) {
+        try {
+            int index = Integer.parseInt(placeholder);
+            if (index >= 0) {
+                return index;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("can't parse argument number: " +
+                placeholder);
+    }
+
+    /**
+     * Short date and time {@linkplain DateFormat} bound to the {@linkplain
+     * Locale} and the {@linkplain TimeZone} it was created for.
+     */
+    private static final class LocalizedDateFormat {
+        private final Locale locale;
+
+        private final TimeZone timeZone;
+
+        private final DateFormat format;
+
+        private LocalizedDateFormat(Locale locale, TimeZone timeZone) {
+            this.locale = locale;
+            this.timeZone = timeZone;
+            this.format = DateFormat.getDateTimeInstance(DateFormat.SHORT,
+                    DateFormat.SHORT, locale);
+            this.format.setTimeZone(timeZone);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.util.logging;
+
+/**
+ * Strategy used by the logging aspect to render the arguments and return
+ * values of the methods annotated with the {@linkplain Loggable} annotation.
+ * Implementations append the representation of a single value to a buffer
+ * supplied by the caller, so they should not allocate intermediate strings
+ * for large values and must honour the limits they are given.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public interface ArgumentRenderer {
+    /**
+     * Appends the representation of the specified value to the specified
+     * buffer.
+     *
+     * @param value the value to render, may be {@code null}.
+     * @param maxLength the maximum number of characters of the value that
+     * may be appended, not counting the markers used to flag a truncated
+     * representation.
+     * @param maxElements the maximum number of elements rendered when the
+     * value is an array, a {@linkplain java.util.Collection} or a
+     * {@linkplain java.util.Map}.
+     * @param buffer the {@linkplain StringBuilder} receiving the
+     * representation.
+     */
+    void render(Object value, int maxLength, int maxElements,
+                StringBuilder buffer);
+}
@@ -0,0 +1,680 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.util.logging;
+
+import org.springframework.context.SmartLifecycle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous implementation of the {@linkplain Log} interface. Log events
+ * are published into a bounded, lock-free {@linkplain RingBuffer} and a
+ * single consumer thread drains them in batches to the delegate {@linkplain
+ * Log}, so the caller only pays for a single buffer publish. What happens
+ * when the buffer fills up is controlled by the configured {@linkplain
+ * OverflowPolicy}. Events given as a pattern and arguments are formatted by
+ * the consumer thread; note that the arguments are then rendered after the
+ * call returns, so mutable arguments show their state at that time. The same
+ * applies to the values of structured {@linkplain LogEvent} objects.
+ * <p/>
+ * This object takes part in the Spring context lifecycle: the consumer
+ * thread is started when the context is refreshed and every pending event is
+ * flushed to the delegate when the context is closed. Events fired while the
+ * consumer thread is not running are logged synchronously. A typical
+ * configuration looks like:
+ * <pre>
+ * &lt;bean id="logger" class="org.kusaidia.util.logging.AsyncLog"&gt;
+ *     &lt;constructor-arg&gt;
+ *         &lt;bean class="org.kusaidia.util.logging.SLF4JLog"/&gt;
+ *     &lt;/constructor-arg&gt;
+ *     &lt;constructor-arg value="8192"/&gt;
+ *     &lt;property name="overflowPolicy" value="DISCARD_BY_LEVEL"/&gt;
+ * &lt;/bean&gt;
+ * </pre>
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class AsyncLog implements Log, SmartLifecycle {
+    /**
+     * the default capacity of the buffer
+     */
+    public static final int DEFAULT_CAPACITY = 8192;
+    /**
+     * the default maximum number of events dispatched per batch
+     */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    /**
+     * the default fraction of the buffer capacity below which the discarding
+     * and sampling policies start dropping events
+     */
+    public static final double DEFAULT_DISCARD_THRESHOLD = 0.2;
+    /**
+     * the default time to wait for the pending events to be flushed on
+     * shutdown, in milliseconds
+     */
+    public static final long DEFAULT_SHUTDOWN_TIMEOUT = 5000L;
+    /**
+     * the time the consumer parks when the buffer is empty and the time a
+     * blocked producer parks between retries, in nanoseconds
+     */
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    /**
+     * the minimum time between two reports of events the delegate failed to
+     * log, in nanoseconds
+     */
+    private static final long FAILURE_REPORT_NANOS =
+            TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * Enum representing what happens to a log event when the buffer has no
+     * room for it.
+     *
+     * @author Angel L. Villalain Garcia
+     * @version 1.0.0
+     * @since 1.0.0
+     */
+    public enum OverflowPolicy {
+        /**
+         * The caller waits until there is a free slot. No event is ever
+         * dropped.
+         */
+        BLOCK,
+        /**
+         * Once the free capacity goes below the discard threshold, events are
+         * dropped starting from the lowest levels: the fuller the buffer, the
+         * more levels are dropped. {@linkplain LogLevel#ERROR} events are
+         * never dropped and wait for a free slot.
+         */
+        DISCARD_BY_LEVEL,
+        /**
+         * Once the free capacity goes below the discard threshold, only one
+         * event out of the configured sample rate is kept.
+         * {@linkplain LogLevel#ERROR} events are never dropped and wait for
+         * a free slot.
+         */
+        SAMPLE
+    }
+
+    /**
+     * the {@linkplain Log} events are dispatched to
+     */
+    private final Log delegate;
+    /**
+     * the buffer holding the pending events
+     */
+    private final RingBuffer<Event> buffer;
+    /**
+     * the policy applied when the buffer has no room for an event
+     */
+    private volatile OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+    /**
+     * the number of free slots below which events start being dropped
+     */
+    private volatile int discardThreshold;
+    /**
+     * one out of this number of events is kept when sampling
+     */
+    private volatile int sampleRate = 10;
+    /**
+     * the maximum number of events dispatched per batch
+     */
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    /**
+     * the time to wait for the pending events to be flushed on shutdown
+     */
+    private long shutdownTimeout = DEFAULT_SHUTDOWN_TIMEOUT;
+    /**
+     * the number of events published into the buffer
+     */
+    private final AtomicLong queued = new AtomicLong();
+    /**
+     * the number of events dropped by the overflow policy
+     */
+    private final AtomicLong dropped = new AtomicLong();
+    /**
+     * the number of events dispatched to the delegate
+     */
+    private final AtomicLong flushed = new AtomicLong();
+    /**
+     * the number of events the delegate failed to log
+     */
+    private final AtomicLong failed = new AtomicLong();
+    /**
+     * the time of the last report of a failed event, in nanoseconds
+     */
+    private volatile long lastFailureReport =
+            System.nanoTime() - FAILURE_REPORT_NANOS;
+    /**
+     * the counter used to pick the events kept when sampling
+     */
+    private final AtomicLong sampled = new AtomicLong();
+    /**
+     * whether the consumer thread accepts events
+     */
+    private volatile boolean running;
+    /**
+     * whether the consumer thread has terminated
+     */
+    private volatile boolean terminated;
+    /**
+     * whether the consumer thread is parked waiting for events
+     */
+    private volatile boolean waiting;
+    /**
+     * the consumer thread
+     */
+    private Thread consumer;
+
+    /**
+     * Creates a new {@linkplain AsyncLog} with the default capacity.
+     *
+     * @param delegate the {@linkplain Log} events are dispatched to.
+     */
+    public AsyncLog(Log delegate) {
+        this(delegate, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new {@linkplain AsyncLog}.
+     *
+     * @param delegate the {@linkplain Log} events are dispatched to.
+     * @param capacity the minimum number of pending events the buffer can
+     * hold; rounded up to the next power of two.
+     * @throws IllegalArgumentException if {@code delegate} is {@code null} or
+     * {@code capacity} is not positive.
+     */
+    public AsyncLog(Log delegate, int capacity) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("delegate must not be null");
+        }
+        this.delegate = delegate;
+        this.buffer = new RingBuffer<Event>(capacity);
+        this.setDiscardThreshold(DEFAULT_DISCARD_THRESHOLD);
+    }
+
+    /**
+     * Sets the policy applied when the buffer has no room for an event. It
+     * defaults to {@linkplain OverflowPolicy#BLOCK}.
+     *
+     * @param overflowPolicy the policy applied when the buffer has no room
+     * for an event.
+     */
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        if (overflowPolicy == null) {
+            throw new IllegalArgumentException("overflowPolicy must not be " +
+                    "null");
+        }
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Sets the fraction of the buffer capacity that must remain free before
+     * the discarding and sampling policies start dropping events. It
+     * defaults to {@value #DEFAULT_DISCARD_THRESHOLD}.
+     *
+     * @param discardThreshold a fraction between {@code 0} and {@code 1}.
+     */
+    public void setDiscardThreshold(double discardThreshold) {
+        if (discardThreshold < 0 || discardThreshold > 1) {
+            throw new IllegalArgumentException("discardThreshold must be " +
+                    "between 0 and 1");
+        }
+        this.discardThreshold = (int) (this.buffer.capacity() *
+                discardThreshold);
+    }
+
+    /**
+     * Sets the number of events out of which only one is kept by the
+     * {@linkplain OverflowPolicy#SAMPLE} policy. It defaults to {@code 10}.
+     *
+     * @param sampleRate the sample rate, greater than zero.
+     */
+    public void setSampleRate(int sampleRate) {
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("sampleRate must be positive");
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Sets the maximum number of events dispatched per batch. It defaults to
+     * {@value #DEFAULT_BATCH_SIZE}.
+     *
+     * @param batchSize the maximum number of events dispatched per batch.
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sets the time to wait for the pending events to be flushed when the
+     * context is closed, in milliseconds. It defaults to {@value
+     * #DEFAULT_SHUTDOWN_TIMEOUT}.
+     *
+     * @param shutdownTimeout the time to wait, in milliseconds.
+     */
+    public void setShutdownTimeout(long shutdownTimeout) {
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    /**
+     * Returns the number of events published into the buffer.
+     *
+     * @return the number of events published into the buffer.
+     */
+    public long getQueuedCount() {
+        return this.queued.get();
+    }
+
+    /**
+     * Returns the number of events dropped by the overflow policy.
+     *
+     * @return the number of events dropped by the overflow policy.
+     */
+    public long getDroppedCount() {
+        return this.dropped.get();
+    }
+
+    /**
+     * Returns the number of events dispatched to the delegate {@linkplain
+     * Log}.
+     *
+     * @return the number of events dispatched to the delegate.
+     */
+    public long getFlushedCount() {
+        return this.flushed.get();
+    }
+
+    /**
+     * Returns the number of events the delegate {@linkplain Log} failed to
+     * log by throwing an exception. These events are not counted as flushed.
+     *
+     * @return the number of events the delegate failed to log.
+     */
+    public long getFailedCount() {
+        return this.failed.get();
+    }
+
+    /**
+     * Returns the approximate number of events waiting in the buffer.
+     *
+     * @return the approximate number of events waiting in the buffer.
+     */
+    public int getPendingCount() {
+        return this.buffer.size();
+    }
+
+    /**
+     * @see Log#isLogLevelEnabled(LogLevel, Class)
+     */
+    public boolean isLogLevelEnabled(LogLevel level, Class<?> clazz) {
+        return this.delegate.isLogLevelEnabled(level, clazz);
+    }
+
+    /**
+     * @see Log#log(LogLevel, Class, Throwable, String)
+     */
+    public void log(LogLevel level, Class<?> clazz, Throwable throwable,
+                    String message) {
+        if (!this.running) {
+            this.delegate.log(level, clazz, throwable, message);
+            return;
+        }
+        this.enqueue(new Event(level, clazz, throwable, message, null));
+    }
+
+    /**
+     * @see Log#log(LogLevel, Class, Throwable, String, Object...)
+     */
+    public void log(LogLevel level, Class<?> clazz, Throwable throwable,
+                    String pattern, Object... arguments) {
+        if (!this.running) {
+            this.delegate.log(level, clazz, throwable, pattern, arguments);
+            return;
+        }
+        this.enqueue(new Event(level, clazz, throwable, pattern, arguments));
+    }
+
+    /**
+     * @see Log#logEvent(LogEvent)
+     */
+    public void logEvent(LogEvent event) {
+        if (!this.running) {
+            this.delegate.logEvent(event);
+            return;
+        }
+        this.enqueue(new Event(event));
+    }
+
+    /**
+     * @see SmartLifecycle#isAutoStartup()
+     */
+    public boolean isAutoStartup() {
+        return true;
+    }
+
+    /**
+     * Returns the lowest possible phase so that this object is started
+     * before and stopped after any other lifecycle bean that could log.
+     *
+     * @see SmartLifecycle#getPhase()
+     */
+    public int getPhase() {
+        return Integer.MIN_VALUE;
+    }
+
+    /**
+     * Starts the consumer thread. If a previous {@linkplain #stop()} timed
+     * out, waits up to the shutdown timeout for the previous consumer thread
+     * to terminate, since the buffer only supports a single consumer.
+     *
+     * @throws IllegalStateException if the previous consumer thread is still
+     * running.
+     * @see SmartLifecycle#start()
+     */
+    public synchronized void start() {
+        if (this.running) {
+            return;
+        }
+        if (this.consumer != null && this.consumer.isAlive()) {
+            try {
+                this.consumer.join(this.shutdownTimeout);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (this.consumer.isAlive()) {
+                throw new IllegalStateException("the previous consumer " +
+                        "thread is still running");
+            }
+        }
+        this.terminated = false;
+        this.running = true;
+        this.consumer = new Thread(new Runnable() {
+            public void run() {
+                AsyncLog.this.consume();
+            }
+        }, "kusaidia-async-log");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    /**
+     * Stops the consumer thread once every pending event has been flushed or
+     * the shutdown timeout has elapsed. Events fired afterwards are logged
+     * synchronously.
+     *
+     * @see SmartLifecycle#stop()
+     */
+    public synchronized void stop() {
+        if (!this.running) {
+            return;
+        }
+        this.running = false;
+        LockSupport.unpark(this.consumer);
+        try {
+            this.consumer.join(this.shutdownTimeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!this.consumer.isAlive()) {
+            this.terminated = true;
+            this.drainAfterTermination();
+        }
+    }
+
+    /**
+     * @see SmartLifecycle#stop(Runnable)
+     */
+    public void stop(Runnable callback) {
+        this.stop();
+        callback.run();
+    }
+
+    /**
+     * @see SmartLifecycle#isRunning()
+     */
+    public boolean isRunning() {
+        return this.running;
+    }
+
+    /**
+     * Private helper method that publishes the specified event and updates
+     * the counters accordingly.
+     *
+     * @param event the event to publish.
+     */
+    private void enqueue(Event event) {
+        if (this.publish(event)) {
+            this.queued.incrementAndGet();
+            if (this.waiting) {
+                LockSupport.unpark(this.consumer);
+            }
+            if (this.terminated) {
+                this.drainAfterTermination();
+            }
+        } else {
+            this.dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Private helper method that publishes the specified event applying the
+     * configured {@linkplain OverflowPolicy}. Events that must wait for a
+     * free slot are logged synchronously instead when the consumer thread is
+     * not running or when the caller is the consumer thread.
+     *
+     * @param event the event to publish.
+     * @return {@code true} if the event was published, {@code false} if it
+     *         was dropped.
+     */
+    private boolean publish(Event event) {
+        OverflowPolicy policy = this.overflowPolicy;
+        boolean error = event.level == LogLevel.ERROR;
+        if (policy != OverflowPolicy.BLOCK && !error) {
+            int free = this.buffer.capacity() - this.buffer.size();
+            if (free < this.discardThreshold && this.shouldDrop(policy,
+                    event.level, free)) {
+                return false;
+            }
+            return this.buffer.offer(event);
+        }
+        // an event fired by the consumer thread itself, e.g. while rendering
+        // the arguments of another event, cannot wait for a free slot
+        boolean consumer = Thread.currentThread() == this.consumer;
+        while (!this.buffer.offer(event)) {
+            if (!this.running || consumer) {
+                event.dispatchTo(this.delegate);
+                this.flushed.incrementAndGet();
+                return true;
+            }
+            LockSupport.parkNanos(this, PARK_NANOS);
+        }
+        return true;
+    }
+
+    /**
+     * Private helper method that decides whether an event must be dropped
+     * when the free capacity is below the discard threshold.
+     *
+     * @param policy the {@linkplain OverflowPolicy} in place.
+     * @param level the {@linkplain LogLevel} of the event.
+     * @param free the number of free slots.
+     * @return {@code true} if the event must be dropped, {@code false}
+     *         otherwise.
+     */
+    private boolean shouldDrop(OverflowPolicy policy, LogLevel level,
+                               int free) {
+        if (policy == OverflowPolicy.SAMPLE) {
+            return this.sampled.getAndIncrement() % this.sampleRate != 0;
+        }
+        // the discard zone is split in four bands: the fuller the buffer,
+        // the more levels are dropped, starting from TRACE
+        int severity = LogLevel.ERROR.getSeverity();
+        int droppedLevels = severity - (free * severity / this.discardThreshold);
+        return level.getSeverity() < droppedLevels;
+    }
+
+    /**
+     * Private method executed by the consumer thread. Drains the buffer in
+     * batches until the object is stopped and the buffer is empty.
+     */
+    private void consume() {
+        List<Event> batch = new ArrayList<Event>(this.batchSize);
+        while (true) {
+            if (this.buffer.drainTo(batch, this.batchSize) == 0) {
+                if (!this.running && this.buffer.size() == 0) {
+                    return;
+                }
+                this.waiting = true;
+                if (this.buffer.size() == 0) {
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                }
+                this.waiting = false;
+                continue;
+            }
+            this.dispatch(batch);
+        }
+    }
+
+    /**
+     * Private helper method that drains the events published after the
+     * consumer thread terminated. Synchronized so that there is only one
+     * consumer at a time.
+     */
+    private synchronized void drainAfterTermination() {
+        List<Event> batch = new ArrayList<Event>();
+        while (this.buffer.drainTo(batch, this.batchSize) != 0) {
+            this.dispatch(batch);
+        }
+    }
+
+    /**
+     * Private helper method that dispatches a batch of events to the
+     * delegate {@linkplain Log} and clears it.
+     *
+     * @param batch the events to dispatch.
+     */
+    private void dispatch(List<Event> batch) {
+        int dispatched = 0;
+        for (Event event : batch) {
+            try {
+                event.dispatchTo(this.delegate);
+                dispatched++;
+            } catch (RuntimeException e) {
+                // a failing delegate must not kill the consumer thread
+                this.failed.incrementAndGet();
+                this.reportFailure(e);
+            }
+        }
+        this.flushed.addAndGet(dispatched);
+        batch.clear();
+    }
+
+    /**
+     * Private helper method that reports an event the delegate {@linkplain
+     * Log} failed to log on the standard error stream, at most once every
+     * ten seconds since the delegate itself cannot be trusted to log it.
+     *
+     * @param e the exception thrown by the delegate.
+     */
+    private void reportFailure(RuntimeException e) {
+        long now = System.nanoTime();
+        if (now - this.lastFailureReport < FAILURE_REPORT_NANOS) {
+            return;
+        }
+        this.lastFailureReport = now;
+        System.err.println("AsyncLog: " + this.failed.get() + " event(s) " +
+                "failed to be logged by " +
+                this.delegate.getClass().getName() + ", last cause: " + e);
+    }
+
+    /**
+     * Log event waiting in the buffer.
+     */
+    private static final class Event {
+        private final LogLevel level;
+        private final Class<?> clazz;
+        private final Throwable throwable;
+        private final String message;
+        private final Object[] arguments;
+        private final LogEvent event;
+        /**
+         * the context of the thread that fired the event
+         */
+        private final LogContext.Snapshot context;
+
+        private Event(LogLevel level, Class<?> clazz, Throwable throwable,
+                      String message, Object[] arguments) {
+            this.level = level;
+            this.clazz = clazz;
+            this.throwable = throwable;
+            this.message = message;
+            this.arguments = arguments;
+            this.event = null;
+            this.context = LogContext.capture();
+        }
+
+        private Event(LogEvent event) {
+            this.level = event.getLevel();
+            this.clazz = event.getSourceClass();
+            this.throwable = event.getThrowable();
+            this.message = null;
+            this.arguments = null;
+            this.event = event;
+            this.context = event.getContext();
+        }
+
+        /**
+         * Logs this event to the specified {@linkplain Log}, formatting the
+         * message if it was given as a pattern and arguments, with the
+         * {@linkplain LogContext} of the thread that fired it.
+         *
+         * @param log the {@linkplain Log} to log this event to.
+         */
+        private void dispatchTo(Log log) {
+            LogContext.Snapshot previous = LogContext.restore(this.context);
+            try {
+                if (this.event != null) {
+                    log.logEvent(this.event);
+                } else if (this.arguments == null) {
+                    log.log(this.level, this.clazz, this.throwable,
+                            this.message);
+                } else {
+                    log.log(this.level, this.clazz, this.throwable,
+                            this.message, this.arguments);
+                }
+            } finally {
+                LogContext.restore(previous);
+            }
+        }
+    }
+}
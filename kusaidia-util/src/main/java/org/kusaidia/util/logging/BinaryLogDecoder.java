@@ -0,0 +1,367 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.util.logging;
+
+import org.kusaidia.util.i18n.MessageTemplate;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.kusaidia.util.logging.BinaryLogFormat.*;
+
+/**
+ * Offline decoder of the segment files written by {@linkplain
+ * MappedFileLog}, turning their records back into text lines such as:
+ * <pre>
+ * 2012-10-01 08:00:00.000 DEBUG [main] org.example.Service - leaving add with params 1, 2 returning 3 in 1520 ns
+ * </pre>
+ * Patterns are formatted with the arguments recorded with their original
+ * types, so date and number format styles work as they would have on the
+ * logging thread. A segment cut short, for instance by a crash, is decoded
+ * up to its last complete record. The decoder can be run from the command
+ * line:
+ * <pre>
+ * java -cp kusaidia-util.jar org.kusaidia.util.logging.BinaryLogDecoder
+ *     [-locale en-US] &lt;segment file or directory&gt;...
+ * </pre>
+ * Instances are not thread safe.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class BinaryLogDecoder {
+    /**
+     * the format of the time of the decoded events
+     */
+    private static final String TIME_FORMAT = "yyyy-MM-dd HH:mm:ss.SSS";
+    private static final String LINE_SEPARATOR =
+            System.getProperty("line.separator");
+
+    /**
+     * the {@linkplain Locale} the patterns are formatted with
+     */
+    private final Locale locale;
+    private final SimpleDateFormat timeFormat =
+            new SimpleDateFormat(TIME_FORMAT);
+    /**
+     * the compiled patterns, shared by every segment
+     */
+    private final Map<String, MessageTemplate> templates =
+            new HashMap<String, MessageTemplate>();
+
+    /**
+     * Creates a new {@linkplain BinaryLogDecoder} formatting the patterns
+     * with the default {@linkplain Locale}.
+     */
+    public BinaryLogDecoder() {
+        this(Locale.getDefault());
+    }
+
+    /**
+     * Creates a new {@linkplain BinaryLogDecoder}.
+     *
+     * @param locale the {@linkplain Locale} the patterns are formatted
+     * with.
+     */
+    public BinaryLogDecoder(Locale locale) {
+        if (locale == null) {
+            throw new IllegalArgumentException("locale must not be null");
+        }
+        this.locale = locale;
+    }
+
+    /**
+     * Decodes the specified segment files, or every segment file of the
+     * specified directories, to the standard output.
+     *
+     * @param args an optional {@code -locale} followed by a language tag,
+     * then the segment files or directories.
+     */
+    public static void main(String[] args) {
+        List<String> paths = new ArrayList<String>(Arrays.asList(args));
+        Locale locale = Locale.getDefault();
+        if (paths.size() >= 2 && "-locale".equals(paths.get(0))) {
+            locale = Locale.forLanguageTag(paths.get(1));
+            paths = paths.subList(2, paths.size());
+        }
+        if (paths.isEmpty()) {
+            System.err.println("usage: BinaryLogDecoder [-locale <tag>] " +
+                    "<segment file or directory>...");
+            System.exit(2);
+        }
+        BinaryLogDecoder decoder = new BinaryLogDecoder(locale);
+        PrintStream out = System.out;
+        int status = 0;
+        for (String path : paths) {
+            for (File segment : segments(new File(path))) {
+                try {
+                    decoder.decode(segment, out);
+                } catch (IOException e) {
+                    System.err.println(segment + ": " + e.getMessage());
+                    status = 1;
+                }
+            }
+        }
+        out.flush();
+        System.exit(status);
+    }
+
+    /**
+     * Decodes the specified segment file.
+     *
+     * @param segment the segment file to decode.
+     * @param out the {@linkplain Appendable} receiving the lines.
+     * @return the number of events decoded.
+     * @throws IOException if the file cannot be read or is not a segment.
+     */
+    public int decode(File segment, Appendable out) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(segment, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            return this.decode(channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size()), out);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Decodes the segment held by the remaining bytes of the specified
+     * buffer.
+     *
+     * @param buffer the {@linkplain ByteBuffer} holding the segment.
+     * @param out the {@linkplain Appendable} receiving the lines.
+     * @return the number of events decoded.
+     * @throws IOException if the buffer does not hold a segment or the
+     * lines cannot be written.
+     */
+    public int decode(ByteBuffer buffer, Appendable out) throws IOException {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException("not a binary log segment");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("unsupported version " + version);
+        }
+        buffer.getLong();
+        Map<Integer, String> dictionary = new HashMap<Integer, String>();
+        StringBuilder line = new StringBuilder();
+        int count = 0;
+        try {
+            while (buffer.hasRemaining()) {
+                byte kind = buffer.get();
+                if (kind == END) {
+                    break;
+                } else if (kind == DICTIONARY) {
+                    int id = buffer.getInt();
+                    dictionary.put(id, string(buffer));
+                    continue;
+                }
+                line.setLength(0);
+                this.record(kind, buffer, dictionary, line);
+                out.append(line).append(LINE_SEPARATOR);
+                count++;
+            }
+        } catch (BufferUnderflowException e) {
+            // the segment was cut short, the last record is incomplete
+        }
+        return count;
+    }
+
+    /**
+     * Private helper method that decodes a record into a line.
+     *
+     * @param kind the kind of record.
+     * @param buffer the {@linkplain ByteBuffer} positioned after the kind.
+     * @param dictionary the dictionary of the segment.
+     * @param line the {@linkplain StringBuilder} receiving the line.
+     * @throws IOException if the kind of record is unknown.
+     */
+    private void record(byte kind, ByteBuffer buffer,
+                        Map<Integer, String> dictionary, StringBuilder line)
+            throws IOException {
+        LogLevel level = LogLevel.values()[buffer.get()];
+        int flags = buffer.get();
+        long timestamp = buffer.getLong();
+        String thread = reference(buffer, dictionary);
+        String clazz = reference(buffer, dictionary);
+        line.append(this.timeFormat.format(new Date(timestamp))).append(' ')
+                .append(level).append(" [").append(thread).append("] ")
+                .append(clazz).append(" - ");
+        if (kind == MESSAGE) {
+            line.append(string(buffer));
+        } else if (kind == PATTERN) {
+            String pattern = reference(buffer, dictionary);
+            Object[] arguments = values(buffer);
+            MessageTemplate template = this.templates.get(pattern);
+            if (template == null) {
+                template = MessageTemplate.compile(pattern, this.locale);
+                this.templates.put(pattern, template);
+            }
+            template.formatTo(line, arguments);
+        } else if (kind == EVENT) {
+            LogEvent.Type type = LogEvent.Type.values()[buffer.get()];
+            String method = reference(buffer, dictionary);
+            long duration = buffer.getLong();
+            Object[] arguments = values(buffer);
+            line.append(type.getLabel()).append(' ').append(method);
+            if (arguments.length != 0) {
+                line.append(" with params ");
+                for (int i = 0; i < arguments.length; i++) {
+                    line.append((i != 0) ? ", " : "").append(arguments[i]);
+                }
+            }
+            if ((flags & FLAG_RETURN) != 0) {
+                line.append(" returning ").append(value(buffer));
+            }
+            if (duration != LogEvent.NO_DURATION) {
+                line.append(" in ").append(duration).append(" ns");
+            }
+        } else {
+            throw new IOException("unknown record kind " + kind);
+        }
+        if ((flags & FLAG_THROWABLE) != 0) {
+            String trace = string(buffer);
+            line.append(LINE_SEPARATOR).append(trace.endsWith(
+                    LINE_SEPARATOR) ? trace.substring(0, trace.length() -
+                    LINE_SEPARATOR.length()) : trace);
+        }
+    }
+
+    /**
+     * Private helper method that decodes a reference.
+     *
+     * @param buffer the {@linkplain ByteBuffer} positioned at the reference.
+     * @param dictionary the dictionary of the segment.
+     * @return the referenced value.
+     */
+    private static String reference(ByteBuffer buffer,
+                                    Map<Integer, String> dictionary) {
+        int id = buffer.getInt();
+        if (id == INLINE) {
+            return string(buffer);
+        }
+        String value = dictionary.get(id);
+        return (value != null) ? value : "#" + id;
+    }
+
+    /**
+     * Private helper method that decodes the count and the values of the
+     * arguments of a record.
+     *
+     * @param buffer the {@linkplain ByteBuffer} positioned at the count.
+     * @return the arguments.
+     * @throws IOException if a value has an unknown type.
+     */
+    private static Object[] values(ByteBuffer buffer) throws IOException {
+        Object[] values = new Object[buffer.get() & 0xff];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = value(buffer);
+        }
+        return values;
+    }
+
+    /**
+     * Private helper method that decodes a typed value.
+     *
+     * @param buffer the {@linkplain ByteBuffer} positioned at the type.
+     * @return the value.
+     * @throws IOException if the value has an unknown type.
+     */
+    private static Object value(ByteBuffer buffer) throws IOException {
+        byte type = buffer.get();
+        switch (type) {
+            case NULL:
+                return null;
+            case FALSE:
+                return Boolean.FALSE;
+            case TRUE:
+                return Boolean.TRUE;
+            case INT:
+                return buffer.getInt();
+            case LONG:
+                return buffer.getLong();
+            case FLOAT:
+                return Float.intBitsToFloat(buffer.getInt());
+            case DOUBLE:
+                return Double.longBitsToDouble(buffer.getLong());
+            case CHAR:
+                return buffer.getChar();
+            case DATE:
+                return new Date(buffer.getLong());
+            case STRING:
+                return string(buffer);
+            default:
+                throw new IOException("unknown value type " + type);
+        }
+    }
+
+    /**
+     * Private helper method that decodes a string.
+     *
+     * @param buffer the {@linkplain ByteBuffer} positioned at the length.
+     * @return the string.
+     */
+    private static String string(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * Private helper method that lists the segment files to decode.
+     *
+     * @param path a segment file or a directory.
+     * @return the segment files, sorted by name within a directory.
+     */
+    private static File[] segments(File path) {
+        if (!path.isDirectory()) {
+            return new File[]{path};
+        }
+        File[] segments = path.listFiles(new FileFilter() {
+            public boolean accept(File file) {
+                return file.isFile() && file.getName().endsWith(SUFFIX);
+            }
+        });
+        if (segments == null) {
+            return new File[0];
+        }
+        Arrays.sort(segments);
+        return segments;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.util.logging;
+
+import java.nio.charset.Charset;
+
+/**
+ * Constants of the binary log format written by {@linkplain MappedFileLog}
+ * and read by {@linkplain BinaryLogDecoder}. A log is a sequence of segment
+ * files, each starting with a header made of the {@linkplain #MAGIC} number,
+ * the format {@linkplain #VERSION} and the index of the segment, followed by
+ * records until the first zero byte or the end of the file. Every record
+ * starts with a one byte tag:
+ * <ul>
+ * <li>{@linkplain #DICTIONARY}: an {@code int} id followed by a string,
+ * defining a class name, pattern, method name or thread name the next
+ * records of the segment refer to by id;</li>
+ * <li>{@linkplain #MESSAGE}, {@linkplain #PATTERN} and {@linkplain #EVENT}:
+ * the level ordinal, a flags byte, the {@code long} timestamp and the
+ * references to the thread name and the class, followed by the inline
+ * message; by the pattern reference and its typed arguments; or by the
+ * {@linkplain LogEvent.Type} ordinal, the method reference, the {@code
+ * long} duration, the typed arguments and the typed return value.</li>
+ * </ul>
+ * A reference is a dictionary id, or {@code -1} followed by an inline string
+ * once the dictionary is full. Strings are an {@code int} byte length
+ * followed by the UTF-8 bytes. Typed values are a tag byte followed by the
+ * value. Every number is big-endian. Errors are written as a string holding
+ * their stack trace, after every other field.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class BinaryLogFormat {
+    /**
+     * the magic number starting every segment, "KLOG" in ASCII
+     */
+    static final int MAGIC = 0x4b4c4f47;
+    static final int VERSION = 1;
+    /**
+     * the size of the segment header: magic, version and segment index
+     */
+    static final int HEADER_SIZE = 16;
+    /**
+     * the suffix of the segment files
+     */
+    static final String SUFFIX = ".klog";
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    static final byte END = 0;
+    static final byte DICTIONARY = 1;
+    static final byte MESSAGE = 2;
+    static final byte PATTERN = 3;
+    static final byte EVENT = 4;
+
+    static final int FLAG_THROWABLE = 1;
+    static final int FLAG_RETURN = 2;
+
+    /**
+     * the reference written before an inline string
+     */
+    static final int INLINE = -1;
+
+    static final byte NULL = 0;
+    static final byte FALSE = 1;
+    static final byte TRUE = 2;
+    static final byte INT = 3;
+    static final byte LONG = 4;
+    static final byte FLOAT = 5;
+    static final byte DOUBLE = 6;
+    static final byte CHAR = 7;
+    static final byte DATE = 8;
+    static final byte STRING = 9;
+
+    /**
+     * Prevents the instantiation of this class.
+     */
+    private BinaryLogFormat() {
+    }
+
+    /**
+     * Returns the name of the file of the specified segment.
+     *
+     * @param prefix the prefix of the segment files.
+     * @param index the index of the segment.
+     * @return the file name.
+     */
+    static String segmentName(String prefix, long index) {
+        return prefix + '-' + String.format("%06d", index) + SUFFIX;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.util.logging;
+
+import java.util.concurrent.Executor;
+
+/**
+ * {@linkplain Executor} decorator running every task with the {@linkplain
+ * LogContext} of the thread that submitted it. The context is captured by
+ * reference, so the hand-over costs two field writes per task.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class ContextExecutor implements Executor {
+    /**
+     * the {@linkplain Executor} running the tasks
+     */
+    private final Executor delegate;
+
+    /**
+     * Creates a new {@linkplain ContextExecutor}.
+     *
+     * @param delegate the {@linkplain Executor} running the tasks.
+     */
+    public ContextExecutor(Executor delegate) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("delegate must not be null");
+        }
+        this.delegate = delegate;
+    }
+
+    /**
+     * @see Executor#execute(Runnable)
+     */
+    public void execute(Runnable command) {
+        this.delegate.execute(LogContext.wrap(command));
+    }
+}
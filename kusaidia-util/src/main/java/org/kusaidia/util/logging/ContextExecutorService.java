@@ -0,0 +1,170 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.util.logging;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@linkplain ExecutorService} decorator running every task with the
+ * {@linkplain LogContext} of the thread that submitted it. The context is
+ * captured by reference, so the hand-over costs two field writes per task.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class ContextExecutorService extends ContextExecutor
+        implements ExecutorService {
+    /**
+     * the {@linkplain ExecutorService} running the tasks
+     */
+    private final ExecutorService delegate;
+
+    /**
+     * Creates a new {@linkplain ContextExecutorService}.
+     *
+     * @param delegate the {@linkplain ExecutorService} running the tasks.
+     */
+    public ContextExecutorService(ExecutorService delegate) {
+        super(delegate);
+        this.delegate = delegate;
+    }
+
+    /**
+     * @see ExecutorService#submit(Callable)
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        return this.delegate.submit(LogContext.wrap(task));
+    }
+
+    /**
+     * @see ExecutorService#submit(Runnable, Object)
+     */
+    public <T> Future<T> submit(Runnable task, T result) {
+        return this.delegate.submit(LogContext.wrap(task), result);
+    }
+
+    /**
+     * @see ExecutorService#submit(Runnable)
+     */
+    public Future<?> submit(Runnable task) {
+        return this.delegate.submit(LogContext.wrap(task));
+    }
+
+    /**
+     * @see ExecutorService#invokeAll(Collection)
+     */
+    public <T> List<Future<T>> invokeAll(
+            Collection<? extends Callable<T>> tasks)
+            throws InterruptedException {
+        return this.delegate.invokeAll(this.wrap(tasks));
+    }
+
+    /**
+     * @see ExecutorService#invokeAll(Collection, long, TimeUnit)
+     */
+    public <T> List<Future<T>> invokeAll(
+            Collection<? extends Callable<T>> tasks, long timeout,
+            TimeUnit unit) throws InterruptedException {
+        return this.delegate.invokeAll(this.wrap(tasks), timeout, unit);
+    }
+
+    /**
+     * @see ExecutorService#invokeAny(Collection)
+     */
+    public <T> T invokeAny(Collection<? extends Callable<T>> tasks)
+            throws InterruptedException, ExecutionException {
+        return this.delegate.invokeAny(this.wrap(tasks));
+    }
+
+    /**
+     * @see ExecutorService#invokeAny(Collection, long, TimeUnit)
+     */
+    public <T> T invokeAny(Collection<? extends Callable<T>> tasks,
+                           long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException,
+            TimeoutException {
+        return this.delegate.invokeAny(this.wrap(tasks), timeout, unit);
+    }
+
+    /**
+     * @see ExecutorService#shutdown()
+     */
+    public void shutdown() {
+        this.delegate.shutdown();
+    }
+
+    /**
+     * @see ExecutorService#shutdownNow()
+     */
+    public List<Runnable> shutdownNow() {
+        return this.delegate.shutdownNow();
+    }
+
+    /**
+     * @see ExecutorService#isShutdown()
+     */
+    public boolean isShutdown() {
+        return this.delegate.isShutdown();
+    }
+
+    /**
+     * @see ExecutorService#isTerminated()
+     */
+    public boolean isTerminated() {
+        return this.delegate.isTerminated();
+    }
+
+    /**
+     * @see ExecutorService#awaitTermination(long, TimeUnit)
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit)
+            throws InterruptedException {
+        return this.delegate.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Private helper method that wraps the specified tasks with the
+     * context of the current thread.
+     *
+     * @param tasks the tasks to wrap.
+     * @param <T> the type of the results of the tasks.
+     * @return the wrapped tasks.
+     */
+    private <T> List<Callable<T>> wrap(
+            Collection<? extends Callable<T>> tasks) {
+        List<Callable<T>> wrapped = new ArrayList<Callable<T>>(tasks.size());
+        for (Callable<T> task : tasks) {
+            wrapped.add(LogContext.wrap(task));
+        }
+        return wrapped;
+    }
+}
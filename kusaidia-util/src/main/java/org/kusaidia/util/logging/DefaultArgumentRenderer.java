@@ -0,0 +1,196 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.util.logging;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Default {@linkplain ArgumentRenderer} implementation. Arrays, {@linkplain
+ * Collection} and {@linkplain Map} instances are summarized as their type
+ * and size followed by their first elements, e.g. {@code byte[4096]{1, 2,
+ * 3, ...}} or {@code HashMap[12]{a=1, b=2, ...}}; the elements themselves
+ * are rendered with {@linkplain String#valueOf(Object)}. Character
+ * sequences are copied up to the maximum length without creating an
+ * intermediate string. Any other value is rendered with {@linkplain
+ * String#valueOf(Object)}.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class DefaultArgumentRenderer implements ArgumentRenderer {
+    /**
+     * the marker appended when a representation is truncated
+     */
+    public static final String ELLIPSIS = "...";
+    /**
+     * the separator used between the rendered elements
+     */
+    private static final String SEPARATOR = ", ";
+
+    /**
+     * @see ArgumentRenderer#render(Object, int, int, StringBuilder)
+     */
+    @Override
+    public void render(Object value, int maxLength, int maxElements,
+                       StringBuilder buffer) {
+        int limit = buffer.length() + maxLength;
+        if (value == null) {
+            buffer.append((Object) null);
+        } else if (value instanceof CharSequence) {
+            this.renderCharSequence((CharSequence) value, limit, buffer);
+        } else if (value.getClass().isArray()) {
+            this.renderArray(value, limit, maxElements, buffer);
+        } else if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            this.renderElements(collection.getClass().getSimpleName(),
+                    collection.size(), collection.iterator(), limit,
+                    maxElements, buffer);
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            this.renderElements(map.getClass().getSimpleName(), map.size(),
+                    map.entrySet().iterator(), limit, maxElements, buffer);
+        } else {
+            this.renderCharSequence(String.valueOf(value), limit, buffer);
+        }
+    }
+
+    /**
+     * Private helper method that copies the specified {@linkplain
+     * CharSequence} up to the specified buffer position.
+     *
+     * @param sequence the {@linkplain CharSequence} to copy.
+     * @param limit the buffer position the copy must not exceed.
+     * @param buffer the {@linkplain StringBuilder} receiving the copy.
+     */
+    private void renderCharSequence(CharSequence sequence, int limit,
+                                    StringBuilder buffer) {
+        int available = Math.max(0, limit - buffer.length());
+        if (sequence.length() <= available) {
+            buffer.append(sequence);
+        } else {
+            buffer.append(sequence, 0, available).append(
+                    DefaultArgumentRenderer.ELLIPSIS);
+        }
+    }
+
+    /**
+     * Private helper method that renders a summary of the specified array,
+     * primitive or not, boxing only the rendered elements.
+     *
+     * @param array the array to render.
+     * @param limit the buffer position the representation should not
+     * exceed.
+     * @param maxElements the maximum number of elements rendered.
+     * @param buffer the {@linkplain StringBuilder} receiving the
+     * representation.
+     */
+    private void renderArray(Object array, int limit, int maxElements,
+                             StringBuilder buffer) {
+        int length = Array.getLength(array);
+        buffer.append(array.getClass().getComponentType().getSimpleName())
+                .append('[').append(length).append("]{");
+        int count = Math.min(length, maxElements);
+        int rendered = 0;
+        while (rendered < count && this.renderElement(Array.get(array,
+                rendered), rendered, limit, maxElements, buffer)) {
+            rendered++;
+        }
+        this.closeSummary(rendered, length, buffer);
+    }
+
+    /**
+     * Private helper method that renders a summary of the elements returned
+     * by the specified {@linkplain Iterator}.
+     *
+     * @param type the simple name of the container type.
+     * @param size the number of elements of the container.
+     * @param iterator the {@linkplain Iterator} over the container elements.
+     * @param limit the buffer position the representation should not
+     * exceed.
+     * @param maxElements the maximum number of elements rendered.
+     * @param buffer the {@linkplain StringBuilder} receiving the
+     * representation.
+     */
+    private void renderElements(String type, int size, Iterator<?> iterator,
+                                int limit, int maxElements,
+                                StringBuilder buffer) {
+        buffer.append(type).append('[').append(size).append("]{");
+        int rendered = 0;
+        while (rendered < maxElements && iterator.hasNext() &&
+                this.renderElement(iterator.next(), rendered, limit,
+                        maxElements, buffer)) {
+            rendered++;
+        }
+        this.closeSummary(rendered, size, buffer);
+    }
+
+    /**
+     * Private helper method that renders a single element of a container.
+     * Nested containers are summarized as well, so the recursion is bounded
+     * by the length limit.
+     *
+     * @param element the element to render.
+     * @param index the position of the element in the container.
+     * @param limit the buffer position the representation should not
+     * exceed.
+     * @param maxElements the maximum number of elements rendered.
+     * @param buffer the {@linkplain StringBuilder} receiving the
+     * representation.
+     * @return {@code true} if the element was rendered, {@code false} if
+     *         the limit was already reached.
+     */
+    private boolean renderElement(Object element, int index, int limit,
+                                  int maxElements, StringBuilder buffer) {
+        if (buffer.length() >= limit) {
+            return false;
+        }
+        if (index != 0) {
+            buffer.append(DefaultArgumentRenderer.SEPARATOR);
+        }
+        this.render(element, limit - buffer.length(), maxElements, buffer);
+        return true;
+    }
+
+    /**
+     * Private helper method that closes the summary of a container, marking
+     * the elements that were not rendered.
+     *
+     * @param rendered the number of rendered elements.
+     * @param size the number of elements of the container.
+     * @param buffer the {@linkplain StringBuilder} receiving the
+     * representation.
+     */
+    private void closeSummary(int rendered, int size, StringBuilder buffer) {
+        if (rendered < size) {
+            if (rendered != 0) {
+                buffer.append(DefaultArgumentRenderer.SEPARATOR);
+            }
+            buffer.append(DefaultArgumentRenderer.ELLIPSIS);
+        }
+        buffer.append('}');
+    }
+}
@@ -0,0 +1,582 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.util.logging;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Compact JSON encoder of {@linkplain LogEvent} objects. Each event is
+ * written as a single line JSON object, UTF-8 encoded into a {@linkplain
+ * ByteBuffer} supplied by the caller, so a writer can reuse the same heap,
+ * direct or mapped buffer for every event and no intermediate {@linkplain
+ * String} is created for the document. Heap buffers are written straight
+ * into their backing array; other buffers receive the document through a
+ * reusable per-thread array and a single bulk copy. A typical event looks
+ * like:
+ * <pre>
+ * {"timestamp":1349049600000,"level":"DEBUG","type":"LEAVING",
+ * "class":"org.example.Service","method":"add","thread":"main",
+ * "context":{"request":"42af"},"arguments":[17,"text"],"return":42,
+ * "duration":1520}
+ * </pre>
+ * The {@code context} object holds the {@linkplain LogContext} of the event
+ * and is left out when the context is empty.
+ * Integral numbers, finite floating point numbers and booleans are written
+ * as JSON values; any other argument or return value is rendered through
+ * the configured {@linkplain ArgumentRenderer} and written as a JSON string.
+ * Errors are written as their class name and message, without stack trace.
+ * <p/>
+ * Instances are thread safe once configured.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class JsonLogEventEncoder {
+    /**
+     * the default maximum number of characters used to render a single
+     * argument or return value
+     */
+    public static final int DEFAULT_MAX_ARGUMENT_LENGTH = 256;
+    /**
+     * the default maximum number of elements rendered for a container
+     */
+    public static final int DEFAULT_MAX_ELEMENTS = 10;
+    /**
+     * the hexadecimal digits used to escape control characters
+     */
+    private static final byte[] HEX_DIGITS = {'0', '1', '2', '3', '4', '5',
+            '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+    private static final byte[] TIMESTAMP = ascii("{\"timestamp\":");
+    private static final byte[] LEVEL = ascii(",\"level\":");
+    private static final byte[] TYPE = ascii(",\"type\":");
+    private static final byte[] CLASS = ascii(",\"class\":");
+    private static final byte[] METHOD = ascii(",\"method\":");
+    private static final byte[] THREAD = ascii(",\"thread\":");
+    private static final byte[] CONTEXT = ascii(",\"context\":{");
+    private static final byte[] COLON = ascii(":");
+    private static final byte[] CONTEXT_END = ascii("}");
+    private static final byte[] ARGUMENTS = ascii(",\"arguments\":[");
+    private static final byte[] RETURN = ascii(",\"return\":");
+    private static final byte[] DURATION = ascii(",\"duration\":");
+    private static final byte[] EXCEPTION = ascii(",\"exception\":");
+    private static final byte[] EXCEPTION_MESSAGE = ascii(
+            ",\"exceptionMessage\":");
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] COMMA = ascii(",");
+    private static final byte[] ARRAY_END = ascii("]");
+    private static final byte[] OBJECT_END = ascii("}\n");
+    /**
+     * the quoted names of each {@linkplain LogLevel}, indexed by ordinal
+     */
+    private static final byte[][] LEVEL_NAMES =
+            new byte[LogLevel.values().length][];
+    /**
+     * the quoted names of each {@linkplain LogEvent.Type}, indexed by ordinal
+     */
+    private static final byte[][] TYPE_NAMES =
+            new byte[LogEvent.Type.values().length][];
+    /**
+     * the initial size of the per-thread array used for buffers without an
+     * accessible backing array
+     */
+    private static final int INITIAL_SCRATCH_SIZE = 1024;
+    /**
+     * the largest buffer capacity kept by a thread between two encodings
+     */
+    private static final int MAX_RETAINED_BUFFER_CAPACITY = 8192;
+    /**
+     * the reusable per-thread state used to render the values and to write
+     * the documents
+     */
+    private static final ThreadLocal<Output> OUTPUTS =
+            new ThreadLocal<Output>() {
+                @Override
+                protected Output initialValue() {
+                    return new Output();
+                }
+            };
+    /**
+     * the {@linkplain ArgumentRenderer} used to render the arguments and the
+     * return values
+     */
+    private ArgumentRenderer argumentRenderer = new DefaultArgumentRenderer();
+    /**
+     * the maximum number of characters used to render a single argument or
+     * return value
+     */
+    private int maxArgumentLength = DEFAULT_MAX_ARGUMENT_LENGTH;
+    /**
+     * the maximum number of elements rendered for a container
+     */
+    private int maxElements = DEFAULT_MAX_ELEMENTS;
+
+    static {
+        for (LogLevel level : LogLevel.values()) {
+            LEVEL_NAMES[level.ordinal()] = ascii("\"" + level.name() + "\"");
+        }
+        for (LogEvent.Type type : LogEvent.Type.values()) {
+            TYPE_NAMES[type.ordinal()] = ascii("\"" + type.name() + "\"");
+        }
+    }
+
+    /**
+     * Sets the {@linkplain ArgumentRenderer} used to render the arguments
+     * and the return values that are not written as JSON values.
+     *
+     * @param argumentRenderer the {@linkplain ArgumentRenderer} to use.
+     */
+    public void setArgumentRenderer(ArgumentRenderer argumentRenderer) {
+        if (argumentRenderer == null) {
+            throw new IllegalArgumentException("argumentRenderer must not " +
+                    "be null");
+        }
+        this.argumentRenderer = argumentRenderer;
+    }
+
+    /**
+     * Sets the maximum number of characters used to render a single
+     * argument or return value. It defaults to {@value
+     * #DEFAULT_MAX_ARGUMENT_LENGTH}.
+     *
+     * @param maxArgumentLength the maximum number of characters, must be
+     * positive.
+     */
+    public void setMaxArgumentLength(int maxArgumentLength) {
+        this.maxArgumentLength = maxArgumentLength;
+    }
+
+    /**
+     * Sets the maximum number of elements rendered for an array, a
+     * collection or a map. It defaults to {@value #DEFAULT_MAX_ELEMENTS}.
+     *
+     * @param maxElements the maximum number of elements, must not be
+     * negative.
+     */
+    public void setMaxElements(int maxElements) {
+        this.maxElements = maxElements;
+    }
+
+    /**
+     * Writes the specified {@linkplain LogEvent} as a single line JSON
+     * object, terminated by a line feed, at the current position of the
+     * specified {@linkplain ByteBuffer}. When the remaining space is not
+     * enough, the position is left unchanged; the bytes after it may have
+     * been overwritten.
+     *
+     * @param event the {@linkplain LogEvent} to encode.
+     * @param buffer the {@linkplain ByteBuffer} receiving the document.
+     * @return the number of bytes written, or {@code -1} if the event did
+     *         not fit in the remaining space of the buffer.
+     */
+    public int encode(LogEvent event, ByteBuffer buffer) {
+        Output output = OUTPUTS.get();
+        try {
+            if (buffer.hasArray()) {
+                int offset = buffer.arrayOffset();
+                output.bytes = buffer.array();
+                output.position = offset + buffer.position();
+                output.limit = offset + buffer.limit();
+                if (!this.write(event, output)) {
+                    return -1;
+                }
+                int length = output.position - offset - buffer.position();
+                buffer.position(output.position - offset);
+                return length;
+            }
+            while (true) {
+                output.bytes = output.scratch;
+                output.position = 0;
+                output.limit = Math.min(output.scratch.length,
+                        buffer.remaining());
+                if (this.write(event, output)) {
+                    buffer.put(output.scratch, 0, output.position);
+                    return output.position;
+                }
+                if (output.limit == buffer.remaining()) {
+                    return -1;
+                }
+                output.scratch = new byte[output.scratch.length * 2];
+            }
+        } finally {
+            output.bytes = null;
+            if (output.scratch.length > MAX_RETAINED_BUFFER_CAPACITY ||
+                    output.chars.length > MAX_RETAINED_BUFFER_CAPACITY ||
+                    output.rendered.capacity() > MAX_RETAINED_BUFFER_CAPACITY) {
+                OUTPUTS.remove();
+            }
+        }
+    }
+
+    /**
+     * Private helper method that writes the fields of the specified event.
+     *
+     * @param event the {@linkplain LogEvent} to encode.
+     * @param output the {@linkplain Output} receiving the document.
+     * @return {@code true} if the whole document was written, {@code false}
+     *         if the output ran out of space.
+     */
+    private boolean write(LogEvent event, Output output) {
+        if (!(output.raw(TIMESTAMP) && output.number(event.getTimestamp()) &&
+                output.raw(LEVEL) &&
+                output.raw(LEVEL_NAMES[event.getLevel().ordinal()]) &&
+                output.raw(TYPE) &&
+                output.raw(TYPE_NAMES[event.getType().ordinal()]) &&
+                output.raw(CLASS) &&
+                output.string(event.getSourceClass().getName()) &&
+                output.raw(METHOD) && output.string(event.getMethodName()) &&
+                output.raw(THREAD) && output.string(event.getThreadName()))) {
+            return false;
+        }
+        LogContext.Snapshot context = event.getContext();
+        if (!context.isEmpty()) {
+            if (!output.raw(CONTEXT)) {
+                return false;
+            }
+            for (int i = 0; i < context.size(); i++) {
+                if ((i != 0 && !output.raw(COMMA)) ||
+                        !(output.string(context.getKey(i)) &&
+                                output.raw(COLON) &&
+                                output.string(context.getValue(i)))) {
+                    return false;
+                }
+            }
+            if (!output.raw(CONTEXT_END)) {
+                return false;
+            }
+        }
+        Object[] arguments = event.getArguments();
+        if (arguments != null) {
+            if (!output.raw(ARGUMENTS)) {
+                return false;
+            }
+            for (int i = 0; i < arguments.length; i++) {
+                if ((i != 0 && !output.raw(COMMA)) ||
+                        !this.value(arguments[i], output)) {
+                    return false;
+                }
+            }
+            if (!output.raw(ARRAY_END)) {
+                return false;
+            }
+        }
+        if (event.isWithReturnValue() && !(output.raw(RETURN) &&
+                this.value(event.getReturnValue(), output))) {
+            return false;
+        }
+        if (event.getDuration() != LogEvent.NO_DURATION &&
+                !(output.raw(DURATION) &&
+                        output.number(event.getDuration()))) {
+            return false;
+        }
+        Throwable throwable = event.getThrowable();
+        if (throwable != null) {
+            if (!(output.raw(EXCEPTION) &&
+                    output.string(throwable.getClass().getName()))) {
+                return false;
+            }
+            if (throwable.getMessage() != null &&
+                    !(output.raw(EXCEPTION_MESSAGE) &&
+                            output.string(throwable.getMessage()))) {
+                return false;
+            }
+        }
+        return output.raw(OBJECT_END);
+    }
+
+    /**
+     * Private helper method that writes an argument or a return value,
+     * either as a JSON value or as the JSON string of its rendering.
+     *
+     * @param value the value to write, may be {@code null}.
+     * @param output the {@linkplain Output} receiving the document.
+     * @return {@code true} if the value was written, {@code false} if the
+     *         output ran out of space.
+     */
+    private boolean value(Object value, Output output) {
+        if (value == null) {
+            return output.raw(NULL);
+        } else if (value instanceof Long || value instanceof Integer ||
+                value instanceof Short || value instanceof Byte) {
+            return output.number(((Number) value).longValue());
+        } else if (value instanceof Boolean || value instanceof BigInteger ||
+                value instanceof BigDecimal || isFinite(value)) {
+            return output.string(value.toString(), false);
+        }
+        StringBuilder rendered = output.rendered;
+        rendered.setLength(0);
+        this.argumentRenderer.render(value, this.maxArgumentLength,
+                this.maxElements, rendered);
+        return output.string(rendered);
+    }
+
+    /**
+     * Private helper method that returns the bytes of the specified plain
+     * ASCII text.
+     *
+     * @param text the text to convert.
+     * @return the bytes of the text.
+     */
+    private static byte[] ascii(String text) {
+        return text.getBytes(Charset.forName("US-ASCII"));
+    }
+
+    /**
+     * Private helper method that checks whether the specified value is a
+     * finite floating point number, which can be written as a JSON number.
+     *
+     * @param value the value to check.
+     * @return {@code true} if the value is a finite {@linkplain Double} or
+     *         {@linkplain Float}, {@code false} otherwise.
+     */
+    private static boolean isFinite(Object value) {
+        if (value instanceof Double) {
+            double number = (Double) value;
+            return !Double.isNaN(number) && !Double.isInfinite(number);
+        }
+        if (value instanceof Float) {
+            float number = (Float) value;
+            return !Float.isNaN(number) && !Float.isInfinite(number);
+        }
+        return false;
+    }
+
+    /**
+     * Bounded view over the byte array a document is written to, along with
+     * the per-thread buffers reused between two encodings.
+     */
+    private static final class Output {
+        /**
+         * the array used for buffers without an accessible backing array
+         */
+        private byte[] scratch = new byte[INITIAL_SCRATCH_SIZE];
+        /**
+         * the buffer the values are rendered to before being escaped
+         */
+        private final StringBuilder rendered = new StringBuilder(256);
+        /**
+         * the array the characters of a string are copied to before being
+         * encoded, which is much cheaper than reading them one at a time
+         */
+        private char[] chars = new char[256];
+        /**
+         * the array being written
+         */
+        private byte[] bytes;
+        /**
+         * the index of the next byte to write
+         */
+        private int position;
+        /**
+         * the index of the first byte that must not be written
+         */
+        private int limit;
+
+        /**
+         * Writes the specified bytes.
+         *
+         * @param source the bytes to write.
+         * @return {@code true} if the bytes were written, {@code false} if
+         *         there is not enough space.
+         */
+        private boolean raw(byte[] source) {
+            if (this.limit - this.position < source.length) {
+                return false;
+            }
+            System.arraycopy(source, 0, this.bytes, this.position,
+                    source.length);
+            this.position += source.length;
+            return true;
+        }
+
+        /**
+         * Writes the decimal digits of the specified number without creating
+         * a {@linkplain String}.
+         *
+         * @param value the number to write.
+         * @return {@code true} if the number was written, {@code false} if
+         *         there is not enough space.
+         */
+        private boolean number(long value) {
+            if (value == Long.MIN_VALUE) {
+                return this.string(Long.toString(value), false);
+            }
+            int digits = 1;
+            for (long bound = 10; digits < 19 && Math.abs(value) >= bound;
+                 bound *= 10) {
+                digits++;
+            }
+            int length = (value < 0) ? digits + 1 : digits;
+            if (this.limit - this.position < length) {
+                return false;
+            }
+            if (value < 0) {
+                this.bytes[this.position] = '-';
+                value = -value;
+            }
+            // the digits are written backwards, dividing by a constant
+            int end = this.position + length;
+            for (int i = end - 1; i >= end - digits; i--) {
+                this.bytes[i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            this.position = end;
+            return true;
+        }
+
+        /**
+         * Writes the specified characters as a JSON string.
+         *
+         * @param text the characters to write.
+         * @return {@code true} if the string was written, {@code false} if
+         *         there is not enough space.
+         */
+        private boolean string(CharSequence text) {
+            return this.string(text, true);
+        }
+
+        /**
+         * Writes the specified characters, escaping quotes, backslashes and
+         * control characters and encoding the rest as UTF-8, optionally
+         * between quotes.
+         *
+         * @param text the characters to write.
+         * @param quoted whether to write the quotes of a JSON string.
+         * @return {@code true} if the characters were written, {@code false}
+         *         if there is not enough space.
+         */
+        private boolean string(CharSequence text, boolean quoted) {
+            int length = text.length();
+            if (this.chars.length < length) {
+                this.chars = new char[Math.max(length, this.chars.length * 2)];
+            }
+            char[] source = this.chars;
+            if (text instanceof String) {
+                ((String) text).getChars(0, length, source, 0);
+            } else if (text instanceof StringBuilder) {
+                ((StringBuilder) text).getChars(0, length, source, 0);
+            } else {
+                text.toString().getChars(0, length, source, 0);
+            }
+            byte[] out = this.bytes;
+            int index = this.position;
+            int end = this.limit - (quoted ? 1 : 0);
+            if (quoted) {
+                if (index == end) {
+                    return false;
+                }
+                out[index++] = '"';
+            }
+            int i = 0;
+            if (end - index >= length) {
+                // plain ASCII characters while there is room for all of them
+                for (; i < length; i++) {
+                    char c = source[i];
+                    if (c < 0x20 || c >= 0x80 || c == '"' || c == '\\') {
+                        break;
+                    }
+                    out[index++] = (byte) c;
+                }
+            }
+            for (; i < length; i++) {
+                char c = source[i];
+                if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+                    if (index == end) {
+                        return false;
+                    }
+                    out[index++] = (byte) c;
+                } else {
+                    // escapes and multi-byte sequences take at most six bytes
+                    if (end - index < 6) {
+                        return false;
+                    }
+                    this.position = index;
+                    i = this.escape(source, i, length);
+                    index = this.position;
+                }
+            }
+            if (quoted) {
+                out[index++] = '"';
+            }
+            this.position = index;
+            return true;
+        }
+
+        /**
+         * Writes the escape sequence or the UTF-8 encoding of the character
+         * at the specified index. The caller guarantees that there are at
+         * least six bytes of space.
+         *
+         * @param source the characters being written.
+         * @param i the index of the character to write.
+         * @param length the number of characters being written.
+         * @return the index of the last character consumed, which differs
+         *         from {@code i} for surrogate pairs.
+         */
+        private int escape(char[] source, int i, int length) {
+            byte[] out = this.bytes;
+            char c = source[i];
+            if (c == '"' || c == '\\') {
+                out[this.position++] = '\\';
+                out[this.position++] = (byte) c;
+            } else if (c == '\n') {
+                out[this.position++] = '\\';
+                out[this.position++] = 'n';
+            } else if (c == '\r') {
+                out[this.position++] = '\\';
+                out[this.position++] = 'r';
+            } else if (c == '\t') {
+                out[this.position++] = '\\';
+                out[this.position++] = 't';
+            } else if (c < 0x20) {
+                out[this.position++] = '\\';
+                out[this.position++] = 'u';
+                out[this.position++] = '0';
+                out[this.position++] = '0';
+                out[this.position++] = HEX_DIGITS[c >> 4];
+                out[this.position++] = HEX_DIGITS[c & 0xf];
+            } else if (c < 0x800) {
+                out[this.position++] = (byte) (0xc0 | (c >> 6));
+                out[this.position++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length &&
+                    Character.isLowSurrogate(source[i + 1])) {
+                int codePoint = Character.toCodePoint(c, source[++i]);
+                out[this.position++] = (byte) (0xf0 | (codePoint >> 18));
+                out[this.position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                out[this.position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                out[this.position++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                // a lone surrogate cannot be encoded, same as String#getBytes
+                out[this.position++] = '?';
+            } else {
+                out[this.position++] = (byte) (0xe0 | (c >> 12));
+                out[this.position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                out[this.position++] = (byte) (0x80 | (c & 0x3f));
+            }
+            return i;
+        }
+    }
+}
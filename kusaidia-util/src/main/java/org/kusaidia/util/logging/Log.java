@@ -79,4 +79,47 @@ public interface Log {
      */
     void log(@NotNull LogLevel level, @NotNull Class<?> clazz,
              Throwable throwable, @NotEmpty String message);
+
+    /**
+     * Method that logs the message built from the specified {@linkplain
+     * java.text.MessageFormat} pattern and arguments, alongside the specified
+     * {@linkplain Throwable} event if any. Implementations must only format
+     * the message, and therefore call {@code toString()} on the arguments,
+     * when and where the event is actually written, so callers do not pay
+     * for messages that end up being filtered out.
+     *
+     * @param level the specified {@linkplain LogLevel} for the log event being
+     * fired.
+     * @param clazz the {@linkplain Class} that fired the log event.
+     * @param throwable a {@linkplain Throwable} event if any occurred during
+     * the execution of the method being advised.
+     * @param pattern the {@linkplain java.text.MessageFormat} pattern of the
+     * message to print to the log.
+     * @param arguments the arguments of the pattern.
+     * @throws org.hibernate.validator.method.MethodConstraintViolationException
+     * if
+     * <ul>
+     *     <li>{@code level} is {@code null}.</li>
+     *     <li>{@code clazz} is {@code null}.</li>
+     *     <li>{@code pattern} is {@code null} or empty {@linkplain
+     *     String}</li>
+     * </ul>
+     */
+    void log(@NotNull LogLevel level, @NotNull Class<?> clazz,
+             Throwable throwable, @NotEmpty String pattern,
+             Object... arguments);
+
+    /**
+     * Method that logs the specified structured {@linkplain LogEvent}, if
+     * its {@linkplain LogLevel} is enabled for its source {@linkplain Class}.
+     * Implementations should emit the values of the event as separate
+     * fields rather than formatting them into the message, and must only
+     * render the arguments and the return value when the event is actually
+     * written.
+     *
+     * @param event the {@linkplain LogEvent} to log.
+     * @throws org.hibernate.validator.method.MethodConstraintViolationException
+     * if {@code event} is {@code null}.
+     */
+    void logEvent(@NotNull LogEvent event);
 }
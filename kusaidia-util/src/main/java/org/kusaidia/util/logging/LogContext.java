@@ -0,0 +1,358 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.util.logging;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Per-thread logging context, such as a request or correlation id, carried
+ * along with the log events of the thread. The context of a thread is an
+ * immutable {@linkplain Snapshot} backed by two small arrays of keys and
+ * values: changing an entry replaces the snapshot of the thread with a
+ * copy, which is cheap for the handful of entries a context holds, while
+ * {@linkplain #capture() capturing} the context is a field read and
+ * {@linkplain #restore(Snapshot) restoring} it is a field write, so handing
+ * the context over to another thread costs no copy at all. The {@linkplain
+ * SLF4JLog} exposes the context to the logging backend through the
+ * {@linkplain org.slf4j.MDC}, the {@linkplain AsyncLog} carries it over to
+ * its consumer thread and the {@linkplain ContextExecutorService} and
+ * {@linkplain #wrap(Runnable)} carry it over to the threads of an executor:
+ * <pre>
+ * LogContext.put("request", requestId);
+ * try {
+ *     executor.submit(LogContext.wrap(task));
+ * } finally {
+ *     LogContext.remove("request");
+ * }
+ * </pre>
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class LogContext {
+    /**
+     * the mutable holder of the context of each thread
+     */
+    private static final ThreadLocal<Holder> HOLDERS =
+            new ThreadLocal<Holder>() {
+                @Override
+                protected Holder initialValue() {
+                    return new Holder();
+                }
+            };
+
+    /**
+     * Prevents the instantiation of this class.
+     */
+    private LogContext() {
+    }
+
+    /**
+     * Sets the value of the specified key in the context of the current
+     * thread.
+     *
+     * @param key the key of the entry.
+     * @param value the value of the entry; {@code null} removes the entry.
+     * @throws IllegalArgumentException if {@code key} is {@code null}.
+     */
+    public static void put(String key, String value) {
+        if (key == null) {
+            throw new IllegalArgumentException("key must not be null");
+        }
+        Holder holder = HOLDERS.get();
+        holder.snapshot = (value != null) ? holder.snapshot.with(key, value) :
+                holder.snapshot.without(key);
+    }
+
+    /**
+     * Returns the value of the specified key in the context of the current
+     * thread.
+     *
+     * @param key the key of the entry.
+     * @return the value of the entry, or {@code null} if there is none.
+     */
+    public static String get(String key) {
+        return HOLDERS.get().snapshot.get(key);
+    }
+
+    /**
+     * Removes the specified key from the context of the current thread.
+     *
+     * @param key the key of the entry.
+     */
+    public static void remove(String key) {
+        Holder holder = HOLDERS.get();
+        holder.snapshot = holder.snapshot.without(key);
+    }
+
+    /**
+     * Removes every entry from the context of the current thread.
+     */
+    public static void clear() {
+        HOLDERS.get().snapshot = Snapshot.EMPTY;
+    }
+
+    /**
+     * Returns the context of the current thread. The returned snapshot is
+     * immutable and is not affected by later changes.
+     *
+     * @return the {@linkplain Snapshot} of the context of the current
+     * thread.
+     */
+    public static Snapshot capture() {
+        return HOLDERS.get().snapshot;
+    }
+
+    /**
+     * Replaces the context of the current thread with the specified one.
+     * Callers should restore the returned context once done, typically in a
+     * {@code finally} block.
+     *
+     * @param snapshot the {@linkplain Snapshot} to install; {@code null}
+     * clears the context.
+     * @return the {@linkplain Snapshot} that was replaced.
+     */
+    public static Snapshot restore(Snapshot snapshot) {
+        Holder holder = HOLDERS.get();
+        Snapshot previous = holder.snapshot;
+        holder.snapshot = (snapshot != null) ? snapshot : Snapshot.EMPTY;
+        return previous;
+    }
+
+    /**
+     * Returns a {@linkplain Runnable} that runs the specified one with the
+     * context of the current thread.
+     *
+     * @param task the {@linkplain Runnable} to wrap.
+     * @return the wrapping {@linkplain Runnable}.
+     */
+    public static Runnable wrap(final Runnable task) {
+        final Snapshot snapshot = capture();
+        return new Runnable() {
+            public void run() {
+                Snapshot previous = restore(snapshot);
+                try {
+                    task.run();
+                } finally {
+                    restore(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns a {@linkplain Callable} that calls the specified one with the
+     * context of the current thread.
+     *
+     * @param task the {@linkplain Callable} to wrap.
+     * @param <T> the type of the result of the task.
+     * @return the wrapping {@linkplain Callable}.
+     */
+    public static <T> Callable<T> wrap(final Callable<T> task) {
+        final Snapshot snapshot = capture();
+        return new Callable<T>() {
+            public T call() throws Exception {
+                Snapshot previous = restore(snapshot);
+                try {
+                    return task.call();
+                } finally {
+                    restore(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * Immutable logging context, backed by an array of keys and an array of
+     * values in insertion order.
+     *
+     * @author Angel L. Villalain Garcia
+     * @version 1.0.0
+     * @since 1.0.0
+     */
+    public static final class Snapshot {
+        /**
+         * the empty context
+         */
+        public static final Snapshot EMPTY = new Snapshot(new String[0],
+                new String[0]);
+
+        private final String[] keys;
+        private final String[] values;
+
+        private Snapshot(String[] keys, String[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+
+        /**
+         * Returns the number of entries of this context.
+         *
+         * @return the number of entries.
+         */
+        public int size() {
+            return this.keys.length;
+        }
+
+        /**
+         * Returns whether this context has no entries.
+         *
+         * @return {@code true} if this context is empty.
+         */
+        public boolean isEmpty() {
+            return this.keys.length == 0;
+        }
+
+        /**
+         * Returns the key of the entry at the specified index.
+         *
+         * @param index the index of the entry.
+         * @return the key of the entry.
+         */
+        public String getKey(int index) {
+            return this.keys[index];
+        }
+
+        /**
+         * Returns the value of the entry at the specified index.
+         *
+         * @param index the index of the entry.
+         * @return the value of the entry.
+         */
+        public String getValue(int index) {
+            return this.values[index];
+        }
+
+        /**
+         * Returns the value of the specified key.
+         *
+         * @param key the key of the entry.
+         * @return the value of the entry, or {@code null} if there is none.
+         */
+        public String get(String key) {
+            int index = this.indexOf(key);
+            return (index >= 0) ? this.values[index] : null;
+        }
+
+        /**
+         * Returns the entries of this context as a map, in insertion order.
+         *
+         * @return an unmodifiable {@linkplain Map} of the entries.
+         */
+        public Map<String, String> toMap() {
+            Map<String, String> map = new LinkedHashMap<String, String>();
+            for (int i = 0; i < this.keys.length; i++) {
+                map.put(this.keys[i], this.values[i]);
+            }
+            return Collections.unmodifiableMap(map);
+        }
+
+        @Override
+        public String toString() {
+            return this.toMap().toString();
+        }
+
+        /**
+         * Private helper method that returns a copy of this context with
+         * the specified entry.
+         *
+         * @param key the key of the entry.
+         * @param value the value of the entry.
+         * @return the new {@linkplain Snapshot}.
+         */
+        private Snapshot with(String key, String value) {
+            int index = this.indexOf(key);
+            if (index >= 0 && value.equals(this.values[index])) {
+                return this;
+            }
+            String[] keys = this.keys;
+            String[] values;
+            if (index >= 0) {
+                values = this.values.clone();
+            } else {
+                index = keys.length;
+                keys = new String[index + 1];
+                values = new String[index + 1];
+                System.arraycopy(this.keys, 0, keys, 0, index);
+                System.arraycopy(this.values, 0, values, 0, index);
+                keys[index] = key;
+            }
+            values[index] = value;
+            return new Snapshot(keys, values);
+        }
+
+        /**
+         * Private helper method that returns a copy of this context without
+         * the specified entry.
+         *
+         * @param key the key of the entry.
+         * @return the new {@linkplain Snapshot}.
+         */
+        private Snapshot without(String key) {
+            int index = this.indexOf(key);
+            if (index < 0) {
+                return this;
+            }
+            int size = this.keys.length - 1;
+            if (size == 0) {
+                return EMPTY;
+            }
+            String[] keys = new String[size];
+            String[] values = new String[size];
+            System.arraycopy(this.keys, 0, keys, 0, index);
+            System.arraycopy(this.values, 0, values, 0, index);
+            System.arraycopy(this.keys, index + 1, keys, index, size - index);
+            System.arraycopy(this.values, index + 1, values, index,
+                    size - index);
+            return new Snapshot(keys, values);
+        }
+
+        /**
+         * Private helper method that returns the index of the specified
+         * key, with a linear scan which beats hashing for a few entries.
+         *
+         * @param key the key to look up.
+         * @return the index of the key, or {@code -1} if there is none.
+         */
+        private int indexOf(String key) {
+            for (int i = 0; i < this.keys.length; i++) {
+                if (this.keys[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Mutable holder of the context of a thread, so that changing the
+     * context does not go through {@linkplain ThreadLocal#set(Object)}.
+     */
+    private static final class Holder {
+        private Snapshot snapshot = Snapshot.EMPTY;
+    }
+}
@@ -0,0 +1,387 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.util.logging;
+
+/**
+ * Structured representation of a log event fired by the logging aspect. The
+ * values of the event are kept as fields instead of being flattened into a
+ * formatted message, so a {@linkplain Log} implementation can emit them as
+ * key/value pairs and downstream tools do not need to parse the message to
+ * get them back. The arguments and the return value are kept as they are
+ * and only rendered by the {@linkplain Log} implementation writing the
+ * event; note that mutable values then show their state at that time.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class LogEvent {
+    /**
+     * the value of the duration of events that do not carry one
+     */
+    public static final long NO_DURATION = -1L;
+
+    /**
+     * Enum representing the point of the advised method execution an event
+     * was fired at.
+     *
+     * @author Angel L. Villalain Garcia
+     * @version 1.0.0
+     * @since 1.0.0
+     */
+    public enum Type {
+        /**
+         * Fired before the advised method is executed.
+         */
+        ENTERING("entering"),
+        /**
+         * Fired after the advised method returned.
+         */
+        LEAVING("leaving"),
+        /**
+         * Fired after the advised method threw an error.
+         */
+        THROWING("exception thrown");
+
+        /**
+         * the label of the event type, used as message of the event
+         */
+        private final String label;
+
+        private Type(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Returns the label of this event type.
+         *
+         * @return the label of this event type.
+         */
+        public String getLabel() {
+            return this.label;
+        }
+    }
+
+    private final Type type;
+    private final LogLevel level;
+    private final Class<?> sourceClass;
+    private final String methodName;
+    private final Object[] arguments;
+    private final boolean withReturnValue;
+    private final Object returnValue;
+    private final Throwable throwable;
+    private final long duration;
+    private final String threadName;
+    private final long timestamp;
+    private final LogContext.Snapshot context;
+
+    /**
+     * Creates a new {@linkplain LogEvent} based on the {@linkplain Builder}
+     * specified properties.
+     *
+     * @param b the {@linkplain Builder} used to build this new {@linkplain
+     * LogEvent}
+     */
+    private LogEvent(Builder b) {
+        this.type = b.type;
+        this.level = b.level;
+        this.sourceClass = b.sourceClass;
+        this.methodName = b.methodName;
+        this.arguments = b.arguments;
+        this.withReturnValue = b.withReturnValue;
+        this.returnValue = b.returnValue;
+        this.throwable = b.throwable;
+        this.duration = b.duration;
+        this.threadName = (b.threadName != null) ? b.threadName :
+                Thread.currentThread().getName();
+        this.timestamp = (b.timestamp != 0L) ? b.timestamp :
+                System.currentTimeMillis();
+        this.context = (b.context != null) ? b.context :
+                LogContext.capture();
+    }
+
+    /**
+     * Returns the point of the method execution this event was fired at.
+     *
+     * @return the {@linkplain Type} of this event.
+     */
+    public Type getType() {
+        return this.type;
+    }
+
+    /**
+     * Returns the {@linkplain LogLevel} of this event.
+     *
+     * @return the {@linkplain LogLevel} of this event.
+     */
+    public LogLevel getLevel() {
+        return this.level;
+    }
+
+    /**
+     * Returns the {@linkplain Class} that fired this event.
+     *
+     * @return the {@linkplain Class} that fired this event.
+     */
+    public Class<?> getSourceClass() {
+        return this.sourceClass;
+    }
+
+    /**
+     * Returns the name of the advised method.
+     *
+     * @return the name of the advised method.
+     */
+    public String getMethodName() {
+        return this.methodName;
+    }
+
+    /**
+     * Returns the arguments passed to the advised method. The array is not
+     * copied and must not be modified.
+     *
+     * @return the arguments passed to the advised method, {@code null} if
+     *         the event does not carry them.
+     */
+    public Object[] getArguments() {
+        return this.arguments;
+    }
+
+    /**
+     * Returns whether this event carries the value returned by the advised
+     * method. Events of void methods and events fired before the method
+     * returned do not.
+     *
+     * @return {@code true} if this event carries a return value, {@code
+     *         false} otherwise.
+     */
+    public boolean isWithReturnValue() {
+        return this.withReturnValue;
+    }
+
+    /**
+     * Returns the value returned by the advised method.
+     *
+     * @return the value returned by the advised method, {@code null} if the
+     *         event does not carry one.
+     */
+    public Object getReturnValue() {
+        return this.returnValue;
+    }
+
+    /**
+     * Returns the {@linkplain Throwable} error thrown by the advised method.
+     *
+     * @return the error thrown by the advised method, {@code null} if none.
+     */
+    public Throwable getThrowable() {
+        return this.throwable;
+    }
+
+    /**
+     * Returns the time the advised method took to execute.
+     *
+     * @return the duration in nanoseconds, or {@value #NO_DURATION} if the
+     *         event does not carry one.
+     */
+    public long getDuration() {
+        return this.duration;
+    }
+
+    /**
+     * Returns the name of the thread that fired this event.
+     *
+     * @return the name of the thread that fired this event.
+     */
+    public String getThreadName() {
+        return this.threadName;
+    }
+
+    /**
+     * Returns the time this event was fired at.
+     *
+     * @return the time this event was fired at, in milliseconds since the
+     *         epoch.
+     */
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+
+    /**
+     * Returns the {@linkplain LogContext} of the thread that fired this
+     * event.
+     *
+     * @return the {@linkplain LogContext.Snapshot} of the context, never
+     *         {@code null}.
+     */
+    public LogContext.Snapshot getContext() {
+        return this.context;
+    }
+
+    /**
+     * Implementation of the {@linkplain org.kusaidia.util.builder.Builder}
+     * pattern for {@linkplain LogEvent} objects. No validation is performed
+     * since the events are built on the advised method path.
+     *
+     * @author Angel L. Villalain Garcia
+     * @version 1.0.0
+     * @since 1.0.0
+     */
+    public static final class Builder implements
+            org.kusaidia.util.builder.Builder<LogEvent, Builder> {
+        private final Type type;
+        private final LogLevel level;
+        private final Class<?> sourceClass;
+        private final String methodName;
+        private Object[] arguments;
+        private boolean withReturnValue;
+        private Object returnValue;
+        private Throwable throwable;
+        private long duration = LogEvent.NO_DURATION;
+        private String threadName;
+        private long timestamp;
+        private LogContext.Snapshot context;
+
+        /**
+         * Creates a new {@linkplain Builder} with the mandatory properties
+         * of a {@linkplain LogEvent}.
+         *
+         * @param type the point of the method execution the event is fired
+         * at.
+         * @param level the {@linkplain LogLevel} of the event.
+         * @param sourceClass the {@linkplain Class} firing the event.
+         * @param methodName the name of the advised method.
+         * @throws IllegalArgumentException if any of the arguments is
+         * {@code null}.
+         */
+        public Builder(Type type, LogLevel level, Class<?> sourceClass,
+                       String methodName) {
+            if (type == null || level == null || sourceClass == null ||
+                    methodName == null) {
+                throw new IllegalArgumentException("type, level, " +
+                        "sourceClass and methodName must not be null");
+            }
+            this.type = type;
+            this.level = level;
+            this.sourceClass = sourceClass;
+            this.methodName = methodName;
+        }
+
+        /**
+         * Sets the arguments passed to the advised method. The array is not
+         * copied.
+         *
+         * @param arguments the arguments passed to the advised method.
+         * @return a reference to this {@linkplain Builder} for method
+         * chaining.
+         */
+        public Builder arguments(Object[] arguments) {
+            this.arguments = arguments;
+            return this;
+        }
+
+        /**
+         * Sets the value returned by the advised method.
+         *
+         * @param returnValue the value returned by the advised method.
+         * @return a reference to this {@linkplain Builder} for method
+         * chaining.
+         */
+        public Builder returnValue(Object returnValue) {
+            this.withReturnValue = true;
+            this.returnValue = returnValue;
+            return this;
+        }
+
+        /**
+         * Sets the {@linkplain Throwable} error thrown by the advised method.
+         *
+         * @param throwable the error thrown by the advised method.
+         * @return a reference to this {@linkplain Builder} for method
+         * chaining.
+         */
+        public Builder throwable(Throwable throwable) {
+            this.throwable = throwable;
+            return this;
+        }
+
+        /**
+         * Sets the time the advised method took to execute.
+         *
+         * @param duration the duration in nanoseconds.
+         * @return a reference to this {@linkplain Builder} for method
+         * chaining.
+         */
+        public Builder duration(long duration) {
+            this.duration = duration;
+            return this;
+        }
+
+        /**
+         * Sets the name of the thread firing the event. It defaults to the
+         * name of the thread building the event.
+         *
+         * @param threadName the name of the thread firing the event.
+         * @return a reference to this {@linkplain Builder} for method
+         * chaining.
+         */
+        public Builder threadName(String threadName) {
+            this.threadName = threadName;
+            return this;
+        }
+
+        /**
+         * Sets the time the event was fired at. It defaults to the time the
+         * event is built.
+         *
+         * @param timestamp the time in milliseconds since the epoch.
+         * @return a reference to this {@linkplain Builder} for method
+         * chaining.
+         */
+        public Builder timestamp(long timestamp) {
+            this.timestamp = timestamp;
+            return this;
+        }
+
+        /**
+         * Sets the {@linkplain LogContext} of the event. It defaults to the
+         * context of the thread building the event.
+         *
+         * @param context the {@linkplain LogContext.Snapshot} of the
+         * context.
+         * @return a reference to this {@linkplain Builder} for method
+         * chaining.
+         */
+        public Builder context(LogContext.Snapshot context) {
+            this.context = context;
+            return this;
+        }
+
+        /**
+         * @see org.kusaidia.util.builder.Builder#build()
+         */
+        public LogEvent build() {
+            return new LogEvent(this);
+        }
+    }
+}
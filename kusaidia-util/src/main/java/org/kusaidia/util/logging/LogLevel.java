@@ -36,21 +36,46 @@ public enum LogLevel {
     /**
      * Debug level messages.
      */
-    DEBUG,
+    DEBUG(1),
     /**
      * Error level messages.
      */
-    ERROR,
+    ERROR(4),
     /**
      * Info level messages.
      */
-    INFO,
+    INFO(2),
     /**
      * Trace level messages.
      */
-    TRACE,
+    TRACE(0),
     /**
      * Warn level messages.
      */
-    WARN
+    WARN(3);
+
+    /**
+     * the severity of this {@linkplain LogLevel}, {@code 0} being the least
+     * severe
+     */
+    private final int severity;
+
+    /**
+     * Creates a new {@linkplain LogLevel} with the specified severity.
+     *
+     * @param severity the severity of this {@linkplain LogLevel}.
+     */
+    private LogLevel(int severity) {
+        this.severity = severity;
+    }
+
+    /**
+     * Returns the severity of this {@linkplain LogLevel}, from {@code 0} for
+     * {@linkplain #TRACE} up to {@code 4} for {@linkplain #ERROR}.
+     *
+     * @return the severity of this {@linkplain LogLevel}.
+     */
+    public int getSeverity() {
+        return this.severity;
+    }
 }
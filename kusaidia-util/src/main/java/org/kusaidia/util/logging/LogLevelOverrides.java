@@ -0,0 +1,383 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.util.logging;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedOperationParameter;
+import org.springframework.jmx.export.annotation.ManagedOperationParameters;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * Registry of runtime overrides of the {@linkplain LogLevel} configured on
+ * the {@linkplain Loggable} annotation. An override replaces the level the
+ * entering and leaving messages of the matching methods are logged at, so
+ * the messages of a single method can be made visible during an incident,
+ * for instance by raising a {@code TRACE} method to {@code INFO}, or a noisy
+ * method can be silenced by lowering it below the threshold of the logging
+ * backend, without a redeploy and without touching any other method.
+ * <p/>
+ * Overrides are keyed by pattern, using the same naming as the timers of
+ * the timing aspect: {@code org.example.Service} matches every method of a
+ * class and {@code org.example.Service#find} a single method. A {@code *}
+ * matches any sequence of characters, as in {@code org.example.*} or {@code
+ * *#find*}. Method patterns take precedence over class patterns; among
+ * patterns of the same kind, the one with the most characters other than
+ * wildcards wins.
+ * <p/>
+ * The overrides are held in an immutable snapshot replaced on every change,
+ * and each snapshot caches the decision taken for every method it is asked
+ * about, so a lookup costs two hash lookups once a method has been seen.
+ * Declaring this class as a bean makes the logging aspect consult it, and
+ * exporting it through a Spring {@code MBeanExporter} with annotation based
+ * assembly makes the overrides editable through JMX.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@ManagedResource(objectName = "org.kusaidia:type=LogLevelOverrides",
+        description = "Runtime overrides of the @Loggable levels")
+public class LogLevelOverrides {
+    /**
+     * the separator between the class name and the method name of a method
+     * pattern
+     */
+    public static final char METHOD_SEPARATOR = '#';
+    /**
+     * the wildcard of the patterns
+     */
+    private static final String WILDCARD = "*";
+    /**
+     * the current snapshot of overrides
+     */
+    private volatile Rules rules = new Rules(
+            Collections.<String, LogLevel>emptyMap(), 0L);
+
+    /**
+     * Returns the overriding {@linkplain LogLevel} of the specified method.
+     *
+     * @param clazz the {@linkplain Class} declaring or inheriting the
+     * method.
+     * @param methodName the name of the method.
+     * @return the overriding {@linkplain LogLevel}, or {@code null} if no
+     *         override matches the method.
+     */
+    public LogLevel getLevel(Class<?> clazz, String methodName) {
+        Rules current = this.rules;
+        return current.isEmpty() ? null : current.getLevel(clazz, methodName);
+    }
+
+    /**
+     * Returns the number of changes made to the overrides. Callers caching
+     * the levels returned by this object must resolve them again when it
+     * changes.
+     *
+     * @return the number of changes made to the overrides.
+     */
+    public long getGeneration() {
+        return this.rules.generation;
+    }
+
+    /**
+     * Returns the overrides in place.
+     *
+     * @return an unmodifiable {@linkplain Map} of the overriding {@linkplain
+     *         LogLevel} indexed by pattern.
+     */
+    public Map<String, LogLevel> getOverrides() {
+        return this.rules.overrides;
+    }
+
+    /**
+     * Replaces all the overrides in place with the specified ones.
+     *
+     * @param overrides the overriding {@linkplain LogLevel} indexed by
+     * pattern.
+     * @throws IllegalArgumentException if a pattern is empty or a level is
+     * {@code null}.
+     */
+    public synchronized void setOverrides(Map<String, LogLevel> overrides) {
+        Map<String, LogLevel> copy = new LinkedHashMap<String, LogLevel>();
+        for (Map.Entry<String, LogLevel> entry : overrides.entrySet()) {
+            LogLevelOverrides.check(entry.getKey(), entry.getValue());
+            copy.put(entry.getKey(), entry.getValue());
+        }
+        this.replace(copy);
+    }
+
+    /**
+     * Overrides the level of the methods matching the specified pattern.
+     *
+     * @param pattern the pattern of the class or methods to override.
+     * @param level the {@linkplain LogLevel} the matching methods log at.
+     * @throws IllegalArgumentException if {@code pattern} is empty or
+     * {@code level} is {@code null}.
+     */
+    public synchronized void setOverride(String pattern, LogLevel level) {
+        LogLevelOverrides.check(pattern, level);
+        Map<String, LogLevel> copy = new LinkedHashMap<String, LogLevel>(
+                this.rules.overrides);
+        copy.put(pattern, level);
+        this.replace(copy);
+    }
+
+    /**
+     * Removes the override registered with the specified pattern, if any.
+     *
+     * @param pattern the pattern of the override to remove.
+     */
+    @ManagedOperation(description = "Removes the override of a pattern")
+    @ManagedOperationParameters({@ManagedOperationParameter(name = "pattern",
+            description = "Class or Class#method pattern, * as wildcard")})
+    public synchronized void removeOverride(String pattern) {
+        if (this.rules.overrides.containsKey(pattern)) {
+            Map<String, LogLevel> copy = new LinkedHashMap<String, LogLevel>(
+                    this.rules.overrides);
+            copy.remove(pattern);
+            this.replace(copy);
+        }
+    }
+
+    /**
+     * Removes all the overrides.
+     */
+    @ManagedOperation(description = "Removes all the overrides")
+    public synchronized void clear() {
+        if (!this.rules.isEmpty()) {
+            this.replace(Collections.<String, LogLevel>emptyMap());
+        }
+    }
+
+    /**
+     * JMX friendly version of {@linkplain #setOverride(String, LogLevel)}.
+     *
+     * @param pattern the pattern of the class or methods to override.
+     * @param level the name of the {@linkplain LogLevel} the matching
+     * methods log at.
+     * @throws IllegalArgumentException if {@code pattern} is empty or
+     * {@code level} is not the name of a {@linkplain LogLevel}.
+     */
+    @ManagedOperation(description = "Overrides the level of the @Loggable " +
+            "methods matching a pattern")
+    @ManagedOperationParameters({
+            @ManagedOperationParameter(name = "pattern",
+                    description = "Class or Class#method pattern, * as " +
+                            "wildcard"),
+            @ManagedOperationParameter(name = "level",
+                    description = "TRACE, DEBUG, INFO, WARN or ERROR")})
+    public void override(String pattern, String level) {
+        this.setOverride(pattern, LogLevel.valueOf(level.trim().toUpperCase()));
+    }
+
+    /**
+     * Returns a description of the overrides in place.
+     *
+     * @return a {@linkplain List} of {@code pattern=LEVEL} entries.
+     */
+    @ManagedAttribute(description = "Overrides in place, as pattern=LEVEL")
+    public List<String> getDescriptions() {
+        List<String> descriptions = new ArrayList<String>();
+        for (Map.Entry<String, LogLevel> entry :
+                this.rules.overrides.entrySet()) {
+            descriptions.add(entry.getKey() + "=" + entry.getValue());
+        }
+        return descriptions;
+    }
+
+    /**
+     * Private helper method that installs a new snapshot with the specified
+     * overrides.
+     *
+     * @param overrides the overrides of the new snapshot.
+     */
+    private void replace(Map<String, LogLevel> overrides) {
+        this.rules = new Rules(overrides, this.rules.generation + 1);
+    }
+
+    /**
+     * Private helper method that validates an override.
+     *
+     * @param pattern the pattern of the override.
+     * @param level the {@linkplain LogLevel} of the override.
+     */
+    private static void check(String pattern, LogLevel level) {
+        if (pattern == null || pattern.trim().isEmpty()) {
+            throw new IllegalArgumentException("pattern must not be empty");
+        }
+        if (level == null) {
+            throw new IllegalArgumentException("level must not be null");
+        }
+    }
+
+    /**
+     * Immutable snapshot of the overrides, along with the cache of the
+     * decisions taken for the methods it was asked about.
+     */
+    private static final class Rules {
+        /**
+         * the value cached for the methods no override matches
+         */
+        private static final Object NO_OVERRIDE = new Object();
+        /**
+         * the overrides indexed by pattern
+         */
+        private final Map<String, LogLevel> overrides;
+        /**
+         * the compiled overrides, in precedence order
+         */
+        private final Rule[] compiled;
+        /**
+         * the number of changes made to the overrides before this snapshot
+         */
+        private final long generation;
+        /**
+         * the decisions taken, indexed by class and method name; the values
+         * are either a {@linkplain LogLevel} or {@linkplain #NO_OVERRIDE}
+         */
+        private final ConcurrentMap<Class<?>, ConcurrentMap<String, Object>>
+                decisions = new ConcurrentHashMap<Class<?>,
+                ConcurrentMap<String, Object>>();
+
+        private Rules(Map<String, LogLevel> overrides, long generation) {
+            this.overrides = Collections.unmodifiableMap(
+                    new LinkedHashMap<String, LogLevel>(overrides));
+            this.generation = generation;
+            List<Rule> rules = new ArrayList<Rule>();
+            for (Map.Entry<String, LogLevel> entry : overrides.entrySet()) {
+                rules.add(new Rule(entry.getKey().trim(), entry.getValue()));
+            }
+            Collections.sort(rules);
+            this.compiled = rules.toArray(new Rule[rules.size()]);
+        }
+
+        private boolean isEmpty() {
+            return this.compiled.length == 0;
+        }
+
+        /**
+         * Returns the overriding level of the specified method, taking the
+         * decision and caching it on the first call.
+         *
+         * @param clazz the {@linkplain Class} of the method.
+         * @param methodName the name of the method.
+         * @return the overriding {@linkplain LogLevel}, or {@code null}.
+         */
+        private LogLevel getLevel(Class<?> clazz, String methodName) {
+            ConcurrentMap<String, Object> methods = this.decisions.get(clazz);
+            if (methods == null) {
+                methods = new ConcurrentHashMap<String, Object>();
+                ConcurrentMap<String, Object> existing =
+                        this.decisions.putIfAbsent(clazz, methods);
+                methods = (existing != null) ? existing : methods;
+            }
+            Object decision = methods.get(methodName);
+            if (decision == null) {
+                decision = this.decide(clazz.getName(), methodName);
+                methods.putIfAbsent(methodName, decision);
+            }
+            return (decision == NO_OVERRIDE) ? null : (LogLevel) decision;
+        }
+
+        /**
+         * Returns the level of the first override, in precedence order,
+         * matching the specified method.
+         *
+         * @param className the name of the class of the method.
+         * @param methodName the name of the method.
+         * @return the overriding {@linkplain LogLevel}, or {@linkplain
+         *         #NO_OVERRIDE}.
+         */
+        private Object decide(String className, String methodName) {
+            String qualifiedName = className + METHOD_SEPARATOR + methodName;
+            for (Rule rule : this.compiled) {
+                if (rule.matches(className, qualifiedName)) {
+                    return rule.level;
+                }
+            }
+            return NO_OVERRIDE;
+        }
+    }
+
+    /**
+     * Single compiled override, ordered by precedence.
+     */
+    private static final class Rule implements Comparable<Rule> {
+        /**
+         * the compiled pattern
+         */
+        private final Pattern pattern;
+        /**
+         * whether the pattern designates methods rather than classes
+         */
+        private final boolean methodPattern;
+        /**
+         * the number of characters of the pattern other than wildcards
+         */
+        private final int literalLength;
+        /**
+         * the overriding level
+         */
+        private final LogLevel level;
+
+        private Rule(String pattern, LogLevel level) {
+            StringBuilder regex = new StringBuilder();
+            int literalLength = 0;
+            int start = 0;
+            for (int index = pattern.indexOf(WILDCARD); index != -1;
+                 index = pattern.indexOf(WILDCARD, start)) {
+                regex.append(Pattern.quote(pattern.substring(start, index)))
+                        .append(".*");
+                literalLength += index - start;
+                start = index + WILDCARD.length();
+            }
+            regex.append(Pattern.quote(pattern.substring(start)));
+            literalLength += pattern.length() - start;
+            this.pattern = Pattern.compile(regex.toString());
+            this.methodPattern = pattern.indexOf(METHOD_SEPARATOR) != -1;
+            this.literalLength = literalLength;
+            this.level = level;
+        }
+
+        private boolean matches(String className, String qualifiedName) {
+            return this.pattern.matcher(this.methodPattern ? qualifiedName :
+                    className).matches();
+        }
+
+        public int compareTo(Rule other) {
+            if (this.methodPattern != other.methodPattern) {
+                return this.methodPattern ? -1 : 1;
+            }
+            return other.literalLength - this.literalLength;
+        }
+    }
+}
@@ -38,7 +38,8 @@ import java.lang.annotation.*;
 public @interface Loggable {
     /**
      * Specifies the default log level message used by the underlying logging
-     * system in place. It defaults to {@linkplain LogLevel#INFO}
+     * system in place. It defaults to {@linkplain LogLevel#INFO} and can be
+     * overridden at runtime through {@linkplain LogLevelOverrides}.
      *
      * @return the configured log level used by the underlying logging system in
      *         place
@@ -54,4 +55,53 @@ public @interface Loggable {
      * @return the default message used for printing purposes
      */
     String message() default "";
+
+    /**
+     * Specifies the maximum number of characters used to render each one of
+     * the arguments and the return value of the annotated method. A
+     * negative value means the default configured on the logging aspect.
+     *
+     * @return the maximum number of characters used to render a single
+     *         argument
+     */
+    int maxArgumentLength() default -1;
+
+    /**
+     * Specifies the maximum number of characters used to render all the
+     * arguments of the annotated method; the remaining arguments are
+     * skipped once it is reached. A negative value means the default
+     * configured on the logging aspect.
+     *
+     * @return the maximum number of characters used to render all the
+     *         arguments
+     */
+    int maxArgumentsLength() default -1;
+
+    /**
+     * Specifies the maximum number of elements rendered for the arrays,
+     * collections and maps passed to or returned by the annotated method.
+     * A negative value means the default configured on the logging aspect.
+     *
+     * @return the maximum number of elements rendered for a container
+     */
+    int maxElements() default -1;
+
+    /**
+     * Specifies the fraction, between {@code 0} and {@code 1}, of the
+     * invocations of the annotated method whose entering and leaving
+     * messages are logged. Errors are always logged. It defaults to {@code
+     * 1}, logging every event.
+     *
+     * @return the fraction of the invocations that are logged
+     */
+    double sampleRate() default 1.0;
+
+    /**
+     * Specifies the maximum number of invocations of the annotated method
+     * whose entering and leaving messages are logged per second. Errors are
+     * always logged. It defaults to {@code 0}, meaning no limit.
+     *
+     * @return the maximum number of invocations logged per second
+     */
+    int maxPerSecond() default 0;
 }
@@ -0,0 +1,906 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.util.logging;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.io.StringWriter;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.kusaidia.util.logging.BinaryLogFormat.*;
+
+/**
+ * Implementation of the {@linkplain Log} interface writing the events in the
+ * compact binary format described by {@linkplain BinaryLogFormat} to a
+ * sequence of memory-mapped segment files, rolling to a new segment when the
+ * current one is full. Nothing is formatted on the logging thread: class
+ * names, patterns, method names and thread names are written once per
+ * segment into its dictionary and referred to by id, and the arguments are
+ * written with a typed encoding, so that the patterns are only formatted
+ * when the segments are decoded with the {@linkplain BinaryLogDecoder}.
+ * Arguments other than numbers, booleans, characters, dates and strings are
+ * rendered through the configured {@linkplain ArgumentRenderer}.
+ * <p/>
+ * Each event is encoded into a reusable per-thread array and copied to the
+ * mapped segment with a single bulk put while holding a lock, so the time
+ * the lock is held does not depend on the arguments. The segment files are
+ * named after the configured prefix and their index, for instance {@code
+ * application-000042.klog}; the index goes on from the highest one found in
+ * the directory and the oldest segments are deleted past the configured
+ * maximum. The events fired while this object is not running are dropped.
+ * A typical configuration looks like:
+ * <pre>
+ * &lt;bean id="logger" class="org.kusaidia.util.logging.MappedFileLog"&gt;
+ *     &lt;constructor-arg value="/var/log/application"/&gt;
+ *     &lt;constructor-arg value="application"/&gt;
+ *     &lt;property name="level" value="DEBUG"/&gt;
+ *     &lt;property name="maxSegments" value="16"/&gt;
+ * &lt;/bean&gt;
+ * </pre>
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@ManagedResource(objectName = "org.kusaidia:type=MappedFileLog",
+        description = "Binary log written to memory-mapped segment files")
+public class MappedFileLog implements Log, SmartLifecycle {
+    /**
+     * the default size of a segment, in bytes
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+    /**
+     * the smallest segment size accepted
+     */
+    public static final int MIN_SEGMENT_SIZE = 64 * 1024;
+    /**
+     * the default maximum number of characters written for a string
+     * argument or return value
+     */
+    public static final int DEFAULT_MAX_STRING_LENGTH = 1024;
+    /**
+     * the maximum number of elements rendered for a container
+     */
+    private static final int MAX_ELEMENTS = 10;
+    /**
+     * the maximum number of entries of the dictionary, past which values
+     * are written inline
+     */
+    private static final int MAX_DICTIONARY_SIZE = 65536;
+    /**
+     * the reusable per-thread encoder of the records, taken out while a
+     * record is encoded so that a record logged while rendering its
+     * arguments gets an encoder of its own
+     */
+    private static final ThreadLocal<Encoder> ENCODERS =
+            new ThreadLocal<Encoder>() {
+                @Override
+                protected Encoder initialValue() {
+                    return new Encoder(true);
+                }
+            };
+
+    /**
+     * the directory holding the segment files
+     */
+    private final File directory;
+    /**
+     * the prefix of the segment file names
+     */
+    private final String prefix;
+    /**
+     * the size of a segment, in bytes
+     */
+    private final int segmentSize;
+    /**
+     * the ids of the interned class names, patterns, method and thread
+     * names, shared by every segment
+     */
+    private final ConcurrentMap<Object, Integer> ids =
+            new ConcurrentHashMap<Object, Integer>();
+    /**
+     * the encoded dictionary records, indexed by id
+     */
+    private volatile byte[][] entries = new byte[64][];
+    /**
+     * the number of entries of the dictionary
+     */
+    private int dictionarySize;
+    /**
+     * the ids whose dictionary record was written to the current segment
+     */
+    private final BitSet written = new BitSet();
+    private final AtomicLong loggedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private ArgumentRenderer argumentRenderer = new DefaultArgumentRenderer();
+    private int maxStringLength = DEFAULT_MAX_STRING_LENGTH;
+    private int maxSegments;
+    private volatile LogLevel level = LogLevel.INFO;
+    private volatile boolean running;
+    /**
+     * the current segment, guarded by this object
+     */
+    private MappedByteBuffer segment;
+    /**
+     * the index of the current segment
+     */
+    private long segmentIndex = -1L;
+
+    /**
+     * Creates a new {@linkplain MappedFileLog} writing segments of the
+     * default size.
+     *
+     * @param directory the directory holding the segment files, created if
+     * it does not exist.
+     * @param prefix the prefix of the segment file names.
+     */
+    public MappedFileLog(File directory, String prefix) {
+        this(directory, prefix, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Creates a new {@linkplain MappedFileLog}.
+     *
+     * @param directory the directory holding the segment files, created if
+     * it does not exist.
+     * @param prefix the prefix of the segment file names.
+     * @param segmentSize the size of a segment, in bytes.
+     * @throws IllegalArgumentException if {@code directory} or {@code
+     * prefix} are {@code null} or if {@code segmentSize} is lower than
+     * {@value #MIN_SEGMENT_SIZE}.
+     */
+    public MappedFileLog(File directory, String prefix, int segmentSize) {
+        if (directory == null || prefix == null) {
+            throw new IllegalArgumentException("directory and prefix must " +
+                    "not be null");
+        }
+        if (segmentSize < MIN_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("segmentSize must be at " +
+                    "least " + MIN_SEGMENT_SIZE);
+        }
+        this.directory = directory;
+        this.prefix = prefix;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Sets the lowest level written. It defaults to {@linkplain
+     * LogLevel#INFO}.
+     *
+     * @param level the lowest {@linkplain LogLevel} written.
+     */
+    public void setLevel(LogLevel level) {
+        if (level == null) {
+            throw new IllegalArgumentException("level must not be null");
+        }
+        this.level = level;
+    }
+
+    /**
+     * Sets the maximum number of segment files kept in the directory; the
+     * oldest ones are deleted when rolling. Zero, the default, keeps every
+     * segment.
+     *
+     * @param maxSegments the maximum number of segments kept.
+     */
+    public void setMaxSegments(int maxSegments) {
+        this.maxSegments = Math.max(0, maxSegments);
+    }
+
+    /**
+     * Sets the maximum number of characters written for a string argument
+     * or return value, {@value #DEFAULT_MAX_STRING_LENGTH} by default.
+     *
+     * @param maxStringLength the maximum number of characters.
+     */
+    public void setMaxStringLength(int maxStringLength) {
+        if (maxStringLength <= 0) {
+            throw new IllegalArgumentException("maxStringLength must be " +
+                    "positive");
+        }
+        this.maxStringLength = maxStringLength;
+    }
+
+    /**
+     * Sets the {@linkplain ArgumentRenderer} used to render the arguments
+     * and the return values that have no typed encoding.
+     *
+     * @param argumentRenderer the {@linkplain ArgumentRenderer} to use.
+     */
+    public void setArgumentRenderer(ArgumentRenderer argumentRenderer) {
+        if (argumentRenderer == null) {
+            throw new IllegalArgumentException("argumentRenderer must not " +
+                    "be null");
+        }
+        this.argumentRenderer = argumentRenderer;
+    }
+
+    /**
+     * Returns the number of events written since this object was created.
+     *
+     * @return the number of events written.
+     */
+    @ManagedAttribute(description = "Number of events written")
+    public long getLoggedCount() {
+        return this.loggedCount.get();
+    }
+
+    /**
+     * Returns the number of events dropped because this object was not
+     * running, because a segment could not be created or because the event
+     * did not fit in a segment.
+     *
+     * @return the number of events dropped.
+     */
+    @ManagedAttribute(description = "Number of events dropped")
+    public long getDroppedCount() {
+        return this.droppedCount.get();
+    }
+
+    /**
+     * Returns the index of the segment being written.
+     *
+     * @return the index of the current segment, or {@code -1} if none.
+     */
+    @ManagedAttribute(description = "Index of the segment being written")
+    public synchronized long getSegmentIndex() {
+        return this.segmentIndex;
+    }
+
+    /**
+     * @see Log#isLogLevelEnabled(LogLevel, Class)
+     */
+    public boolean isLogLevelEnabled(LogLevel level, Class<?> clazz) {
+        return level.getSeverity() >= this.level.getSeverity();
+    }
+
+    /**
+     * @see Log#log(LogLevel, Class, Throwable, String)
+     */
+    public void log(LogLevel level, Class<?> clazz, Throwable throwable,
+                    String message) {
+        if (this.isLogLevelEnabled(level, clazz)) {
+            Encoder encoder = this.header(MESSAGE, level, clazz, throwable,
+                    System.currentTimeMillis(), null);
+            try {
+                encoder.string(message, Integer.MAX_VALUE);
+                this.write(encoder.throwable(throwable));
+            } finally {
+                encoder.release();
+            }
+        }
+    }
+
+    /**
+     * @see Log#log(LogLevel, Class, Throwable, String, Object...)
+     */
+    public void log(LogLevel level, Class<?> clazz, Throwable throwable,
+                    String pattern, Object... arguments) {
+        if (this.isLogLevelEnabled(level, clazz)) {
+            Encoder encoder = this.header(PATTERN, level, clazz, throwable,
+                    System.currentTimeMillis(), null);
+            try {
+                encoder.reference(this, pattern);
+                this.values(encoder, arguments);
+                this.write(encoder.throwable(throwable));
+            } finally {
+                encoder.release();
+            }
+        }
+    }
+
+    /**
+     * @see Log#logEvent(LogEvent)
+     */
+    public void logEvent(LogEvent event) {
+        if (!this.isLogLevelEnabled(event.getLevel(),
+                event.getSourceClass())) {
+            return;
+        }
+        Encoder encoder = this.header(EVENT, event.getLevel(),
+                event.getSourceClass(), event.getThrowable(),
+                event.getTimestamp(), event);
+        try {
+            encoder.writeByte(event.getType().ordinal());
+            encoder.reference(this, event.getMethodName());
+            encoder.writeLong(event.getDuration());
+            this.values(encoder, event.getArguments());
+            if (event.isWithReturnValue()) {
+                this.value(encoder, event.getReturnValue());
+            }
+            this.write(encoder.throwable(event.getThrowable()));
+        } finally {
+            encoder.release();
+        }
+    }
+
+    /**
+     * Forces the content of the current segment to the storage device.
+     */
+    @ManagedOperation(description = "Forces the current segment to disk")
+    public synchronized void flush() {
+        if (this.segment != null) {
+            this.segment.force();
+        }
+    }
+
+    /**
+     * Closes the current segment and starts a new one.
+     */
+    @ManagedOperation(description = "Rolls to a new segment")
+    public synchronized void roll() {
+        if (this.running) {
+            this.openNextSegment();
+        }
+    }
+
+    /**
+     * @see SmartLifecycle#isAutoStartup()
+     */
+    public boolean isAutoStartup() {
+        return true;
+    }
+
+    /**
+     * Returns the lowest possible phase so that this object is started
+     * before and stopped after any other lifecycle bean that could log.
+     *
+     * @see SmartLifecycle#getPhase()
+     */
+    public int getPhase() {
+        return Integer.MIN_VALUE;
+    }
+
+    /**
+     * Opens a new segment after the last one found in the directory.
+     *
+     * @see SmartLifecycle#start()
+     */
+    public synchronized void start() {
+        if (this.running) {
+            return;
+        }
+        if (!this.directory.isDirectory() && !this.directory.mkdirs()) {
+            throw new IllegalStateException("Cannot create directory " +
+                    this.directory);
+        }
+        File[] segments = this.listSegments();
+        if (segments.length > 0) {
+            this.segmentIndex = Math.max(this.segmentIndex,
+                    this.indexOf(segments[segments.length - 1]));
+        }
+        this.running = true;
+        this.openNextSegment();
+    }
+
+    /**
+     * Forces and releases the current segment. Events fired afterwards are
+     * dropped.
+     *
+     * @see SmartLifecycle#stop()
+     */
+    public synchronized void stop() {
+        if (!this.running) {
+            return;
+        }
+        this.running = false;
+        this.closeSegment();
+    }
+
+    /**
+     * @see SmartLifecycle#stop(Runnable)
+     */
+    public void stop(Runnable callback) {
+        this.stop();
+        callback.run();
+    }
+
+    /**
+     * @see SmartLifecycle#isRunning()
+     */
+    public boolean isRunning() {
+        return this.running;
+    }
+
+    /**
+     * Private helper method that starts the encoding of a record with the
+     * fields shared by every kind of record. The returned {@linkplain
+     * Encoder} must be released once the record is written.
+     *
+     * @param kind the kind of record.
+     * @param level the {@linkplain LogLevel} of the event.
+     * @param clazz the {@linkplain Class} firing the event.
+     * @param throwable the error of the event, if any.
+     * @param timestamp the time of the event.
+     * @param event the structured event, if any.
+     * @return the {@linkplain Encoder} holding the record, the per-thread
+     * one unless it is already in use.
+     */
+    private Encoder header(byte kind, LogLevel level, Class<?> clazz,
+                           Throwable throwable, long timestamp,
+                           LogEvent event) {
+        Encoder encoder = ENCODERS.get();
+        if (encoder == null) {
+            encoder = new Encoder(false);
+        } else {
+            ENCODERS.set(null);
+        }
+        encoder.reset();
+        encoder.writeByte(kind);
+        encoder.writeByte(level.ordinal());
+        int flags = (throwable != null) ? FLAG_THROWABLE : 0;
+        if (event != null && event.isWithReturnValue()) {
+            flags |= FLAG_RETURN;
+        }
+        encoder.writeByte(flags);
+        encoder.writeLong(timestamp);
+        encoder.reference(this, (event != null) ? event.getThreadName() :
+                Thread.currentThread().getName());
+        encoder.reference(this, clazz);
+        return encoder;
+    }
+
+    /**
+     * Private helper method that encodes the count and the values of the
+     * specified arguments.
+     *
+     * @param encoder the {@linkplain Encoder} holding the record.
+     * @param values the arguments, may be {@code null}.
+     */
+    private void values(Encoder encoder, Object[] values) {
+        int count = (values != null) ? Math.min(values.length, 255) : 0;
+        encoder.writeByte(count);
+        for (int i = 0; i < count; i++) {
+            this.value(encoder, values[i]);
+        }
+    }
+
+    /**
+     * Private helper method that encodes the specified value with its type.
+     *
+     * @param encoder the {@linkplain Encoder} holding the record.
+     * @param value the value to encode, may be {@code null}.
+     */
+    private void value(Encoder encoder, Object value) {
+        if (value == null) {
+            encoder.writeByte(NULL);
+        } else if (value instanceof String) {
+            encoder.writeByte(STRING);
+            encoder.string((String) value, this.maxStringLength);
+        } else if (value instanceof Integer || value instanceof Short ||
+                value instanceof Byte) {
+            encoder.writeByte(INT);
+            encoder.writeInt(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            encoder.writeByte(LONG);
+            encoder.writeLong((Long) value);
+        } else if (value instanceof Boolean) {
+            encoder.writeByte((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Double) {
+            encoder.writeByte(DOUBLE);
+            encoder.writeLong(Double.doubleToRawLongBits((Double) value));
+        } else if (value instanceof Float) {
+            encoder.writeByte(FLOAT);
+            encoder.writeInt(Float.floatToRawIntBits((Float) value));
+        } else if (value instanceof Character) {
+            encoder.writeByte(CHAR);
+            encoder.writeShort((Character) value);
+        } else if (value instanceof Date) {
+            encoder.writeByte(DATE);
+            encoder.writeLong(((Date) value).getTime());
+        } else {
+            StringBuilder rendered = encoder.rendered;
+            rendered.setLength(0);
+            this.argumentRenderer.render(value, this.maxStringLength,
+                    MAX_ELEMENTS, rendered);
+            encoder.writeByte(STRING);
+            encoder.string(rendered, Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Private helper method that returns the dictionary id of the specified
+     * class, pattern, method or thread name, adding it if needed.
+     *
+     * @param value the value to look up.
+     * @return the id of the value, or {@linkplain BinaryLogFormat#INLINE}
+     * if the dictionary is full.
+     */
+    private int idOf(Object value) {
+        Integer id = this.ids.get(value);
+        return (id != null) ? id : this.intern(value);
+    }
+
+    /**
+     * Private helper method that adds the specified value to the
+     * dictionary.
+     *
+     * @param value the value to add.
+     * @return the id of the value, or {@linkplain BinaryLogFormat#INLINE}
+     * if the dictionary is full.
+     */
+    private synchronized int intern(Object value) {
+        Integer id = this.ids.get(value);
+        if (id != null) {
+            return id;
+        }
+        if (this.dictionarySize == MAX_DICTIONARY_SIZE) {
+            return INLINE;
+        }
+        int next = this.dictionarySize;
+        Encoder encoder = new Encoder(false);
+        encoder.writeByte(DICTIONARY);
+        encoder.writeInt(next);
+        encoder.string((value instanceof Class) ?
+                ((Class<?>) value).getName() : (String) value,
+                Integer.MAX_VALUE);
+        byte[][] current = this.entries;
+        if (next == current.length) {
+            current = Arrays.copyOf(current, next * 2);
+        }
+        current[next] = Arrays.copyOf(encoder.bytes, encoder.position);
+        this.entries = current;
+        this.dictionarySize++;
+        this.ids.put(value, next);
+        return next;
+    }
+
+    /**
+     * Private helper method that copies the encoded record to the current
+     * segment, preceded by the dictionary records it refers to that the
+     * segment does not hold yet, rolling to a new segment if it is full.
+     *
+     * @param encoder the {@linkplain Encoder} holding the record.
+     */
+    private synchronized void write(Encoder encoder) {
+        if (!this.running || (this.segment == null &&
+                !this.openNextSegment())) {
+            this.droppedCount.incrementAndGet();
+            return;
+        }
+        if (!this.fits(encoder)) {
+            if (!this.openNextSegment() || !this.fits(encoder)) {
+                this.droppedCount.incrementAndGet();
+                return;
+            }
+        }
+        int[] references = encoder.references;
+        for (int i = 0; i < encoder.referenceCount; i++) {
+            int id = references[i];
+            if (!this.written.get(id)) {
+                this.written.set(id);
+                this.segment.put(this.entries[id]);
+            }
+        }
+        this.segment.put(encoder.bytes, 0, encoder.position);
+        this.loggedCount.incrementAndGet();
+    }
+
+    /**
+     * Private helper method that checks whether the encoded record and the
+     * dictionary records it needs fit in the current segment.
+     *
+     * @param encoder the {@linkplain Encoder} holding the record.
+     * @return {@code true} if the record fits, {@code false} otherwise.
+     */
+    private boolean fits(Encoder encoder) {
+        if (this.segment == null) {
+            return false;
+        }
+        long size = encoder.position;
+        for (int i = 0; i < encoder.referenceCount; i++) {
+            int id = encoder.references[i];
+            if (!this.written.get(id)) {
+                size += this.entries[id].length;
+            }
+        }
+        return size <= this.segment.remaining();
+    }
+
+    /**
+     * Private helper method that closes the current segment and maps the
+     * next one, deleting the oldest segments past the maximum.
+     *
+     * @return {@code true} if the segment was created, {@code false} if it
+     * could not, in which case no segment is open.
+     */
+    private boolean openNextSegment() {
+        // the full segment is not forced, the operating system writes its
+        // pages back on its own without blocking the logging threads
+        this.segment = null;
+        long index = this.segmentIndex + 1;
+        File file = new File(this.directory, segmentName(this.prefix, index));
+        try {
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            try {
+                raf.setLength(this.segmentSize);
+                this.segment = raf.getChannel().map(
+                        FileChannel.MapMode.READ_WRITE, 0, this.segmentSize);
+            } finally {
+                // the mapping stays valid once the file is closed
+                raf.close();
+            }
+        } catch (IOException e) {
+            this.segment = null;
+            return false;
+        }
+        this.segmentIndex = index;
+        this.segment.putInt(MAGIC);
+        this.segment.putInt(VERSION);
+        this.segment.putLong(index);
+        this.written.clear();
+        this.deleteOldSegments();
+        return true;
+    }
+
+    /**
+     * Private helper method that forces and releases the current segment.
+     */
+    private void closeSegment() {
+        if (this.segment != null) {
+            this.segment.force();
+            this.segment = null;
+        }
+    }
+
+    /**
+     * Private helper method that deletes the oldest segments past the
+     * maximum number of segments.
+     */
+    private void deleteOldSegments() {
+        if (this.maxSegments == 0) {
+            return;
+        }
+        File[] segments = this.listSegments();
+        for (int i = 0; i < segments.length - this.maxSegments; i++) {
+            if (!segments[i].delete()) {
+                segments[i].deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Private helper method that lists the segment files of this log,
+     * oldest first.
+     *
+     * @return the segment files.
+     */
+    private File[] listSegments() {
+        File[] segments = this.directory.listFiles(new FilenameFilter() {
+            public boolean accept(File dir, String name) {
+                return name.startsWith(MappedFileLog.this.prefix + '-') &&
+                        name.endsWith(SUFFIX) &&
+                        MappedFileLog.this.indexOf(new File(dir, name)) >= 0;
+            }
+        });
+        if (segments == null) {
+            return new File[0];
+        }
+        // the indexes are zero padded, so the names sort as the indexes
+        Arrays.sort(segments);
+        return segments;
+    }
+
+    /**
+     * Private helper method that extracts the index of a segment file.
+     *
+     * @param file the segment file.
+     * @return the index of the segment, or {@code -1} if the name does not
+     * hold one.
+     */
+    private long indexOf(File file) {
+        String name = file.getName();
+        try {
+            return Long.parseLong(name.substring(this.prefix.length() + 1,
+                    name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1L;
+        } catch (IndexOutOfBoundsException e) {
+            return -1L;
+        }
+    }
+
+    /**
+     * Reusable per-thread encoder of a record, growing as needed.
+     */
+    private static final class Encoder {
+        /**
+         * whether this is the per-thread encoder, given back on release
+         */
+        private final boolean shared;
+        /**
+         * the buffer the values without typed encoding are rendered to
+         */
+        private final StringBuilder rendered = new StringBuilder(256);
+        private byte[] bytes = new byte[512];
+        private char[] chars = new char[256];
+        private int position;
+        /**
+         * the dictionary ids the record refers to
+         */
+        private int[] references = new int[8];
+        private int referenceCount;
+
+        private Encoder(boolean shared) {
+            this.shared = shared;
+        }
+
+        /**
+         * Gives this encoder back to the current thread if it is the
+         * per-thread one.
+         */
+        private void release() {
+            if (this.shared) {
+                ENCODERS.set(this);
+            }
+        }
+
+        private Encoder reset() {
+            this.position = 0;
+            this.referenceCount = 0;
+            return this;
+        }
+
+        private void ensure(int size) {
+            if (this.position + size > this.bytes.length) {
+                this.bytes = Arrays.copyOf(this.bytes, Math.max(
+                        this.bytes.length * 2, this.position + size));
+            }
+        }
+
+        private void writeByte(int value) {
+            this.ensure(1);
+            this.bytes[this.position++] = (byte) value;
+        }
+
+        private void writeShort(int value) {
+            this.ensure(2);
+            byte[] b = this.bytes;
+            int p = this.position;
+            b[p] = (byte) (value >>> 8);
+            b[p + 1] = (byte) value;
+            this.position = p + 2;
+        }
+
+        private void writeInt(int value) {
+            this.ensure(4);
+            byte[] b = this.bytes;
+            int p = this.position;
+            b[p] = (byte) (value >>> 24);
+            b[p + 1] = (byte) (value >>> 16);
+            b[p + 2] = (byte) (value >>> 8);
+            b[p + 3] = (byte) value;
+            this.position = p + 4;
+        }
+
+        private void writeLong(long value) {
+            this.writeInt((int) (value >>> 32));
+            this.writeInt((int) value);
+        }
+
+        /**
+         * Writes a reference to the specified value, interning it in the
+         * dictionary of the specified log.
+         */
+        private void reference(MappedFileLog log, Object value) {
+            if (value == null) {
+                value = "null";
+            }
+            int id = log.idOf(value);
+            this.writeInt(id);
+            if (id == INLINE) {
+                this.string(String.valueOf(value), Integer.MAX_VALUE);
+                return;
+            }
+            if (this.referenceCount == this.references.length) {
+                this.references = Arrays.copyOf(this.references,
+                        this.referenceCount * 2);
+            }
+            this.references[this.referenceCount++] = id;
+        }
+
+        /**
+         * Writes the stack trace of the specified error, if any.
+         */
+        private Encoder throwable(Throwable throwable) {
+            if (throwable != null) {
+                StringWriter trace = new StringWriter();
+                throwable.printStackTrace(new PrintWriter(trace));
+                this.string(trace.toString(), Integer.MAX_VALUE);
+            }
+            return this;
+        }
+
+        /**
+         * Writes the specified text as UTF-8 preceded by its length in
+         * bytes, truncated to the specified number of characters.
+         */
+        private void string(CharSequence text, int maxLength) {
+            if (text == null) {
+                text = "null";
+            }
+            int length = Math.min(text.length(), maxLength);
+            if (this.chars.length < length) {
+                this.chars = new char[Math.max(length,
+                        this.chars.length * 2)];
+            }
+            char[] c = this.chars;
+            if (text instanceof String) {
+                ((String) text).getChars(0, length, c, 0);
+            } else {
+                ((StringBuilder) text).getChars(0, length, c, 0);
+            }
+            this.ensure(4 + length * 3);
+            byte[] b = this.bytes;
+            int start = this.position + 4;
+            int index = start;
+            int i = 0;
+            while (i < length && c[i] < 0x80) {
+                b[index++] = (byte) c[i++];
+            }
+            for (; i < length; i++) {
+                char ch = c[i];
+                if (ch < 0x80) {
+                    b[index++] = (byte) ch;
+                } else if (ch < 0x800) {
+                    b[index++] = (byte) (0xc0 | (ch >> 6));
+                    b[index++] = (byte) (0x80 | (ch & 0x3f));
+                } else if (Character.isHighSurrogate(ch) && i + 1 < length &&
+                        Character.isLowSurrogate(c[i + 1])) {
+                    int code = Character.toCodePoint(ch, c[++i]);
+                    b[index++] = (byte) (0xf0 | (code >> 18));
+                    b[index++] = (byte) (0x80 | ((code >> 12) & 0x3f));
+                    b[index++] = (byte) (0x80 | ((code >> 6) & 0x3f));
+                    b[index++] = (byte) (0x80 | (code & 0x3f));
+                } else if (Character.isSurrogate(ch)) {
+                    b[index++] = '?';
+                } else {
+                    b[index++] = (byte) (0xe0 | (ch >> 12));
+                    b[index++] = (byte) (0x80 | ((ch >> 6) & 0x3f));
+                    b[index++] = (byte) (0x80 | (ch & 0x3f));
+                }
+            }
+            int size = index - start;
+            b[this.position] = (byte) (size >>> 24);
+            b[this.position + 1] = (byte) (size >>> 16);
+            b[this.position + 2] = (byte) (size >>> 8);
+            b[this.position + 3] = (byte) size;
+            this.position = index;
+        }
+    }
+}
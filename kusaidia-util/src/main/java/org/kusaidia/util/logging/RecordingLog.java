@@ -0,0 +1,1060 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.util.logging;
+
+import org.kusaidia.util.i18n.MessageTemplate;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Black box recorder implementation of the {@linkplain Log} interface. Every
+ * log event at or above the recording level, including the events of the
+ * levels disabled in the delegate {@linkplain Log}, is recorded into a fixed
+ * size circular buffer allocated off-heap, or supplied by the caller, for
+ * instance as a memory-mapped file. Only the events enabled in the delegate
+ * are also written right away. When an {@linkplain LogLevel#ERROR} event is
+ * logged, the events that the thread firing it recorded since its previous
+ * dump are written to the delegate first, so the {@code DEBUG} and {@code
+ * TRACE} context of a failure is available without writing it all the time.
+ * Recorded events can also be dumped on demand, for instance through JMX.
+ * <p/>
+ * The buffer is split in segments of fixed size slots, one record per slot.
+ * Each thread writes to its own segment as long as there are more segments
+ * than threads; past that, segments are shared and the dumps only pick the
+ * records of the current thread. Each thread keeps track of the records it
+ * already dumped, so sharing a segment never hides the records of a thread
+ * from its own dumps. Records use a compact binary encoding:
+ * classes, patterns and thread names are stored as indexes into on-heap
+ * dictionaries; integral and floating point numbers and dates are stored
+ * with their type, so that typed placeholders such as {@code {0,number,#}}
+ * can be formatted when dumping; and the message and the other arguments
+ * and return values are stored as UTF-8 text truncated to the room left in
+ * the slot. The only heap allocations of the recording path are the ones of
+ * rendering those arguments to text. A recorded pattern that cannot be
+ * formatted with the recorded values is dumped as it is, followed by the
+ * values, since logging must never fail.
+ * <p/>
+ * Since this object reports the recorded levels as enabled, callers such as
+ * the logging aspect build the messages of every recorded event; the
+ * recording level bounds that cost. A typical configuration looks like:
+ * <pre>
+ * &lt;bean id="logger" class="org.kusaidia.util.logging.RecordingLog"&gt;
+ *     &lt;constructor-arg&gt;
+ *         &lt;bean class="org.kusaidia.util.logging.SLF4JLog"/&gt;
+ *     &lt;/constructor-arg&gt;
+ *     &lt;constructor-arg value="4194304"/&gt;
+ *     &lt;property name="recordingLevel" value="DEBUG"/&gt;
+ * &lt;/bean&gt;
+ * </pre>
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@ManagedResource(objectName = "org.kusaidia:type=RecordingLog",
+        description = "Black box recorder of the log events")
+public class RecordingLog implements Log {
+    /**
+     * the default capacity of the buffer, in bytes
+     */
+    public static final int DEFAULT_CAPACITY = 4 * 1024 * 1024;
+    /**
+     * the default size of a record slot, in bytes
+     */
+    public static final int DEFAULT_SLOT_SIZE = 256;
+    /**
+     * the default number of slots of a segment
+     */
+    public static final int DEFAULT_SEGMENT_SLOTS = 128;
+    /**
+     * the maximum number of entries of a dictionary, past which values are
+     * stored inline
+     */
+    private static final int MAX_DICTIONARY_SIZE = 4096;
+    /**
+     * the pattern of the header written before the events of a dump
+     */
+    private static final String DUMP_HEADER = "[ dumping {0} recorded " +
+            "events of thread {1} ]";
+    /**
+     * the pattern of a dumped event
+     */
+    private static final String DUMP_EVENT = "[ recorded {0} {1} {2} ] {3}";
+    /**
+     * the format of the time of a dumped event
+     */
+    private static final String DUMP_TIME_FORMAT = "yyyy-MM-dd HH:mm:ss.SSS";
+    private static final byte EMPTY = 0;
+    private static final byte MESSAGE = 1;
+    private static final byte PATTERN = 2;
+    private static final byte EVENT = 3;
+    private static final byte VALUE_TEXT = 0;
+    private static final byte VALUE_LONG = 1;
+    private static final byte VALUE_DOUBLE = 2;
+    private static final byte VALUE_DATE = 3;
+    private static final int FLAG_RETURN = 1;
+    private static final int FLAG_THROWABLE = 2;
+    private static final int KIND_OFFSET = 0;
+    private static final int LEVEL_OFFSET = 1;
+    private static final int FLAGS_OFFSET = 2;
+    private static final int COUNT_OFFSET = 3;
+    private static final int TIMESTAMP_OFFSET = 4;
+    private static final int THREAD_OFFSET = 12;
+    private static final int CLASS_OFFSET = 20;
+    private static final int DURATION_OFFSET = 24;
+    private static final int TYPE_OFFSET = 32;
+    private static final int BODY_OFFSET = 33;
+    /**
+     * the thread id matching the records of every thread
+     */
+    private static final long ALL_THREADS = -1L;
+    /**
+     * the sequence matching the last record of a segment
+     */
+    private static final long UP_TO_DATE = -1L;
+    /**
+     * the smallest slot size able to hold a header and a few characters
+     */
+    private static final int MIN_SLOT_SIZE = 64;
+    /**
+     * the charset of the recorded text
+     */
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    /**
+     * the reusable per-thread writer of the records, taken out while a
+     * record is written so that a record logged while rendering its
+     * arguments gets a writer of its own
+     */
+    private static final ThreadLocal<Writer> WRITERS =
+            new ThreadLocal<Writer>() {
+                @Override
+                protected Writer initialValue() {
+                    return new Writer(true);
+                }
+            };
+
+    /**
+     * the {@linkplain Log} events are written to
+     */
+    private final Log delegate;
+    /**
+     * the segments of the buffer
+     */
+    private final Segment[] segments;
+    /**
+     * the counter used to assign the segments to the threads
+     */
+    private final AtomicInteger nextSegment = new AtomicInteger();
+    /**
+     * the segment assigned to each thread
+     */
+    private final ThreadLocal<Segment> threadSegments =
+            new ThreadLocal<Segment>() {
+                @Override
+                protected Segment initialValue() {
+                    int index = RecordingLog.this.nextSegment.getAndIncrement();
+                    return RecordingLog.this.segments[(index & Integer.MAX_VALUE)
+                            % RecordingLog.this.segments.length];
+                }
+            };
+    /**
+     * the sequence of the first record of each thread not dumped yet, in
+     * the segment assigned to the thread
+     */
+    private final ThreadLocal<Watermark> watermarks =
+            new ThreadLocal<Watermark>() {
+                @Override
+                protected Watermark initialValue() {
+                    return new Watermark();
+                }
+            };
+    /**
+     * the dictionary of the recorded classes
+     */
+    private final Dictionary<Class<?>> classes = new Dictionary<Class<?>>();
+    /**
+     * the dictionary of the recorded patterns, method and thread names
+     */
+    private final Dictionary<String> strings = new Dictionary<String>();
+    /**
+     * the {@linkplain ArgumentRenderer} used to render the arguments and the
+     * return values
+     */
+    private ArgumentRenderer argumentRenderer = new DefaultArgumentRenderer();
+    /**
+     * the lowest level recorded
+     */
+    private volatile LogLevel recordingLevel = LogLevel.TRACE;
+    /**
+     * the level the dumped events are written at
+     */
+    private volatile LogLevel dumpLevel = LogLevel.ERROR;
+    /**
+     * whether an error triggers a dump of the events of its thread
+     */
+    private volatile boolean dumpOnError = true;
+
+    /**
+     * Creates a new {@linkplain RecordingLog} with a direct buffer of the
+     * default capacity.
+     *
+     * @param delegate the {@linkplain Log} events are written to.
+     */
+    public RecordingLog(Log delegate) {
+        this(delegate, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new {@linkplain RecordingLog} with a direct buffer of the
+     * specified capacity.
+     *
+     * @param delegate the {@linkplain Log} events are written to.
+     * @param capacity the capacity of the buffer, in bytes.
+     */
+    public RecordingLog(Log delegate, int capacity) {
+        this(delegate, ByteBuffer.allocateDirect(capacity), DEFAULT_SLOT_SIZE,
+                DEFAULT_SEGMENT_SLOTS);
+    }
+
+    /**
+     * Creates a new {@linkplain RecordingLog} recording into the remaining
+     * space of the specified buffer.
+     *
+     * @param delegate the {@linkplain Log} events are written to.
+     * @param buffer the {@linkplain ByteBuffer} holding the records, for
+     * instance a direct buffer or a {@linkplain
+     * java.nio.MappedByteBuffer}.
+     * @param slotSize the size of a record slot, in bytes; longer records
+     * are truncated.
+     * @param segmentSlots the number of slots of a segment, that is the
+     * number of events kept per thread.
+     * @throws IllegalArgumentException if {@code delegate} or {@code buffer}
+     * are {@code null}, if {@code slotSize} is lower than {@code 64} or if
+     * the buffer cannot hold a single segment.
+     */
+    public RecordingLog(Log delegate, ByteBuffer buffer, int slotSize,
+                        int segmentSlots) {
+        if (delegate == null || buffer == null) {
+            throw new IllegalArgumentException("delegate and buffer must " +
+                    "not be null");
+        }
+        if (slotSize < MIN_SLOT_SIZE || segmentSlots <= 0) {
+            throw new IllegalArgumentException("slotSize must be at least " +
+                    MIN_SLOT_SIZE + " and segmentSlots positive");
+        }
+        int segmentSize = slotSize * segmentSlots;
+        int count = buffer.remaining() / segmentSize;
+        if (count == 0) {
+            throw new IllegalArgumentException("buffer must hold at least " +
+                    segmentSize + " bytes");
+        }
+        this.delegate = delegate;
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            ByteBuffer view = buffer.duplicate();
+            view.position(buffer.position() + i * segmentSize);
+            view.limit(view.position() + segmentSize);
+            this.segments[i] = new Segment(view.slice(), slotSize,
+                    segmentSlots);
+        }
+    }
+
+    /**
+     * Sets the lowest level recorded. It defaults to {@linkplain
+     * LogLevel#TRACE}.
+     *
+     * @param recordingLevel the lowest {@linkplain LogLevel} recorded.
+     */
+    public void setRecordingLevel(LogLevel recordingLevel) {
+        if (recordingLevel == null) {
+            throw new IllegalArgumentException("recordingLevel must not be " +
+                    "null");
+        }
+        this.recordingLevel = recordingLevel;
+    }
+
+    /**
+     * Sets the level the dumped events are written at, regardless of the
+     * level they were recorded with. It defaults to {@linkplain
+     * LogLevel#ERROR} so that dumps go through the same filters as the
+     * errors triggering them.
+     *
+     * @param dumpLevel the {@linkplain LogLevel} of the dumped events.
+     */
+    public void setDumpLevel(LogLevel dumpLevel) {
+        if (dumpLevel == null) {
+            throw new IllegalArgumentException("dumpLevel must not be null");
+        }
+        this.dumpLevel = dumpLevel;
+    }
+
+    /**
+     * Sets whether an {@linkplain LogLevel#ERROR} event triggers a dump of
+     * the events its thread recorded since the previous dump. Enabled by
+     * default.
+     *
+     * @param dumpOnError {@code true} to dump on errors, {@code false} to
+     * only dump on demand.
+     */
+    public void setDumpOnError(boolean dumpOnError) {
+        this.dumpOnError = dumpOnError;
+    }
+
+    /**
+     * Sets the {@linkplain ArgumentRenderer} used to render the arguments
+     * and the return values of the recorded events.
+     *
+     * @param argumentRenderer the {@linkplain ArgumentRenderer} to use.
+     */
+    public void setArgumentRenderer(ArgumentRenderer argumentRenderer) {
+        if (argumentRenderer == null) {
+            throw new IllegalArgumentException("argumentRenderer must not " +
+                    "be null");
+        }
+        this.argumentRenderer = argumentRenderer;
+    }
+
+    /**
+     * Returns the number of events recorded since this object was created.
+     *
+     * @return the number of events recorded.
+     */
+    @ManagedAttribute(description = "Number of events recorded")
+    public long getRecordedCount() {
+        long count = 0;
+        for (Segment segment : this.segments) {
+            count += segment.getWritten();
+        }
+        return count;
+    }
+
+    /**
+     * Returns whether the specified level is recorded or enabled in the
+     * delegate {@linkplain Log}.
+     *
+     * @see Log#isLogLevelEnabled(LogLevel, Class)
+     */
+    public boolean isLogLevelEnabled(LogLevel level, Class<?> clazz) {
+        return this.isRecorded(level) ||
+                this.delegate.isLogLevelEnabled(level, clazz);
+    }
+
+    /**
+     * @see Log#log(LogLevel, Class, Throwable, String)
+     */
+    public void log(LogLevel level, Class<?> clazz, Throwable throwable,
+                    String message) {
+        if (this.isRecorded(level)) {
+            Segment segment = this.threadSegments.get();
+            long sequence = segment.record(this, MESSAGE, level, clazz,
+                    throwable, message, null, null);
+            this.dumpIfError(level, segment, sequence);
+        }
+        if (this.delegate.isLogLevelEnabled(level, clazz)) {
+            this.delegate.log(level, clazz, throwable, message);
+        }
+    }
+
+    /**
+     * @see Log#log(LogLevel, Class, Throwable, String, Object...)
+     */
+    public void log(LogLevel level, Class<?> clazz, Throwable throwable,
+                    String pattern, Object... arguments) {
+        if (this.isRecorded(level)) {
+            Segment segment = this.threadSegments.get();
+            long sequence = segment.record(this, PATTERN, level, clazz,
+                    throwable, pattern, arguments, null);
+            this.dumpIfError(level, segment, sequence);
+        }
+        if (this.delegate.isLogLevelEnabled(level, clazz)) {
+            this.delegate.log(level, clazz, throwable, pattern, arguments);
+        }
+    }
+
+    /**
+     * @see Log#logEvent(LogEvent)
+     */
+    public void logEvent(LogEvent event) {
+        LogLevel level = event.getLevel();
+        if (this.isRecorded(level)) {
+            Segment segment = this.threadSegments.get();
+            long sequence = segment.record(this, EVENT, level,
+                    event.getSourceClass(), event.getThrowable(),
+                    event.getMethodName(), event.getArguments(), event);
+            this.dumpIfError(level, segment, sequence);
+        }
+        if (this.delegate.isLogLevelEnabled(level, event.getSourceClass())) {
+            this.delegate.logEvent(event);
+        }
+    }
+
+    /**
+     * Writes the events the current thread recorded since its previous dump
+     * to the delegate {@linkplain Log}.
+     *
+     * @return the number of events written.
+     */
+    public int dumpCurrentThread() {
+        return this.write(this.threadSegments.get().collect(this,
+                Thread.currentThread().getId(), UP_TO_DATE,
+                this.watermarks.get()));
+    }
+
+    /**
+     * Writes every event held in the buffer to the delegate {@linkplain
+     * Log}, grouped by thread.
+     *
+     * @return the number of events written.
+     */
+    @ManagedOperation(description = "Writes every recorded event to the log")
+    public int dump() {
+        List<Record> records = new ArrayList<Record>();
+        for (Segment segment : this.segments) {
+            records.addAll(segment.collect(this, ALL_THREADS, UP_TO_DATE,
+                    null));
+        }
+        return this.write(records);
+    }
+
+    /**
+     * Private helper method that checks whether the specified level is
+     * recorded.
+     *
+     * @param level the {@linkplain LogLevel} of an event.
+     * @return {@code true} if the level is recorded, {@code false} otherwise.
+     */
+    private boolean isRecorded(LogLevel level) {
+        return level.getSeverity() >= this.recordingLevel.getSeverity();
+    }
+
+    /**
+     * Private helper method that dumps the events of the current thread
+     * preceding the event just recorded when it is an error.
+     *
+     * @param level the {@linkplain LogLevel} of the event just recorded.
+     * @param segment the {@linkplain Segment} the event was recorded to.
+     * @param sequence the sequence of the event in the segment.
+     */
+    private void dumpIfError(LogLevel level, Segment segment, long sequence) {
+        if (level == LogLevel.ERROR && this.dumpOnError) {
+            this.write(segment.collect(this, Thread.currentThread().getId(),
+                    sequence, this.watermarks.get()));
+        }
+    }
+
+    /**
+     * Private helper method that writes the specified records to the
+     * delegate {@linkplain Log}, grouped by thread, each group preceded by
+     * a header.
+     *
+     * @param records the decoded records, oldest first.
+     * @return the number of records written.
+     */
+    private int write(List<Record> records) {
+        if (records.isEmpty()) {
+            return 0;
+        }
+        Map<String, List<Record>> threads =
+                new LinkedHashMap<String, List<Record>>();
+        for (Record record : records) {
+            List<Record> thread = threads.get(record.threadName);
+            if (thread == null) {
+                thread = new ArrayList<Record>();
+                threads.put(record.threadName, thread);
+            }
+            thread.add(record);
+        }
+        SimpleDateFormat format = new SimpleDateFormat(DUMP_TIME_FORMAT);
+        MessageTemplate header = MessageTemplate.compile(DUMP_HEADER,
+                Locale.ROOT);
+        MessageTemplate line = MessageTemplate.compile(DUMP_EVENT,
+                Locale.ROOT);
+        LogLevel level = this.dumpLevel;
+        for (Map.Entry<String, List<Record>> thread : threads.entrySet()) {
+            this.delegate.log(level, RecordingLog.class, null,
+                    header.format(thread.getValue().size(), thread.getKey()));
+            for (Record record : thread.getValue()) {
+                this.delegate.log(level, record.clazz, null, line.format(
+                        format.format(new Date(record.timestamp)),
+                        record.level, record.threadName, record.text()));
+            }
+        }
+        return records.size();
+    }
+
+    /**
+     * Fixed size circular sequence of record slots.
+     */
+    private static final class Segment {
+        /**
+         * the slots of this segment
+         */
+        private final ByteBuffer buffer;
+        /**
+         * the size of a slot
+         */
+        private final int slotSize;
+        /**
+         * the number of slots
+         */
+        private final int slots;
+        /**
+         * the number of records written to this segment
+         */
+        private long written;
+
+        private Segment(ByteBuffer buffer, int slotSize, int slots) {
+            this.buffer = buffer;
+            this.slotSize = slotSize;
+            this.slots = slots;
+        }
+
+        private synchronized long getWritten() {
+            return this.written;
+        }
+
+        /**
+         * Writes a record to the next slot, overwriting the oldest one. The
+         * slot is claimed before the arguments are rendered, so that a
+         * record logged while rendering them goes to the following slot.
+         *
+         * @param log the {@linkplain RecordingLog} owning this segment.
+         * @param kind the kind of record.
+         * @param level the {@linkplain LogLevel} of the event.
+         * @param clazz the {@linkplain Class} firing the event.
+         * @param throwable the error of the event, if any.
+         * @param text the message, the pattern or the method name.
+         * @param arguments the arguments of the pattern or of the method.
+         * @param event the structured event, if any.
+         * @return the sequence of the record.
+         */
+        private synchronized long record(RecordingLog log, byte kind,
+                                         LogLevel level, Class<?> clazz,
+                                         Throwable throwable, String text,
+                                         Object[] arguments, LogEvent event) {
+            long sequence = this.written++;
+            int start = (int) (sequence % this.slots) * this.slotSize;
+            Thread thread = Thread.currentThread();
+            ByteBuffer b = this.buffer;
+            // the slot is flagged as empty until the record is complete
+            b.put(start + KIND_OFFSET, EMPTY);
+            b.put(start + LEVEL_OFFSET, (byte) level.ordinal());
+            b.putLong(start + TIMESTAMP_OFFSET, (event != null) ?
+                    event.getTimestamp() : System.currentTimeMillis());
+            b.putLong(start + THREAD_OFFSET, thread.getId());
+            b.putInt(start + CLASS_OFFSET, (clazz != null) ?
+                    log.classes.idOf(clazz) : Dictionary.NONE);
+            b.putLong(start + DURATION_OFFSET, (event != null) ?
+                    event.getDuration() : LogEvent.NO_DURATION);
+            b.put(start + TYPE_OFFSET, (byte) ((event != null) ?
+                    event.getType().ordinal() : 0));
+            Writer writer = WRITERS.get();
+            if (writer == null) {
+                writer = new Writer(false);
+            } else {
+                WRITERS.set(null);
+            }
+            try {
+                writer.reset(this.slotSize - BODY_OFFSET);
+                int flags = 0;
+                int count = 0;
+                if (writer.reference(log.strings, (event != null) ?
+                        event.getThreadName() : thread.getName()) &&
+                        writer.reference((kind != MESSAGE) ? log.strings :
+                                null, String.valueOf(text))) {
+                    count = writer.values(log.argumentRenderer, arguments);
+                    if (event != null && event.isWithReturnValue() &&
+                            writer.value(log.argumentRenderer,
+                                    event.getReturnValue())) {
+                        flags |= FLAG_RETURN;
+                    }
+                    if (throwable != null && writer.text(
+                            throwable.getClass().getName() + ": " +
+                                    throwable.getMessage())) {
+                        flags |= FLAG_THROWABLE;
+                    }
+                } else {
+                    kind = EMPTY;
+                }
+                writer.writeTo(b, start + BODY_OFFSET);
+                b.put(start + KIND_OFFSET, kind);
+                b.put(start + FLAGS_OFFSET, (byte) flags);
+                b.put(start + COUNT_OFFSET, (byte) count);
+            } finally {
+                writer.release();
+            }
+            return sequence;
+        }
+
+        /**
+         * Decodes the records held by this segment, oldest first.
+         *
+         * @param log the {@linkplain RecordingLog} owning this segment.
+         * @param threadId the id of the thread whose records are decoded,
+         * or {@code -1} to decode the records of every thread.
+         * @param end the sequence of the record to stop at, exclusive, or
+         * {@code -1} to decode up to the last record.
+         * @param watermark the {@linkplain Watermark} of the thread whose
+         * records are decoded, moved past the records decoded, or {@code
+         * null} to decode every record held, including the ones already
+         * dumped.
+         * @return the decoded records.
+         */
+        private synchronized List<Record> collect(RecordingLog log,
+                                                  long threadId, long end,
+                                                  Watermark watermark) {
+            long last = (end == UP_TO_DATE) ? this.written : end;
+            long first = Math.max(this.written - this.slots,
+                    (watermark != null) ? watermark.dumped : 0L);
+            List<Record> records = new ArrayList<Record>();
+            for (long sequence = first; sequence < last; sequence++) {
+                int start = (int) (sequence % this.slots) * this.slotSize;
+                if (this.buffer.get(start + KIND_OFFSET) != EMPTY &&
+                        (threadId == ALL_THREADS || this.buffer.getLong(
+                                start + THREAD_OFFSET) == threadId)) {
+                    records.add(new Record(log, this.buffer, start,
+                            this.slotSize));
+                }
+            }
+            if (watermark != null) {
+                watermark.dumped = Math.max(watermark.dumped,
+                        (end == UP_TO_DATE) ? last : last + 1);
+            }
+            return records;
+        }
+    }
+
+    /**
+     * Sequence of the first record of a thread not dumped yet.
+     */
+    private static final class Watermark {
+        private long dumped;
+    }
+
+    /**
+     * Decoded record, used while dumping.
+     */
+    private static final class Record {
+        private final byte kind;
+        private final LogLevel level;
+        private final long timestamp;
+        private final Class<?> clazz;
+        private final long duration;
+        private final LogEvent.Type type;
+        private final String threadName;
+        private final String text;
+        private final Object[] values;
+        private final Object returnValue;
+        private final String throwable;
+
+        private Record(RecordingLog log, ByteBuffer buffer, int start,
+                       int slotSize) {
+            this.kind = buffer.get(start + KIND_OFFSET);
+            this.level = LogLevel.values()[buffer.get(start + LEVEL_OFFSET)];
+            this.timestamp = buffer.getLong(start + TIMESTAMP_OFFSET);
+            Class<?> clazz = log.classes.valueOf(
+                    buffer.getInt(start + CLASS_OFFSET));
+            this.clazz = (clazz != null) ? clazz : RecordingLog.class;
+            this.duration = buffer.getLong(start + DURATION_OFFSET);
+            this.type = LogEvent.Type.values()[buffer.get(start + TYPE_OFFSET)];
+            int flags = buffer.get(start + FLAGS_OFFSET);
+            Reader reader = new Reader(buffer, start + BODY_OFFSET,
+                    start + slotSize);
+            this.threadName = reader.reference(log.strings);
+            this.text = reader.reference(log.strings);
+            this.values = new Object[buffer.get(start + COUNT_OFFSET) & 0xff];
+            for (int i = 0; i < this.values.length; i++) {
+                this.values[i] = reader.value();
+            }
+            this.returnValue = ((flags & FLAG_RETURN) != 0) ? reader.value() :
+                    null;
+            this.throwable = ((flags & FLAG_THROWABLE) != 0) ? reader.text() :
+                    null;
+        }
+
+        /**
+         * Returns the text of the recorded event. A pattern that cannot be
+         * formatted with the recorded values, for instance because a value
+         * was truncated to text, is returned as it is followed by the
+         * values.
+         *
+         * @return the message of the event.
+         */
+        private String text() {
+            StringBuilder text = new StringBuilder();
+            if (this.kind == PATTERN) {
+                try {
+                    text.append(MessageTemplate.compile(this.text,
+                            Locale.ROOT).format(this.values));
+                } catch (RuntimeException e) {
+                    text.setLength(0);
+                    text.append(this.text).append(" with values ")
+                            .append(Arrays.toString(this.values));
+                }
+            } else if (this.kind == EVENT) {
+                text.append(this.type.getLabel()).append(' ')
+                        .append(this.text);
+                if (this.values.length != 0) {
+                    text.append(" with params ");
+                    for (int i = 0; i < this.values.length; i++) {
+                        text.append((i != 0) ? ", " : "")
+                                .append(this.values[i]);
+                    }
+                }
+                if (this.returnValue != null) {
+                    text.append(" returning ").append(this.returnValue);
+                }
+                if (this.duration != LogEvent.NO_DURATION) {
+                    text.append(" in ").append(this.duration).append(" ns");
+                }
+            } else {
+                text.append(this.text);
+            }
+            if (this.throwable != null) {
+                text.append(" threw ").append(this.throwable);
+            }
+            return text.toString();
+        }
+    }
+
+    /**
+     * Reusable per-thread writer of the body of a record. The body is encoded
+     * into a scratch array, bounded by the size of the slot, and copied to
+     * the slot with a single bulk put.
+     */
+    private static final class Writer {
+        /**
+         * whether this is the per-thread writer, given back on release
+         */
+        private final boolean shared;
+        /**
+         * the buffer the values are rendered to
+         */
+        private final StringBuilder rendered =
+                new StringBuilder(DEFAULT_SLOT_SIZE);
+        /**
+         * the characters of the text being encoded
+         */
+        private char[] chars = new char[DEFAULT_SLOT_SIZE];
+        /**
+         * the encoded body
+         */
+        private byte[] bytes = new byte[DEFAULT_SLOT_SIZE];
+        private int end;
+        private int position;
+
+        private Writer(boolean shared) {
+            this.shared = shared;
+        }
+
+        /**
+         * Gives this writer back to the current thread if it is the
+         * per-thread one.
+         */
+        private void release() {
+            if (this.shared) {
+                WRITERS.set(this);
+            }
+        }
+
+        /**
+         * Starts the body of a new record.
+         *
+         * @param size the room available for the body, in bytes.
+         * @return this object.
+         */
+        private Writer reset(int size) {
+            if (this.bytes.length < size) {
+                this.bytes = new byte[size];
+                this.chars = new char[size];
+            }
+            this.position = 0;
+            this.end = size;
+            return this;
+        }
+
+        /**
+         * Copies the encoded body to the specified position of the buffer.
+         */
+        private void writeTo(ByteBuffer buffer, int position) {
+            buffer.position(position);
+            buffer.put(this.bytes, 0, this.position);
+        }
+
+        /**
+         * Writes the dictionary index of the specified value, or the value
+         * itself when there is no dictionary or when it is full.
+         */
+        private boolean reference(Dictionary<String> dictionary,
+                                  String value) {
+            if (this.end - this.position < 4) {
+                return false;
+            }
+            int id = (dictionary != null) ? dictionary.idOf(value) :
+                    Dictionary.NONE;
+            byte[] b = this.bytes;
+            b[this.position] = (byte) (id >>> 24);
+            b[this.position + 1] = (byte) (id >>> 16);
+            b[this.position + 2] = (byte) (id >>> 8);
+            b[this.position + 3] = (byte) id;
+            this.position += 4;
+            return id != Dictionary.NONE || this.text(value);
+        }
+
+        /**
+         * Writes the specified values, stopping at the first one that does
+         * not fit.
+         *
+         * @return the number of values written.
+         */
+        private int values(ArgumentRenderer renderer, Object[] values) {
+            int count = 0;
+            if (values != null) {
+                int max = Math.min(values.length, 255);
+                while (count < max && this.value(renderer, values[count])) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Writes the specified value preceded by its type: numbers and
+         * dates are written as eight bytes, other values as the text of
+         * their rendering.
+         */
+        private boolean value(ArgumentRenderer renderer, Object value) {
+            int room = this.end - this.position - 3;
+            if (room < 0) {
+                return false;
+            }
+            if (value instanceof Long || value instanceof Integer ||
+                    value instanceof Short || value instanceof Byte) {
+                return this.bits(VALUE_LONG, ((Number) value).longValue());
+            } else if (value instanceof Double || value instanceof Float) {
+                // a float goes through its decimal representation so that
+                // it is not widened to a longer double
+                double number = (value instanceof Float) ?
+                        Double.parseDouble(value.toString()) :
+                        (Double) value;
+                return this.bits(VALUE_DOUBLE,
+                        Double.doubleToRawLongBits(number));
+            } else if (value instanceof Date) {
+                return this.bits(VALUE_DATE, ((Date) value).getTime());
+            }
+            this.bytes[this.position++] = VALUE_TEXT;
+            if (value instanceof String) {
+                return this.text((String) value);
+            }
+            StringBuilder text = this.rendered;
+            text.setLength(0);
+            renderer.render(value, Math.max(room, 1), 10, text);
+            return this.text(text);
+        }
+
+        /**
+         * Writes the specified type followed by eight bytes.
+         */
+        private boolean bits(byte type, long bits) {
+            if (this.end - this.position < 9) {
+                return false;
+            }
+            byte[] b = this.bytes;
+            b[this.position++] = type;
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                b[this.position++] = (byte) (bits >>> shift);
+            }
+            return true;
+        }
+
+        /**
+         * Writes the specified text as UTF-8, preceded by its length,
+         * truncating it to the room left in the slot.
+         */
+        private boolean text(CharSequence text) {
+            if (this.end - this.position < 2) {
+                return false;
+            }
+            int start = this.position + 2;
+            int length = Math.min(text.length(), this.end - start);
+            char[] c = this.chars;
+            if (text instanceof String) {
+                ((String) text).getChars(0, length, c, 0);
+            } else {
+                ((StringBuilder) text).getChars(0, length, c, 0);
+            }
+            byte[] b = this.bytes;
+            int index = start;
+            int i = 0;
+            // ASCII fast path, which needs no bounds check since length is
+            // bounded by the room left
+            while (i < length && c[i] < 0x80) {
+                b[index++] = (byte) c[i++];
+            }
+            for (; i < length; i++) {
+                char ch = Character.isSurrogate(c[i]) ? '?' : c[i];
+                int size = (ch < 0x80) ? 1 : (ch < 0x800) ? 2 : 3;
+                if (this.end - index < size) {
+                    break;
+                }
+                if (size == 1) {
+                    b[index++] = (byte) ch;
+                } else if (size == 2) {
+                    b[index++] = (byte) (0xc0 | (ch >> 6));
+                    b[index++] = (byte) (0x80 | (ch & 0x3f));
+                } else {
+                    b[index++] = (byte) (0xe0 | (ch >> 12));
+                    b[index++] = (byte) (0x80 | ((ch >> 6) & 0x3f));
+                    b[index++] = (byte) (0x80 | (ch & 0x3f));
+                }
+            }
+            int size = index - start;
+            b[this.position] = (byte) (size >>> 8);
+            b[this.position + 1] = (byte) size;
+            this.position = index;
+            return true;
+        }
+    }
+
+    /**
+     * Sequential reader of the body of a record.
+     */
+    private static final class Reader {
+        private final ByteBuffer buffer;
+        private final int end;
+        private int position;
+
+        private Reader(ByteBuffer buffer, int position, int end) {
+            this.buffer = buffer;
+            this.position = position;
+            this.end = end;
+        }
+
+        private String reference(Dictionary<String> dictionary) {
+            if (this.end - this.position < 4) {
+                return "";
+            }
+            int id = this.buffer.getInt(this.position);
+            this.position += 4;
+            return (id != Dictionary.NONE) ? dictionary.valueOf(id) :
+                    this.text();
+        }
+
+        private Object value() {
+            if (this.end - this.position < 1) {
+                return "";
+            }
+            byte type = this.buffer.get(this.position++);
+            if (type == VALUE_TEXT) {
+                return this.text();
+            }
+            if (this.end - this.position < 8) {
+                return "";
+            }
+            long bits = this.buffer.getLong(this.position);
+            this.position += 8;
+            if (type == VALUE_LONG) {
+                return bits;
+            } else if (type == VALUE_DOUBLE) {
+                return Double.longBitsToDouble(bits);
+            }
+            return new Date(bits);
+        }
+
+        private String text() {
+            if (this.end - this.position < 2) {
+                return "";
+            }
+            int length = this.buffer.getShort(this.position) & 0xffff;
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = this.buffer.get(this.position + 2 + i);
+            }
+            this.position += 2 + length;
+            return new String(bytes, UTF_8);
+        }
+    }
+
+    /**
+     * Append-only dictionary mapping values to indexes, bounded to {@value
+     * #MAX_DICTIONARY_SIZE} entries.
+     *
+     * @param <T> the type of the values.
+     */
+    private static final class Dictionary<T> {
+        /**
+         * the index returned for the values that do not fit
+         */
+        private static final int NONE = -1;
+        private final ConcurrentMap<T, Integer> ids =
+                new ConcurrentHashMap<T, Integer>();
+        private volatile Object[] values = new Object[16];
+        private int size;
+
+        private int idOf(T value) {
+            Integer id = this.ids.get(value);
+            return (id != null) ? id : this.add(value);
+        }
+
+        private synchronized int add(T value) {
+            Integer id = this.ids.get(value);
+            if (id != null) {
+                return id;
+            }
+            if (this.size == MAX_DICTIONARY_SIZE) {
+                return NONE;
+            }
+            Object[] current = this.values;
+            if (this.size == current.length) {
+                Object[] grown = new Object[current.length * 2];
+                System.arraycopy(current, 0, grown, 0, current.length);
+                current = grown;
+            }
+            current[this.size] = value;
+            this.values = current;
+            this.ids.put(value, this.size);
+            return this.size++;
+        }
+
+        @SuppressWarnings("unchecked")
+        private T valueOf(int id) {
+            Object[] current = this.values;
+            return (id >= 0 && id < current.length) ? (T) current[id] : null;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.util.logging;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free, multiple producer single consumer ring buffer.
+ * Producers claim a slot with a single compare-and-set on the tail sequence
+ * and publish the element with an ordered store; the only consumer drains
+ * published elements in batches and releases the slots by advancing the
+ * head sequence. The capacity is always rounded up to a power of two.
+ *
+ * @param <E> the type of the elements held in this buffer.
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class RingBuffer<E> {
+    /**
+     * the slots of this buffer, {@code null} meaning free or not yet
+     * published
+     */
+    private final AtomicReferenceArray<E> slots;
+    /**
+     * the mask used to map a sequence to a slot
+     */
+    private final int mask;
+    /**
+     * the next sequence to be claimed by a producer
+     */
+    private final AtomicLong tail = new AtomicLong();
+    /**
+     * the next sequence to be consumed, written only by the consumer
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * Creates a new {@linkplain RingBuffer} able to hold at least the
+     * specified number of elements.
+     *
+     * @param capacity the minimum capacity of this buffer.
+     * @throws IllegalArgumentException if {@code capacity} is not positive or
+     * greater than {@code 2^30}.
+     */
+    RingBuffer(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity must be between 1 " +
+                    "and 2^30");
+        }
+        int size = Integer.highestOneBit(capacity);
+        size = (size < capacity) ? size << 1 : size;
+        this.slots = new AtomicReferenceArray<E>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Publishes the specified element if there is a free slot. Safe to call
+     * from any number of threads.
+     *
+     * @param element the element to publish, never {@code null}.
+     * @return {@code true} if the element was published, {@code false} if
+     *         the buffer is full.
+     */
+    boolean offer(E element) {
+        while (true) {
+            long sequence = this.tail.get();
+            if (sequence - this.head.get() > this.mask) {
+                return false;
+            }
+            if (this.tail.compareAndSet(sequence, sequence + 1)) {
+                this.slots.lazySet((int) sequence & this.mask, element);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Moves up to {@code max} published elements into the specified sink, in
+     * publication order. Must only be called by the consumer.
+     *
+     * @param sink the {@linkplain List} receiving the elements.
+     * @param max the maximum number of elements to move.
+     * @return the number of elements moved.
+     */
+    int drainTo(List<? super E> sink, int max) {
+        long sequence = this.head.get();
+        int count = 0;
+        while (count < max) {
+            int index = (int) sequence & this.mask;
+            E element = this.slots.get(index);
+            if (element == null) {
+                break;
+            }
+            this.slots.lazySet(index, null);
+            sink.add(element);
+            sequence++;
+            count++;
+        }
+        if (count != 0) {
+            this.head.lazySet(sequence);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of claimed slots. The value is only an estimate
+     * while producers or the consumer are active.
+     *
+     * @return the number of claimed slots.
+     */
+    int size() {
+        return (int) (this.tail.get() - this.head.get());
+    }
+
+    /**
+     * Returns the number of slots of this buffer.
+     *
+     * @return the number of slots of this buffer.
+     */
+    int capacity() {
+        return this.mask + 1;
+    }
+}
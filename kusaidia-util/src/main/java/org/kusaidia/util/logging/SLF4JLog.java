@@ -22,15 +22,33 @@
 
 package org.kusaidia.util.logging;
 
+import org.kusaidia.util.i18n.MessageTemplate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.stereotype.Component;
 
-import java.text.MessageFormat;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Implementation of the {@linkplain Log} interface that use the SLF4J logging
- * infrastructure.
+ * infrastructure. The {@linkplain org.slf4j.Logger} of each class is resolved
+ * once and cached, and each {@linkplain LogLevel} is mapped to its level
+ * check and logging call through a precomputed table, so dispatching an event
+ * costs a single array index. Messages given as a pattern and arguments are
+ * only formatted once the level is known to be enabled, through a cached
+ * {@linkplain MessageTemplate} of the pattern. The values of a structured
+ * {@linkplain LogEvent} are put into the {@linkplain MDC} under the {@code
+ * MDC_*} keys, all prefixed with {@code kusaidia.}, for the duration of the
+ * logging call, so they can be laid out by the appender, for instance with
+ * {@code %X{kusaidia.method}} or a JSON layout, while the message only holds
+ * the event type and the method name. Any value the application put under
+ * the same keys is restored afterwards. The
+ * entries of the {@linkplain LogContext} are put into the {@linkplain MDC}
+ * the same way, under their own keys, restoring afterwards the values the
+ * application had put under those keys.
  *
  * @author Angel L. Villalain Garcia
  * @version 1.0.0
@@ -38,30 +56,94 @@ import java.text.MessageFormat;
  */
 @Component("logger")
 public final class SLF4JLog implements Log {
+    /**
+     * the {@linkplain MDC} key of the type of a structured event
+     */
+    public static final String MDC_TYPE = "kusaidia.type";
+    /**
+     * the {@linkplain MDC} key of the advised method name
+     */
+    public static final String MDC_METHOD = "kusaidia.method";
+    /**
+     * the {@linkplain MDC} key of the rendered arguments
+     */
+    public static final String MDC_ARGUMENTS = "kusaidia.arguments";
+    /**
+     * the {@linkplain MDC} key of the rendered return value
+     */
+    public static final String MDC_RETURN = "kusaidia.return";
+    /**
+     * the {@linkplain MDC} key of the duration, in nanoseconds
+     */
+    public static final String MDC_DURATION = "kusaidia.duration";
+    /**
+     * the {@linkplain MDC} key of the name of the thread that fired the
+     * event, which differs from the logging thread when events are logged
+     * asynchronously
+     */
+    public static final String MDC_THREAD = "kusaidia.thread";
+    /**
+     * the {@linkplain MDC} keys of a structured event, in the order of the
+     * values put by {@linkplain #logEvent(LogEvent)}
+     */
+    private static final String[] EVENT_KEYS = {MDC_TYPE, MDC_METHOD,
+            MDC_THREAD, MDC_ARGUMENTS, MDC_RETURN, MDC_DURATION};
+    /**
+     * the separator of the rendered arguments
+     */
+    private static final String ARGUMENT_SEPARATOR = ", ";
+    /**
+     * the per class cache of resolved {@linkplain Logger}
+     */
+    private static final ClassValue<Logger> LOGGERS = new ClassValue<Logger>() {
+        @Override
+        protected Logger computeValue(Class<?> type) {
+            return LoggerFactory.getLogger(type);
+        }
+    };
+    /**
+     * the {@linkplain Dispatcher} of each {@linkplain LogLevel}, indexed by
+     * ordinal
+     */
+    private static final Dispatcher[] DISPATCHERS =
+            new Dispatcher[LogLevel.values().length];
+    /**
+     * the maximum number of compiled patterns kept in the cache
+     */
+    private static final int MAX_CACHED_TEMPLATES = 1024;
+    /**
+     * the cache of compiled patterns
+     */
+    private static final ConcurrentMap<String, MessageTemplate> TEMPLATES =
+            new ConcurrentHashMap<String, MessageTemplate>();
+
+    /**
+     * the {@linkplain ArgumentRenderer} used to render the arguments and the
+     * return values of structured events
+     */
+    private ArgumentRenderer argumentRenderer = new DefaultArgumentRenderer();
+    /**
+     * the maximum number of characters used to render a single argument or
+     * return value of a structured event
+     */
+    private int maxArgumentLength =
+            JsonLogEventEncoder.DEFAULT_MAX_ARGUMENT_LENGTH;
+    /**
+     * the maximum number of elements rendered for a container
+     */
+    private int maxElements = JsonLogEventEncoder.DEFAULT_MAX_ELEMENTS;
+
+    static {
+        for (Dispatcher dispatcher : Dispatcher.values()) {
+            DISPATCHERS[dispatcher.level.ordinal()] = dispatcher;
+        }
+    }
 
     /**
      * @see Log#isLogLevelEnabled(LogLevel, Class)
      */
     public boolean isLogLevelEnabled(LogLevel level, Class<?> clazz) {
-        boolean result = false;
-        switch (level) {
-            case DEBUG:
-                result = this.getLogger(clazz).isDebugEnabled();
-                break;
-            case ERROR:
-                result = this.getLogger(clazz).isErrorEnabled();
-                break;
-            case INFO:
-                result = this.getLogger(clazz).isInfoEnabled();
-                break;
-            case TRACE:
-                result = this.getLogger(clazz).isTraceEnabled();
-                break;
-            case WARN:
-                result = this.getLogger(clazz).isWarnEnabled();
-                break;
-        }
-        return result;
+        return DISPATCHERS[level.ordinal()].isEnabled(this.getLogger(clazz));
     }
 
     /**
@@ -69,103 +151,177 @@ public final class SLF4JLog implements Log {
      */
     public void log(LogLevel level, Class<?> clazz, Throwable throwable,
                     String message) {
-        switch (level) {
-            case DEBUG:
-                this.debug(clazz, throwable, message);
-                break;
-            case ERROR:
-                this.error(clazz, throwable, message);
-                break;
-            case INFO:
-                this.info(clazz, throwable, message);
-                break;
-            case TRACE:
-                this.trace(clazz, throwable, message);
-                break;
-            case WARN:
-                this.warn(clazz, throwable, message);
-                break;
+        Dispatcher dispatcher = DISPATCHERS[level.ordinal()];
+        Logger logger = this.getLogger(clazz);
+        LogContext.Snapshot context = LogContext.capture();
+        if (context.isEmpty()) {
+            dispatcher.log(logger, throwable, message);
+        } else if (dispatcher.isEnabled(logger)) {
+            String[] previous = pushContext(context);
+            try {
+                dispatcher.log(logger, throwable, message);
+            } finally {
+                popContext(context, previous);
+            }
         }
     }
 
     /**
-     * Private method to log debug messages.
-     *
-     * @param clazz the {@linkplain Class} that fired the log event.
-     * @param throwable a {@linkplain Throwable} event if any occurred during
-     * the execution of the method being advised.
-     * @param message the message to print to the log.
-     */
-    private void debug(Class<?> clazz, Throwable throwable, String message) {
-        if (throwable != null) {
-            this.getLogger(clazz).debug(message, throwable);
-        } else {
-            this.getLogger(clazz).debug(message);
+     * @see Log#log(LogLevel, Class, Throwable, String, Object...)
+     */
+    public void log(LogLevel level, Class<?> clazz, Throwable throwable,
+                    String pattern, Object... arguments) {
+        Dispatcher dispatcher = DISPATCHERS[level.ordinal()];
+        Logger logger = this.getLogger(clazz);
+        if (dispatcher.isEnabled(logger)) {
+            LogContext.Snapshot context = LogContext.capture();
+            String[] previousContext = pushContext(context);
+            try {
+                dispatcher.log(logger, throwable,
+                        this.format(pattern, arguments));
+            } finally {
+                popContext(context, previousContext);
+            }
         }
     }
 
     /**
-     * Private method to log debug messages.
+     * @see Log#logEvent(LogEvent)
+     */
+    public void logEvent(LogEvent event) {
+        Dispatcher dispatcher = DISPATCHERS[event.getLevel().ordinal()];
+        Logger logger = this.getLogger(event.getSourceClass());
+        if (!dispatcher.isEnabled(logger)) {
+            return;
+        }
+        String[] values = {event.getType().name(), event.getMethodName(),
+                event.getThreadName(), (event.getArguments() != null) ?
+                this.render(event.getArguments()) : null,
+                event.isWithReturnValue() ? this.render(new Object[]{
+                        event.getReturnValue()}) : null,
+                (event.getDuration() != LogEvent.NO_DURATION) ?
+                        Long.toString(event.getDuration()) : null};
+        String[] previous = new String[EVENT_KEYS.length];
+        for (int i = 0; i < EVENT_KEYS.length; i++) {
+            previous[i] = MDC.get(EVENT_KEYS[i]);
+            putOrRemove(EVENT_KEYS[i], values[i]);
+        }
+        String[] previousContext = pushContext(event.getContext());
+        try {
+            dispatcher.log(logger, event.getThrowable(),
+                    event.getType().getLabel() + " " + event.getMethodName());
+        } finally {
+            for (int i = 0; i < EVENT_KEYS.length; i++) {
+                putOrRemove(EVENT_KEYS[i], previous[i]);
+            }
+            popContext(event.getContext(), previousContext);
+        }
+    }
+
+    /**
+     * Sets the {@linkplain ArgumentRenderer} used to render the arguments
+     * and the return values of structured events.
      *
-     * @param clazz the {@linkplain Class} that fired the log event.
-     * @param throwable a {@linkplain Throwable} event if any occurred during
-     * the execution of the method being advised.
-     * @param message the message to print to the log.
-     */
-    private void error(Class<?> clazz, Throwable throwable, String message) {
-        if (throwable != null) {
-            this.getLogger(clazz).error(message, throwable);
-        } else {
-            this.getLogger(clazz).error(message);
+     * @param argumentRenderer the {@linkplain ArgumentRenderer} to use.
+     */
+    public void setArgumentRenderer(ArgumentRenderer argumentRenderer) {
+        this.argumentRenderer = argumentRenderer;
+    }
+
+    /**
+     * Sets the maximum number of characters used to render a single
+     * argument or return value of a structured event. It defaults to {@value
+     * JsonLogEventEncoder#DEFAULT_MAX_ARGUMENT_LENGTH}.
+     *
+     * @param maxArgumentLength the maximum number of characters, must be
+     * positive.
+     */
+    public void setMaxArgumentLength(int maxArgumentLength) {
+        this.maxArgumentLength = maxArgumentLength;
+    }
+
+    /**
+     * Sets the maximum number of elements rendered for an array, a
+     * collection or a map of a structured event. It defaults to {@value
+     * JsonLogEventEncoder#DEFAULT_MAX_ELEMENTS}.
+     *
+     * @param maxElements the maximum number of elements, must not be
+     * negative.
+     */
+    public void setMaxElements(int maxElements) {
+        this.maxElements = maxElements;
+    }
+
+    /**
+     * Private helper method that puts the entries of the specified context
+     * into the {@linkplain MDC}.
+     *
+     * @param context the {@linkplain LogContext.Snapshot} to expose.
+     * @return the values previously held by the {@linkplain MDC} under the
+     *         keys of the context, {@code null} if the context is empty.
+     */
+    private static String[] pushContext(LogContext.Snapshot context) {
+        if (context.isEmpty()) {
+            return null;
         }
+        String[] previous = new String[context.size()];
+        for (int i = 0; i < context.size(); i++) {
+            previous[i] = MDC.get(context.getKey(i));
+            MDC.put(context.getKey(i), context.getValue(i));
+        }
+        return previous;
     }
 
     /**
-     * Private method to log info messages.
+     * Private helper method that restores the values the {@linkplain MDC}
+     * held under the keys of the specified context before it was exposed.
      *
-     * @param clazz the {@linkplain Class} that fired the log event.
-     * @param throwable a {@linkplain Throwable} event if any occurred during
-     * the execution of the method being advised.
-     * @param message the message to print to the log.
-     */
-    private void info(Class<?> clazz, Throwable throwable, String message) {
-        if (throwable != null) {
-            this.getLogger(clazz).info(message, throwable);
-        } else {
-            this.getLogger(clazz).info(message);
+     * @param context the {@linkplain LogContext.Snapshot} exposed.
+     * @param previous the values returned by {@linkplain
+     * #pushContext(LogContext.Snapshot)}.
+     */
+    private static void popContext(LogContext.Snapshot context,
+                                   String[] previous) {
+        if (previous == null) {
+            return;
+        }
+        for (int i = context.size() - 1; i >= 0; i--) {
+            putOrRemove(context.getKey(i), previous[i]);
         }
     }
 
     /**
-     * Private method to log warn messages.
+     * Private helper method that puts the specified value into the
+     * {@linkplain MDC}, or removes the key when the value is {@code null}.
      *
-     * @param clazz the {@linkplain Class} that fired the log event.
-     * @param throwable a {@linkplain Throwable} event if any occurred during
-     * the execution of the method being advised.
-     * @param message the message to print to the log.
-     */
-    private void warn(Class<?> clazz, Throwable throwable, String message) {
-        if (throwable != null) {
-            this.getLogger(clazz).warn(message, throwable);
+     * @param key the {@linkplain MDC} key.
+     * @param value the value to put, may be {@code null}.
+     */
+    private static void putOrRemove(String key, String value) {
+        if (value != null) {
+            MDC.put(key, value);
         } else {
-            this.getLogger(clazz).warn(message);
+            MDC.remove(key);
         }
     }
 
     /**
-     * Private method to log trace messages.
+     * Private helper method that renders the specified values, separated by
+     * commas.
      *
-     * @param clazz the {@linkplain Class} that fired the log event.
-     * @param throwable a {@linkplain Throwable} event if any occurred during
-     * the execution of the method being advised.
-     * @param message the message to print to the log.
-     */
-    private void trace(Class<?> clazz, Throwable throwable, String message) {
-        if (throwable != null) {
-            this.getLogger(clazz).trace(message, throwable);
-        } else {
-            this.getLogger(clazz).trace(message);
+     * @param values the values to render.
+     * @return a {@linkplain String} representation of the values.
+     */
+    private String render(Object[] values) {
+        StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i != 0) {
+                buffer.append(ARGUMENT_SEPARATOR);
+            }
+            this.argumentRenderer.render(values[i], this.maxArgumentLength,
+                    this.maxElements, buffer);
         }
+        return buffer.toString();
     }
 
     /**
@@ -176,7 +332,17 @@ public final class SLF4JLog implements Log {
      * @return a {@linkplain String} representing the message being logged.
      */
     private String format(String pattern, Object... arguments) {
-        return MessageFormat.format(pattern, arguments);
+        MessageTemplate template = TEMPLATES.get(pattern);
+        if (template == null) {
+            template = MessageTemplate.compile(pattern,
+                    Locale.getDefault(Locale.Category.FORMAT));
+            if (TEMPLATES.size() < MAX_CACHED_TEMPLATES) {
+                MessageTemplate existing = TEMPLATES.putIfAbsent(pattern,
+                        template);
+                template = (existing != null) ? existing : template;
+            }
+        }
+        return template.format(arguments);
     }
 
     /**
@@ -187,7 +353,106 @@ public final class SLF4JLog implements Log {
      * @return the {@linkplain org.slf4j.Logger} for the specified {@linkplain Class}.
      */
     private Logger getLogger(Class<?> clazz) {
-        return LoggerFactory.getLogger(clazz);
+        return LOGGERS.get(clazz);
     }
-}
 
+    /**
+     * Enum mapping each {@linkplain LogLevel} to the corresponding level
+     * check and logging call of a {@linkplain Logger}.
+     */
+    private enum Dispatcher {
+        DEBUG(LogLevel.DEBUG) {
+            boolean isEnabled(Logger logger) {
+                return logger.isDebugEnabled();
+            }
+
+            void log(Logger logger, Throwable throwable, String message) {
+                if (throwable != null) {
+                    logger.debug(message, throwable);
+                } else {
+                    logger.debug(message);
+                }
+            }
+        },
+        ERROR(LogLevel.ERROR) {
+            boolean isEnabled(Logger logger) {
+                return logger.isErrorEnabled();
+            }
+
+            void log(Logger logger, Throwable throwable, String message) {
+                if (throwable != null) {
+                    logger.error(message, throwable);
+                } else {
+                    logger.error(message);
+                }
+            }
+        },
+        INFO(LogLevel.INFO) {
+            boolean isEnabled(Logger logger) {
+                return logger.isInfoEnabled();
+            }
+
+            void log(Logger logger, Throwable throwable, String message) {
+                if (throwable != null) {
+                    logger.info(message, throwable);
+                } else {
+                    logger.info(message);
+                }
+            }
+        },
+        TRACE(LogLevel.TRACE) {
+            boolean isEnabled(Logger logger) {
+                return logger.isTraceEnabled();
+            }
+
+            void log(Logger logger, Throwable throwable, String message) {
+                if (throwable != null) {
+                    logger.trace(message, throwable);
+                } else {
+                    logger.trace(message);
+                }
+            }
+        },
+        WARN(LogLevel.WARN) {
+            boolean isEnabled(Logger logger) {
+                return logger.isWarnEnabled();
+            }
+
+            void log(Logger logger, Throwable throwable, String message) {
+                if (throwable != null) {
+                    logger.warn(message, throwable);
+                } else {
+                    logger.warn(message);
+                }
+            }
+        };
+
+        /**
+         * the {@linkplain LogLevel} handled by this dispatcher
+         */
+        private final LogLevel level;
+
+        private Dispatcher(LogLevel level) {
+            this.level = level;
+        }
+
+        /**
+         * Checks whether this level is enabled for the specified
+         * {@linkplain Logger}.
+         *
+         * @param logger the {@linkplain Logger} to check.
+         * @return {@code true} if this level is enabled, {@code false}
+         *         otherwise.
+         */
+        abstract boolean isEnabled(Logger logger);
+
+        /**
+         * Logs the specified message at this level.
+         *
+         * @param logger the {@linkplain Logger} to log to.
+         * @param throwable a {@linkplain Throwable} event if any.
+         * @param message the message to print to the log.
+         */
+        abstract void log(Logger logger, Throwable throwable, String message);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.util.logging;
+
+import java.lang.annotation.*;
+
+/**
+ * Annotation used by the underlying timing aspect. The latency of every
+ * invocation of the annotated method, together with the number of calls and
+ * errors, is recorded in the {@linkplain
+ * org.kusaidia.util.metrics.TimerRegistry} in place.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Documented
+public @interface Timed {
+    /**
+     * Specifies the name under which the timings are registered. It
+     * defaults to an empty string, meaning the fully qualified name of the
+     * target class followed by {@code #} and the method name.
+     *
+     * @return the name under which the timings are registered
+     */
+    String value() default "";
+}
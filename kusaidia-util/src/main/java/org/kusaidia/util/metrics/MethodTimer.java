@@ -0,0 +1,184 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.util.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency recorder of a single method. Latencies are counted in a
+ * log-linear histogram in the spirit of HdrHistogram: every power of two is
+ * split in 16 linear sub-buckets, which bounds the relative error of the
+ * reported percentiles to about 6%. The bucket counters and the error
+ * counters are striped by thread so that concurrent callers rarely update
+ * the same cache line; the stripes are only merged when a {@linkplain
+ * TimerSnapshot} is taken.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class MethodTimer {
+    /**
+     * the number of bits of the sub-bucket index
+     */
+    private static final int SUB_BUCKET_BITS = 5;
+    /**
+     * the number of sub-buckets of every power of two above the linear range
+     */
+    private static final int SUB_BUCKET_HALF = 1 << (MethodTimer.SUB_BUCKET_BITS - 1);
+    /**
+     * the highest recordable value, larger values are clamped (about 18
+     * minutes in nanoseconds)
+     */
+    private static final long MAX_VALUE = (1L << 40) - 1;
+    /**
+     * the number of buckets of a stripe
+     */
+    static final int BUCKETS = MethodTimer.indexOf(MethodTimer.MAX_VALUE) + 1;
+    /**
+     * the maximum number of stripes
+     */
+    private static final int MAX_STRIPES = 8;
+    /**
+     * the name of the timed method
+     */
+    private final String name;
+    /**
+     * the mask used to map a thread to a stripe
+     */
+    private final int mask;
+    /**
+     * the bucket counters, stripe after stripe
+     */
+    private final AtomicLongArray buckets;
+    /**
+     * the error counters, one per stripe spaced by a cache line
+     */
+    private final AtomicLongArray errors;
+    /**
+     * the highest latency recorded
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Creates a new {@linkplain MethodTimer} with one stripe per available
+     * processor, up to eight.
+     *
+     * @param name the name of the timed method.
+     */
+    public MethodTimer(String name) {
+        int stripes = Integer.highestOneBit(Math.min(MethodTimer.MAX_STRIPES,
+                Runtime.getRuntime().availableProcessors()));
+        this.name = name;
+        this.mask = stripes - 1;
+        this.buckets = new AtomicLongArray(stripes * MethodTimer.BUCKETS);
+        this.errors = new AtomicLongArray(stripes * 8);
+    }
+
+    /**
+     * Returns the name of the timed method.
+     *
+     * @return the name of the timed method.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Records an invocation of the timed method.
+     *
+     * @param nanos the latency of the invocation in nanoseconds.
+     * @param failed whether the invocation threw an error.
+     */
+    public void record(long nanos, boolean failed) {
+        long value = Math.max(0, Math.min(nanos, MethodTimer.MAX_VALUE));
+        int stripe = (int) Thread.currentThread().getId() & this.mask;
+        this.buckets.getAndIncrement(stripe * MethodTimer.BUCKETS +
+                MethodTimer.indexOf(value));
+        if (failed) {
+            this.errors.getAndIncrement(stripe * 8);
+        }
+        long current = this.max.get();
+        while (value > current && !this.max.compareAndSet(current, value)) {
+            current = this.max.get();
+        }
+    }
+
+    /**
+     * Returns a point in time view of the recorded invocations. Invocations
+     * recorded while the snapshot is taken may or may not be included.
+     *
+     * @return a new {@linkplain TimerSnapshot}.
+     */
+    public TimerSnapshot getSnapshot() {
+        long[] counts = new long[MethodTimer.BUCKETS];
+        long calls = 0;
+        for (int stripe = 0; stripe <= this.mask; stripe++) {
+            int offset = stripe * MethodTimer.BUCKETS;
+            for (int i = 0; i < MethodTimer.BUCKETS; i++) {
+                long count = this.buckets.get(offset + i);
+                counts[i] += count;
+                calls += count;
+            }
+        }
+        long failures = 0;
+        for (int stripe = 0; stripe <= this.mask; stripe++) {
+            failures += this.errors.get(stripe * 8);
+        }
+        return new TimerSnapshot(this.name, counts, calls, failures,
+                this.max.get());
+    }
+
+    /**
+     * Returns the index of the bucket counting the specified value.
+     *
+     * @param value the value, between {@code 0} and the highest recordable
+     * value.
+     * @return the index of the bucket counting the value.
+     */
+    static int indexOf(long value) {
+        if (value < 2 * MethodTimer.SUB_BUCKET_HALF) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) -
+                (MethodTimer.SUB_BUCKET_BITS - 1);
+        return shift * MethodTimer.SUB_BUCKET_HALF + (int) (value >>> shift);
+    }
+
+    /**
+     * Returns the highest value counted by the specified bucket.
+     *
+     * @param index the index of the bucket.
+     * @return the highest value counted by the bucket.
+     */
+    static long highestValueOf(int index) {
+        if (index < 2 * MethodTimer.SUB_BUCKET_HALF) {
+            return index;
+        }
+        int shift = index / MethodTimer.SUB_BUCKET_HALF - 1;
+        long subBucket = index % MethodTimer.SUB_BUCKET_HALF +
+                MethodTimer.SUB_BUCKET_HALF;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.util.metrics;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedOperationParameter;
+import org.springframework.jmx.export.annotation.ManagedOperationParameters;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of the {@linkplain MethodTimer} instances fed by the timing
+ * aspect, indexed by name. Declaring this class as a bean makes the timings
+ * queryable from the application, and exporting it through a Spring
+ * {@code MBeanExporter} with annotation based assembly, e.g. with {@code
+ * <context:mbean-export/>}, makes them available through JMX.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@ManagedResource(objectName = "org.kusaidia:type=TimerRegistry",
+        description = "Latency of the @Timed methods")
+public class TimerRegistry {
+    /**
+     * the registered {@linkplain MethodTimer} instances indexed by name
+     */
+    private final ConcurrentMap<String, MethodTimer> timers =
+            new ConcurrentHashMap<String, MethodTimer>();
+
+    /**
+     * Returns the {@linkplain MethodTimer} registered with the specified
+     * name, registering a new one if there is none.
+     *
+     * @param name the name of the timed method.
+     * @return the {@linkplain MethodTimer} registered with the specified
+     *         name.
+     */
+    public MethodTimer getTimer(String name) {
+        MethodTimer timer = this.timers.get(name);
+        if (timer == null) {
+            timer = new MethodTimer(name);
+            MethodTimer existing = this.timers.putIfAbsent(name, timer);
+            timer = (existing != null) ? existing : timer;
+        }
+        return timer;
+    }
+
+    /**
+     * Returns a snapshot of the {@linkplain MethodTimer} registered with the
+     * specified name.
+     *
+     * @param name the name of the timed method.
+     * @return a new {@linkplain TimerSnapshot}, or {@code null} if no timer
+     *         is registered with the specified name.
+     */
+    public TimerSnapshot getSnapshot(String name) {
+        MethodTimer timer = this.timers.get(name);
+        return (timer != null) ? timer.getSnapshot() : null;
+    }
+
+    /**
+     * Returns a snapshot of every registered {@linkplain MethodTimer}.
+     *
+     * @return the list of {@linkplain TimerSnapshot} ordered by name.
+     */
+    public List<TimerSnapshot> getSnapshots() {
+        List<TimerSnapshot> snapshots = new ArrayList<TimerSnapshot>();
+        for (String name : this.getNames()) {
+            snapshots.add(this.timers.get(name).getSnapshot());
+        }
+        return snapshots;
+    }
+
+    /**
+     * Returns the names of the registered {@linkplain MethodTimer}
+     * instances.
+     *
+     * @return the sorted list of names.
+     */
+    @ManagedAttribute(description = "Names of the timed methods")
+    public List<String> getNames() {
+        List<String> names = new ArrayList<String>(this.timers.keySet());
+        Collections.sort(names);
+        return names;
+    }
+
+    /**
+     * Returns a one line summary of the specified timer.
+     *
+     * @param name the name of the timed method.
+     * @return the summary of the timer, or {@code null} if no timer is
+     *         registered with the specified name.
+     */
+    @ManagedOperation(description = "Calls, errors, p50, p99 and max of a " +
+            "timed method")
+    @ManagedOperationParameters({@ManagedOperationParameter(name = "name",
+            description = "Name of the timed method")})
+    public String describe(String name) {
+        TimerSnapshot snapshot = this.getSnapshot(name);
+        return (snapshot != null) ? snapshot.toString() : null;
+    }
+
+    /**
+     * Discards every registered {@linkplain MethodTimer}.
+     */
+    @ManagedOperation(description = "Discards all the recorded timings")
+    public void reset() {
+        this.timers.clear();
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Kusaidia
+ *
+ * Copyright (c) 2012, third-party contributors as indicated by the
+ * @author tags or express copyright attribution statements applied by the authors.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+
+package org.kusaidia.util.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable point in time view of a {@linkplain MethodTimer}. Percentiles are
+ * reported as the highest value of the histogram bucket they fall in, capped
+ * by the highest latency recorded.
+ *
+ * @author Angel L. Villalain Garcia
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class TimerSnapshot {
+    /**
+     * the name of the timed method
+     */
+    private final String name;
+    /**
+     * the merged bucket counters
+     */
+    private final long[] counts;
+    /**
+     * the number of recorded invocations
+     */
+    private final long calls;
+    /**
+     * the number of recorded invocations that threw an error
+     */
+    private final long errors;
+    /**
+     * the highest latency recorded, in nanoseconds
+     */
+    private final long max;
+
+    /**
+     * Creates a new {@linkplain TimerSnapshot}.
+     *
+     * @param name the name of the timed method.
+     * @param counts the merged bucket counters.
+     * @param calls the number of recorded invocations.
+     * @param errors the number of recorded invocations that threw an error.
+     * @param max the highest latency recorded, in nanoseconds.
+     */
+    TimerSnapshot(String name, long[] counts, long calls, long errors,
+                  long max) {
+        this.name = name;
+        this.counts = counts;
+        this.calls = calls;
+        this.errors = errors;
+        this.max = max;
+    }
+
+    /**
+     * Returns the name of the timed method.
+     *
+     * @return the name of the timed method.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Returns the number of recorded invocations.
+     *
+     * @return the number of recorded invocations.
+     */
+    public long getCalls() {
+        return this.calls;
+    }
+
+    /**
+     * Returns the number of recorded invocations that threw an error.
+     *
+     * @return the number of recorded invocations that threw an error.
+     */
+    public long getErrors() {
+        return this.errors;
+    }
+
+    /**
+     * Returns the highest latency recorded.
+     *
+     * @param unit the {@linkplain TimeUnit} of the returned value.
+     * @return the highest latency recorded.
+     */
+    public long getMax(TimeUnit unit) {
+        return unit.convert(this.max, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the median latency.
+     *
+     * @param unit the {@linkplain TimeUnit} of the returned value.
+     * @return the median latency.
+     */
+    public long getP50(TimeUnit unit) {
+        return this.getPercentile(50.0, unit);
+    }
+
+    /**
+     * Returns the 99th percentile latency.
+     *
+     * @param unit the {@linkplain TimeUnit} of the returned value.
+     * @return the 99th percentile latency.
+     */
+    public long getP99(TimeUnit unit) {
+        return this.getPercentile(99.0, unit);
+    }
+
+    /**
+     * Returns the latency below which the specified percentage of the
+     * recorded invocations fall.
+     *
+     * @param percentile the percentage, between {@code 0} and {@code 100}.
+     * @param unit the {@linkplain TimeUnit} of the returned value.
+     * @return the latency at the specified percentile, {@code 0} if nothing
+     *         was recorded.
+     */
+    public long getPercentile(double percentile, TimeUnit unit) {
+        if (this.calls == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(this.calls *
+                Math.min(100.0, percentile) / 100.0));
+        long seen = 0;
+        int index = 0;
+        while (index < this.counts.length - 1) {
+            seen += this.counts[index];
+            if (seen >= rank) {
+                break;
+            }
+            index++;
+        }
+        return unit.convert(Math.min(this.max,
+                MethodTimer.highestValueOf(index)), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @see Object#toString()
+     */
+    @Override
+    public String toString() {
+        TimeUnit unit = TimeUnit.MICROSECONDS;
+        return this.name + " calls=" + this.calls + " errors=" + this.errors +
+                " p50=" + this.getP50(unit) + "us p99=" + this.getP99(unit) +
+                "us max=" + this.getMax(unit) + "us";
+    }
+}
@@ -0,0 +1,72 @@
+package org.kusaidia.util.builder;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.validation.ConstraintViolation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+public class BatchBuilderTest {
+
+    @Test
+    public void testBuildAll() {
+        List<ValidationPlanTest.Builder> builders = new ArrayList<ValidationPlanTest.Builder>();
+        for (int i = 0; i < 1000; i++) {
+            ValidationPlanTest.Builder builder = new ValidationPlanTest.Builder().name("user" + i)
+                    .mode(i % 2 == 0 ? ValidationMode.FULL : ValidationMode.COMPILED);
+            if (i % 100 == 7) {
+                builder.email("user" + i);
+            }
+            builders.add(builder);
+        }
+
+        BatchResult<ValidationPlanTest.Account> result =
+                new BatchBuilder(new ForkJoinPool(4)).buildAll(builders);
+
+        Assert.assertEquals(1000, result.size());
+        Assert.assertEquals(990, result.getBuilt().size());
+        Assert.assertTrue(result.hasViolations());
+        Assert.assertEquals(10, result.getFailedIndexes().length);
+        for (int i = 0; i < 1000; i++) {
+            if (i % 100 == 7) {
+                Assert.assertNull(result.get(i));
+                Assert.assertEquals(1, result.getViolations(i).size());
+                ConstraintViolation<?> violation = result.getViolations(i).iterator().next();
+                Assert.assertEquals("email", violation.getPropertyPath().toString());
+                Assert.assertEquals("user" + i, violation.getInvalidValue());
+            } else {
+                Assert.assertEquals("user" + i, result.get(i).getDisplay());
+                Assert.assertTrue(result.getViolations(i).isEmpty());
+            }
+        }
+        Assert.assertEquals("user0", result.getBuilt().get(0).getDisplay());
+        Assert.assertEquals("user8", result.getBuilt().get(7).getDisplay());
+        Assert.assertTrue(result.toString().startsWith("990 built, 10 failed\n[7] email: "));
+    }
+
+    @Test
+    public void testEmptyBatch() {
+        BatchResult<ValidationPlanTest.Account> result = new BatchBuilder()
+                .buildAll(Collections.<ValidationPlanTest.Builder>emptyList());
+
+        Assert.assertEquals(0, result.size());
+        Assert.assertFalse(result.hasViolations());
+        Assert.assertEquals("0 built, 0 failed", result.toString());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testBuildFailureAbortsBatch() {
+        new BatchBuilder().buildAll(Arrays.asList(new ValidationPlanTest.Builder(), new FailingBuilder()));
+    }
+
+    public static class FailingBuilder extends ValidationPlanTest.Builder {
+        @Override
+        protected ValidationPlanTest.Account buildInternal() {
+            throw new IllegalStateException("broken record");
+        }
+    }
+}
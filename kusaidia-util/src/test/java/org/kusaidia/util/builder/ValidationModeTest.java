@@ -0,0 +1,118 @@
+package org.kusaidia.util.builder;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+
+import javax.validation.ConstraintViolationException;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {"/validation-context.xml"})
+@TestExecutionListeners(listeners = {DependencyInjectionTestExecutionListener.class})
+public class ValidationModeTest {
+
+    @Autowired
+    private ValidationSettings settings;
+
+    @After
+    public void after() {
+        this.settings.setDefaultMode("TRUSTED");
+        this.settings.setSampleRate(1);
+    }
+
+    @Test
+    public void testSettingsFromSpring() {
+        Assert.assertEquals("TRUSTED", this.settings.getDefaultMode());
+        Assert.assertEquals(ValidationMode.TRUSTED, ValidationAwareBuilder.getDefaultValidationMode());
+        Assert.assertEquals(1, ValidationAwareBuilder.getSampleRate());
+
+        this.settings.setDefaultMode("FAIL_FAST");
+        Assert.assertEquals(ValidationMode.FAIL_FAST, ValidationAwareBuilder.getDefaultValidationMode());
+    }
+
+    @Test
+    public void testSkippingModes() {
+        ValidationStatistics statistics = ValidationAwareBuilder.getStatistics();
+        long trusted = statistics.getSkipped(ValidationMode.TRUSTED);
+        long deferred = statistics.getSkipped(ValidationMode.DEFERRED);
+
+        Assert.assertNotNull(new Account().build());
+        Assert.assertNotNull(new Account().build(ValidationMode.DEFERRED));
+
+        Assert.assertEquals(trusted + 1, statistics.getSkipped(ValidationMode.TRUSTED));
+        Assert.assertEquals(deferred + 1, statistics.getSkipped(ValidationMode.DEFERRED));
+    }
+
+    @Test
+    public void testFailFast() {
+        Assert.assertEquals(4, violations(ValidationMode.FULL));
+        Assert.assertEquals(1, violations(ValidationMode.FAIL_FAST));
+    }
+
+    @Test
+    public void testSampled() {
+        ValidationStatistics statistics = ValidationAwareBuilder.getStatistics();
+        long validated = statistics.getValidated(ValidationMode.SAMPLED);
+        long failed = statistics.getFailed(ValidationMode.SAMPLED);
+
+        Assert.assertEquals(4, violations(ValidationMode.SAMPLED));
+        Assert.assertEquals(validated + 1, statistics.getValidated(ValidationMode.SAMPLED));
+        Assert.assertEquals(failed + 1, statistics.getFailed(ValidationMode.SAMPLED));
+
+        this.settings.setSampleRate(Integer.MAX_VALUE);
+        long skipped = statistics.getSkipped(ValidationMode.SAMPLED);
+        for (int i = 0; i < 10; i++) {
+            new Account().build(ValidationMode.SAMPLED);
+        }
+        Assert.assertTrue(statistics.getSkipped(ValidationMode.SAMPLED) >= skipped + 9);
+    }
+
+    @Test
+    public void testStatistics() {
+        ValidationStatistics statistics = ValidationAwareBuilder.getStatistics();
+        statistics.reset();
+
+        new Account().build();
+        new Account().build();
+        violations(ValidationMode.FULL);
+        violations(ValidationMode.COMPILED);
+
+        Assert.assertEquals(2, statistics.getValidated());
+        Assert.assertEquals(2, statistics.getFailed());
+        Assert.assertEquals(2, statistics.getSkipped());
+        Assert.assertEquals("FULL validated=1 failed=1 skipped=0, COMPILED validated=1 failed=1 skipped=0, "
+                + "TRUSTED validated=0 failed=0 skipped=2", this.settings.describe());
+        Assert.assertEquals(2, this.settings.getSkipped());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSampleRate() {
+        this.settings.setSampleRate(0);
+    }
+
+    private static int violations(ValidationMode mode) {
+        try {
+            new Account().build(mode);
+            return 0;
+        } catch (ConstraintViolationException e) {
+            return e.getConstraintViolations().size();
+        }
+    }
+
+    private static class Account extends ValidationPlanTest.Builder {
+        private Account() {
+            name("").email("nope").code("1");
+        }
+
+        @Override
+        protected ValidationMode getValidationMode() {
+            return ValidationAwareBuilder.getDefaultValidationMode();
+        }
+    }
+}
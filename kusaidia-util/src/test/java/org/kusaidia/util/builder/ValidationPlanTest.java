@@ -0,0 +1,217 @@
+package org.kusaidia.util.builder;
+
+import org.hibernate.validator.constraints.Email;
+import org.hibernate.validator.constraints.Length;
+import org.hibernate.validator.constraints.NotBlank;
+import org.hibernate.validator.constraints.NotEmpty;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Valid;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Size;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class ValidationPlanTest {
+
+    private final Validator validator =
+            Validation.buildDefaultValidatorFactory().getValidator();
+
+    @After
+    public void after() {
+        ValidationAwareBuilder.setDefaultValidationMode(ValidationMode.FULL);
+    }
+
+    @Test
+    public void testCompiledTypes() {
+        Assert.assertTrue(ValidationPlan.forClass(Account.class, this.validator).isCompiled());
+        Assert.assertSame(ValidationPlan.forClass(Account.class, this.validator),
+                ValidationPlan.forClass(Account.class, this.validator));
+
+        Assert.assertFalse(ValidationPlan.forClass(Counter.class, this.validator).isCompiled());
+        Assert.assertFalse(ValidationPlan.forClass(Holder.class, this.validator).isCompiled());
+    }
+
+    @Test
+    public void testModesAgree() {
+        List<Builder> builders = Arrays.asList(
+                new Builder(),
+                new Builder().email("jdoe@[10.0.0.1]"),
+                new Builder().email("josé@example.com"),
+                new Builder().email("jdoe@bücher.example"),
+                new Builder().email("JDoe@Example.COM"),
+                new Builder().email("jdoe@example..com"),
+                new Builder().email("jdoe.example.com"),
+                new Builder().email(""),
+                new Builder().email(null),
+                new Builder().name(""),
+                new Builder().name("   "),
+                new Builder().name(null),
+                new Builder().code("ABCdef"),
+                new Builder().code("abc123"),
+                new Builder().code("abcdefghi"),
+                new Builder().tags(),
+                new Builder().tags("a", "b", "c"),
+                new Builder().active(false),
+                new Builder().name("").email("nope").code("1").active(false));
+
+        for (Builder builder : builders) {
+            Assert.assertEquals(builder.toString(),
+                    outcome(builder.mode(ValidationMode.FULL)),
+                    outcome(builder.mode(ValidationMode.COMPILED)));
+        }
+        Assert.assertEquals("valid", outcome(new Builder().mode(ValidationMode.COMPILED)));
+        Assert.assertEquals("[display, email, name]",
+                outcome(new Builder().name("").email("nope").mode(ValidationMode.COMPILED)));
+    }
+
+    @Test
+    public void testUncompiledTypesAreValidated() {
+        ValidationAwareBuilder.setDefaultValidationMode(ValidationMode.COMPILED);
+
+        Assert.assertEquals(ValidationMode.COMPILED, ValidationAwareBuilder.getDefaultValidationMode());
+        Assert.assertEquals("valid", outcome(new CounterBuilder(1)));
+        Assert.assertEquals("[count]", outcome(new CounterBuilder(0)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullDefaultMode() {
+        ValidationAwareBuilder.setDefaultValidationMode(null);
+    }
+
+    private static String outcome(ValidationAwareBuilder<?, ?> builder) {
+        try {
+            builder.build();
+            return "valid";
+        } catch (ConstraintViolationException e) {
+            Set<String> paths = new TreeSet<String>();
+            for (ConstraintViolation<?> violation : e.getConstraintViolations()) {
+                paths.add(violation.getPropertyPath().toString());
+            }
+            return paths.toString();
+        } catch (RuntimeException e) {
+            return e.getClass().getName();
+        }
+    }
+
+    public static class Account {
+        @NotEmpty
+        private String name;
+
+        @NotNull
+        @Email(regexp = "[a-z.]+@.+", flags = Pattern.Flag.CASE_INSENSITIVE)
+        private String email;
+
+        @Length(max = 8)
+        @Pattern(regexp = "[a-z]*", flags = Pattern.Flag.CASE_INSENSITIVE)
+        private String code;
+
+        @Size(min = 1, max = 2)
+        private List<String> tags;
+
+        @AssertTrue
+        private boolean active;
+
+        @NotBlank
+        public String getDisplay() {
+            return this.name;
+        }
+    }
+
+    public static class Builder extends ValidationAwareBuilder<Account, Builder> {
+        private ValidationMode mode = ValidationMode.FULL;
+        private String name = "jdoe";
+        private String email = "jdoe@example.com";
+        private String code = "abc";
+        private List<String> tags = Collections.singletonList("a");
+        private boolean active = true;
+
+        public Builder mode(ValidationMode mode) {
+            this.mode = mode;
+            return this;
+        }
+
+        public Builder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public Builder email(String email) {
+            this.email = email;
+            return this;
+        }
+
+        public Builder code(String code) {
+            this.code = code;
+            return this;
+        }
+
+        public Builder tags(String... tags) {
+            this.tags = Arrays.asList(tags);
+            return this;
+        }
+
+        public Builder active(boolean active) {
+            this.active = active;
+            return this;
+        }
+
+        @Override
+        protected ValidationMode getValidationMode() {
+            return this.mode;
+        }
+
+        @Override
+        protected Account buildInternal() {
+            Account account = new Account();
+            account.name = this.name;
+            account.email = this.email;
+            account.code = this.code;
+            account.tags = this.tags;
+            account.active = this.active;
+            return account;
+        }
+
+        @Override
+        public String toString() {
+            return this.name + " " + this.email + " " + this.code + " " + this.tags + " " + this.active;
+        }
+    }
+
+    public static class Counter {
+        @Min(1)
+        private int count;
+    }
+
+    public static class CounterBuilder extends ValidationAwareBuilder<Counter, CounterBuilder> {
+        private final int count;
+
+        public CounterBuilder(int count) {
+            this.count = count;
+        }
+
+        @Override
+        protected Counter buildInternal() {
+            Counter counter = new Counter();
+            counter.count = this.count;
+            return counter;
+        }
+    }
+
+    public static class Holder {
+        @Valid
+        private Account account;
+    }
+}
@@ -0,0 +1,62 @@
+package org.kusaidia.util.i18n;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.context.NoSuchMessageException;
+import org.springframework.context.support.StaticMessageSource;
+
+import java.util.Locale;
+
+public class CachingMessageSourceTest {
+
+    @Test
+    public void testTemplatesCachedUntilCleared() {
+        StaticMessageSource delegate = new StaticMessageSource();
+        delegate.addMessage("log.message", Locale.US, "first {0}");
+        CachingMessageSource source = new CachingMessageSource(delegate);
+
+        Assert.assertEquals("first a", source.getMessage("log.message",
+                new Object[]{"a"}, Locale.US));
+        Assert.assertSame(source.getTemplate("log.message", null, Locale.US),
+                source.getTemplate("log.message", null, Locale.US));
+
+        delegate.addMessage("log.message", Locale.US, "second {0}");
+        Assert.assertEquals("first a", source.getMessage("log.message",
+                new Object[]{"a"}, Locale.US));
+
+        long generation = source.getGeneration();
+        source.clearCache();
+        Assert.assertEquals(generation + 1, source.getGeneration());
+        Assert.assertEquals("second a", source.getMessage("log.message",
+                new Object[]{"a"}, Locale.US));
+    }
+
+    @Test
+    public void testDefaultMessage() {
+        CachingMessageSource source = new CachingMessageSource(
+                new StaticMessageSource());
+
+        Assert.assertEquals("[ leaving < get > ]", source.getMessage(
+                "log.void.return.message", new Object[]{"get"},
+                "[ leaving < {0} > ]", Locale.US));
+        Assert.assertEquals("[ leaving < {0} > ]", source.getMessage(
+                "log.void.return.message", null, "[ leaving < {0} > ]",
+                Locale.US));
+    }
+
+    @Test
+    public void testInvalidPatternWithoutArguments() {
+        StaticMessageSource delegate = new StaticMessageSource();
+        delegate.addMessage("log.message", Locale.US, "unmatched {0");
+        CachingMessageSource source = new CachingMessageSource(delegate);
+
+        Assert.assertEquals(delegate.getMessage("log.message", null,
+                Locale.US), source.getMessage("log.message", null, Locale.US));
+    }
+
+    @Test(expected = NoSuchMessageException.class)
+    public void testNoSuchMessage() {
+        new CachingMessageSource(new StaticMessageSource()).getMessage(
+                "missing", null, Locale.US);
+    }
+}
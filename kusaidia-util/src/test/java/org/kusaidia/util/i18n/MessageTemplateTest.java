@@ -0,0 +1,98 @@
+package org.kusaidia.util.i18n;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.text.MessageFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+public class MessageTemplateTest {
+
+    private static final String PATTERN = "[ entering < {0} > with params {1} ]";
+
+    @Test
+    public void testSimplePlaceholders() {
+        MessageTemplate template = MessageTemplate.compile(PATTERN, Locale.US);
+
+        Assert.assertEquals("[ entering < add > with params 1, 2 ]",
+                template.format("add", "1, 2"));
+    }
+
+    @Test
+    public void testMissingArguments() {
+        MessageTemplate template = MessageTemplate.compile(PATTERN, Locale.US);
+
+        Assert.assertEquals(new MessageFormat(PATTERN, Locale.US).format(
+                new Object[]{"add"}), template.format("add"));
+        Assert.assertEquals("[ entering < {0} > with params {1} ]",
+                template.format((Object[]) null));
+    }
+
+    @Test
+    public void testQuotes() {
+        String pattern = "it''s '{0}' {0}";
+        MessageTemplate template = MessageTemplate.compile(pattern, Locale.US);
+
+        Assert.assertEquals(new MessageFormat(pattern, Locale.US).format(
+                new Object[]{"value"}), template.format("value"));
+    }
+
+    @Test
+    public void testDateLikeMessageFormat() {
+        Date date = new Date(0L);
+        MessageTemplate template = MessageTemplate.compile("{0}", Locale.US);
+
+        Assert.assertEquals(new MessageFormat("{0}", Locale.US).format(
+                new Object[]{date}), template.format(date));
+    }
+
+    @Test
+    public void testNumbersNotLocalized() {
+        MessageTemplate template = MessageTemplate.compile("{0} {1}",
+                Locale.US);
+
+        Assert.assertEquals("12345 0.25", template.format(12345,
+                new BigDecimal("0.25")));
+    }
+
+    @Test
+    public void testTypedPlaceholderFallback() {
+        MessageTemplate template = MessageTemplate.compile("{0,number,#.#}",
+                Locale.US);
+
+        Assert.assertEquals("1.5", template.format(1.5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnmatchedBraces() {
+        MessageTemplate.compile("{0", Locale.US).format("value");
+    }
+
+    @Test
+    public void testUnmatchedBracesWithoutArguments() {
+        MessageTemplate template = MessageTemplate.compile("{0", Locale.US);
+
+        Assert.assertEquals("{0", template.format());
+        Assert.assertEquals("{0", template.format((Object[]) null));
+    }
+
+    @Test
+    public void testDateFollowsDefaultTimeZone() {
+        TimeZone timeZone = TimeZone.getDefault();
+        Date date = new Date(0L);
+        MessageTemplate template = MessageTemplate.compile("{0}", Locale.US);
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+            Assert.assertEquals("1/1/70 12:00 AM", template.format(date));
+            TimeZone.setDefault(TimeZone.getTimeZone("America/Puerto_Rico"));
+            Assert.assertEquals(new MessageFormat("{0}", Locale.US).format(
+                    new Object[]{date}), template.format(date));
+            Assert.assertEquals("12/31/69 8:00 PM", template.format(date));
+        } finally {
+            TimeZone.setDefault(timeZone);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package org.kusaidia.util.logging;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class AsyncLogTest {
+
+    @Test
+    public void testFlushOnStop() {
+        MockLogger mockLogger = new MockLogger();
+        AsyncLog asyncLog = new AsyncLog(mockLogger, 16);
+        asyncLog.start();
+        for (int i = 0; i < 100; i++) {
+            asyncLog.log(LogLevel.INFO, AsyncLogTest.class, null, "message " + i);
+        }
+        asyncLog.stop();
+
+        Assert.assertEquals(100, mockLogger.getMessages(AsyncLogTest.class).size());
+        Assert.assertEquals("message 0",
+                mockLogger.getMessages(AsyncLogTest.class).get(0).getMessage());
+        Assert.assertEquals("message 99",
+                mockLogger.getMessages(AsyncLogTest.class).get(99).getMessage());
+        Assert.assertEquals(100, asyncLog.getQueuedCount());
+        Assert.assertEquals(100, asyncLog.getFlushedCount());
+        Assert.assertEquals(0, asyncLog.getDroppedCount());
+    }
+
+    @Test
+    public void testDeferredFormatting() {
+        MockLogger mockLogger = new MockLogger();
+        AsyncLog asyncLog = new AsyncLog(mockLogger, 16);
+        asyncLog.start();
+        asyncLog.log(LogLevel.INFO, AsyncLogTest.class, null, "message {0}", 1);
+        asyncLog.stop();
+
+        Assert.assertEquals("message 1",
+                mockLogger.getMessages(AsyncLogTest.class).get(0).getMessage());
+    }
+
+    @Test
+    public void testSynchronousWhenNotRunning() {
+        MockLogger mockLogger = new MockLogger();
+        AsyncLog asyncLog = new AsyncLog(mockLogger, 16);
+        asyncLog.log(LogLevel.INFO, AsyncLogTest.class, null, "message");
+
+        Assert.assertEquals(1, mockLogger.getMessages(AsyncLogTest.class).size());
+        Assert.assertEquals(0, asyncLog.getQueuedCount());
+    }
+
+    @Test
+    public void testDiscardByLevel() throws Exception {
+        BlockingLog blockingLog = new BlockingLog();
+        AsyncLog asyncLog = new AsyncLog(blockingLog, 16);
+        asyncLog.setOverflowPolicy(AsyncLog.OverflowPolicy.DISCARD_BY_LEVEL);
+        asyncLog.setDiscardThreshold(0.5);
+        asyncLog.start();
+        // the first event keeps the consumer busy until released
+        asyncLog.log(LogLevel.INFO, AsyncLogTest.class, null, "first");
+        Assert.assertTrue(blockingLog.entered.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 32; i++) {
+            asyncLog.log(LogLevel.TRACE, AsyncLogTest.class, null, "trace");
+            asyncLog.log(LogLevel.WARN, AsyncLogTest.class, null, "warn");
+        }
+        blockingLog.release.countDown();
+        asyncLog.stop();
+
+        Assert.assertTrue(asyncLog.getDroppedCount() > 0);
+        Assert.assertEquals(65, asyncLog.getQueuedCount() +
+                asyncLog.getDroppedCount());
+        Assert.assertEquals(asyncLog.getQueuedCount(),
+                asyncLog.getFlushedCount());
+        Assert.assertTrue(blockingLog.warnings > blockingLog.traces);
+    }
+
+    @Test
+    public void testDelegateFailuresAreCounted() {
+        MockLogger mockLogger = new MockLogger() {
+            @Override
+            public void log(LogLevel logLevel, Class<?> clazz,
+                            Throwable throwable, String pattern) {
+                if (pattern.startsWith("fail")) {
+                    throw new IllegalStateException(pattern);
+                }
+                super.log(logLevel, clazz, throwable, pattern);
+            }
+        };
+        AsyncLog asyncLog = new AsyncLog(mockLogger, 16);
+        asyncLog.start();
+        asyncLog.log(LogLevel.INFO, AsyncLogTest.class, null, "fail 1");
+        asyncLog.log(LogLevel.INFO, AsyncLogTest.class, null, "message");
+        asyncLog.log(LogLevel.INFO, AsyncLogTest.class, null, "fail 2");
+        asyncLog.stop();
+
+        Assert.assertEquals(1, mockLogger.getMessages(AsyncLogTest.class).size());
+        Assert.assertEquals(3, asyncLog.getQueuedCount());
+        Assert.assertEquals(1, asyncLog.getFlushedCount());
+        Assert.assertEquals(2, asyncLog.getFailedCount());
+    }
+
+    @Test
+    public void testStartWaitsForPreviousConsumer() throws Exception {
+        BlockingLog blockingLog = new BlockingLog();
+        AsyncLog asyncLog = new AsyncLog(blockingLog, 16);
+        asyncLog.setShutdownTimeout(50);
+        asyncLog.start();
+        asyncLog.log(LogLevel.INFO, AsyncLogTest.class, null, "first");
+        Assert.assertTrue(blockingLog.entered.await(5, TimeUnit.SECONDS));
+        asyncLog.stop();
+        try {
+            asyncLog.start();
+            Assert.fail("a second consumer thread was started");
+        } catch (IllegalStateException e) {
+        Assert.assertFalse(asyncLog.isRunning());
+        }
+        blockingLog.release.countDown();
+        asyncLog.setShutdownTimeout(5000);
+        asyncLog.start();
+        Assert.assertTrue(asyncLog.isRunning());
+        asyncLog.stop();
+        Assert.assertEquals(1, asyncLog.getFlushedCount());
+    }
+
+    @Test
+    public void testConsumerLogsWhileBufferIsFull() throws Exception {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        MockLogger mockLogger = new MockLogger();
+        final AsyncLog asyncLog = new AsyncLog(mockLogger, 16);
+        Object argument = new Object() {
+            @Override
+            public String toString() {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                asyncLog.log(LogLevel.INFO, AsyncLogTest.class, null, "nested");
+                return "argument";
+            }
+        };
+        asyncLog.start();
+        asyncLog.log(LogLevel.INFO, AsyncLogTest.class, null, "outer {0}", argument);
+        Assert.assertTrue(entered.await(5, TimeUnit.SECONDS));
+        // the consumer thread renders the argument while the buffer is full
+        for (int i = 0; i < 16; i++) {
+            asyncLog.log(LogLevel.INFO, AsyncLogTest.class, null, "message " + i);
+        }
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (asyncLog.getFlushedCount() < 18 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(18, asyncLog.getFlushedCount());
+        asyncLog.stop();
+
+        Assert.assertEquals(18, mockLogger.getMessages(AsyncLogTest.class).size());
+        Assert.assertEquals("nested",
+                mockLogger.getMessages(AsyncLogTest.class).get(0).getMessage());
+        Assert.assertEquals("outer argument",
+                mockLogger.getMessages(AsyncLogTest.class).get(1).getMessage());
+    }
+
+    private static class BlockingLog implements Log {
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private int traces;
+        private int warnings;
+
+        public boolean isLogLevelEnabled(LogLevel level, Class<?> clazz) {
+            return true;
+        }
+
+        public void log(LogLevel level, Class<?> clazz, Throwable throwable,
+                        String message) {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (level == LogLevel.TRACE) {
+                traces++;
+            } else if (level == LogLevel.WARN) {
+                warnings++;
+            }
+        }
+
+        public void log(LogLevel level, Class<?> clazz, Throwable throwable,
+                        String pattern, Object... arguments) {
+            log(level, clazz, throwable, pattern);
+        }
+
+        public void logEvent(LogEvent event) {
+            log(event.getLevel(), event.getSourceClass(), event.getThrowable(),
+                    event.getMethodName());
+        }
+    }
+}
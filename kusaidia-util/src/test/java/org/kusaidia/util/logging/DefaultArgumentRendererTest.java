@@ -0,0 +1,61 @@
+package org.kusaidia.util.logging;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class DefaultArgumentRendererTest {
+
+    private final ArgumentRenderer renderer = new DefaultArgumentRenderer();
+
+    private String render(Object value, int maxLength, int maxElements) {
+        StringBuilder buffer = new StringBuilder();
+        renderer.render(value, maxLength, maxElements, buffer);
+        return buffer.toString();
+    }
+
+    @Test
+    public void testScalar() {
+        Assert.assertEquals("100", render(100, 256, 10));
+        Assert.assertEquals("null", render(null, 256, 10));
+    }
+
+    @Test
+    public void testTruncatedCharSequence() {
+        Assert.assertEquals("abc...", render("abcdef", 3, 10));
+    }
+
+    @Test
+    public void testPrimitiveArray() {
+        Assert.assertEquals("byte[4096]{0, 0, 0, ...}",
+                render(new byte[4096], 256, 3));
+        Assert.assertEquals("int[0]{}", render(new int[0], 256, 3));
+    }
+
+    @Test
+    public void testCollection() {
+        List<Integer> list = new ArrayList<Integer>(Arrays.asList(1, 2, 3));
+        Assert.assertEquals("ArrayList[3]{1, 2, 3}", render(list, 256, 3));
+        Assert.assertEquals("ArrayList[3]{1, ...}", render(list, 256, 1));
+    }
+
+    @Test
+    public void testMap() {
+        Map<String, Integer> map = new LinkedHashMap<String, Integer>();
+        map.put("a", 1);
+        map.put("b", 2);
+        Assert.assertEquals("LinkedHashMap[2]{a=1, ...}", render(map, 256, 1));
+    }
+
+    @Test
+    public void testNestedContainerBoundedByLength() {
+        List<Object> list = new ArrayList<Object>();
+        list.add(list);
+        Assert.assertTrue(render(list, 64, 10).length() < 128);
+    }
+}
@@ -0,0 +1,98 @@
+package org.kusaidia.util.logging;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+public class JsonLogEventEncoderTest {
+
+    private final JsonLogEventEncoder encoder = new JsonLogEventEncoder();
+
+    @Test
+    public void testLeavingEvent() {
+        LogEvent event = builder(LogEvent.Type.LEAVING)
+                .arguments(new Object[]{17, -25L, null, true, 1.5, "text"})
+                .returnValue(42L).duration(1520L).build();
+
+        Assert.assertEquals("{\"timestamp\":1349049600000,\"level\":\"DEBUG\"," +
+                "\"type\":\"LEAVING\",\"class\":\"java.lang.String\"," +
+                "\"method\":\"add\",\"thread\":\"main\"," +
+                "\"arguments\":[17,-25,null,true,1.5,\"text\"]," +
+                "\"return\":42,\"duration\":1520}\n", encode(event));
+    }
+
+    @Test
+    public void testContext() {
+        LogContext.put("request", "42af");
+        LogContext.put("user", "jdoe");
+        LogEvent event;
+        try {
+            event = builder(LogEvent.Type.ENTERING).build();
+        } finally {
+            LogContext.clear();
+        }
+
+        Assert.assertTrue(encode(event).contains(",\"thread\":\"main\"," +
+                "\"context\":{\"request\":\"42af\",\"user\":\"jdoe\"}"));
+    }
+
+    @Test
+    public void testThrowingEvent() {
+        LogEvent event = builder(LogEvent.Type.THROWING)
+                .throwable(new IllegalStateException("failed")).build();
+
+        Assert.assertTrue(encode(event).endsWith(",\"exception\":" +
+                "\"java.lang.IllegalStateException\"," +
+                "\"exceptionMessage\":\"failed\"}\n"));
+    }
+
+    @Test
+    public void testRenderedValues() {
+        LogEvent event = builder(LogEvent.Type.LEAVING)
+                .returnValue(Arrays.asList("a", "b")).build();
+
+        Assert.assertTrue(encode(event).contains(
+                ",\"return\":\"ArrayList[2]{a, b}\""));
+
+        event = builder(LogEvent.Type.LEAVING)
+                .returnValue(Double.NaN).build();
+
+        Assert.assertTrue(encode(event).contains(",\"return\":\"NaN\""));
+    }
+
+    @Test
+    public void testEscaping() {
+        LogEvent event = builder(LogEvent.Type.ENTERING)
+                .arguments(new Object[]{"\"q\" \\ \n\t\u0001 é€😀"})
+                .build();
+
+        Assert.assertTrue(encode(event).contains(
+                "[\"\\\"q\\\" \\\\ \\n\\t\\u0001 é€😀\"]"));
+    }
+
+    @Test
+    public void testOverflow() {
+        LogEvent event = builder(LogEvent.Type.ENTERING).build();
+        ByteBuffer buffer = ByteBuffer.allocate(32);
+        buffer.put((byte) 'x');
+
+        Assert.assertEquals(-1, encoder.encode(event, buffer));
+        Assert.assertEquals(1, buffer.position());
+    }
+
+    private LogEvent.Builder builder(LogEvent.Type type) {
+        return new LogEvent.Builder(type, LogLevel.DEBUG, String.class, "add")
+                .threadName("main").timestamp(1349049600000L);
+    }
+
+    private String encode(LogEvent event) {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        int length = encoder.encode(event, buffer);
+
+        Assert.assertEquals(buffer.position(), length);
+        return new String(buffer.array(), 0, length, Charset.forName("UTF-8"));
+    }
+}
@@ -0,0 +1,102 @@
+package org.kusaidia.util.logging;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class LogContextTest {
+
+    @After
+    public void after() {
+        LogContext.clear();
+    }
+
+    @Test
+    public void testPutGetRemove() {
+        LogContext.put("request", "1");
+        LogContext.put("user", "jdoe");
+        LogContext.put("request", "2");
+
+        Assert.assertEquals("2", LogContext.get("request"));
+        Assert.assertEquals("{request=2, user=jdoe}", LogContext.capture().toString());
+
+        LogContext.remove("request");
+        Assert.assertNull(LogContext.get("request"));
+        Assert.assertEquals(1, LogContext.capture().size());
+
+        LogContext.put("user", null);
+        Assert.assertTrue(LogContext.capture().isEmpty());
+    }
+
+    @Test
+    public void testSnapshotIsImmutable() {
+        LogContext.put("request", "1");
+        LogContext.Snapshot snapshot = LogContext.capture();
+        LogContext.put("request", "2");
+
+        Assert.assertEquals("1", snapshot.get("request"));
+
+        LogContext.Snapshot previous = LogContext.restore(snapshot);
+        Assert.assertEquals("1", LogContext.get("request"));
+        Assert.assertEquals("2", previous.get("request"));
+    }
+
+    @Test
+    public void testExecutorService() throws Exception {
+        ExecutorService executor = new ContextExecutorService(
+                Executors.newSingleThreadExecutor());
+        Callable<String> task = new Callable<String>() {
+            public String call() {
+                return LogContext.get("request");
+            }
+        };
+        try {
+            // the worker thread has no context of its own
+            Assert.assertNull(executor.submit(task).get());
+
+            LogContext.put("request", "1");
+            Future<String> first = executor.submit(task);
+            LogContext.put("request", "2");
+            List<Future<String>> all = executor.invokeAll(Arrays.asList(task, task));
+            LogContext.clear();
+
+            Assert.assertEquals("1", first.get());
+            Assert.assertEquals("2", all.get(0).get());
+            Assert.assertEquals("2", all.get(1).get());
+            // the context of the worker thread is restored after each task
+            Assert.assertNull(executor.submit(task).get());
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testAsyncLog() {
+        MockLogger mockLogger = new MockLogger() {
+            @Override
+            public void log(LogLevel logLevel, Class<?> clazz, Throwable throwable,
+                            String pattern, Object... arguments) {
+                super.log(logLevel, clazz, throwable, pattern + " " +
+                        LogContext.get("request"), arguments);
+            }
+        };
+        AsyncLog asyncLog = new AsyncLog(mockLogger, 16);
+        asyncLog.start();
+        LogContext.put("request", "42af");
+        asyncLog.log(LogLevel.INFO, LogContextTest.class, null, "message {0}", 1);
+        LogContext.clear();
+        asyncLog.stop();
+
+        Assert.assertEquals("message 1 42af",
+                mockLogger.getMessages(LogContextTest.class).get(0).getMessage());
+    }
+}
@@ -0,0 +1,71 @@
+package org.kusaidia.util.logging;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class LogLevelOverridesTest {
+
+    private final LogLevelOverrides overrides = new LogLevelOverrides();
+
+    @Test
+    public void testNoOverrides() {
+        Assert.assertNull(overrides.getLevel(String.class, "length"));
+        Assert.assertEquals(0L, overrides.getGeneration());
+    }
+
+    @Test
+    public void testClassAndMethodPatterns() {
+        overrides.setOverride("java.lang.String", LogLevel.INFO);
+        overrides.setOverride("java.lang.String#length", LogLevel.WARN);
+
+        Assert.assertEquals(LogLevel.WARN, overrides.getLevel(String.class, "length"));
+        Assert.assertEquals(LogLevel.INFO, overrides.getLevel(String.class, "trim"));
+        Assert.assertNull(overrides.getLevel(Integer.class, "intValue"));
+    }
+
+    @Test
+    public void testWildcards() {
+        overrides.setOverride("java.*", LogLevel.DEBUG);
+        overrides.setOverride("java.lang.*", LogLevel.INFO);
+        overrides.setOverride("*#get*", LogLevel.WARN);
+
+        Assert.assertEquals(LogLevel.INFO, overrides.getLevel(String.class, "trim"));
+        Assert.assertEquals(LogLevel.DEBUG, overrides.getLevel(java.util.Date.class, "before"));
+        Assert.assertEquals(LogLevel.WARN, overrides.getLevel(java.util.Date.class, "getTime"));
+        Assert.assertNull(overrides.getLevel(Test.class, "timeout"));
+    }
+
+    @Test
+    public void testChangesInvalidateDecisions() {
+        overrides.setOverride("java.lang.String", LogLevel.INFO);
+        Assert.assertEquals(LogLevel.INFO, overrides.getLevel(String.class, "trim"));
+
+        overrides.setOverride("java.lang.String", LogLevel.ERROR);
+        Assert.assertEquals(LogLevel.ERROR, overrides.getLevel(String.class, "trim"));
+
+        overrides.removeOverride("java.lang.String");
+        Assert.assertNull(overrides.getLevel(String.class, "trim"));
+        Assert.assertEquals(3L, overrides.getGeneration());
+    }
+
+    @Test
+    public void testManagedOperations() {
+        overrides.override("java.lang.String#trim", "debug");
+        overrides.setOverrides(Collections.singletonMap("java.lang.Integer",
+                LogLevel.WARN));
+
+        Assert.assertEquals(Arrays.asList("java.lang.Integer=WARN"),
+                overrides.getDescriptions());
+
+        overrides.clear();
+        Assert.assertTrue(overrides.getOverrides().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownLevel() {
+        overrides.override("java.lang.String", "VERBOSE");
+    }
+}
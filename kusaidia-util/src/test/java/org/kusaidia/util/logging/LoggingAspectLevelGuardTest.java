@@ -0,0 +1,66 @@
+package org.kusaidia.util.logging;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.kusaidia.util.aspect.LoggingAspect;
+import org.kusaidia.util.logging.bean.SimpleBean;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {
+        "/aop-context.xml",
+        "/application-context.xml",
+        "/logger-test-context.xml"})
+@TestExecutionListeners(listeners = {DependencyInjectionTestExecutionListener.class})
+public class LoggingAspectLevelGuardTest {
+
+    @Autowired
+    @Qualifier("logger")
+    private Log logger;
+
+    private MockLogger mockLogger;
+
+    @Autowired
+    private LoggingAspect loggingAspect;
+
+    @Autowired
+    @Qualifier(value = "simpleBean")
+    private SimpleBean simpleBean;
+
+    @Before
+    public void before() throws Exception {
+        this.mockLogger = (MockLogger) ((Advised) this.logger).getTargetSource().getTarget();
+        this.mockLogger.setLogLevel(SimpleBean.class, LogLevel.DEBUG);
+        this.mockLogger.resetLoggers();
+    }
+
+    @After
+    public void after() {
+        this.loggingAspect.setLevelGuardEnabled(true);
+        this.mockLogger.setLogLevel(SimpleBean.class, LogLevel.TRACE);
+    }
+
+    @Test
+    public void testLevelDisabled_GuardEnabled() {
+        simpleBean.getIntegerProperty();
+
+        Assert.assertTrue(mockLogger.getMessages(SimpleBean.class).isEmpty());
+    }
+
+    @Test
+    public void testLevelDisabled_GuardDisabled() {
+        this.loggingAspect.setLevelGuardEnabled(false);
+        simpleBean.getIntegerProperty();
+
+        Assert.assertEquals(2, mockLogger.getMessages(SimpleBean.class).size());
+    }
+}
@@ -0,0 +1,158 @@
+package org.kusaidia.util.logging;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.kusaidia.util.aspect.LoggingAspect;
+import org.kusaidia.util.aspect.Ticker;
+import org.kusaidia.util.logging.bean.LimitedBean;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+
+import java.util.concurrent.TimeUnit;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {
+        "/aop-context.xml",
+        "/application-context.xml",
+        "/logger-test-context.xml"})
+@TestExecutionListeners(listeners = {DependencyInjectionTestExecutionListener.class})
+public class LoggingAspectLimiterTest {
+
+    @Autowired
+    @Qualifier("logger")
+    private Log logger;
+
+    private MockLogger mockLogger;
+
+    @Autowired
+    private LoggingAspect loggingAspect;
+
+    @Autowired
+    private LogLevelOverrides levelOverrides;
+
+    private ManualTicker ticker;
+
+    @Autowired
+    @Qualifier(value = "limitedBean")
+    private LimitedBean limitedBean;
+
+    @Before
+    public void before() throws Exception {
+        this.mockLogger = (MockLogger) ((Advised) this.logger).getTargetSource().getTarget();
+        this.mockLogger.setLogLevel(LimitedBean.class, LogLevel.TRACE);
+        this.mockLogger.resetLoggers();
+        this.ticker = new ManualTicker();
+        this.loggingAspect.setTicker(this.ticker);
+    }
+
+    @After
+    public void after() {
+        this.loggingAspect.setTicker(Ticker.SYSTEM);
+        this.loggingAspect.setLevelGuardEnabled(true);
+        this.levelOverrides.clear();
+    }
+
+    @Test
+    public void testSampleRate() {
+        for (int i = 0; i < 10; i++) {
+            limitedBean.sampled();
+        }
+
+        Assert.assertEquals(10, mockLogger.getMessages(LimitedBean.class).size());
+    }
+
+    @Test
+    public void testMaxPerSecond() {
+        for (int i = 0; i < 100; i++) {
+            limitedBean.rateLimited();
+        }
+
+        Assert.assertEquals(4, mockLogger.getMessages(LimitedBean.class).size());
+
+        ticker.advance(TimeUnit.SECONDS.toNanos(1));
+        for (int i = 0; i < 100; i++) {
+            limitedBean.rateLimited();
+        }
+
+        Assert.assertEquals(8, mockLogger.getMessages(LimitedBean.class).size());
+    }
+
+    @Test
+    public void testSuppressedReport() {
+        for (int i = 0; i < 100; i++) {
+            limitedBean.rateLimited();
+        }
+        ticker.advance(TimeUnit.SECONDS.toNanos(10));
+        limitedBean.rateLimited();
+
+        Assert.assertEquals(7, mockLogger.getMessages(LimitedBean.class).size());
+        Assert.assertEquals(
+                "[ suppressed < rateLimited > 98 events in the last 10 seconds ]",
+                mockLogger.getMessages(LimitedBean.class).get(4).getMessage());
+    }
+
+    @Test
+    public void testLimiterSurvivesOverrides() {
+        for (int i = 0; i < 100; i++) {
+            limitedBean.rateLimited();
+        }
+        levelOverrides.setOverride("org.kusaidia.util.logging.bean.Simple*",
+                LogLevel.DEBUG);
+        for (int i = 0; i < 100; i++) {
+            limitedBean.rateLimited();
+        }
+
+        Assert.assertEquals(4, mockLogger.getMessages(LimitedBean.class).size());
+
+        ticker.advance(TimeUnit.SECONDS.toNanos(10));
+        limitedBean.rateLimited();
+
+        Assert.assertEquals(7, mockLogger.getMessages(LimitedBean.class).size());
+        Assert.assertEquals(
+                "[ suppressed < rateLimited > 198 events in the last 10 seconds ]",
+                mockLogger.getMessages(LimitedBean.class).get(4).getMessage());
+    }
+
+    @Test
+    public void testErrorsBypassTheLimiter() {
+        this.loggingAspect.setLevelGuardEnabled(false);
+        for (int i = 0; i < 5; i++) {
+            try {
+                limitedBean.failing();
+                Assert.fail();
+            } catch (IllegalStateException e) {
+                Assert.assertEquals("failing", e.getMessage());
+            }
+        }
+
+        int errors = 0;
+        for (MockLogger.LogMessage message :
+                mockLogger.getMessages(LimitedBean.class)) {
+            if (message.getLogLevel() == LogLevel.ERROR) {
+                errors++;
+            }
+        }
+        Assert.assertEquals(6, mockLogger.getMessages(LimitedBean.class).size());
+        Assert.assertEquals(5, errors);
+    }
+
+    private static class ManualTicker implements Ticker {
+        private long now;
+
+        public long read() {
+            return now;
+        }
+
+        private void advance(long nanos) {
+            now += nanos;
+        }
+    }
+}
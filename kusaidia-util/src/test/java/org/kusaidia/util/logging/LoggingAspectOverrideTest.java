@@ -0,0 +1,81 @@
+package org.kusaidia.util.logging;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.kusaidia.util.logging.bean.SimpleBean;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {
+        "/aop-context.xml",
+        "/application-context.xml",
+        "/logger-test-context.xml"})
+@TestExecutionListeners(listeners = {DependencyInjectionTestExecutionListener.class})
+public class LoggingAspectOverrideTest {
+
+    @Autowired
+    @Qualifier("logger")
+    private Log logger;
+
+    private MockLogger mockLogger;
+
+    @Autowired
+    private LogLevelOverrides levelOverrides;
+
+    @Autowired
+    @Qualifier(value = "simpleBean")
+    private SimpleBean simpleBean;
+
+    @Before
+    public void before() throws Exception {
+        this.mockLogger = (MockLogger) ((Advised) this.logger).getTargetSource().getTarget();
+        this.mockLogger.setLogLevel(SimpleBean.class, LogLevel.DEBUG);
+        this.mockLogger.resetLoggers();
+    }
+
+    @After
+    public void after() {
+        this.levelOverrides.clear();
+        this.mockLogger.setLogLevel(SimpleBean.class, LogLevel.TRACE);
+    }
+
+    @Test
+    public void testMethodOverride() {
+        simpleBean.getIntegerProperty();
+        Assert.assertTrue(mockLogger.getMessages(SimpleBean.class).isEmpty());
+
+        levelOverrides.setOverride(SimpleBean.class.getName() +
+                "#getIntegerProperty", LogLevel.DEBUG);
+        simpleBean.getIntegerProperty();
+        simpleBean.getStringProperty();
+
+        Assert.assertEquals(2, mockLogger.getMessages(SimpleBean.class).size());
+        for (MockLogger.LogMessage message : mockLogger.getMessages(SimpleBean.class)) {
+            Assert.assertEquals(LogLevel.DEBUG, message.getLogLevel());
+        }
+
+        levelOverrides.clear();
+        mockLogger.resetLoggers();
+        simpleBean.getIntegerProperty();
+        Assert.assertTrue(mockLogger.getMessages(SimpleBean.class).isEmpty());
+    }
+
+    @Test
+    public void testClassOverride() {
+        levelOverrides.setOverride("org.kusaidia.util.logging.bean.Simple*",
+                LogLevel.DEBUG);
+        simpleBean.getIntegerProperty();
+        simpleBean.getStringProperty();
+
+        Assert.assertEquals(4, mockLogger.getMessages(SimpleBean.class).size());
+    }
+}
@@ -0,0 +1,105 @@
+package org.kusaidia.util.logging;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.kusaidia.util.aspect.LoggingAspect;
+import org.kusaidia.util.logging.bean.StructuredBean;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+
+import java.util.List;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {
+        "/aop-context.xml",
+        "/application-context.xml",
+        "/logger-test-context.xml"})
+@TestExecutionListeners(listeners = {DependencyInjectionTestExecutionListener.class})
+public class LoggingAspectStructuredTest {
+
+    @Autowired
+    @Qualifier("logger")
+    private Log logger;
+
+    private MockLogger mockLogger;
+
+    @Autowired
+    private LoggingAspect loggingAspect;
+
+    @Autowired
+    @Qualifier(value = "structuredBean")
+    private StructuredBean structuredBean;
+
+    @Before
+    public void before() throws Exception {
+        this.mockLogger = (MockLogger) ((Advised) this.logger).getTargetSource().getTarget();
+        this.mockLogger.setLogLevel(StructuredBean.class, LogLevel.DEBUG);
+        this.mockLogger.resetLoggers();
+        this.loggingAspect.setStructuredEvents(true);
+    }
+
+    @After
+    public void after() {
+        this.loggingAspect.setStructuredEvents(false);
+    }
+
+    @Test
+    public void testEnteringAndLeaving() {
+        structuredBean.add(17L, 25L);
+
+        List<LogEvent> events = mockLogger.getEvents(StructuredBean.class);
+        Assert.assertTrue(mockLogger.getMessages(StructuredBean.class).isEmpty());
+        Assert.assertEquals(2, events.size());
+
+        LogEvent entering = events.get(0);
+        Assert.assertEquals(LogEvent.Type.ENTERING, entering.getType());
+        Assert.assertEquals(LogLevel.DEBUG, entering.getLevel());
+        Assert.assertEquals("add", entering.getMethodName());
+        Assert.assertArrayEquals(new Object[]{17L, 25L}, entering.getArguments());
+        Assert.assertFalse(entering.isWithReturnValue());
+        Assert.assertEquals(LogEvent.NO_DURATION, entering.getDuration());
+        Assert.assertEquals(Thread.currentThread().getName(), entering.getThreadName());
+
+        LogEvent leaving = events.get(1);
+        Assert.assertEquals(LogEvent.Type.LEAVING, leaving.getType());
+        Assert.assertTrue(leaving.isWithReturnValue());
+        Assert.assertEquals(42L, leaving.getReturnValue());
+        Assert.assertTrue(leaving.getDuration() >= 0);
+    }
+
+    @Test
+    public void testVoidMethod() {
+        structuredBean.run();
+
+        List<LogEvent> events = mockLogger.getEvents(StructuredBean.class);
+        Assert.assertEquals(2, events.size());
+        Assert.assertNull(events.get(0).getArguments());
+        Assert.assertFalse(events.get(1).isWithReturnValue());
+    }
+
+    @Test
+    public void testThrowing() {
+        this.mockLogger.setLogLevel(StructuredBean.class, LogLevel.ERROR);
+        try {
+            structuredBean.fail("reason");
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            List<LogEvent> events = mockLogger.getEvents(StructuredBean.class);
+            Assert.assertEquals(1, events.size());
+            LogEvent throwing = events.get(0);
+            Assert.assertEquals(LogEvent.Type.THROWING, throwing.getType());
+            Assert.assertEquals(LogLevel.ERROR, throwing.getLevel());
+            Assert.assertSame(e, throwing.getThrowable());
+            Assert.assertArrayEquals(new Object[]{"reason"}, throwing.getArguments());
+            Assert.assertTrue(throwing.getDuration() >= 0);
+        }
+    }
+}
@@ -16,6 +16,7 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
 
 import java.math.BigDecimal;
+import java.util.Date;
 
 @RunWith(SpringJUnit4ClassRunner.class)
 @ContextConfiguration(locations = {
@@ -43,6 +44,9 @@ public class LoggingAspectTest {
         this.mockLogger = (MockLogger) ((Advised) this.logger).getTargetSource().getTarget();
         this.mockLogger.setLogLevel(SimpleBean.class, LogLevel.TRACE);
         this.mockLogger.setLogLevel(SimpleBeanSubclass.class, LogLevel.TRACE);
+        initialize(simpleBean);
+        initialize(simpleBeanSubclass);
+        simpleBeanSubclass.setDecimalProperty(new BigDecimal("0.25"));
         this.mockLogger.resetLoggers();
     }
 
@@ -231,6 +235,32 @@ public class LoggingAspectTest {
                 "[ leaving < getStringProperty > returning stringProperty ]");
     }
 
+    @Test
+    public void testSimpleBean_NestedLoggableInArgument() {
+        simpleBean.setDateProperty(new Date(0) {
+            @Override
+            public String toString() {
+                simpleBean.setIntegerProperty(7);
+                return "nested";
+            }
+        });
+
+        Assert.assertEquals(4, mockLogger.getMessages(SimpleBean.class).size());
+        assertEquals(mockLogger.getMessages(SimpleBean.class).get(0),
+                LogLevel.TRACE,
+                "[ entering < setIntegerProperty > with params 7 ]");
+        assertEquals(mockLogger.getMessages(SimpleBean.class).get(2),
+                LogLevel.TRACE,
+                "[ entering < setDateProperty > with params nested ]");
+    }
+
+    private void initialize(SimpleBean bean) throws Exception {
+        bean.setDateProperty(
+                DateUtils.parseDate("01/01/2010", new String[]{"dd/MM/yyyy"}));
+        bean.setIntegerProperty(100);
+        bean.setStringProperty("stringProperty");
+    }
+
     private void assertEquals(MockLogger.LogMessage logMessage, LogLevel logLevel, String message) {
         Assert.assertEquals(logLevel, logMessage.getLogLevel());
 
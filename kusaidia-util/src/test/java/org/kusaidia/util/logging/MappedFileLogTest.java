@@ -0,0 +1,156 @@
+package org.kusaidia.util.logging;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Locale;
+
+public class MappedFileLogTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        MappedFileLog log = new MappedFileLog(this.folder.getRoot(), "test",
+                MappedFileLog.MIN_SEGMENT_SIZE);
+        log.setLevel(LogLevel.DEBUG);
+        log.start();
+        log.log(LogLevel.INFO, MappedFileLogTest.class, null, "plain message");
+        log.log(LogLevel.DEBUG, MappedFileLogTest.class, null,
+                "{0} has {1,number,#,##0} items, {2}, {3}", "cart", 12345L, true, null);
+        log.logEvent(new LogEvent.Builder(LogEvent.Type.LEAVING, LogLevel.DEBUG,
+                MappedFileLogTest.class, "add").arguments(new Object[]{1, 'c', 2.5})
+                .returnValue(Arrays.asList("a", "b")).duration(42L).build());
+        log.log(LogLevel.TRACE, MappedFileLogTest.class, null, "not written");
+        log.stop();
+
+        String text = this.decode();
+        String[] lines = text.split(System.getProperty("line.separator"));
+        Assert.assertEquals(3, log.getLoggedCount());
+        Assert.assertEquals(3, lines.length);
+        Assert.assertTrue(lines[0], lines[0].endsWith(" INFO [" +
+                Thread.currentThread().getName() + "] " +
+                MappedFileLogTest.class.getName() + " - plain message"));
+        Assert.assertTrue(lines[1], lines[1].endsWith(" - cart has 12,345 items, true, null"));
+        Assert.assertTrue(lines[2], lines[2].endsWith(" - leaving add with params 1, c, 2.5 " +
+                "returning ArrayList[2]{a, b} in 42 ns"));
+    }
+
+    @Test
+    public void testNestedLogging() throws Exception {
+        final MappedFileLog log = new MappedFileLog(this.folder.getRoot(), "test",
+                MappedFileLog.MIN_SEGMENT_SIZE);
+        Object argument = new Object() {
+            @Override
+            public String toString() {
+                log.log(LogLevel.INFO, MappedFileLogTest.class, null,
+                        "nested {0}", "value");
+                return "argument";
+            }
+        };
+        log.start();
+        log.log(LogLevel.INFO, MappedFileLogTest.class, null, "outer {0}, {1}",
+                argument, 7);
+        log.log(LogLevel.INFO, MappedFileLogTest.class, null, "after");
+        log.stop();
+
+        String text = this.decode();
+        String[] lines = text.split(System.getProperty("line.separator"));
+        Assert.assertEquals(3, log.getLoggedCount());
+        Assert.assertEquals(3, lines.length);
+        Assert.assertTrue(lines[0], lines[0].endsWith(" - nested value"));
+        Assert.assertTrue(lines[1], lines[1].endsWith(" INFO [" +
+                Thread.currentThread().getName() + "] " +
+                MappedFileLogTest.class.getName() + " - outer argument, 7"));
+        Assert.assertTrue(lines[2], lines[2].endsWith(" - after"));
+    }
+
+    @Test
+    public void testThrowable() throws Exception {
+        MappedFileLog log = new MappedFileLog(this.folder.getRoot(), "test",
+                MappedFileLog.MIN_SEGMENT_SIZE);
+        log.start();
+        log.log(LogLevel.ERROR, MappedFileLogTest.class,
+                new IllegalStateException("failed"), "error {0}", 1);
+        log.stop();
+
+        String text = this.decode();
+        Assert.assertTrue(text.contains(" - error 1"));
+        Assert.assertTrue(text.contains("java.lang.IllegalStateException: failed"));
+        Assert.assertTrue(text.contains("at " + MappedFileLogTest.class.getName()));
+    }
+
+    @Test
+    public void testRollsSegments() throws Exception {
+        MappedFileLog log = new MappedFileLog(this.folder.getRoot(), "test",
+                MappedFileLog.MIN_SEGMENT_SIZE);
+        log.start();
+        for (int i = 0; i < 5000; i++) {
+            log.log(LogLevel.INFO, MappedFileLogTest.class, null,
+                    "message number {0}", i);
+        }
+        log.stop();
+
+        File[] segments = this.folder.getRoot().listFiles();
+        Assert.assertTrue(segments.length > 1);
+        Arrays.sort(segments);
+        BinaryLogDecoder decoder = new BinaryLogDecoder(Locale.US);
+        int count = 0;
+        for (File segment : segments) {
+            StringBuilder text = new StringBuilder();
+            count += decoder.decode(segment, text);
+            // every segment carries the dictionary entries it refers to
+            Assert.assertTrue(text.toString().contains(MappedFileLogTest.class.getName()
+                    + " - message number "));
+        }
+        Assert.assertEquals(5000, count);
+        Assert.assertEquals(0, log.getDroppedCount());
+    }
+
+    @Test
+    public void testMaxSegments() throws Exception {
+        MappedFileLog log = new MappedFileLog(this.folder.getRoot(), "test",
+                MappedFileLog.MIN_SEGMENT_SIZE);
+        log.setMaxSegments(2);
+        log.start();
+        for (int i = 0; i < 5; i++) {
+            log.roll();
+        }
+        log.stop();
+
+        File[] segments = this.folder.getRoot().listFiles();
+        Arrays.sort(segments);
+        Assert.assertEquals(2, segments.length);
+        Assert.assertEquals("test-000004.klog", segments[0].getName());
+        Assert.assertEquals("test-000005.klog", segments[1].getName());
+
+        // a restarted log goes on after the last segment
+        log.start();
+        Assert.assertEquals(6, log.getSegmentIndex());
+        log.stop();
+    }
+
+    @Test
+    public void testDropsWhenNotRunning() {
+        MappedFileLog log = new MappedFileLog(this.folder.getRoot(), "test",
+                MappedFileLog.MIN_SEGMENT_SIZE);
+        log.log(LogLevel.INFO, MappedFileLogTest.class, null, "message");
+
+        Assert.assertEquals(0, log.getLoggedCount());
+        Assert.assertEquals(1, log.getDroppedCount());
+    }
+
+    private String decode() throws Exception {
+        StringBuilder text = new StringBuilder();
+        BinaryLogDecoder decoder = new BinaryLogDecoder(Locale.US);
+        for (File segment : this.folder.getRoot().listFiles()) {
+            decoder.decode(segment, text);
+        }
+        return text.toString();
+    }
+}
@@ -16,24 +16,26 @@ public class MockLogger implements Log {
 
     private Map<Class<?>, List<LogMessage>> messages = new HashMap<Class<?>, List<LogMessage>>();
 
+    private Map<Class<?>, List<LogEvent>> events = new HashMap<Class<?>, List<LogEvent>>();
+
     public boolean isLogLevelEnabled(LogLevel logLevel, Class<?> clazz) {
         boolean result;
 
         switch (logLevel) {
             case DEBUG:
-                result = isLogLevelEnabled(clazz, LogLevel.DEBUG);
+                result = isEnabledFor(clazz, LogLevel.DEBUG);
                 break;
             case ERROR:
-                result = isLogLevelEnabled(clazz, LogLevel.ERROR);
+                result = isEnabledFor(clazz, LogLevel.ERROR);
                 break;
             case INFO:
-                result = isLogLevelEnabled(clazz, LogLevel.INFO);
+                result = isEnabledFor(clazz, LogLevel.INFO);
                 break;
             case TRACE:
-                result = isLogLevelEnabled(clazz, LogLevel.TRACE);
+                result = isEnabledFor(clazz, LogLevel.TRACE);
                 break;
             case WARN:
-                result = isLogLevelEnabled(clazz, LogLevel.WARN);
+                result = isEnabledFor(clazz, LogLevel.WARN);
                 break;
             default:
                 result = false;
@@ -44,30 +46,39 @@ public class MockLogger implements Log {
 
     public void log(LogLevel logLevel, Class<?> clazz,
                     Throwable throwable, String pattern) {
+        log(logLevel, clazz, throwable, pattern, new Object[0]);
+    }
+
+    public void log(LogLevel logLevel, Class<?> clazz,
+                    Throwable throwable, String pattern, Object... arguments) {
 
         switch (logLevel) {
             case DEBUG:
-                debug(clazz, throwable, pattern);
+                debug(clazz, throwable, pattern, arguments);
                 break;
 
             case ERROR:
-                error(clazz, throwable, pattern);
+                error(clazz, throwable, pattern, arguments);
                 break;
 
             case INFO:
-                info(clazz, throwable, pattern);
+                info(clazz, throwable, pattern, arguments);
                 break;
 
             case TRACE:
-                trace(clazz, throwable, pattern);
+                trace(clazz, throwable, pattern, arguments);
                 break;
 
             case WARN:
-                warn(clazz, throwable, pattern);
+                warn(clazz, throwable, pattern, arguments);
                 break;
         }
     }
 
+    public void logEvent(LogEvent event) {
+        getEvents(event.getSourceClass()).add(event);
+    }
+
     private void debug(Class<?> clazz, Throwable throwable,
                        String pattern, Object... arguments) {
 
@@ -135,6 +146,15 @@ public class MockLogger implements Log {
 
     public void resetLoggers() {
         messages = new HashMap<Class<?>, List<LogMessage>>();
+        events = new HashMap<Class<?>, List<LogEvent>>();
+    }
+
+    public List<LogEvent> getEvents(Class<?> clazz) {
+        if (events.get(clazz) == null) {
+            events.put(clazz, new ArrayList<LogEvent>());
+        }
+
+        return events.get(clazz);
     }
 
     public List<LogMessage> getMessages(Class<?> clazz) {
@@ -145,7 +165,7 @@ public class MockLogger implements Log {
         return messages.get(clazz);
     }
 
-    private boolean isLogLevelEnabled(Class<?> clazz, LogLevel logLevel) {
+    private boolean isEnabledFor(Class<?> clazz, LogLevel logLevel) {
         return logLevelMap.get(clazz) != null &&
                 logLevelMap.get(clazz).equals(logLevel);
     }
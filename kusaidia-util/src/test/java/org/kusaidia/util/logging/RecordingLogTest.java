@@ -0,0 +1,249 @@
+package org.kusaidia.util.logging;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class RecordingLogTest {
+
+    @Test
+    public void testRecordsDisabledLevels() {
+        MockLogger mockLogger = new MockLogger();
+        mockLogger.setLogLevel(RecordingLogTest.class, LogLevel.INFO);
+        RecordingLog recordingLog = new RecordingLog(mockLogger, 64 * 1024);
+
+        Assert.assertTrue(recordingLog.isLogLevelEnabled(LogLevel.DEBUG,
+                RecordingLogTest.class));
+        recordingLog.log(LogLevel.DEBUG, RecordingLogTest.class, null, "debug");
+        recordingLog.log(LogLevel.INFO, RecordingLogTest.class, null, "info");
+
+        Assert.assertEquals(2, recordingLog.getRecordedCount());
+        Assert.assertEquals(1, mockLogger.getMessages(RecordingLogTest.class).size());
+        Assert.assertEquals("info",
+                mockLogger.getMessages(RecordingLogTest.class).get(0).getMessage());
+    }
+
+    @Test
+    public void testRecordingLevel() {
+        MockLogger mockLogger = new MockLogger();
+        RecordingLog recordingLog = new RecordingLog(mockLogger, 64 * 1024);
+        recordingLog.setRecordingLevel(LogLevel.DEBUG);
+
+        Assert.assertFalse(recordingLog.isLogLevelEnabled(LogLevel.TRACE,
+                RecordingLogTest.class));
+        recordingLog.log(LogLevel.TRACE, RecordingLogTest.class, null, "trace");
+
+        Assert.assertEquals(0, recordingLog.getRecordedCount());
+    }
+
+    @Test
+    public void testDumpOnError() {
+        MockLogger mockLogger = new MockLogger();
+        mockLogger.setLogLevel(RecordingLogTest.class, LogLevel.ERROR);
+        RecordingLog recordingLog = new RecordingLog(mockLogger, 64 * 1024);
+        recordingLog.log(LogLevel.DEBUG, RecordingLogTest.class, null, "first");
+        recordingLog.log(LogLevel.TRACE, RecordingLogTest.class, null,
+                "second {0}", 2);
+        recordingLog.logEvent(new LogEvent.Builder(LogEvent.Type.LEAVING,
+                LogLevel.DEBUG, RecordingLogTest.class, "add")
+                .arguments(new Object[]{1, "b"}).returnValue(3).duration(42L)
+                .build());
+        recordingLog.log(LogLevel.ERROR, RecordingLogTest.class,
+                new IllegalStateException("failed"), "error");
+
+        List<String> messages = messages(mockLogger);
+        String thread = Thread.currentThread().getName();
+        Assert.assertEquals(5, messages.size());
+        Assert.assertEquals("[ dumping 3 recorded events of thread " + thread + " ]",
+                messages.get(0));
+        Assert.assertTrue(messages.get(1).endsWith(" DEBUG " + thread + " ] first"));
+        Assert.assertTrue(messages.get(2).endsWith(" TRACE " + thread + " ] second 2"));
+        Assert.assertTrue(messages.get(3).endsWith(" ] leaving add with params 1, b " +
+                "returning 3 in 42 ns"));
+        Assert.assertEquals("error", messages.get(4));
+
+        // the events already dumped are not dumped again
+        mockLogger.resetLoggers();
+        recordingLog.log(LogLevel.ERROR, RecordingLogTest.class, null, "again");
+        Assert.assertEquals(1, messages(mockLogger).size());
+    }
+
+    @Test
+    public void testDumpTypedPattern() {
+        MockLogger mockLogger = new MockLogger();
+        mockLogger.setLogLevel(RecordingLogTest.class, LogLevel.ERROR);
+        RecordingLog recordingLog = new RecordingLog(mockLogger, 64 * 1024);
+        recordingLog.log(LogLevel.DEBUG, RecordingLogTest.class, null,
+                "took {0,number,#} ms", 123L);
+        recordingLog.log(LogLevel.DEBUG, RecordingLogTest.class, null,
+                "ratio {0,number,#.#} of {1,number,integer}", 0.5, 7);
+        recordingLog.log(LogLevel.DEBUG, RecordingLogTest.class, null,
+                "count {0,number}", "many");
+        recordingLog.log(LogLevel.ERROR, RecordingLogTest.class, null, "error");
+
+        List<String> messages = messages(mockLogger);
+        Assert.assertEquals(5, messages.size());
+        Assert.assertTrue(messages.get(1).endsWith("] took 123 ms"));
+        Assert.assertTrue(messages.get(2).endsWith("] ratio 0.5 of 7"));
+        Assert.assertTrue(messages.get(3).endsWith(" with values [many]"));
+        Assert.assertEquals("error", messages.get(4));
+
+        mockLogger.resetLoggers();
+        Assert.assertEquals(4, recordingLog.dump());
+        Assert.assertTrue(messages(mockLogger).get(1).endsWith("] took 123 ms"));
+    }
+
+    @Test
+    public void testNestedRecord() {
+        MockLogger mockLogger = new MockLogger();
+        mockLogger.setLogLevel(RecordingLogTest.class, LogLevel.ERROR);
+        final RecordingLog recordingLog = new RecordingLog(mockLogger, 64 * 1024);
+        Object argument = new Object() {
+            @Override
+            public String toString() {
+                recordingLog.log(LogLevel.DEBUG, RecordingLogTest.class, null,
+                        "nested {0}", 5);
+                return "argument";
+            }
+        };
+        recordingLog.log(LogLevel.DEBUG, RecordingLogTest.class, null,
+                "outer {0} and {1}", argument, "tail");
+
+        Assert.assertEquals(2, recordingLog.getRecordedCount());
+        Assert.assertEquals(2, recordingLog.dump());
+        List<String> messages = messages(mockLogger);
+        Assert.assertEquals(3, messages.size());
+        Assert.assertTrue(messages.get(1), messages.get(1).endsWith(
+                "] outer argument and tail"));
+        Assert.assertTrue(messages.get(2), messages.get(2).endsWith(
+                "] nested 5"));
+    }
+
+    @Test
+    public void testKeepsLastEvents() {
+        MockLogger mockLogger = new MockLogger();
+        mockLogger.setLogLevel(RecordingLogTest.class, LogLevel.ERROR);
+        RecordingLog recordingLog = new RecordingLog(mockLogger,
+                ByteBuffer.allocate(64 * 4), 64, 4);
+        for (int i = 0; i < 10; i++) {
+            recordingLog.log(LogLevel.DEBUG, RecordingLogTest.class, null,
+                    "message " + i);
+        }
+
+        Assert.assertEquals(4, recordingLog.dumpCurrentThread());
+        List<String> messages = messages(mockLogger);
+        Assert.assertTrue(messages.get(1).endsWith("] message 6"));
+        Assert.assertTrue(messages.get(4).endsWith("] message 9"));
+    }
+
+    @Test
+    public void testTruncatesLongEvents() {
+        MockLogger mockLogger = new MockLogger();
+        mockLogger.setLogLevel(RecordingLogTest.class, LogLevel.ERROR);
+        RecordingLog recordingLog = new RecordingLog(mockLogger,
+                ByteBuffer.allocate(64 * 4), 64, 4);
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            message.append('x');
+        }
+        recordingLog.log(LogLevel.DEBUG, RecordingLogTest.class, null,
+                message.toString());
+        recordingLog.dumpCurrentThread();
+
+        String dumped = messages(mockLogger).get(1);
+        String text = dumped.substring(dumped.indexOf("] ") + 2);
+        Assert.assertTrue(text.length() > 0);
+        Assert.assertTrue(message.toString().startsWith(text));
+        Assert.assertTrue(text.length() < message.length());
+    }
+
+    @Test
+    public void testDumpsOnlyCurrentThread() throws Exception {
+        MockLogger mockLogger = new MockLogger();
+        mockLogger.setLogLevel(RecordingLogTest.class, LogLevel.ERROR);
+        // a single segment shared by every thread
+        final RecordingLog recordingLog = new RecordingLog(mockLogger,
+                ByteBuffer.allocateDirect(64 * 8), 64, 8);
+        recordingLog.log(LogLevel.DEBUG, RecordingLogTest.class, null, "mine");
+        Thread other = new Thread(new Runnable() {
+            public void run() {
+                recordingLog.log(LogLevel.DEBUG, RecordingLogTest.class, null,
+                        "other");
+            }
+        });
+        other.start();
+        other.join();
+        recordingLog.log(LogLevel.ERROR, RecordingLogTest.class, null, "error");
+
+        List<String> messages = messages(mockLogger);
+        Assert.assertEquals(3, messages.size());
+        Assert.assertTrue(messages.get(1).endsWith("] mine"));
+
+        mockLogger.resetLoggers();
+        Assert.assertEquals(3, recordingLog.dump());
+    }
+
+    @Test
+    public void testDumpsOfThreadsSharingSegment() throws Exception {
+        MockLogger mockLogger = new MockLogger();
+        mockLogger.setLogLevel(RecordingLogTest.class, LogLevel.ERROR);
+        // two segments shared by three threads
+        final RecordingLog recordingLog = new RecordingLog(mockLogger,
+                ByteBuffer.allocateDirect(64 * 8 * 2), 64, 8);
+        final CountDownLatch recorded = new CountDownLatch(2);
+        final CountDownLatch dumped = new CountDownLatch(1);
+        final List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 2; i++) {
+            final String name = "other " + i;
+            threads.add(new Thread(new Runnable() {
+                public void run() {
+                    recordingLog.log(LogLevel.DEBUG, RecordingLogTest.class,
+                            null, name);
+                    recorded.countDown();
+                    try {
+                        dumped.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    recordingLog.log(LogLevel.ERROR, RecordingLogTest.class,
+                            null, name + " error");
+                }
+            }, "other " + i));
+        }
+        recordingLog.log(LogLevel.DEBUG, RecordingLogTest.class, null, "mine");
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        Assert.assertTrue(recorded.await(5, TimeUnit.SECONDS));
+        recordingLog.log(LogLevel.ERROR, RecordingLogTest.class, null, "error");
+        dumped.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        List<String> messages = messages(mockLogger);
+        Assert.assertEquals(9, messages.size());
+        for (int i = 0; i < 2; i++) {
+            Assert.assertTrue(messages.contains("[ dumping 1 recorded " +
+                    "events of thread other " + i + " ]"));
+        }
+        Assert.assertTrue(messages.contains("other 0 error"));
+        Assert.assertTrue(messages.contains("other 1 error"));
+    }
+
+    private static List<String> messages(MockLogger mockLogger) {
+        List<String> messages = new ArrayList<String>();
+        for (MockLogger.LogMessage message : mockLogger.getMessages(RecordingLog.class)) {
+            messages.add(message.getMessage());
+        }
+        for (MockLogger.LogMessage message : mockLogger.getMessages(RecordingLogTest.class)) {
+            messages.add(message.getMessage());
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,130 @@
+package org.kusaidia.util.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.util.Map;
+
+public class SLF4JLogTest {
+
+    private final SLF4JLog log = new SLF4JLog();
+
+    private Logger logger;
+
+    private ListAppender<ILoggingEvent> appender;
+
+    @Before
+    public void before() {
+        this.logger = (Logger) LoggerFactory.getLogger(SLF4JLogTest.class);
+        this.logger.setLevel(Level.DEBUG);
+        this.appender = new ListAppender<ILoggingEvent>();
+        this.appender.start();
+        this.logger.addAppender(this.appender);
+    }
+
+    @After
+    public void after() {
+        this.logger.detachAppender(this.appender);
+        this.logger.setLevel(null);
+    }
+
+    @Test
+    public void testLogEvent() {
+        log.logEvent(new LogEvent.Builder(LogEvent.Type.LEAVING, LogLevel.DEBUG,
+                SLF4JLogTest.class, "add").arguments(new Object[]{17L, "text"})
+                .returnValue(42L).duration(1520L).threadName("worker").build());
+
+        Assert.assertEquals(1, appender.list.size());
+        ILoggingEvent event = appender.list.get(0);
+        Assert.assertEquals("leaving add", event.getFormattedMessage());
+        Map<String, String> properties = event.getMDCPropertyMap();
+        Assert.assertEquals("LEAVING", properties.get(SLF4JLog.MDC_TYPE));
+        Assert.assertEquals("add", properties.get(SLF4JLog.MDC_METHOD));
+        Assert.assertEquals("17, text", properties.get(SLF4JLog.MDC_ARGUMENTS));
+        Assert.assertEquals("42", properties.get(SLF4JLog.MDC_RETURN));
+        Assert.assertEquals("1520", properties.get(SLF4JLog.MDC_DURATION));
+        Assert.assertEquals("worker", properties.get(SLF4JLog.MDC_THREAD));
+        Assert.assertNull(MDC.get(SLF4JLog.MDC_METHOD));
+    }
+
+    @Test
+    public void testLogEventRestoresMDC() {
+        MDC.put("method", "GET");
+        MDC.put(SLF4JLog.MDC_METHOD, "outer");
+        MDC.put(SLF4JLog.MDC_ARGUMENTS, "outer arguments");
+        try {
+            log.logEvent(new LogEvent.Builder(LogEvent.Type.ENTERING,
+                    LogLevel.DEBUG, SLF4JLogTest.class, "add").build());
+
+            Map<String, String> properties =
+                    appender.list.get(0).getMDCPropertyMap();
+            Assert.assertEquals("add", properties.get(SLF4JLog.MDC_METHOD));
+            Assert.assertNull(properties.get(SLF4JLog.MDC_ARGUMENTS));
+            Assert.assertEquals("GET", properties.get("method"));
+            Assert.assertEquals("GET", MDC.get("method"));
+            Assert.assertEquals("outer", MDC.get(SLF4JLog.MDC_METHOD));
+            Assert.assertEquals("outer arguments",
+                    MDC.get(SLF4JLog.MDC_ARGUMENTS));
+            Assert.assertNull(MDC.get(SLF4JLog.MDC_TYPE));
+        } finally {
+            MDC.clear();
+        }
+    }
+
+    @Test
+    public void testLogEventLevelDisabled() {
+        log.logEvent(new LogEvent.Builder(LogEvent.Type.ENTERING, LogLevel.TRACE,
+                SLF4JLogTest.class, "add").build());
+
+        Assert.assertTrue(appender.list.isEmpty());
+    }
+
+    @Test
+    public void testLogContext() {
+        LogContext.put("request", "42af");
+        try {
+            log.log(LogLevel.INFO, SLF4JLogTest.class, null, "message {0}", 1);
+            log.logEvent(new LogEvent.Builder(LogEvent.Type.ENTERING, LogLevel.DEBUG,
+                    SLF4JLogTest.class, "add").build());
+        } finally {
+            LogContext.clear();
+        }
+
+        Assert.assertEquals(2, appender.list.size());
+        Assert.assertEquals("42af",
+                appender.list.get(0).getMDCPropertyMap().get("request"));
+        Assert.assertEquals("42af",
+                appender.list.get(1).getMDCPropertyMap().get("request"));
+        Assert.assertNull(MDC.get("request"));
+    }
+
+    @Test
+    public void testLogContextRestoresMDC() {
+        MDC.put("requestId", "from-filter");
+        LogContext.put("requestId", "from-context");
+        try {
+            log.log(LogLevel.INFO, SLF4JLogTest.class, null, "message {0}", 1);
+            log.log(LogLevel.INFO, SLF4JLogTest.class, null, "message");
+            log.logEvent(new LogEvent.Builder(LogEvent.Type.ENTERING,
+                    LogLevel.DEBUG, SLF4JLogTest.class, "add").build());
+
+            Assert.assertEquals(3, appender.list.size());
+            for (ILoggingEvent event : appender.list) {
+                Assert.assertEquals("from-context",
+                        event.getMDCPropertyMap().get("requestId"));
+            }
+            Assert.assertEquals("from-filter", MDC.get("requestId"));
+        } finally {
+            LogContext.clear();
+            MDC.clear();
+        }
+    }
+}
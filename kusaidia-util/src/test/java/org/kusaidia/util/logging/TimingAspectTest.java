@@ -0,0 +1,70 @@
+package org.kusaidia.util.logging;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.kusaidia.util.aspect.TimingAspect;
+import org.kusaidia.util.logging.bean.TimedBean;
+import org.kusaidia.util.metrics.TimerRegistry;
+import org.kusaidia.util.metrics.TimerSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+
+import java.util.concurrent.TimeUnit;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {
+        "/aop-context.xml",
+        "/application-context.xml",
+        "/logger-test-context.xml"})
+@TestExecutionListeners(listeners = {DependencyInjectionTestExecutionListener.class})
+public class TimingAspectTest {
+
+    @Autowired
+    private TimingAspect timingAspect;
+
+    @Autowired
+    @Qualifier(value = "timedBean")
+    private TimedBean timedBean;
+
+    private TimerRegistry registry;
+
+    @Before
+    public void before() {
+        this.registry = this.timingAspect.getTimerRegistry();
+        this.registry.reset();
+    }
+
+    @Test
+    public void testCalls() {
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(i, timedBean.succeed(i));
+        }
+
+        TimerSnapshot snapshot = registry.getSnapshot(
+                TimedBean.class.getName() + "#succeed");
+        Assert.assertEquals(10, snapshot.getCalls());
+        Assert.assertEquals(0, snapshot.getErrors());
+        Assert.assertTrue(snapshot.getP50(TimeUnit.NANOSECONDS) <=
+                snapshot.getMax(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void testErrors() {
+        try {
+            timedBean.fail();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        TimerSnapshot snapshot = registry.getSnapshot("timedBean.fail");
+        Assert.assertEquals(1, snapshot.getCalls());
+        Assert.assertEquals(1, snapshot.getErrors());
+    }
+}
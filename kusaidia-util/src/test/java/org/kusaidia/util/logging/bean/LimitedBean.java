@@ -0,0 +1,22 @@
+package org.kusaidia.util.logging.bean;
+
+import org.kusaidia.util.logging.LogLevel;
+import org.kusaidia.util.logging.Loggable;
+import org.springframework.stereotype.Component;
+
+@Component(value = "limitedBean")
+public class LimitedBean {
+
+    @Loggable(value = LogLevel.TRACE, sampleRate = 0.5)
+    public void sampled() {
+    }
+
+    @Loggable(value = LogLevel.TRACE, maxPerSecond = 2)
+    public void rateLimited() {
+    }
+
+    @Loggable(value = LogLevel.TRACE, maxPerSecond = 1)
+    public void failing() {
+        throw new IllegalStateException("failing");
+    }
+}
@@ -0,0 +1,23 @@
+package org.kusaidia.util.logging.bean;
+
+import org.kusaidia.util.logging.LogLevel;
+import org.kusaidia.util.logging.Loggable;
+import org.springframework.stereotype.Component;
+
+@Component(value = "structuredBean")
+public class StructuredBean {
+
+    @Loggable(value = LogLevel.DEBUG)
+    public long add(long first, long second) {
+        return first + second;
+    }
+
+    @Loggable(value = LogLevel.DEBUG)
+    public void run() {
+    }
+
+    @Loggable(value = LogLevel.DEBUG)
+    public void fail(String reason) {
+        throw new IllegalArgumentException(reason);
+    }
+}
@@ -0,0 +1,18 @@
+package org.kusaidia.util.logging.bean;
+
+import org.kusaidia.util.logging.Timed;
+import org.springframework.stereotype.Component;
+
+@Component(value = "timedBean")
+public class TimedBean {
+
+    @Timed
+    public int succeed(int value) {
+        return value;
+    }
+
+    @Timed("timedBean.fail")
+    public void fail() {
+        throw new IllegalStateException("fail");
+    }
+}
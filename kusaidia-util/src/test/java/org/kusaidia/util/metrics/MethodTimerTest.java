@@ -0,0 +1,36 @@
+package org.kusaidia.util.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class MethodTimerTest {
+
+    @Test
+    public void testBucketBounds() {
+        for (long value = 0; value < 1L << 20; value += 7) {
+            int index = MethodTimer.indexOf(value);
+            Assert.assertTrue(value <= MethodTimer.highestValueOf(index));
+            Assert.assertTrue(index == 0 ||
+                    value > MethodTimer.highestValueOf(index - 1));
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        MethodTimer timer = new MethodTimer("timer");
+        for (int i = 1; i <= 1000; i++) {
+            timer.record(i * 1000L, i % 100 == 0);
+        }
+
+        TimerSnapshot snapshot = timer.getSnapshot();
+        Assert.assertEquals(1000, snapshot.getCalls());
+        Assert.assertEquals(10, snapshot.getErrors());
+        Assert.assertEquals(1000000, snapshot.getMax(TimeUnit.NANOSECONDS));
+        Assert.assertEquals(500000, snapshot.getP50(TimeUnit.NANOSECONDS),
+                500000 * 0.07);
+        Assert.assertEquals(990000, snapshot.getP99(TimeUnit.NANOSECONDS),
+                990000 * 0.07);
+    }
+}